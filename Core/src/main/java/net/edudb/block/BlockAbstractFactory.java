@@ -21,7 +21,7 @@ public abstract class BlockAbstractFactory {
 
 	/**
 	 * Returns a block reader that supports multiple file formats. Currently
-	 * supported file formats: binary.
+	 * supported file formats: binary, slotted, segment, mapped.
 	 *
 	 * @param fileType
 	 *            Type of file to read.
@@ -31,7 +31,7 @@ public abstract class BlockAbstractFactory {
 
 	/**
 	 * Returns a block writer that supports multiple file formats. Currently
-	 * supported file formats: binary.
+	 * supported file formats: binary, slotted, segment, mapped.
 	 *
 	 * @param fileType
 	 *            Type of file to write.
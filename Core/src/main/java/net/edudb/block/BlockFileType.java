@@ -12,10 +12,26 @@ package net.edudb.block;
 
 /**
  * Supported page file types.
+ * <ul>
+ * <li>Binary: pages are written as serialized Java objects.</li>
+ * <li>Slotted: pages are written using the
+ * {@link net.edudb.page.SlottedPageFormat} layout.</li>
+ * <li>Segment: pages of a table are written in the slotted layout into the
+ * fixed size frames of a few large segment files.</li>
+ * <li>Mapped: pages are stored like segment pages, but segment files are
+ * memory mapped and pages are read and written through the mapping.</li>
+ * </ul>
  *
  * @author Ahmed Abdul Badie
  *
  */
 public enum BlockFileType {
-	Binary
+	Binary, Slotted, Segment, Mapped;
+
+	/**
+	 * @return Whether pages of this type are stored in segment files.
+	 */
+	public boolean isSegmented() {
+		return this == Segment || this == Mapped;
+	}
 }
@@ -22,10 +22,18 @@ public class BlockReaderFactory extends BlockAbstractFactory {
 
 	@Override
 	public BlockReader getReader(BlockFileType fileType) {
-		if (Objects.requireNonNull(fileType) == BlockFileType.Binary) {
+		switch (Objects.requireNonNull(fileType)) {
+		case Binary:
 			return new BinaryBlockReader();
+		case Slotted:
+			return new SlottedBlockReader();
+		case Segment:
+			return new SegmentBlockReader();
+		case Mapped:
+			return new MappedBlockReader();
+		default:
+			return null;
 		}
-		return null;
 	}
 
 	@Override
@@ -27,10 +27,18 @@ public class BlockWriterFactory extends BlockAbstractFactory {
 
 	@Override
 	public BlockWriter getWriter(BlockFileType fileType) {
-        if (Objects.requireNonNull(fileType) == BlockFileType.Binary) {
-            return new BinaryBlockWriter();
-        }
-        return null;
-    }
+		switch (Objects.requireNonNull(fileType)) {
+		case Binary:
+			return new BinaryBlockWriter();
+		case Slotted:
+			return new SlottedBlockWriter();
+		case Segment:
+			return new SegmentBlockWriter();
+		case Mapped:
+			return new MappedBlockWriter();
+		default:
+			return null;
+		}
+	}
 
 }
@@ -0,0 +1,52 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+package net.edudb.block;
+
+import net.edudb.engine.Config;
+import net.edudb.page.Page;
+import net.edudb.page.SlottedPageFormat;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * A block reader that decodes segment pages directly from a memory mapping
+ * of their frame, leaving the caching of file data to the operating
+ * system. Pages that are not stored in a segment are read as separate page
+ * files.
+ */
+public class MappedBlockReader implements BlockReader {
+
+    @Override
+    public Page read(String workspaceName, String databaseName, String blockName) throws IOException, ClassNotFoundException {
+        if (!SegmentFile.isSegmentPage(blockName)) {
+            return new SlottedBlockReader().read(workspaceName, databaseName, blockName);
+        }
+
+        Path path = SegmentFile.path(workspaceName, databaseName, blockName);
+        long offset = SegmentFile.offset(blockName);
+        if (SegmentFile.channel(path).size() < offset + Config.segmentFrameSize()) {
+            // the last frame of a file written by a segment block writer
+            return new SegmentBlockReader().read(workspaceName, databaseName, blockName);
+        }
+
+        MappedByteBuffer image = SegmentFile.mapFrame(path, offset);
+        int imageLength = image.getInt(0);
+        if (imageLength <= 0 || imageLength > SegmentFile.maxImageSize()) {
+            throw new IOException("Page " + blockName + " is not stored in its segment");
+        }
+
+        image.limit(Integer.BYTES + imageLength);
+        image.position(Integer.BYTES);
+        return SlottedPageFormat.load(image);
+    }
+
+}
@@ -0,0 +1,50 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+package net.edudb.block;
+
+import net.edudb.engine.Config;
+import net.edudb.page.Page;
+import net.edudb.page.SlottedPageFormat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * A block writer that writes segment pages into a memory mapping of their
+ * frame, which reaches the disk once the segment file is forced with
+ * {@link SegmentFile#force(java.nio.file.Path)}. Pages that are not stored in
+ * a segment are written as separate page files.
+ */
+public class MappedBlockWriter implements BlockWriter {
+    @Override
+    public void write(String workspaceName, String databaseName, Page page) throws IOException {
+        if (!SegmentFile.isSegmentPage(page.getName())) {
+            new SlottedBlockWriter().write(workspaceName, databaseName, page);
+            return;
+        }
+
+        ByteBuffer image = SlottedPageFormat.encode(page);
+        if (image.remaining() > SegmentFile.maxImageSize()) {
+            throw new IOException("Page " + page.getName() + " needs " + image.remaining()
+                    + " bytes which does not fit in a segment frame of " + Config.segmentFrameSize() + " bytes");
+        }
+
+        Path path = SegmentFile.path(workspaceName, databaseName, page.getName());
+        long offset = SegmentFile.offset(page.getName());
+        MappedByteBuffer mapping = SegmentFile.mapFrameForWrite(path, offset);
+
+        ByteBuffer frame = mapping.duplicate();
+        frame.putInt(image.remaining());
+        frame.put(image);
+        SegmentFile.frameWritten(path, offset, mapping);
+    }
+}
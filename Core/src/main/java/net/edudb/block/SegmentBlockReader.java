@@ -0,0 +1,57 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+package net.edudb.block;
+
+import net.edudb.page.Page;
+import net.edudb.page.SlottedPageFormat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A block reader that reads pages from the frames of segment files. Each
+ * frame starts with the length of the slotted page image it holds. Pages
+ * that are not stored in a segment are read as separate page files.
+ */
+public class SegmentBlockReader implements BlockReader {
+
+    @Override
+    public Page read(String workspaceName, String databaseName, String blockName) throws IOException, ClassNotFoundException {
+        if (!SegmentFile.isSegmentPage(blockName)) {
+            return new SlottedBlockReader().read(workspaceName, databaseName, blockName);
+        }
+
+        FileChannel channel = SegmentFile.channel(SegmentFile.path(workspaceName, databaseName, blockName));
+        long offset = SegmentFile.offset(blockName);
+
+        ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+        readFully(channel, length, offset);
+        int imageLength = length.getInt(0);
+        if (imageLength <= 0 || imageLength > SegmentFile.maxImageSize()) {
+            throw new IOException("Page " + blockName + " is not stored in its segment");
+        }
+
+        ByteBuffer image = ByteBuffer.allocate(imageLength);
+        readFully(channel, image, offset + Integer.BYTES);
+        image.flip();
+        return SlottedPageFormat.load(image);
+    }
+
+    private void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of segment file");
+            }
+        }
+    }
+
+}
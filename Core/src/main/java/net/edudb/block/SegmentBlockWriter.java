@@ -0,0 +1,49 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+package net.edudb.block;
+
+import net.edudb.engine.Config;
+import net.edudb.page.Page;
+import net.edudb.page.SlottedPageFormat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A block writer that writes pages into the frames of segment files. Pages
+ * that are not stored in a segment are written as separate page files.
+ */
+public class SegmentBlockWriter implements BlockWriter {
+    @Override
+    public void write(String workspaceName, String databaseName, Page page) throws IOException {
+        if (!SegmentFile.isSegmentPage(page.getName())) {
+            new SlottedBlockWriter().write(workspaceName, databaseName, page);
+            return;
+        }
+
+        ByteBuffer image = SlottedPageFormat.encode(page);
+        if (image.remaining() > SegmentFile.maxImageSize()) {
+            throw new IOException("Page " + page.getName() + " needs " + image.remaining()
+                    + " bytes which does not fit in a segment frame of " + Config.segmentFrameSize() + " bytes");
+        }
+
+        ByteBuffer frame = ByteBuffer.allocate(Integer.BYTES + image.remaining());
+        frame.putInt(image.remaining());
+        frame.put(image);
+        frame.flip();
+
+        FileChannel channel = SegmentFile.channel(SegmentFile.path(workspaceName, databaseName, page.getName()));
+        long offset = SegmentFile.offset(page.getName());
+        while (frame.hasRemaining()) {
+            channel.write(frame, offset + frame.position());
+        }
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+package net.edudb.block;
+
+import net.edudb.engine.Config;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Addresses pages that are stored inside segment files. A segment is the set
+ * of files owned by one table, each holding
+ * {@link Config#pagesPerSegmentFile()} fixed size frames of
+ * {@link Config#segmentFrameSize()} bytes. A segment page is named
+ * <b>segmentName.pageNumber</b>, which is enough to find the file and the
+ * byte offset of its frame.
+ * <p>
+ * File channels are opened once and kept open, since positional reads and
+ * writes on a {@link FileChannel} are safe to use from multiple threads.
+ * Segment files are mapped in regions of up to {@link #REGION_SIZE} bytes,
+ * each mapped once and kept; frames are slices of their region's mapping.
+ */
+public class SegmentFile {
+    private static final Map<Path, FileChannel> channels = new ConcurrentHashMap<>();
+
+    /**
+     * The number of bytes of a segment file covered by one mapping, rounded
+     * down to a whole number of frames.
+     */
+    private static final int REGION_SIZE = 16 << 20;
+
+    /**
+     * The mappings of the regions of the segment files, by file and region
+     * number. A mapping only covers the part of its region that is in the
+     * file, so that mapping does not grow the file, and is replaced by a
+     * longer one when a frame past its end is read or written.
+     */
+    private static final Map<Path, Map<Long, MappedByteBuffer>> regions = new ConcurrentHashMap<>();
+
+    /**
+     * The mappings of the frames written through a mapping since their file
+     * was last forced, by file and frame offset.
+     */
+    private static final Map<Path, Map<Long, MappedByteBuffer>> writtenFrames = new ConcurrentHashMap<>();
+
+    private SegmentFile() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * @param segmentName The name of the segment that owns the page.
+     * @param pageNumber  The number of the page inside the segment.
+     * @return The name of the page.
+     */
+    public static String pageName(String segmentName, int pageNumber) {
+        return segmentName + "." + pageNumber;
+    }
+
+    /**
+     * @param pageName The name of the page.
+     * @return Whether the page is stored inside a segment file.
+     */
+    public static boolean isSegmentPage(String pageName) {
+        int separator = pageName.lastIndexOf('.');
+        if (separator <= 0 || separator == pageName.length() - 1) {
+            return false;
+        }
+        for (int i = separator + 1; i < pageName.length(); i++) {
+            if (!Character.isDigit(pageName.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param pageName The name of a segment page.
+     * @return The name of the segment that owns the page.
+     */
+    public static String segmentName(String pageName) {
+        return pageName.substring(0, pageName.lastIndexOf('.'));
+    }
+
+    /**
+     * @param pageName The name of a segment page.
+     * @return The number of the page inside its segment.
+     */
+    public static int pageNumber(String pageName) {
+        return Integer.parseInt(pageName.substring(pageName.lastIndexOf('.') + 1));
+    }
+
+    /**
+     * @return The size in bytes of the largest page image a frame can hold,
+     * after the length that precedes the image.
+     */
+    public static int maxImageSize() {
+        return Config.segmentFrameSize() - Integer.BYTES;
+    }
+
+    /**
+     * @return The path of the segment file that holds the page.
+     */
+    public static Path path(String workspaceName, String databaseName, String pageName) {
+        int fileNumber = pageNumber(pageName) / Config.pagesPerSegmentFile();
+        return Config.segmentPath(workspaceName, databaseName, segmentName(pageName), fileNumber);
+    }
+
+    /**
+     * @return The byte offset of the page's frame inside its segment file.
+     */
+    static long offset(String pageName) {
+        return (long) (pageNumber(pageName) % Config.pagesPerSegmentFile()) * Config.segmentFrameSize();
+    }
+
+    static FileChannel channel(Path path) throws IOException {
+        try {
+            return channels.computeIfAbsent(path, key -> {
+                try {
+                    return FileChannel.open(key, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                            StandardOpenOption.WRITE);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Maps a single frame of a segment file for reading. The file must be
+     * long enough to hold the whole frame.
+     *
+     * @param path   The path of the segment file.
+     * @param offset The byte offset of the frame inside the file.
+     * @return A mapping of the frame, which must only be read.
+     */
+    static MappedByteBuffer mapFrame(Path path, long offset) throws IOException {
+        return frame(path, offset);
+    }
+
+    /**
+     * Maps a single frame of a segment file for writing. The file grows to
+     * hold the whole frame.
+     *
+     * @param path   The path of the segment file.
+     * @param offset The byte offset of the frame inside the file.
+     * @return A read-write mapping of the frame.
+     */
+    static MappedByteBuffer mapFrameForWrite(Path path, long offset) throws IOException {
+        return frame(path, offset);
+    }
+
+    /**
+     * @return A slice of the mapping of the frame's region, mapping the region
+     * again only if the frame is past the end of its mapping.
+     */
+    private static MappedByteBuffer frame(Path path, long offset) throws IOException {
+        checkFrameOffset(offset);
+        int frameSize = Config.segmentFrameSize();
+        long regionSize = (long) Math.max(1, REGION_SIZE / frameSize) * frameSize;
+        long region = offset / regionSize;
+        long regionOffset = region * regionSize;
+        int frameIndex = (int) (offset - regionOffset);
+
+        Map<Long, MappedByteBuffer> fileRegions = regions.computeIfAbsent(path, key -> new ConcurrentHashMap<>());
+        MappedByteBuffer mapping = fileRegions.get(region);
+        if (mapping == null || mapping.capacity() < frameIndex + frameSize) {
+            synchronized (fileRegions) {
+                mapping = fileRegions.get(region);
+                if (mapping == null || mapping.capacity() < frameIndex + frameSize) {
+                    FileChannel channel = channel(path);
+                    long length = Math.min(regionSize,
+                            Math.max(channel.size() - regionOffset, frameIndex + frameSize));
+                    mapping = channel.map(FileChannel.MapMode.READ_WRITE, regionOffset, length);
+                    fileRegions.put(region, mapping);
+                }
+            }
+        }
+        return mapping.slice(frameIndex, frameSize);
+    }
+
+    /**
+     * Records that a frame was written through its mapping, so that the next
+     * {@link #force(Path)} of the file forces it.
+     */
+    static void frameWritten(Path path, long offset, MappedByteBuffer mapping) {
+        writtenFrames.computeIfAbsent(path, key -> new ConcurrentHashMap<>()).put(offset, mapping);
+    }
+
+    private static void checkFrameOffset(long offset) throws IOException {
+        if (offset < 0 || offset % Config.segmentFrameSize() != 0) {
+            throw new IOException("Offset " + offset + " is not the start of a segment frame");
+        }
+    }
+
+    /**
+     * Forces the frames written to a segment file, through its channel or its
+     * mappings, to the storage device. Frames written while the file is
+     * forced are forced by the next call.
+     *
+     * @param path The path of a file.
+     * @return Whether the file is an open segment file, false if it was not
+     * forced.
+     */
+    public static boolean force(Path path) throws IOException {
+        Map<Long, MappedByteBuffer> frames = writtenFrames.remove(path);
+        FileChannel channel = channels.get(path);
+        if (channel == null) {
+            return false;
+        }
+        if (frames != null) {
+            for (MappedByteBuffer mapping : frames.values()) {
+                mapping.force();
+            }
+        }
+        channel.force(false);
+        return true;
+    }
+
+    /**
+     * Deletes all the files of a segment from disk.
+     *
+     * @param workspaceName The name of the workspace that contains the segment.
+     * @param databaseName  The name of the database that contains the segment.
+     * @param segmentName   The name of the segment to delete.
+     */
+    public static void delete(String workspaceName, String databaseName, String segmentName) throws IOException {
+        for (int fileNumber = 0; ; fileNumber++) {
+            Path path = Config.segmentPath(workspaceName, databaseName, segmentName, fileNumber);
+            close(path);
+            if (!Files.deleteIfExists(path)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Closes the open channels of all segment files under a path. Must be
+     * called before the files are deleted.
+     *
+     * @param path A segment file or a directory containing segment files.
+     */
+    public static void close(Path path) throws IOException {
+        for (Path channelPath : channels.keySet()) {
+            if (channelPath.startsWith(path)) {
+                writtenFrames.remove(channelPath);
+                regions.remove(channelPath);
+                FileChannel channel = channels.remove(channelPath);
+                if (channel != null) {
+                    channel.close();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+package net.edudb.block;
+
+import net.edudb.engine.Config;
+import net.edudb.page.Page;
+import net.edudb.page.SlottedPageFormat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A block reader that reads page files written in the slotted page format.
+ * Pages that were written before switching to the slotted format are still
+ * read as serialized binary pages.
+ */
+public class SlottedBlockReader implements BlockReader {
+
+    @Override
+    public Page read(String workspaceName, String databaseName, String blockName) throws IOException, ClassNotFoundException {
+        Path pagePath = Config.pagePath(workspaceName, databaseName, blockName);
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(pagePath));
+        if (!SlottedPageFormat.isSlotted(buffer)) {
+            return new BinaryBlockReader().read(workspaceName, databaseName, blockName);
+        }
+        return SlottedPageFormat.load(buffer);
+    }
+
+}
@@ -0,0 +1,127 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+package net.edudb.buffer;
+
+import net.edudb.page.Page;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+/**
+ * Replaces pages from the buffer pool according to the ARC (adaptive
+ * replacement cache) algorithm. Pages read once are kept in the <b>recent</b>
+ * list and pages read at least twice in the <b>frequent</b> list, both
+ * managed as LRU. The keys of pages removed from each list are remembered in
+ * a ghost list. A read that hits a ghost list shows that the matching list
+ * was too small, and moves the target size of the recent list accordingly.
+ */
+public class ARCPageReplacement extends PageReplacement {
+    private final LinkedHashSet<PageKey> recent;
+    private final LinkedHashSet<PageKey> frequent;
+    private final LinkedHashSet<PageKey> recentGhosts;
+    private final LinkedHashSet<PageKey> frequentGhosts;
+    private final int capacity;
+
+    /**
+     * The target number of pages in the recent list.
+     */
+    private int target;
+
+    public ARCPageReplacement(LinkedHashMap<PageKey, Page> pageBuffer, int capacity) {
+        super(pageBuffer);
+        this.recent = new LinkedHashSet<>();
+        this.frequent = new LinkedHashSet<>();
+        this.recentGhosts = new LinkedHashSet<>();
+        this.frequentGhosts = new LinkedHashSet<>();
+        this.capacity = Math.max(1, capacity);
+        this.target = 0;
+    }
+
+    @Override
+    public Page read(PageKey key) {
+        if (recent.remove(key) || frequent.remove(key)) {
+            frequent.add(key);
+        }
+        return pageBuffer.get(key);
+    }
+
+    @Override
+    public void put(PageKey key, Page page) {
+        if (!pageBuffer.containsKey(key)) {
+            if (recentGhosts.remove(key)) {
+                target = Math.min(capacity, target + Math.max(frequentGhosts.size() / Math.max(1, recentGhosts.size()), 1));
+                frequent.add(key);
+            } else if (frequentGhosts.remove(key)) {
+                target = Math.max(0, target - Math.max(recentGhosts.size() / Math.max(1, frequentGhosts.size()), 1));
+                frequent.add(key);
+            } else {
+                recent.add(key);
+            }
+        }
+        pageBuffer.put(key, page);
+    }
+
+    @Override
+    public Map.Entry<PageKey, Page> remove() {
+        Map.Entry<PageKey, Page> victim = null;
+        if (!recent.isEmpty() && (recent.size() > target || frequent.isEmpty())) {
+            victim = removeFirst(recent);
+            if (victim != null) {
+                recentGhosts.add(victim.getKey());
+            }
+        }
+        if (victim == null) {
+            victim = removeFirst(frequent);
+            if (victim != null) {
+                frequentGhosts.add(victim.getKey());
+            }
+        }
+        if (victim == null) {
+            victim = removeFirst(recent);
+            if (victim != null) {
+                recentGhosts.add(victim.getKey());
+            }
+        }
+        trimGhosts();
+        return victim;
+    }
+
+    /**
+     * Keeps the recent list and its ghosts within the capacity, and all lists
+     * together within twice the capacity.
+     */
+    private void trimGhosts() {
+        while (!recentGhosts.isEmpty() && recent.size() + recentGhosts.size() > capacity) {
+            removeOldest(recentGhosts);
+        }
+        while (!frequentGhosts.isEmpty()
+                && recent.size() + frequent.size() + recentGhosts.size() + frequentGhosts.size() > 2 * capacity) {
+            removeOldest(frequentGhosts);
+        }
+    }
+
+    private void removeOldest(LinkedHashSet<PageKey> list) {
+        Iterator<PageKey> iterator = list.iterator();
+        iterator.next();
+        iterator.remove();
+    }
+
+    @Override
+    public void remove(PageKey key) {
+        recent.remove(key);
+        frequent.remove(key);
+        recentGhosts.remove(key);
+        frequentGhosts.remove(key);
+        pageBuffer.remove(key);
+    }
+
+}
@@ -10,40 +10,75 @@
 package net.edudb.buffer;
 
 import net.edudb.engine.Config;
-import net.edudb.engine.FileManager;
 import net.edudb.page.Page;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Predicate;
 
 /**
  * Singleton that handles pages read/written from/to disk.
+ * <p>
+ * Pages of all workspaces and databases share one buffer pool that holds at
+ * most {@link Config#bufferSize()} pages. The pool is split into
+ * {@link Config#bufferStripes()} stripes, each with its own lock, so that
+ * reading a buffered page only locks the stripe that holds it. When a stripe
+ * is full, a page is chosen by its {@link PageReplacement} policy and written
+ * to disk if it is dirty. Pages that are pinned or locked are never removed;
+ * if every page of a stripe is in use the stripe grows past its size until
+ * pages are released.
  *
  * @author Ahmed Abdul Badie
  */
 public class BufferManager {
 
     private static final BufferManager instance = new BufferManager();
-    // workspaceName -> databaseName -> pageName -> page
-    private Map<String, Map<String, LinkedHashMap<String, Page>>> pageBuffer;
-    private final Map<String, Map<String, PageReplacement>> replacement;
+    private final BufferStripe[] stripes;
+
+    /**
+     * Reads pages ahead of sequential scans in the background.
+     */
+    private final ExecutorService readAheadExecutor;
 
     private BufferManager() {
-        pageBuffer = new HashMap<>();
-        this.replacement = new HashMap<>();
+        this(Config.bufferSize(), Config.bufferStripes());
+    }
+
+    /**
+     * Creates a buffer pool of its own, apart from the shared instance. Used
+     * by tests that need a pool of a given size.
+     *
+     * @param bufferSize  The maximum number of pages kept in the pool.
+     * @param stripeCount The number of stripes the pool is split into.
+     */
+    BufferManager(int bufferSize, int stripeCount) {
+        stripeCount = Math.max(1, stripeCount);
+        int stripeCapacity = Math.max(1, bufferSize / stripeCount);
+        this.stripes = new BufferStripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new BufferStripe(stripeCapacity);
+        }
+        this.readAheadExecutor = Executors.newFixedThreadPool(Math.max(1, Config.readAheadThreads()), runnable -> {
+            Thread thread = new Thread(runnable, "buffer-read-ahead");
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     public static BufferManager getInstance() {
         return instance;
     }
 
-    private void addWorkspaceAndDatabaseIfNotPresent(String workspaceName, String databaseName) {
-        pageBuffer.putIfAbsent(workspaceName, new HashMap<>());
-        pageBuffer.get(workspaceName).putIfAbsent(databaseName, new LinkedHashMap<>());
-        replacement.putIfAbsent(workspaceName, new HashMap<>());
-        replacement.get(workspaceName).putIfAbsent(databaseName,
-                new LRUPageReplacement(pageBuffer.get(workspaceName).get(databaseName)));
+    private BufferStripe stripe(PageKey key) {
+        return stripes[Math.floorMod(key.hashCode(), stripes.length)];
     }
 
     /**
@@ -56,7 +91,7 @@ public class BufferManager {
      * @deprecated Use {@link #read(String, String, String)} instead.
      */
     @Deprecated
-    public synchronized Page read(String pageName) {
+    public Page read(String pageName) {
         return read(Config.getCurrentWorkspace(), Config.getCurrentDatabaseName(), pageName);
     }
 
@@ -70,116 +105,303 @@ public class BufferManager {
      * @param pageName      The name of the page to read.
      * @return The page read from disk.
      */
-    public synchronized Page read(String workspaceName, String databaseName, String pageName) {
-        addWorkspaceAndDatabaseIfNotPresent(workspaceName, databaseName);
+    public Page read(String workspaceName, String databaseName, String pageName) {
+        PageKey key = new PageKey(workspaceName, databaseName, pageName);
+        return stripe(key).read(key);
+    }
+
+    /**
+     * Reads a page like {@link #read(String, String, String)} and pins it, so
+     * that it stays in the buffer pool until it is unpinned.
+     *
+     * @param workspaceName The name of the workspace to read from.
+     * @param databaseName  The name of the database to read from.
+     * @param pageName      The name of the page to read.
+     * @return The pinned page, or null if the page does not exist.
+     */
+    public Page pin(String workspaceName, String databaseName, String pageName) {
+        return pin(workspaceName, databaseName, pageName, null);
+    }
+
+    /**
+     * Pins a page for a scan that uses a {@link BufferRing}. If the page has
+     * to be read from disk, it takes a slot of the ring rather than a slot of
+     * the buffer pool.
+     *
+     * @param workspaceName The name of the workspace to read from.
+     * @param databaseName  The name of the database to read from.
+     * @param pageName      The name of the page to read.
+     * @param ring          The ring of the scan, or null to use the pool.
+     * @return The pinned page, or null if the page does not exist.
+     */
+    public Page pin(String workspaceName, String databaseName, String pageName, BufferRing ring) {
+        PageKey key = new PageKey(workspaceName, databaseName, pageName);
+        Page page = stripe(key).pin(key, ring);
+        if (ring != null) {
+            release(ring, ring.drainReleased());
+        }
+        return page;
+    }
 
-        Page page = replacement.get(workspaceName).get(databaseName).read(pageName);
+    /**
+     * Removes all the pages of a scan ring from the buffer pool, once the scan
+     * is done.
+     *
+     * @param ring The ring to empty.
+     */
+    public void release(BufferRing ring) {
+        release(ring, ring.drainAll());
+    }
 
-        if (page != null) {
-            return page;
+    private void release(BufferRing ring, List<PageKey> keys) {
+        for (PageKey key : keys) {
+            if (!stripe(key).release(key)) {
+                ring.retry(key);
+            }
         }
+    }
 
-        page = this.readFromDisk(workspaceName, databaseName, pageName);
+    /**
+     * Asynchronously reads pages into the buffer pool, so that they are
+     * already buffered when a sequential scan reaches them.
+     *
+     * @param workspaceName The name of the workspace to read from.
+     * @param databaseName  The name of the database to read from.
+     * @param pageNames     The names of the pages to read.
+     */
+    public void prefetch(String workspaceName, String databaseName, List<String> pageNames) {
+        prefetch(workspaceName, databaseName, pageNames, null);
+    }
 
-        if (page != null) {
-            replacement.get(workspaceName).get(databaseName).put(page);
+    /**
+     * Asynchronously reads pages for a scan that uses a {@link BufferRing}.
+     *
+     * @param workspaceName The name of the workspace to read from.
+     * @param databaseName  The name of the database to read from.
+     * @param pageNames     The names of the pages to read.
+     * @param ring          The ring of the scan, or null to use the pool.
+     */
+    public void prefetch(String workspaceName, String databaseName, List<String> pageNames, BufferRing ring) {
+        for (String pageName : pageNames) {
+            PageKey key = new PageKey(workspaceName, databaseName, pageName);
+            readAheadExecutor.execute(() -> {
+                stripe(key).prefetch(key, ring);
+                if (ring != null) {
+                    release(ring, ring.drainReleased());
+                }
+            });
         }
-        return page;
     }
 
     /**
-     * Writes a page to disk and adds it to the buffer.
+     * Releases a page pinned by {@link #pin(String, String, String)}.
+     *
+     * @param workspaceName The name of the workspace of the page.
+     * @param databaseName  The name of the database of the page.
+     * @param page          The page to unpin.
+     */
+    public void unpin(String workspaceName, String databaseName, Page page) {
+        page.unpin();
+    }
+
+    /**
+     * Adds a page to the buffer. The page is written to disk when it is
+     * removed from the buffer or flushed.
      *
      * @param workspaceName The name of the workspace to write to.
      * @param databaseName  The name of the database to write to.
      * @param page          The page to write.
      */
-    public synchronized void write(String workspaceName, String databaseName, Page page) {
-        addWorkspaceAndDatabaseIfNotPresent(workspaceName, databaseName);
-
-        replacement.get(workspaceName).get(databaseName).put(page);
+    public void write(String workspaceName, String databaseName, Page page) {
+        PageKey key = new PageKey(workspaceName, databaseName, page.getName());
+        stripe(key).put(key, page);
     }
 
     /**
-     * Writes all the pages from all workspaces and all databases to disk.
-     * Used as a background task runs periodically.
+     * Writes all the dirty pages from all workspaces and all databases to disk
+     * and empties the buffer pool, except for the pages that are in use.
      */
     public void writeAll() {
-        for (String workspaceName : pageBuffer.keySet()) {
-            writeAll(workspaceName);
-        }
+        writeAll(key -> true);
     }
 
     /**
      * @param workspaceName The name of the workspace to write all pages from.
      */
     public void writeAll(String workspaceName) {
-        for (String databaseName : pageBuffer.get(workspaceName).keySet()) {
-            writeAll(workspaceName, databaseName);
-        }
+        writeAll(key -> key.belongsTo(workspaceName));
     }
 
     /**
+     * Writes the dirty pages of a database to disk and empties its buffer
+     * pool. Clean pages are dropped without being written, and pages that are
+     * in use stay in the pool.
+     *
      * @param workspaceName The name of the workspace to write all pages from.
      * @param databaseName  The name of the database to write all pages from.
      */
     public void writeAll(String workspaceName, String databaseName) {
-        addWorkspaceAndDatabaseIfNotPresent(workspaceName, databaseName);
+        writeAll(key -> key.belongsTo(workspaceName, databaseName));
+    }
 
-        for (Page page : pageBuffer.get(workspaceName).get(databaseName).values()) {
-            this.writeToDisk(workspaceName, databaseName, page);
+    private void writeAll(Predicate<PageKey> filter) {
+        for (BufferStripe stripe : stripes) {
+            stripe.writeAll(filter);
         }
+    }
 
-        pageBuffer.get(workspaceName).get(databaseName).clear();
+    /**
+     * Writes the dirty pages from all workspaces and all databases to disk,
+     * keeping all pages in the buffer pool. Used as a background task that
+     * runs periodically.
+     */
+    public void flushDirty() {
+        flushDirty(key -> true);
     }
 
     /**
-     * Reads a page from disk by requesting the read from the
-     * {@link FileManager}.
+     * Writes the dirty pages of a database to disk, keeping all pages in the
+     * buffer pool.
      *
-     * @param pageName The name of the page to be read from disk.
-     * @return The page read from disk.
+     * @param workspaceName The name of the workspace to write pages from.
+     * @param databaseName  The name of the database to write pages from.
      */
-    private Page readFromDisk(String workspaceName, String databaseName, String pageName) {
-        return FileManager.getInstance().readPage(workspaceName, databaseName, pageName);
+    public void flushDirty(String workspaceName, String databaseName) {
+        flushDirty(key -> key.belongsTo(workspaceName, databaseName));
+    }
+
+    private void flushDirty(Predicate<PageKey> filter) {
+        for (BufferStripe stripe : stripes) {
+            stripe.flushDirty(filter);
+        }
     }
 
     /**
-     * Writes a page to disk by requesting the write from the
-     * {@link FileManager}.
+     * Writes pages of a database to disk, keeping them in the buffer pool.
+     * Pages that were removed from the pool are waited for until their writes
+     * are done.
      *
-     * @param workspaceName
-     * @param page          The page to be written to disk.
+     * @param workspaceName The name of the workspace that contains the pages.
+     * @param databaseName  The name of the database that contains the pages.
+     * @param pageNames     The names of the pages to write.
+     * @return Whether all the pages are on disk.
      */
-    private void writeToDisk(String workspaceName, String databaseName, Page page) {
-        FileManager.getInstance().writePage(workspaceName, databaseName, page);
+    public boolean flushPages(String workspaceName, String databaseName, Collection<String> pageNames) {
+        boolean written = true;
+        for (String pageName : pageNames) {
+            PageKey key = new PageKey(workspaceName, databaseName, pageName);
+            written &= stripe(key).flush(key);
+        }
+        return written;
     }
 
+    /**
+     * Writes a bounded number of dirty pages to disk, keeping them in the
+     * buffer pool. The pages holding the oldest logged changes are written
+     * first, then the pages with changes that were not logged.
+     *
+     * @param maxPages The maximum number of pages to write.
+     * @return The number of pages written.
+     */
+    public int flushOldestDirty(int maxPages) {
+        List<Map.Entry<PageKey, Page>> dirtyPages = new ArrayList<>();
+        Map<PageKey, BufferStripe> pageStripes = new HashMap<>();
+        for (BufferStripe stripe : stripes) {
+            for (Map.Entry<PageKey, Page> entry : stripe.dirtyPages(key -> true)) {
+                dirtyPages.add(entry);
+                pageStripes.put(entry.getKey(), stripe);
+            }
+        }
+        dirtyPages.sort(Comparator.comparingLong(entry -> dirtyLsn(entry.getValue())));
+
+        int written = 0;
+        for (Map.Entry<PageKey, Page> entry : dirtyPages) {
+            if (written >= maxPages) {
+                break;
+            }
+            if (pageStripes.get(entry.getKey()).flush(entry)) {
+                written++;
+            }
+        }
+        return written;
+    }
+
+    /**
+     * @return The smallest LSN of a logged change that is only in the buffer
+     * pool, {@link Long#MAX_VALUE} if all logged changes are on disk.
+     */
+    public long oldestDirtyLsn() {
+        long oldest = Long.MAX_VALUE;
+        for (BufferStripe stripe : stripes) {
+            oldest = Math.min(oldest, stripe.oldestDirtyLsn());
+        }
+        return oldest;
+    }
+
+    /**
+     * @return The number of dirty pages in the buffer pool.
+     */
+    public int dirtyCount() {
+        int count = 0;
+        for (BufferStripe stripe : stripes) {
+            count += stripe.dirtyCount();
+        }
+        return count;
+    }
+
+    /**
+     * @return The page's dirty LSN, or {@link Long#MAX_VALUE} for pages whose
+     * changes were not logged.
+     */
+    static long dirtyLsn(Page page) {
+        long dirtyLsn = page.getDirtyLsn();
+        return dirtyLsn == 0 ? Long.MAX_VALUE : dirtyLsn;
+    }
+
+    /**
+     * Drops pages from the buffer without writing them to disk.
+     */
+    private void discard(Predicate<PageKey> filter) {
+        for (BufferStripe stripe : stripes) {
+            stripe.discard(filter);
+        }
+    }
+
+    /**
+     * Drops any pages left in the buffer by a previous workspace with the same
+     * name.
+     */
     public void createWorkspace(String workspaceName) {
-        pageBuffer.putIfAbsent(workspaceName, new HashMap<>());
-        replacement.putIfAbsent(workspaceName, new HashMap<>());
+        discard(key -> key.belongsTo(workspaceName));
     }
 
     public void removeWorkspace(String workspaceName) {
-        pageBuffer.remove(workspaceName);
-        replacement.remove(workspaceName);
+        discard(key -> key.belongsTo(workspaceName));
     }
 
+    /**
+     * Drops any pages left in the buffer by a previous database with the same
+     * name.
+     */
     public void createDatabase(String workspaceName, String databaseName) {
-        pageBuffer.putIfAbsent(workspaceName, new HashMap<>());
-        replacement.putIfAbsent(workspaceName, new HashMap<>());
-
-        pageBuffer.get(workspaceName).putIfAbsent(databaseName, new LinkedHashMap<>());
-        replacement.get(workspaceName).putIfAbsent(databaseName,
-                new LRUPageReplacement(pageBuffer.get(workspaceName).get(databaseName)));
+        discard(key -> key.belongsTo(workspaceName, databaseName));
     }
 
     public void removeDatabase(String workspaceName, String databaseName) {
-        pageBuffer.putIfAbsent(workspaceName, new HashMap<>());
-        replacement.putIfAbsent(workspaceName, new HashMap<>());
+        discard(key -> key.belongsTo(workspaceName, databaseName));
+    }
 
-        pageBuffer.get(workspaceName).remove(databaseName);
-        replacement.get(workspaceName).remove(databaseName);
+    /**
+     * Drops deleted pages from the buffer, so that they are not written back
+     * to disk.
+     *
+     * @param workspaceName The name of the workspace of the pages.
+     * @param databaseName  The name of the database of the pages.
+     * @param pageNames     The names of the deleted pages.
+     */
+    public void removePages(String workspaceName, String databaseName, Collection<String> pageNames) {
+        Set<String> names = new HashSet<>(pageNames);
+        discard(key -> key.belongsTo(workspaceName, databaseName) && names.contains(key.pageName()));
     }
 
 }
@@ -0,0 +1,113 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+package net.edudb.buffer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * A small, private set of buffer slots used by a large sequential scan. Pages
+ * the scan has to read from disk are tracked by the ring instead of competing
+ * with the rest of the buffer pool: they are added to the pool without
+ * removing other pages, and are removed again once they fall off the end of
+ * the ring. Pages that were already buffered are left alone, so a scan never
+ * pushes the working set of other queries out of the pool.
+ */
+public class BufferRing {
+    private final int size;
+    private final Deque<PageKey> keys;
+    private final List<PageKey> released;
+
+    /**
+     * Set once the scan is done, so that late read-ahead requests of the scan
+     * no longer read pages.
+     */
+    private boolean closed;
+
+    /**
+     * @param size The number of pages the ring holds.
+     */
+    public BufferRing(int size) {
+        this.size = Math.max(1, size);
+        this.keys = new ArrayDeque<>();
+        this.released = new ArrayList<>();
+    }
+
+    /**
+     * @return The number of pages the ring holds.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds a page read by the scan, pushing the oldest page off the ring if it
+     * is full. Pages read after the scan is done, by late read-ahead requests,
+     * are not added.
+     *
+     * @return Whether the page was added, false if the ring is closed and the
+     * page must be buffered like any other page.
+     */
+    synchronized boolean add(PageKey key) {
+        if (closed) {
+            return false;
+        }
+        keys.addLast(key);
+        while (keys.size() > size) {
+            released.add(keys.removeFirst());
+        }
+        return true;
+    }
+
+    /**
+     * Keeps a page that fell off the ring while it was still in use, so that
+     * removing it is tried again later.
+     */
+    synchronized void retry(PageKey key) {
+        if (!closed) {
+            released.add(key);
+        }
+    }
+
+    /**
+     * @return The pages that fell off the ring since the last call.
+     */
+    synchronized List<PageKey> drainReleased() {
+        List<PageKey> drained = new ArrayList<>(released);
+        released.clear();
+        return drained;
+    }
+
+    /**
+     * Empties the ring once the scan is done.
+     *
+     * @return All the pages that were in the ring or fell off it.
+     */
+    synchronized List<PageKey> drainAll() {
+        released.addAll(keys);
+        keys.clear();
+        List<PageKey> drained = drainReleased();
+        closed = true;
+        return drained;
+    }
+
+    /**
+     * Starts using the ring again, e.g. when a scan is restarted.
+     */
+    public synchronized void open() {
+        closed = false;
+    }
+
+    synchronized boolean isClosed() {
+        return closed;
+    }
+}
@@ -0,0 +1,519 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+package net.edudb.buffer;
+
+import net.edudb.engine.Config;
+import net.edudb.engine.FileManager;
+import net.edudb.page.Page;
+import net.edudb.wal.WriteAheadLog;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * A partition of the buffer pool with its own lock and page replacement
+ * policy. Each page belongs to exactly one stripe, picked by the hash of its
+ * {@link PageKey}, so threads working on pages of different stripes never
+ * wait for each other.
+ * <p>
+ * The lock only guards the stripe's bookkeeping. Pages are read and written
+ * after it is released, so that hits on the stripe never wait for disk I/O.
+ * A page being read is registered as loading, and threads that miss it wait
+ * for that read instead of reading it again. A page being written is
+ * registered as writing: writes of the same page are done one after the
+ * other, so that an older image never overwrites a newer one, and a miss on
+ * the page waits for its write before reading it back.
+ */
+class BufferStripe {
+    private final ReentrantLock lock;
+    private final LinkedHashMap<PageKey, Page> pageBuffer;
+    private final PageReplacement replacement;
+    private final int capacity;
+
+    /**
+     * The pages being read from disk. Completed with the page once it is in
+     * the stripe, or with null if it does not exist.
+     */
+    private final Map<PageKey, CompletableFuture<Page>> loading;
+
+    /**
+     * The last write started for each page being written. Pages removed from
+     * the stripe stay here until they are on disk, so that their changes are
+     * still accounted for by {@link #oldestDirtyLsn()}.
+     */
+    private final Map<PageKey, PendingWrite> writing;
+
+    BufferStripe(int capacity) {
+        this.lock = new ReentrantLock();
+        this.pageBuffer = new LinkedHashMap<>();
+        this.capacity = capacity;
+        this.replacement = new PageReplacementFactory().makePageReplacement(Config.pageReplacementType(),
+                pageBuffer, capacity);
+        this.loading = new HashMap<>();
+        this.writing = new HashMap<>();
+    }
+
+    /**
+     * Returns a page from the stripe, reading it from disk on a miss.
+     */
+    Page read(PageKey key) {
+        return read(key, null, false);
+    }
+
+    /**
+     * Returns a page from the stripe, reading it from disk on a miss. A page
+     * read for a scan ring is added without removing other pages, and is
+     * tracked by the ring instead, unless the ring was closed in the meantime.
+     *
+     * @param pin Whether to pin the page before any other thread can remove
+     *            it.
+     */
+    private Page read(PageKey key, BufferRing ring, boolean pin) {
+        while (true) {
+            PendingWrite pendingWrite;
+            CompletableFuture<Page> pendingLoad;
+            CompletableFuture<Page> load = null;
+            lock.lock();
+            try {
+                Page page = replacement.read(key);
+                if (page != null) {
+                    if (pin) {
+                        page.pin();
+                    }
+                    return page;
+                }
+                pendingWrite = writing.get(key);
+                pendingLoad = loading.get(key);
+                if (pendingWrite == null && pendingLoad == null) {
+                    load = new CompletableFuture<>();
+                    loading.put(key, load);
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (load != null) {
+                return load(key, ring, pin, load);
+            }
+            if (pendingWrite != null) {
+                await(pendingWrite.done());
+            } else if (await(pendingLoad) == null) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Reads a missed page from disk and adds it to the stripe, writing the
+     * pages removed to make room for it once the stripe is unlocked.
+     */
+    private Page load(PageKey key, BufferRing ring, boolean pin, CompletableFuture<Page> load) {
+        Page page = null;
+        List<PendingWrite> writes = new ArrayList<>();
+        try {
+            page = FileManager.getInstance().readPage(key.workspaceName(), key.databaseName(), key.pageName());
+        } finally {
+            lock.lock();
+            try {
+                loading.remove(key);
+                if (page != null) {
+                    page.markClean();
+                    if (ring == null || !ring.add(key)) {
+                        makeRoom(writes);
+                    }
+                    replacement.put(key, page);
+                    if (pin) {
+                        page.pin();
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+            load.complete(page);
+        }
+        write(writes);
+        return page;
+    }
+
+    /**
+     * Reads a page into the stripe unless it is already there. Unlike
+     * {@link #read(PageKey)}, a buffered page is not counted as used.
+     */
+    void prefetch(PageKey key, BufferRing ring) {
+        lock.lock();
+        try {
+            if (pageBuffer.containsKey(key) || loading.containsKey(key) || (ring != null && ring.isClosed())) {
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        read(key, ring, false);
+    }
+
+    /**
+     * Reads a page and pins it before any other thread can remove it.
+     */
+    Page pin(PageKey key, BufferRing ring) {
+        return read(key, ring, true);
+    }
+
+    /**
+     * Removes a page that fell off a scan ring, unless it is still in use.
+     *
+     * @return Whether the page is no longer in the stripe.
+     */
+    boolean release(PageKey key) {
+        forceLog(key);
+        List<PendingWrite> writes = new ArrayList<>();
+        lock.lock();
+        try {
+            Page page = pageBuffer.get(key);
+            if (page == null) {
+                return true;
+            }
+            if (!replacement.isEvictable(page)) {
+                return false;
+            }
+            replacement.remove(key);
+            startWrite(key, page, writes);
+        } finally {
+            lock.unlock();
+        }
+        write(writes);
+        return true;
+    }
+
+    void put(PageKey key, Page page) {
+        List<PendingWrite> writes = new ArrayList<>();
+        lock.lock();
+        try {
+            if (!pageBuffer.containsKey(key)) {
+                makeRoom(writes);
+            }
+            replacement.put(key, page);
+        } finally {
+            lock.unlock();
+        }
+        write(writes);
+    }
+
+    /**
+     * Removes pages from the stripe until there is room for one more page.
+     * Must be called while holding the lock.
+     *
+     * @param writes Collects the writes of the removed pages that are dirty,
+     *               to be done once the lock is released.
+     */
+    private void makeRoom(List<PendingWrite> writes) {
+        while (replacement.size() >= capacity) {
+            Map.Entry<PageKey, Page> victim = replacement.remove();
+            if (victim == null) {
+                return;
+            }
+            startWrite(victim.getKey(), victim.getValue(), writes);
+        }
+    }
+
+    /**
+     * Writes the dirty pages accepted by the filter to disk, keeping them in
+     * the stripe.
+     */
+    void flushDirty(Predicate<PageKey> filter) {
+        for (Map.Entry<PageKey, Page> entry : dirtyPages(filter)) {
+            flush(entry);
+        }
+    }
+
+    /**
+     * @return The dirty pages accepted by the filter at the time of the call.
+     */
+    List<Map.Entry<PageKey, Page>> dirtyPages(Predicate<PageKey> filter) {
+        List<Map.Entry<PageKey, Page>> dirtyPages = new ArrayList<>();
+        lock.lock();
+        try {
+            for (Map.Entry<PageKey, Page> entry : pageBuffer.entrySet()) {
+                if (entry.getValue().isDirty() && filter.test(entry.getKey())) {
+                    dirtyPages.add(Map.entry(entry.getKey(), entry.getValue()));
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return dirtyPages;
+    }
+
+    /**
+     * @return The smallest LSN of a logged change to a page of the stripe, or
+     * to a page removed from it that is still being written, that is not on
+     * disk yet. {@link Long#MAX_VALUE} if there is no such change.
+     */
+    long oldestDirtyLsn() {
+        long oldest = Long.MAX_VALUE;
+        lock.lock();
+        try {
+            for (Page page : pageBuffer.values()) {
+                oldest = Math.min(oldest, BufferManager.dirtyLsn(page));
+            }
+            for (PendingWrite write : writing.values()) {
+                oldest = Math.min(oldest, BufferManager.dirtyLsn(write.page()));
+            }
+        } finally {
+            lock.unlock();
+        }
+        return oldest;
+    }
+
+    /**
+     * @return The number of dirty pages in the stripe.
+     */
+    int dirtyCount() {
+        int count = 0;
+        lock.lock();
+        try {
+            for (Page page : pageBuffer.values()) {
+                if (page.isDirty()) {
+                    count++;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return count;
+    }
+
+    /**
+     * Writes a page to disk if it is dirty and still in the stripe. The page
+     * stays in the stripe, and the stripe is not locked during the write.
+     *
+     * @return Whether the page was written.
+     */
+    boolean flush(Map.Entry<PageKey, Page> entry) {
+        WriteAheadLog.getInstance().flush(entry.getValue().getLsn());
+        List<PendingWrite> writes = new ArrayList<>();
+        lock.lock();
+        try {
+            if (pageBuffer.get(entry.getKey()) != entry.getValue() || !entry.getValue().isDirty()) {
+                return false;
+            }
+            startWrite(entry.getKey(), entry.getValue(), writes);
+        } finally {
+            lock.unlock();
+        }
+        return write(writes);
+    }
+
+    /**
+     * Writes a page to disk if it is dirty, or waits for its write if it was
+     * removed from the stripe and is still being written.
+     *
+     * @return Whether the page is on disk.
+     */
+    boolean flush(PageKey key) {
+        forceLog(key);
+        while (true) {
+            PendingWrite pendingWrite;
+            List<PendingWrite> writes = new ArrayList<>();
+            lock.lock();
+            try {
+                Page page = pageBuffer.get(key);
+                pendingWrite = writing.get(key);
+                if (page != null && page.isDirty()) {
+                    startWrite(key, page, writes);
+                } else if (pendingWrite == null) {
+                    return true;
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (!writes.isEmpty()) {
+                return write(writes);
+            }
+            await(pendingWrite.done());
+        }
+    }
+
+    /**
+     * Writes the dirty pages accepted by the filter to disk and removes them
+     * from the stripe. Pages that are in use are written but stay in the
+     * stripe, so that their users keep working on the buffered copy.
+     */
+    void writeAll(Predicate<PageKey> filter) {
+        long lastLsn = 0;
+        for (Map.Entry<PageKey, Page> entry : dirtyPages(filter)) {
+            lastLsn = Math.max(lastLsn, entry.getValue().getLsn());
+        }
+        WriteAheadLog.getInstance().flush(lastLsn);
+        List<PendingWrite> writes = new ArrayList<>();
+        lock.lock();
+        try {
+            for (PageKey key : keys(filter)) {
+                Page page = pageBuffer.get(key);
+                startWrite(key, page, writes);
+                if (replacement.isEvictable(page)) {
+                    replacement.remove(key);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        write(writes);
+    }
+
+    /**
+     * Removes the pages accepted by the filter without writing them to disk.
+     */
+    void discard(Predicate<PageKey> filter) {
+        lock.lock();
+        try {
+            for (PageKey key : keys(filter)) {
+                replacement.remove(key);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Registers the write of a page that is dirty, after any write of the page
+     * that was already started. Must be called while holding the lock.
+     */
+    private void startWrite(PageKey key, Page page, List<PendingWrite> writes) {
+        if (!page.isDirty()) {
+            return;
+        }
+        PendingWrite previous = writing.get(key);
+        PendingWrite write = new PendingWrite(key, page, previous == null ? null : previous.done(),
+                new CompletableFuture<>());
+        writing.put(key, write);
+        writes.add(write);
+    }
+
+    /**
+     * Does registered writes. Must be called without holding the lock. A page
+     * that was removed from the stripe and could not be written is put back,
+     * so that its changes are not lost when it is read again; the stripe holds
+     * more pages than its capacity until the next miss makes room.
+     *
+     * @return Whether all the pages were written.
+     */
+    private boolean write(List<PendingWrite> writes) {
+        boolean allWritten = true;
+        for (PendingWrite write : writes) {
+            boolean written = false;
+            try {
+                if (write.previous() != null) {
+                    await(write.previous());
+                }
+                written = flush(write.key(), write.page());
+            } finally {
+                lock.lock();
+                try {
+                    writing.remove(write.key(), write);
+                    if (!written && !pageBuffer.containsKey(write.key()) && !writing.containsKey(write.key())) {
+                        replacement.put(write.key(), write.page());
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                write.done().complete(null);
+            }
+            allWritten &= written;
+        }
+        return allWritten;
+    }
+
+    /**
+     * Writes a page to disk if it is dirty, after the log records of the
+     * changes made to it. Callers force the log before locking the stripe
+     * where they can, which leaves nothing to force here unless the page was
+     * changed in between. The page is latched in shared mode while it is
+     * encoded, now that the stripe lock no longer keeps it from being changed,
+     * and is only marked clean once it is on disk.
+     *
+     * @return Whether the page is on disk.
+     */
+    private boolean flush(PageKey key, Page page) {
+        page.acquireSharedLock();
+        try {
+            if (!page.isDirty()) {
+                return true;
+            }
+            WriteAheadLog.getInstance().flush(page.getLsn());
+            if (!FileManager.getInstance().writePage(key.workspaceName(), key.databaseName(), page)) {
+                return false;
+            }
+            page.markClean();
+            return true;
+        } finally {
+            page.releaseSharedLock();
+        }
+    }
+
+    /**
+     * Forces the log up to the last change made to a buffered page, so that
+     * the page can be written without forcing the log while the stripe is
+     * locked.
+     */
+    private void forceLog(PageKey key) {
+        Page page;
+        lock.lock();
+        try {
+            page = pageBuffer.get(key);
+        } finally {
+            lock.unlock();
+        }
+        if (page != null) {
+            WriteAheadLog.getInstance().flush(page.getLsn());
+        }
+    }
+
+    /**
+     * Waits for a read or a write done by another thread.
+     *
+     * @return The result of the read, null if it failed.
+     */
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            return null;
+        }
+    }
+
+    private List<PageKey> keys(Predicate<PageKey> filter) {
+        List<PageKey> keys = new ArrayList<>();
+        for (PageKey key : pageBuffer.keySet()) {
+            if (filter.test(key)) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * A write registered while holding the lock, to be done once it is
+     * released.
+     *
+     * @param previous The write of the same page started before, null if none.
+     * @param done     Completed once the write is over, whether it succeeded
+     *                 or not.
+     */
+    private record PendingWrite(PageKey key, Page page, CompletableFuture<Void> previous,
+                                CompletableFuture<Void> done) {
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+package net.edudb.buffer;
+
+import net.edudb.page.Page;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces pages from the buffer pool according to the CLOCK (second chance)
+ * algorithm. Pages are kept in a circular list of frames, each with a
+ * reference bit that is set when the page is read. To remove a page, a clock
+ * hand sweeps over the frames, clearing set bits, and removes the first page
+ * whose bit is already clear. Unlike LRU, a read does not reorder any list.
+ */
+public class ClockPageReplacement extends PageReplacement {
+    private final List<PageKey> frames;
+    private final Map<PageKey, Integer> frameIndexes;
+    private final BitSet referenced;
+    private final Deque<Integer> freeFrames;
+    private int hand;
+
+    public ClockPageReplacement(LinkedHashMap<PageKey, Page> pageBuffer) {
+        super(pageBuffer);
+        this.frames = new ArrayList<>();
+        this.frameIndexes = new HashMap<>();
+        this.referenced = new BitSet();
+        this.freeFrames = new ArrayDeque<>();
+    }
+
+    @Override
+    public Page read(PageKey key) {
+        Integer frame = frameIndexes.get(key);
+        if (frame == null) {
+            return null;
+        }
+        referenced.set(frame);
+        return pageBuffer.get(key);
+    }
+
+    @Override
+    public void put(PageKey key, Page page) {
+        Integer frame = frameIndexes.get(key);
+        if (frame == null) {
+            frame = freeFrames.isEmpty() ? frames.size() : freeFrames.pop();
+            if (frame == frames.size()) {
+                frames.add(key);
+            } else {
+                frames.set(frame, key);
+            }
+            frameIndexes.put(key, frame);
+        }
+        referenced.set(frame);
+        pageBuffer.put(key, page);
+    }
+
+    @Override
+    public Map.Entry<PageKey, Page> remove() {
+        /*
+         * Two sweeps clear every reference bit, so a page that is not locked is
+         * found by then if there is any.
+         */
+        for (int step = 0; step < 2 * frames.size(); step++) {
+            if (hand >= frames.size()) {
+                hand = 0;
+            }
+            int frame = hand++;
+            PageKey key = frames.get(frame);
+            if (key == null) {
+                continue;
+            }
+            if (referenced.get(frame)) {
+                referenced.clear(frame);
+                continue;
+            }
+            Page page = pageBuffer.get(key);
+            if (isEvictable(page)) {
+                remove(key);
+                return Map.entry(key, page);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void remove(PageKey key) {
+        Integer frame = frameIndexes.remove(key);
+        if (frame != null) {
+            frames.set(frame, null);
+            referenced.clear(frame);
+            freeFrames.push(frame);
+        }
+        pageBuffer.remove(key);
+    }
+
+}
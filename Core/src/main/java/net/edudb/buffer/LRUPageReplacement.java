@@ -11,6 +11,7 @@ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLI
 package net.edudb.buffer;
 
 import java.util.LinkedHashMap;
+import java.util.Map;
 
 import net.edudb.page.Page;
 
@@ -26,32 +27,35 @@ import net.edudb.page.Page;
  */
 public class LRUPageReplacement extends PageReplacement {
 
-	public LRUPageReplacement(LinkedHashMap<String, Page> pageBuffer) {
+	public LRUPageReplacement(LinkedHashMap<PageKey, Page> pageBuffer) {
 		super(pageBuffer);
 	}
 
 	@Override
-	public Page read(String pageName) {
-		Page page = null;
-
-		page = pageBuffer.get(pageName);
+	public Page read(PageKey key) {
+		Page page = pageBuffer.remove(key);
 
 		if (page != null) {
-			pageBuffer.put(page.getName(), pageBuffer.remove(page.getName()));
+			pageBuffer.put(key, page);
 		}
 
 		return page;
 	}
 
 	@Override
-	public void put(Page page) {
-		pageBuffer.put(page.getName(), page);
+	public void put(PageKey key, Page page) {
+		pageBuffer.remove(key);
+		pageBuffer.put(key, page);
+	}
+
+	@Override
+	public Map.Entry<PageKey, Page> remove() {
+		return removeFirst(pageBuffer.keySet());
 	}
 
 	@Override
-	public void remove() {
-		String firstPageName = pageBuffer.entrySet().iterator().next().getKey();
-		pageBuffer.remove(firstPageName);
+	public void remove(PageKey key) {
+		pageBuffer.remove(key);
 	}
 
 }
@@ -0,0 +1,35 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+package net.edudb.buffer;
+
+/**
+ * Identifies a page in the buffer pool, which holds pages of all workspaces
+ * and databases.
+ *
+ * @param workspaceName The name of the workspace that contains the page.
+ * @param databaseName  The name of the database that contains the page.
+ * @param pageName      The name of the page.
+ */
+public record PageKey(String workspaceName, String databaseName, String pageName) {
+
+    /**
+     * @return Whether the page belongs to the given workspace.
+     */
+    public boolean belongsTo(String workspaceName) {
+        return this.workspaceName.equals(workspaceName);
+    }
+
+    /**
+     * @return Whether the page belongs to the given database.
+     */
+    public boolean belongsTo(String workspaceName, String databaseName) {
+        return belongsTo(workspaceName) && this.databaseName.equals(databaseName);
+    }
+}
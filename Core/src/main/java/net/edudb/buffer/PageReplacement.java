@@ -10,7 +10,10 @@ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLI
 
 package net.edudb.buffer;
 
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.Map;
 
 import net.edudb.page.Page;
 
@@ -21,37 +24,94 @@ import net.edudb.page.Page;
  *
  */
 public abstract class PageReplacement {
+
 	/**
 	 * The buffer pool.
 	 */
-	LinkedHashMap<String, Page> pageBuffer;
+	LinkedHashMap<PageKey, Page> pageBuffer;
 
-	public PageReplacement(LinkedHashMap<String, Page> pageBuffer) {
+	public PageReplacement(LinkedHashMap<PageKey, Page> pageBuffer) {
 		this.pageBuffer = pageBuffer;
 	}
 
 	/**
 	 * Reads a page from the buffer pool.
 	 *
-	 * @param pageName
-	 *            Name of the page to read from the buffer pool.
+	 * @param key
+	 *            Key of the page to read from the buffer pool.
 	 * @return The read page.
 	 */
-	public abstract Page read(String pageName);
+	public abstract Page read(PageKey key);
 
 	/**
 	 *
 	 * Insert a page into the buffer pool.
 	 *
+	 * @param key
+	 *            Key of the page to insert.
 	 * @param page
 	 *            Page to insert into the buffer pool.
 	 */
-	public abstract void put(Page page);
+	public abstract void put(PageKey key, Page page);
 
 	/**
 	 * Removes a page from the buffer pool according to a page replacement
 	 * algorithm. Subclasses of {@link PageReplacement} are responsible for
-	 * handling how the page is removed.
+	 * handling how the page is removed, and must skip pages that are not
+	 * {@link #isEvictable(Page) evictable}.
+	 *
+	 * @return The removed page, or null if no page can be removed.
+	 */
+	public abstract Map.Entry<PageKey, Page> remove();
+
+	/**
+	 * Removes a specific page from the buffer pool, e.g. when its database is
+	 * dropped.
+	 *
+	 * @param key
+	 *            Key of the page to remove.
+	 */
+	public abstract void remove(PageKey key);
+
+	/**
+	 * @return The number of pages in the buffer pool.
+	 */
+	public int size() {
+		return pageBuffer.size();
+	}
+
+	/**
+	 * A page that is pinned or locked is still being used and must stay in the
+	 * buffer pool, otherwise changes made to it would never reach the disk.
+	 *
+	 * @param page
+	 *            The page to check.
+	 * @return Whether the page can be removed from the buffer pool.
 	 */
-	public abstract void remove();
+	protected boolean isEvictable(Page page) {
+		return !page.isPinned() && !page.isLocked();
+	}
+
+	/**
+	 * Removes the first evictable page of a queue from both the queue and the
+	 * buffer pool.
+	 *
+	 * @param queue
+	 *            Keys of pages in the order they should be removed.
+	 * @return The removed page, or null if no page in the queue can be removed.
+	 */
+	protected Map.Entry<PageKey, Page> removeFirst(Collection<PageKey> queue) {
+		Iterator<PageKey> iterator = queue.iterator();
+		while (iterator.hasNext()) {
+			PageKey key = iterator.next();
+			Page page = pageBuffer.get(key);
+			if (isEvictable(page)) {
+				iterator.remove();
+				pageBuffer.remove(key);
+				return Map.entry(key, page);
+			}
+		}
+		return null;
+	}
+
 }
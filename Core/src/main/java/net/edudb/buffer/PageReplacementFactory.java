@@ -0,0 +1,45 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+package net.edudb.buffer;
+
+import net.edudb.page.Page;
+
+import java.util.LinkedHashMap;
+import java.util.Objects;
+
+/**
+ * A factory that creates supported page replacement policies.
+ */
+public class PageReplacementFactory {
+
+    /**
+     * Creates an instance of a supported page replacement policy.
+     *
+     * @param type       The type of the policy to create.
+     * @param pageBuffer The buffer pool managed by the policy.
+     * @param capacity   The number of pages the buffer pool is meant to hold.
+     * @return The created policy.
+     */
+    public PageReplacement makePageReplacement(PageReplacementType type, LinkedHashMap<PageKey, Page> pageBuffer,
+                                               int capacity) {
+        switch (Objects.requireNonNull(type)) {
+            case LRU:
+                return new LRUPageReplacement(pageBuffer);
+            case Clock:
+                return new ClockPageReplacement(pageBuffer);
+            case TwoQueue:
+                return new TwoQueuePageReplacement(pageBuffer, capacity);
+            case ARC:
+                return new ARCPageReplacement(pageBuffer, capacity);
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+package net.edudb.buffer;
+
+/**
+ * Supported page replacement policies.
+ * <ul>
+ * <li>LRU: removes the least recently used page.</li>
+ * <li>Clock: gives recently used pages a second chance while a clock hand
+ * sweeps over the pool.</li>
+ * <li>TwoQueue: keeps pages that are used only once, e.g. by a scan, in a
+ * separate queue so that they do not push out frequently used pages.</li>
+ * <li>ARC: adapts the share of the pool given to recently and frequently used
+ * pages.</li>
+ * </ul>
+ */
+public enum PageReplacementType {
+    LRU, Clock, TwoQueue, ARC
+}
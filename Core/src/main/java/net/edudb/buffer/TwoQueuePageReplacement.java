@@ -0,0 +1,106 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+package net.edudb.buffer;
+
+import net.edudb.page.Page;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+/**
+ * Replaces pages from the buffer pool according to the 2Q algorithm. A page
+ * that is read for the first time enters the <b>in</b> queue, which is
+ * emptied in FIFO order. When a page leaves it, its key is remembered in the
+ * <b>out</b> queue; if the page is read again while it is remembered, it is
+ * considered hot and enters the <b>main</b> queue, which is managed as LRU.
+ * Pages that are read once, like the pages of a full table scan, therefore
+ * never push hot pages out of the pool.
+ */
+public class TwoQueuePageReplacement extends PageReplacement {
+    private final LinkedHashSet<PageKey> in;
+    private final LinkedHashSet<PageKey> out;
+    private final LinkedHashSet<PageKey> main;
+    private final int inCapacity;
+    private final int outCapacity;
+
+    public TwoQueuePageReplacement(LinkedHashMap<PageKey, Page> pageBuffer, int capacity) {
+        super(pageBuffer);
+        this.in = new LinkedHashSet<>();
+        this.out = new LinkedHashSet<>();
+        this.main = new LinkedHashSet<>();
+        this.inCapacity = Math.max(1, capacity / 4);
+        this.outCapacity = Math.max(1, capacity / 2);
+    }
+
+    @Override
+    public Page read(PageKey key) {
+        if (main.remove(key)) {
+            main.add(key);
+        }
+        return pageBuffer.get(key);
+    }
+
+    @Override
+    public void put(PageKey key, Page page) {
+        if (!pageBuffer.containsKey(key)) {
+            if (out.remove(key)) {
+                main.add(key);
+            } else {
+                in.add(key);
+            }
+            forgetOldest();
+        }
+        pageBuffer.put(key, page);
+    }
+
+    @Override
+    public Map.Entry<PageKey, Page> remove() {
+        Map.Entry<PageKey, Page> victim = null;
+        if (in.size() > inCapacity || main.isEmpty()) {
+            victim = removeFirst(in);
+            if (victim != null) {
+                out.add(victim.getKey());
+                return victim;
+            }
+        }
+        victim = removeFirst(main);
+        if (victim == null) {
+            victim = removeFirst(in);
+            if (victim != null) {
+                out.add(victim.getKey());
+            }
+        }
+        return victim;
+    }
+
+    /**
+     * Bounds the out queue. It is trimmed after a page is put rather than when
+     * a page is removed, since the page being put may be the oldest one
+     * remembered.
+     */
+    private void forgetOldest() {
+        while (out.size() > outCapacity) {
+            Iterator<PageKey> iterator = out.iterator();
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    @Override
+    public void remove(PageKey key) {
+        in.remove(key);
+        out.remove(key);
+        main.remove(key);
+        pageBuffer.remove(key);
+    }
+
+}
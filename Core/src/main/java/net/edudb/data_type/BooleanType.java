@@ -71,6 +71,11 @@ public class BooleanType extends DataType implements Serializable {
 		return bool == type.bool;
 	}
 
+	@Override
+	public int hashCode() {
+		return Boolean.hashCode(bool);
+	}
+
 	public boolean getBoolean() {
 		return bool;
 	}
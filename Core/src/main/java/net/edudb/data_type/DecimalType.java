@@ -42,6 +42,11 @@ public class DecimalType extends DataType implements Serializable {
         return decimal.equals(type.decimal);
     }
 
+    @Override
+    public int hashCode() {
+        return decimal.hashCode();
+    }
+
     @Override
     public String toString() {
         return decimal.toString();
@@ -30,6 +30,10 @@ public class TimestampType extends DataType implements Serializable {
         this.timestamp = parseTimestamp(dateTime);
     }
 
+    public TimestampType(Timestamp timestamp) {
+        this.timestamp = timestamp;
+    }
+
     /**
      * Parses a timestamp passed as a string and returns its value as a {@link Timestamp}.
      *
@@ -67,6 +71,17 @@ public class TimestampType extends DataType implements Serializable {
         return timestamp.compareTo(type.timestamp);
     }
 
+    @Override
+    public boolean equals(Object o) {
+        TimestampType type = (TimestampType) o;
+        return timestamp.equals(type.timestamp);
+    }
+
+    @Override
+    public int hashCode() {
+        return timestamp.hashCode();
+    }
+
     @Override
     public String toString() {
         return timestamp.toString();
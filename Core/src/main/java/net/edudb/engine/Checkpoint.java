@@ -0,0 +1,117 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+package net.edudb.engine;
+
+import net.edudb.buffer.BufferManager;
+import net.edudb.index.IndexManager;
+import net.edudb.structure.table.TableManager;
+import net.edudb.wal.WriteAheadLog;
+
+/**
+ * Writes the changes held in memory to disk, so that the write-ahead log
+ * segments holding them can be deleted. The written files are forced to the
+ * storage device before any segment is deleted, as the log is the only
+ * durable copy of the changes until then.
+ */
+class Checkpoint {
+    /**
+     * The number of background checkpoint steps over which the dirty pages
+     * are spread.
+     */
+    private static final int STEPS = 4;
+
+    private final BufferManager bufferManager;
+    private final TableManager tableManager;
+    private final IndexManager indexManager;
+    private final FileManager fileManager;
+    private final WriteAheadLog log;
+
+    Checkpoint(BufferManager bufferManager, TableManager tableManager, IndexManager indexManager) {
+        this.bufferManager = bufferManager;
+        this.tableManager = tableManager;
+        this.indexManager = indexManager;
+        this.fileManager = FileManager.getInstance();
+        this.log = WriteAheadLog.getInstance();
+    }
+
+    /**
+     * Writes the pages holding the oldest changes and the changed indexes to
+     * disk. When the write-ahead log is open, the tables whose pages changed
+     * are written as well, and the log segments before the oldest change that
+     * is not on disk are deleted, so a restart only redoes recent changes.
+     * Without the log, every dirty page is written, as the pages on disk are
+     * all a restart has.
+     *
+     * @return The LSN of the oldest change that was not on disk, whose log
+     * segment is the oldest one kept; 0 if the log is not open.
+     */
+    long step() {
+        if (!log.isOpen()) {
+            bufferManager.flushDirty();
+            indexManager.flushAllIndices();
+            return 0;
+        }
+        long checkpointLsn = log.nextLsn();
+
+        bufferManager.flushOldestDirty(pages(checkpointLsn));
+        indexManager.flushAllIndices();
+        // tables being vacuumed are not written, so the changes made since
+        // they were last written are kept in the log
+        checkpointLsn = Math.min(checkpointLsn, tableManager.flushModifiedTables());
+
+        // pages written from here on are dirty now, so their changes are kept
+        // in the log; the pages written before are forced below
+        checkpointLsn = Math.min(checkpointLsn, bufferManager.oldestDirtyLsn());
+        fileManager.forceWrittenFiles();
+        if (log.segmentLength() >= Config.walSegmentSize()) {
+            log.rotate();
+        }
+        log.truncate(WriteAheadLog.segment(checkpointLsn));
+        return checkpointLsn;
+    }
+
+    /**
+     * @param nextLsn The LSN the next logged change gets.
+     * @return The number of dirty pages the next checkpoint step writes: a
+     * share of the dirty pages, at least the configured number, doubled for
+     * every log segment the oldest change that is not on disk is behind.
+     */
+    private int pages(long nextLsn) {
+        int pages = Math.max(Config.checkpointPages(), bufferManager.dirtyCount() / STEPS);
+        long oldestDirtyLsn = bufferManager.oldestDirtyLsn();
+        if (oldestDirtyLsn != Long.MAX_VALUE) {
+            int behind = WriteAheadLog.segment(nextLsn) - WriteAheadLog.segment(oldestDirtyLsn);
+            pages = (int) Math.min(Integer.MAX_VALUE, (long) pages << Math.min(behind, 16));
+        }
+        return pages;
+    }
+
+    /**
+     * Writes all the dirty pages and the indexes to disk. When the write-ahead
+     * log is open, the buffered tables are written as well and the log
+     * segments that only hold changes written by the checkpoint are deleted.
+     */
+    void run() {
+        int segment = log.rotate();
+        bufferManager.flushDirty();
+        long oldestSkippedLsn = Long.MAX_VALUE;
+        if (segment >= 0) {
+            oldestSkippedLsn = tableManager.flushAllTables();
+        }
+        indexManager.flushAllIndices();
+        if (segment >= 0) {
+            fileManager.forceWrittenFiles();
+            if (oldestSkippedLsn != Long.MAX_VALUE) {
+                segment = Math.min(segment, WriteAheadLog.segment(oldestSkippedLsn));
+            }
+            log.truncate(segment);
+        }
+    }
+}
@@ -10,6 +10,8 @@
 package net.edudb.engine;
 
 import net.edudb.block.BlockFileType;
+import net.edudb.buffer.PageReplacementType;
+import net.edudb.operator.JoinStrategy;
 import net.edudb.structure.table.TableFileType;
 
 import java.io.File;
@@ -22,7 +24,6 @@ import java.nio.file.Path;
  */
 public class Config {
     public static final int PAGE_SIZE = 100;
-    public static final int BUFFER_SIZE = 1;
     public static final int MAX_REQUESTS_NUMBER_PER_WORKSPACE = 1000;
     public static final long DURATION_OF_REQUESTS_LIMIT_IN_SECONDS = (long) 60 * 60 * 24; // 1 day
 
@@ -57,10 +58,209 @@ public class Config {
     }
 
     /**
+     * The block type can be changed using the BLOCK_TYPE system property.
+     *
      * @return The type of the block file to save to disk.
      */
     public static BlockFileType blockType() {
-        return BlockFileType.Binary;
+        return BlockFileType.valueOf(System.getProperty("BLOCK_TYPE", BlockFileType.Binary.name()));
+    }
+
+    /**
+     * The size can be changed using the BUFFER_SIZE system property.
+     *
+     * @return The maximum number of pages kept in the buffer pool.
+     */
+    public static int bufferSize() {
+        return Integer.parseInt(System.getProperty("BUFFER_SIZE", "10000"));
+    }
+
+    /**
+     * The number of stripes can be changed using the BUFFER_STRIPES system
+     * property. Defaults to twice the number of available processors.
+     *
+     * @return The number of independently locked partitions of the buffer pool.
+     */
+    public static int bufferStripes() {
+        String stripes = System.getProperty("BUFFER_STRIPES");
+        if (stripes == null) {
+            return 2 * Runtime.getRuntime().availableProcessors();
+        }
+        return Integer.parseInt(stripes);
+    }
+
+    /**
+     * The number of pages can be changed using the READ_AHEAD_PAGES system
+     * property. Zero disables reading ahead.
+     *
+     * @return The largest number of pages a sequential scan reads ahead.
+     */
+    public static int readAheadPages() {
+        return Integer.parseInt(System.getProperty("READ_AHEAD_PAGES", "32"));
+    }
+
+    /**
+     * The number of threads can be changed using the READ_AHEAD_THREADS system
+     * property.
+     *
+     * @return The number of threads reading pages ahead of sequential scans.
+     */
+    public static int readAheadThreads() {
+        return Integer.parseInt(System.getProperty("READ_AHEAD_THREADS", "2"));
+    }
+
+    /**
+     * The threshold can be changed using the SCAN_RING_THRESHOLD system
+     * property. Defaults to a quarter of the buffer pool.
+     *
+     * @return The number of pages above which a scan uses a buffer ring.
+     */
+    public static int scanRingThreshold() {
+        String threshold = System.getProperty("SCAN_RING_THRESHOLD");
+        if (threshold == null) {
+            return bufferSize() / 4;
+        }
+        return Integer.parseInt(threshold);
+    }
+
+    /**
+     * The size can be changed using the SCAN_RING_PAGES system property.
+     *
+     * @return The number of pages in the buffer ring of a large scan.
+     */
+    public static int scanRingPages() {
+        return Integer.parseInt(System.getProperty("SCAN_RING_PAGES", "32"));
+    }
+
+    /**
+     * The number can be changed using the TEMPORARY_RELATION_RECORDS system
+     * property.
+     *
+     * @return The number of records an intermediate result keeps in memory
+     * before spilling them to the temporary area.
+     */
+    public static int temporaryRelationRecords() {
+        return Integer.parseInt(System.getProperty("TEMPORARY_RELATION_RECORDS", "65536"));
+    }
+
+    /**
+     * The strategy can be changed using the JOIN_STRATEGY system property.
+     *
+     * @return The algorithm equi joins are executed with.
+     */
+    public static JoinStrategy joinStrategy() {
+        return JoinStrategy.valueOf(System.getProperty("JOIN_STRATEGY", JoinStrategy.HASH.name()));
+    }
+
+    /**
+     * @return Whether the JOIN_STRATEGY system property is set, in which case
+     * equi joins are executed with it even if an index could be probed.
+     */
+    public static boolean isJoinStrategySet() {
+        return System.getProperty("JOIN_STRATEGY") != null;
+    }
+
+    /**
+     * The policy can be changed using the PAGE_REPLACEMENT system property.
+     *
+     * @return The policy used to replace pages in the buffer pool.
+     */
+    public static PageReplacementType pageReplacementType() {
+        return PageReplacementType.valueOf(System.getProperty("PAGE_REPLACEMENT", PageReplacementType.LRU.name()));
+    }
+
+    /**
+     * The frame size can be changed using the SEGMENT_FRAME_SIZE system
+     * property. It must not change once segment files have been written.
+     *
+     * @return Size in bytes of the frame that holds a page in a segment file.
+     */
+    public static int segmentFrameSize() {
+        return Integer.parseInt(System.getProperty("SEGMENT_FRAME_SIZE", "65536"));
+    }
+
+    /**
+     * The number of pages can be changed using the PAGES_PER_SEGMENT_FILE
+     * system property. It must not change once segment files have been written.
+     *
+     * @return The number of pages stored in a single segment file.
+     */
+    public static int pagesPerSegmentFile() {
+        return Integer.parseInt(System.getProperty("PAGES_PER_SEGMENT_FILE", "1024"));
+    }
+
+    /**
+     * Off-heap pages can be enabled using the OFF_HEAP_PAGES system property.
+     * They are only used with slotted block types; the amount of direct memory
+     * available to them is set with the -XX:MaxDirectMemorySize JVM option.
+     *
+     * @return Whether buffered pages keep their images in direct memory
+     * instead of on the heap.
+     */
+    public static boolean offHeapPages() {
+        return Boolean.parseBoolean(System.getProperty("OFF_HEAP_PAGES", "false"));
+    }
+
+    /**
+     * The interval can be changed using the VACUUM_INTERVAL system property.
+     * Background vacuuming is disabled when the interval is 0.
+     *
+     * @return The number of minutes between runs of the background vacuum.
+     */
+    public static int vacuumInterval() {
+        return Integer.parseInt(System.getProperty("VACUUM_INTERVAL", "0"));
+    }
+
+    /**
+     * The threshold can be changed using the VACUUM_THRESHOLD system property.
+     *
+     * @return The fraction of a table's pages that must have free slots left by
+     * deleted records for the background vacuum to compact the table.
+     */
+    public static double vacuumThreshold() {
+        return Double.parseDouble(System.getProperty("VACUUM_THRESHOLD", "0.5"));
+    }
+
+    /**
+     * The write-ahead log can be enabled using the WAL_ENABLED system property.
+     * Without it, changes made since the last flush of the buffer pool are
+     * lost if the server crashes.
+     *
+     * @return Whether changes to tables are logged before they are applied.
+     */
+    public static boolean walEnabled() {
+        return Boolean.parseBoolean(System.getProperty("WAL_ENABLED", "false"));
+    }
+
+    /**
+     * The size can be changed using the WAL_SEGMENT_SIZE system property.
+     *
+     * @return The number of bytes after which the write-ahead log continues in
+     * a new segment, so that older segments can be deleted.
+     */
+    public static long walSegmentSize() {
+        return Long.parseLong(System.getProperty("WAL_SEGMENT_SIZE", String.valueOf(16 * 1024 * 1024)));
+    }
+
+    /**
+     * The interval can be changed using the CHECKPOINT_INTERVAL system property.
+     *
+     * @return The number of seconds between two steps of the background
+     * checkpoint.
+     */
+    public static int checkpointInterval() {
+        return Integer.parseInt(System.getProperty("CHECKPOINT_INTERVAL", "5"));
+    }
+
+    /**
+     * The number can be changed using the CHECKPOINT_PAGES system property.
+     *
+     * @return The minimum number of dirty pages written by a step of the
+     * background checkpoint. Steps write more pages when the dirty backlog
+     * grows or the log runs ahead of the pages on disk.
+     */
+    public static int checkpointPages() {
+        return Integer.parseInt(System.getProperty("CHECKPOINT_PAGES", "64"));
     }
 
     /**
@@ -92,6 +292,26 @@ public class Config {
         return workspacePath(workspaceName).resolve("users.csv");
     }
 
+    public static Path catalogSnapshotPath() {
+        return absolutePath().resolve("catalog.snapshot");
+    }
+
+    /**
+     * @return The path of the directory intermediate results are spilled to,
+     * emptied when the server starts.
+     */
+    public static Path temporaryPath() {
+        return absolutePath().resolve("tmp");
+    }
+
+    public static Path walPath() {
+        return absolutePath().resolve("wal");
+    }
+
+    public static Path walSegmentPath(int segment) {
+        return walPath().resolve(segment + ".log");
+    }
+
     // ======================================== WORKSPACES ========================================
 
     public static Path workspacesPath() {
@@ -137,6 +357,14 @@ public class Config {
         return tablesPath(workspaceName, databaseName).resolve(tableName + ".table");
     }
 
+    /**
+     * @return Path of the file the changes made to a table since it was last
+     * written in full are appended to.
+     */
+    public static Path tableDeltaPath(String workspaceName, String databaseName, String tableName) {
+        return tablesPath(workspaceName, databaseName).resolve(tableName + ".delta");
+    }
+
     // ======================================== PAGES ========================================
 
     /**
@@ -150,6 +378,10 @@ public class Config {
         return pagesPath(workspaceName, databaseName).resolve(pageName + ".block");
     }
 
+    public static Path segmentPath(String workspaceName, String databaseName, String segmentName, int fileNumber) {
+        return pagesPath(workspaceName, databaseName).resolve(segmentName + "." + fileNumber + ".segment");
+    }
+
     // ======================================== INDEXES ========================================
     public static Path indexesPath(String workspaceName, String databaseName) {
         return databasePath(workspaceName, databaseName).resolve("indexes");
@@ -14,6 +14,7 @@ import net.edudb.engine.authentication.Authentication;
 import net.edudb.engine.authentication.UserRole;
 import net.edudb.exception.*;
 import net.edudb.index.IndexManager;
+import net.edudb.page.PageManager;
 import net.edudb.relation.RelationIterator;
 import net.edudb.statistics.DatabaseSchema;
 import net.edudb.statistics.Schema;
@@ -21,11 +22,15 @@ import net.edudb.statistics.WorkspaceSchema;
 import net.edudb.structure.Record;
 import net.edudb.structure.table.Table;
 import net.edudb.structure.table.TableManager;
+import net.edudb.wal.LogRecord;
+import net.edudb.wal.Recovery;
+import net.edudb.wal.WriteAheadLog;
 
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -36,34 +41,81 @@ public class DatabaseEngine {
     private BufferManager bufferManager;
     private TableManager tableManager;
     private IndexManager indexManager;
+    private Checkpoint checkpoint;
     private Schema schema;
     private Map<String, Map<String, Map<String, RelationIterator>>> openedIterators; // <workspace, <database, <uuid, iterator>>
     private ScheduledExecutorService backgroundThread;
 
     private DatabaseEngine() {
         openedIterators = new HashMap<>();
-        createBackgroundThreadToWriteBuffer();
+        createBackgroundThreadToCheckpoint();
+        createBackgroundThreadToVacuumTables();
         setupOnCloseHandler();
     }
 
-    private void createBackgroundThreadToWriteBuffer() {
-        backgroundThread = Executors.newScheduledThreadPool(1);
+    /**
+     * Runs an incremental checkpoint in the background. Every step writes a
+     * bounded number of dirty pages, so that writing the buffer pool is spread
+     * over time instead of stalling queries.
+     */
+    private void createBackgroundThreadToCheckpoint() {
+        backgroundThread = Executors.newScheduledThreadPool(2);
 
         Runnable task = () -> {
-            bufferManager.writeAll();
-            indexManager.flushAllIndices();
+            try {
+                checkpointStep();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
         };
 
-        int initialDelay = 0;
-        int period = 1;
-        backgroundThread.scheduleAtFixedRate(task, initialDelay, period, TimeUnit.MINUTES);
+        int period = Config.checkpointInterval();
+        backgroundThread.scheduleWithFixedDelay(task, period, period, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Periodically vacuums the buffered tables that have many free slots left
+     * by deleted records. Disabled unless {@link Config#vacuumInterval()} is set.
+     */
+    private void createBackgroundThreadToVacuumTables() {
+        int period = Config.vacuumInterval();
+        if (period <= 0) {
+            return;
+        }
+
+        Runnable task = () -> tableManager.bufferedTables().forEach((workspaceName, databases) ->
+                databases.forEach((databaseName, tables) -> {
+                    Config.setCurrentWorkspace(workspaceName);
+                    Config.setCurrentDatabaseName(databaseName);
+                    try {
+                        for (Table table : tables) {
+                            if (table.getPageManager().needsVacuum()) {
+                                vacuumTable(workspaceName, databaseName, table);
+                            }
+                        }
+                    } catch (RuntimeException e) {
+                        e.printStackTrace();
+                    } finally {
+                        Config.cleanThreadLocal();
+                    }
+                }));
+
+        backgroundThread.scheduleAtFixedRate(task, period, period, TimeUnit.MINUTES);
     }
 
     private void setupOnCloseHandler() {
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            WriteAheadLog log = WriteAheadLog.getInstance();
+            int segment = log.rotate();
             bufferManager.writeAll();
             tableManager.writeAllTables();
             indexManager.flushAllIndices();
+            if (segment >= 0) {
+                fileManager.forceWrittenFiles();
+                log.truncate(segment);
+            }
+            log.close();
+            schema.writeSnapshot();
             backgroundThread.shutdown();
         }));
     }
@@ -78,13 +130,72 @@ public class DatabaseEngine {
         bufferManager = BufferManager.getInstance();
         tableManager = TableManager.getInstance();
         indexManager = new IndexManager();
+        checkpoint = new Checkpoint(bufferManager, tableManager, indexManager);
         initializeDatabase();
+        if (Config.walEnabled()) {
+            recover();
+        }
         schema = Schema.getInstance();
     }
 
+    /**
+     * Redoes the changes logged before the server last stopped, rebuilds the
+     * indexes of the tables they changed and opens the write-ahead log. If a
+     * change cannot be redone, the engine does not start and the log is kept.
+     */
+    private void recover() {
+        WriteAheadLog log = WriteAheadLog.getInstance();
+        Map<String, Map<String, Set<String>>> changedTables = new Recovery().redo(log.read());
+        changedTables.forEach((workspaceName, databases) ->
+                databases.forEach((databaseName, tableNames) ->
+                        rebuildIndices(workspaceName, databaseName, tableNames)));
+        log.open();
+        checkpoint();
+    }
+
+    private void rebuildIndices(String workspaceName, String databaseName, Set<String> tableNames) {
+        try {
+            indexManager.loadDatabaseIndices(workspaceName, databaseName);
+        } catch (DatabaseNotFoundException e) {
+            return;
+        }
+        Config.setCurrentWorkspace(workspaceName);
+        Config.setCurrentDatabaseName(databaseName);
+        try {
+            for (String tableName : tableNames) {
+                if (fileManager.isFileExists(Config.tablePath(workspaceName, databaseName, tableName))) {
+                    Table table = tableManager.readTable(workspaceName, databaseName, tableName);
+                    indexManager.rebuildTableIndices(workspaceName, databaseName, table);
+                } else {
+                    indexManager.dropTableIndices(workspaceName, databaseName, tableName);
+                }
+            }
+            indexManager.flushDatabaseIndices(workspaceName, databaseName);
+        } finally {
+            indexManager.offloadDatabaseIndices(workspaceName, databaseName);
+            Config.cleanThreadLocal();
+        }
+    }
+
+    private void checkpointStep() {
+        if (checkpoint != null) {
+            checkpoint.step();
+        }
+    }
+
+    /**
+     * Writes all the dirty pages and the indexes to disk. When the write-ahead log
+     * is open, the buffered tables are written as well and the log segments
+     * that only hold changes written by the checkpoint are deleted.
+     */
+    public void checkpoint() {
+        checkpoint.run();
+    }
+
     private void initializeDatabase() {
         fileManager.createDirectoryIfNotExists(Config.workspacesPath());
         fileManager.createFileIfNotExists(Config.adminsPath());
+        fileManager.deleteDirectoryIfExists(Config.temporaryPath());
     }
 
     public void createUser(String username, String password, UserRole role, String workspace) throws UserAlreadyExistException, WorkspaceNotFoundException {
@@ -124,7 +235,7 @@ public class DatabaseEngine {
 
     public void openDatabase(String workspaceName, String databaseName) throws DatabaseNotFoundException, WorkspaceNotFoundException {
         WorkspaceSchema workspaceSchema = schema.getWorkspace(workspaceName);
-        workspaceSchema.loadDatabase(databaseName);
+        workspaceSchema.getDatabase(databaseName);
         indexManager.loadDatabaseIndices(workspaceName, databaseName);
     }
 
@@ -150,6 +261,7 @@ public class DatabaseEngine {
     public void dropDatabase(String workspaceName, String databaseName) throws DatabaseNotFoundException, WorkspaceNotFoundException {
         fileManager.deleteDatabase(workspaceName, databaseName);
         bufferManager.removeDatabase(workspaceName, databaseName);
+        tableManager.removeDatabase(workspaceName, databaseName);
         indexManager.offloadDatabaseIndices(workspaceName, databaseName);
 
         WorkspaceSchema workspaceSchema = schema.getWorkspace(workspaceName);
@@ -167,6 +279,9 @@ public class DatabaseEngine {
 
     public Table createTable(String workspaceName, String databaseName, String tableSchemaLine, LinkedHashMap<String, String> columnTypes) throws TableAlreadyExistException, DatabaseNotFoundException, WorkspaceNotFoundException {
         Table table = tableManager.createTable(workspaceName, databaseName, tableSchemaLine, columnTypes);
+        WriteAheadLog log = WriteAheadLog.getInstance();
+        log.append(LogRecord.createTable(workspaceName, databaseName, tableSchemaLine, columnTypes));
+        log.commit();
 
         WorkspaceSchema workspaceSchema = schema.getWorkspace(workspaceName);
         DatabaseSchema databaseSchema = workspaceSchema.getDatabase(databaseName);
@@ -178,12 +293,52 @@ public class DatabaseEngine {
     public void dropTable(String workspaceName, String databaseName, String tableName) throws TableNotFoundException, DatabaseNotFoundException, WorkspaceNotFoundException {
         tableManager.deleteTable(workspaceName, databaseName, tableName);
         indexManager.dropTableIndices(workspaceName, databaseName, tableName);
+        WriteAheadLog log = WriteAheadLog.getInstance();
+        log.append(LogRecord.dropTable(workspaceName, databaseName, tableName));
+        log.commit();
 
         WorkspaceSchema workspaceSchema = schema.getWorkspace(workspaceName);
         DatabaseSchema databaseSchema = workspaceSchema.getDatabase(databaseName);
         databaseSchema.removeTable(tableName);
     }
 
+    /**
+     * Rewrites the pages of a table without its deleted records and rebuilds
+     * the table's indexes.
+     *
+     * @return The number of pages freed.
+     */
+    public int vacuumTable(String workspaceName, String databaseName, String tableName) throws TableNotFoundException, DatabaseNotFoundException, WorkspaceNotFoundException {
+        schema.getWorkspace(workspaceName).getDatabase(databaseName).getTable(tableName);
+        Table table = tableManager.readTable(workspaceName, databaseName, tableName);
+        return vacuumTable(workspaceName, databaseName, table);
+    }
+
+    /**
+     * The new pages are written before the table that refers to them, and the
+     * old pages are only deleted once the table is written, so that the table
+     * on disk always refers to complete pages. If a new page cannot be
+     * written, the table on disk and the old pages are left as they are.
+     * <p>
+     * Statements that change the table's records wait until the indexes refer
+     * to the new pages.
+     */
+    private int vacuumTable(String workspaceName, String databaseName, Table table) {
+        PageManager pageManager = table.getPageManager();
+        pageManager.acquireLock();
+        try {
+            int freedPages = pageManager.vacuum();
+            if (pageManager.flushPages()) {
+                tableManager.writeTable(workspaceName, databaseName, table);
+                pageManager.deleteVacuumedPages();
+            }
+            indexManager.rebuildTableIndices(workspaceName, databaseName, table);
+            return freedPages;
+        } finally {
+            pageManager.releaseLock();
+        }
+    }
+
     public void addResultSet(String workspaceName, String databaseName, RelationIterator iterator) {
         openedIterators.putIfAbsent(workspaceName, new HashMap<>());
         Map<String, Map<String, RelationIterator>> workspace = openedIterators.get(workspaceName);
@@ -202,7 +357,6 @@ public class DatabaseEngine {
 
     public List<Record> getNextRecord(String workspaceName, String databaseName, String resultSetId, int count) {
         RelationIterator iterator = getIterator(workspaceName, databaseName, resultSetId);
-        iterator.acquirePagesLock();
         return iterator.next(count);
     }
 
@@ -20,11 +20,14 @@ import net.edudb.structure.table.TableReaderFactory;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 
 public class FileManager {
@@ -32,6 +35,12 @@ public class FileManager {
     private static final String PATH_NOT_FOUND_FORMAT = "(%s) is not found";
     private static final String PATH_ALREADY_EXISTS_FORMAT = "(%s) already exists";
 
+    /**
+     * The files and directories written since they were last forced to the
+     * storage device.
+     */
+    private final Set<Path> writtenFiles = ConcurrentHashMap.newKeySet();
+
     private FileManager() {
     }
 
@@ -128,7 +137,7 @@ public class FileManager {
      */
     public Page readPage(String workspaceName, String databaseName, String pageName) {
         BlockAbstractFactory blockFactory = new BlockReaderFactory();
-        BlockReader blockReader = blockFactory.getReader(Config.blockType());
+        BlockReader blockReader = blockFactory.getReader(blockType(pageName));
 
         try {
             return blockReader.read(workspaceName, databaseName, pageName);
@@ -142,15 +151,75 @@ public class FileManager {
      * Writes a page to disk using a block writer.
      *
      * @param page The page to write.
+     * @return Whether the page was written.
      */
-    public void writePage(String workspaceName, String databaseName, Page page) {
+    public boolean writePage(String workspaceName, String databaseName, Page page) {
         BlockAbstractFactory blockFactory = new BlockWriterFactory();
-        BlockWriter blockWriter = blockFactory.getWriter(Config.blockType());
+        BlockWriter blockWriter = blockFactory.getWriter(blockType(page.getName()));
 
         try {
             blockWriter.write(workspaceName, databaseName, page);
+            fileWritten(SegmentFile.isSegmentPage(page.getName())
+                    ? SegmentFile.path(workspaceName, databaseName, page.getName())
+                    : Config.pagePath(workspaceName, databaseName, page.getName()));
+            return true;
         } catch (IOException e) {
             e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Records that a file was written without being forced, so that the next
+     * {@link #forceWrittenFiles()} forces it, along with its directory in case
+     * the file was created or renamed.
+     *
+     * @param path The path of the written file.
+     */
+    public void fileWritten(Path path) {
+        writtenFiles.add(path);
+        if (path.getParent() != null) {
+            writtenFiles.add(path.getParent());
+        }
+    }
+
+    /**
+     * Forces the files written since the last call to the storage device.
+     * Checkpoints call it before deleting the log records of the changes the
+     * files hold. Files deleted since they were written, or whose file system
+     * was closed, are skipped.
+     *
+     * @throws RuntimeException If a file cannot be forced. It is forced again
+     *                          by the next call.
+     */
+    public void forceWrittenFiles() {
+        for (Path path : new ArrayList<>(writtenFiles)) {
+            writtenFiles.remove(path);
+            if (!path.getFileSystem().isOpen()) {
+                continue;
+            }
+            try {
+                force(path);
+            } catch (IOException e) {
+                writtenFiles.add(path);
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    private void force(Path path) throws IOException {
+        if (SegmentFile.force(path)) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (NoSuchFileException e) {
+            // deleted since it was written
+        } catch (IOException e) {
+            // some platforms cannot open directories
+            if (!Files.isDirectory(path)) {
+                throw e;
+            }
         }
     }
 
@@ -162,6 +231,33 @@ public class FileManager {
         }
     }
 
+    /**
+     * Deletes all the segment files holding the pages of a segment.
+     *
+     * @param segmentName The name of the segment to delete.
+     */
+    public void deleteSegment(String workspaceName, String databaseName, String segmentName) {
+        try {
+            SegmentFile.delete(workspaceName, databaseName, segmentName);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Pages that live inside segment files can only be read by a segmented
+     * block reader and writer, whatever the configured block type is.
+     *
+     * @param pageName The name of the page to read or write.
+     * @return The block type to use for the page.
+     */
+    private BlockFileType blockType(String pageName) {
+        if (SegmentFile.isSegmentPage(pageName) && !Config.blockType().isSegmented()) {
+            return BlockFileType.Segment;
+        }
+        return Config.blockType();
+    }
+
     /**
      * Reads a table from disk using a table reader.
      *
@@ -298,6 +394,7 @@ public class FileManager {
         }
 
         try {
+            SegmentFile.close(path);
             Files.walkFileTree(path, new SimpleFileVisitor<Path>() {
                 @Override
                 public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
@@ -317,6 +414,17 @@ public class FileManager {
 
     }
 
+    /**
+     * @param path the path of the directory to delete if it exists
+     */
+    public void deleteDirectoryIfExists(Path path) {
+        try {
+            deleteDirectory(path);
+        } catch (DirectoryNotFoundException e) {
+            // do nothing
+        }
+    }
+
     private boolean isDirectoryExists(Path path) {
         return Files.exists(path);
     }
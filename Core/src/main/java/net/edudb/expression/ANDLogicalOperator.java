@@ -14,6 +14,7 @@ import java.util.LinkedHashMap;
 
 import net.edudb.data_type.DataType;
 import net.edudb.structure.Column;
+import net.edudb.structure.RecordBatch;
 
 /**
  * A logical operator that evaluates its children expression by logically
@@ -29,4 +30,16 @@ public class ANDLogicalOperator extends LogicalOperator {
 		return leftChild.evaluate(data) && rightChild.evaluate(data);
 	}
 
+	/**
+	 * The right child is only evaluated against the records selected by the
+	 * left child.
+	 */
+	@Override
+	public void select(RecordBatch batch) {
+		leftChild.select(batch);
+		if (batch.selectedCount() > 0) {
+			rightChild.select(batch);
+		}
+	}
+
 }
@@ -15,6 +15,7 @@ import java.util.LinkedHashMap;
 import net.edudb.data_type.DataType;
 import net.edudb.ebtree.EBBinaryNode;
 import net.edudb.structure.Column;
+import net.edudb.structure.RecordBatch;
 
 /**
  * An expression node that has two children.
@@ -35,4 +36,23 @@ public interface BinaryExpressionNode extends EBBinaryNode {
 	 */
 	boolean evaluate(LinkedHashMap<Column, DataType> data);
 
+	/**
+	 * Evaluates an expression against the selected records of a batch,
+	 * removing the records that do not satisfy it from the batch's selection
+	 * vector.
+	 *
+	 * @param batch
+	 *            The batch for the expression to be evaluated against.
+	 */
+	default void select(RecordBatch batch) {
+		int[] selection = batch.selection();
+		int kept = 0;
+		for (int i = 0; i < batch.selectedCount(); i++) {
+			if (evaluate(batch.get(selection[i]).getData())) {
+				selection[kept++] = selection[i];
+			}
+		}
+		batch.setSelectedCount(kept);
+	}
+
 }
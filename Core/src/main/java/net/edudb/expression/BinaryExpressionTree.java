@@ -13,6 +13,7 @@ import net.edudb.data_type.DataType;
 import net.edudb.ebtree.EBNode;
 import net.edudb.ebtree.EBTree;
 import net.edudb.structure.Column;
+import net.edudb.structure.RecordBatch;
 
 import java.util.LinkedHashMap;
 
@@ -45,4 +46,14 @@ public class BinaryExpressionTree extends EBTree implements ExpressionTree {
         return ((BinaryExpressionNode) this.root).evaluate(data);
     }
 
+    /**
+     * Evaluates the tree against the selected records of a batch, keeping
+     * only the records that satisfy it selected.
+     *
+     * @param batch The batch to filter.
+     */
+    public void select(RecordBatch batch) {
+        ((BinaryExpressionNode) this.root).select(batch);
+    }
+
 }
@@ -16,6 +16,7 @@ import net.edudb.ebtree.EBNode;
 import net.edudb.exception.InvalidTypeValueException;
 import net.edudb.operator.parameter.OperatorParameter;
 import net.edudb.structure.Column;
+import net.edudb.structure.RecordBatch;
 
 import java.util.LinkedHashMap;
 import java.util.Map.Entry;
@@ -30,6 +31,18 @@ public class Expression implements BinaryExpressionNode, OperatorParameter {
     DataType value;
     OperatorType operator;
 
+    /**
+     * Whether the left column was replaced by the complete column of the
+     * evaluated records.
+     */
+    private boolean columnResolved;
+
+    /**
+     * The constant of a 'column operator value' expression converted to the
+     * type of the column. Created when the expression is first evaluated.
+     */
+    private DataType typedValue;
+
     public Expression(Column leftColumn, DataType value, OperatorType operator) {
         this.leftColumn = leftColumn;
         this.value = value;
@@ -84,11 +97,59 @@ public class Expression implements BinaryExpressionNode, OperatorParameter {
 
     @Override
     public boolean evaluate(LinkedHashMap<Column, DataType> data) {
+        resolve(data);
+
         /**
-         * The right-hand side of the expression.
+         * The left-hand side of the expression.
          */
-        Object val = data.get(leftColumn);
+        DataType val = data.get(leftColumn);
 
+        /**
+         * Expression in which both sides are columns. e.g. a=b where a,b are
+         * table columns.
+         */
+        if (rightColumn != null) {
+            int comparisonResult = val.compareTo(data.get(rightColumn));
+            return evaluate(comparisonResult);
+        }
+        /**
+         * Expression in which the left-hand side is a column and the right-hand
+         * side is a constant value. e.g. a=2.
+         */
+        else {
+            int comparisonResult = val.compareTo(typedValue);
+            return evaluate(comparisonResult);
+        }
+    }
+
+    /**
+     * The column and the constant are resolved once, against the first
+     * selected record, and every selected record is then only compared.
+     */
+    @Override
+    public void select(RecordBatch batch) {
+        if (batch.selectedCount() == 0) {
+            return;
+        }
+        int[] selection = batch.selection();
+        resolve(batch.get(selection[0]).getData());
+
+        int kept = 0;
+        for (int i = 0; i < batch.selectedCount(); i++) {
+            LinkedHashMap<Column, DataType> data = batch.get(selection[i]).getData();
+            DataType other = rightColumn != null ? data.get(rightColumn) : typedValue;
+            if (evaluate(data.get(leftColumn).compareTo(other))) {
+                selection[kept++] = selection[i];
+            }
+        }
+        batch.setSelectedCount(kept);
+    }
+
+    /**
+     * Resolves the left column and the constant of the expression, if not done
+     * yet.
+     */
+    private void resolve(LinkedHashMap<Column, DataType> data) {
         /**
          * The leftColumn is a Column that has only an order. This loop selects
          * the complete Column which resides in the record. Since relational
@@ -97,48 +158,32 @@ public class Expression implements BinaryExpressionNode, OperatorParameter {
          * added to the created Column. Columns are hashed based on their order,
          * therefore, the order is used.
          */
-        for (Entry<Column, DataType> entry : data.entrySet()) {
-            if (entry.getKey().equals(leftColumn)) {
-                leftColumn = entry.getKey();
-                break;
+        if (!columnResolved) {
+            for (Entry<Column, DataType> entry : data.entrySet()) {
+                if (entry.getKey().equals(leftColumn)) {
+                    leftColumn = entry.getKey();
+                    columnResolved = true;
+                    break;
+                }
             }
         }
 
-        DataType value = null;
         /**
          * Checks if the expression type is of the form 'column operator value'.
          * e.g. a=2.
          */
-        if (this.value != null) {
+        if (this.value != null && typedValue == null) {
             /**
              * Since parsing a relation algebra formula that has an expression
              * creates a generic data type, it must be transformed into a
              * defined data type.
              */
             try {
-                value = new DataTypeFactory().makeType(leftColumn.getTypeName(), ((GenericType) this.value).getValue());
+                typedValue = new DataTypeFactory().makeType(leftColumn.getTypeName(), ((GenericType) this.value).getValue());
             } catch (InvalidTypeValueException e) {
                 System.err.println(e.getMessage());
                 e.printStackTrace();
             }
-
-        }
-
-        /**
-         * Expression in which both sides are columns. e.g. a=b where a,b are
-         * table columns.
-         */
-        if (rightColumn != null) {
-            int comparisonResult = ((DataType) val).compareTo(data.get(rightColumn));
-            return evaluate(comparisonResult);
-        }
-        /**
-         * Expression in which the left-hand side is a column and the right-hand
-         * side is a constant value. e.g. a=2.
-         */
-        else {
-            int comparisonResult = ((DataType) val).compareTo(value);
-            return evaluate(comparisonResult);
         }
     }
 
@@ -10,10 +10,12 @@ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLI
 
 package net.edudb.expression;
 
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 
 import net.edudb.data_type.DataType;
 import net.edudb.structure.Column;
+import net.edudb.structure.RecordBatch;
 
 /**
  * A logical operator that evaluates its children expression by logically
@@ -29,4 +31,42 @@ public class ORLogicalOperator extends LogicalOperator {
 		return leftChild.evaluate(data) || rightChild.evaluate(data);
 	}
 
+	/**
+	 * The right child is only evaluated against the records the left child
+	 * did not select, and both selections are merged.
+	 */
+	@Override
+	public void select(RecordBatch batch) {
+		int[] selection = batch.selection();
+		int[] candidates = Arrays.copyOf(selection, batch.selectedCount());
+
+		leftChild.select(batch);
+		int[] left = Arrays.copyOf(selection, batch.selectedCount());
+		if (left.length == candidates.length) {
+			return;
+		}
+
+		int remaining = 0;
+		for (int i = 0, j = 0; i < candidates.length; i++) {
+			if (j < left.length && left[j] == candidates[i]) {
+				j++;
+			} else {
+				selection[remaining++] = candidates[i];
+			}
+		}
+		batch.setSelectedCount(remaining);
+		rightChild.select(batch);
+		int[] right = Arrays.copyOf(selection, batch.selectedCount());
+
+		int merged = 0;
+		for (int i = 0, j = 0; i < left.length || j < right.length; ) {
+			if (j == right.length || (i < left.length && left[i] < right[j])) {
+				selection[merged++] = left[i++];
+			} else {
+				selection[merged++] = right[j++];
+			}
+		}
+		batch.setSelectedCount(merged);
+	}
+
 }
@@ -17,13 +17,41 @@ import btree4j.indexer.BasicIndexQuery;
 import net.edudb.data_type.DataType;
 
 import java.io.File;
+import java.nio.ByteBuffer;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.function.ToIntFunction;
 
 public class BtreeIndex<T extends DataType> implements Index<T> {
+    /**
+     * Starts the values holding a page id, followed by the id's four bytes.
+     * Indexes written before page ids were stored this way hold page names,
+     * which never start with it, or page ids as text after a '#'.
+     */
+    private static final byte PAGE_ID_MARKER = 0;
+
     private final BTreeIndex index;
 
+    /**
+     * Gives the id of a page by name, -1 if there is no such page.
+     */
+    private final ToIntFunction<String> pageIds;
+
+    /**
+     * Whether the index was changed since it was last flushed.
+     */
+    private volatile boolean dirty;
+
     public BtreeIndex(File indexFile) {
+        this(indexFile, pageName -> -1);
+    }
+
+    /**
+     * @param pageIds Gives the id of a page by name, for the page names
+     *                stored by indexes written before page ids were.
+     */
+    public BtreeIndex(File indexFile, ToIntFunction<String> pageIds) {
+        this.pageIds = pageIds;
         try {
             this.index = new BTreeIndex(indexFile);
             this.index.init(false);
@@ -33,10 +61,11 @@ public class BtreeIndex<T extends DataType> implements Index<T> {
     }
 
     @Override
-    public void insert(DataType key, String pageName) {
+    public void insert(DataType key, int pageId) {
         Value k = new Value(key.toString());
-        Value v = new Value(pageName);
+        Value v = new Value(ByteBuffer.allocate(1 + Integer.BYTES).put(PAGE_ID_MARKER).putInt(pageId).array());
         try {
+            dirty = true;
             index.addValue(k, v);
         } catch (BTreeException e) {
             throw new RuntimeException(e);
@@ -47,6 +76,7 @@ public class BtreeIndex<T extends DataType> implements Index<T> {
     public void delete(DataType key) {
         Value k = new Value(key.toString());
         try {
+            dirty = true;
             this.index.remove(k);
         } catch (BTreeException e) {
             throw new RuntimeException(e);
@@ -54,9 +84,9 @@ public class BtreeIndex<T extends DataType> implements Index<T> {
     }
 
     @Override
-    public Set<String> search(DataType key) {
+    public Set<Integer> search(DataType key) {
         Value k = new Value(key.toString());
-        final Set<String> pages = new HashSet<>();
+        final Set<Integer> pages = new HashSet<>();
         try {
             this.index.search(new BasicIndexQuery.IndexConditionEQ(k), new BTreeCallback() {
                 public boolean indexInfo(Value value, long pointer) {
@@ -64,8 +94,10 @@ public class BtreeIndex<T extends DataType> implements Index<T> {
                 }
 
                 public boolean indexInfo(Value key, byte[] value) {
-                    String vv = new Value(value).toString();
-                    pages.add(vv);
+                    int pageId = pageId(value);
+                    if (pageId >= 0) {
+                        pages.add(pageId);
+                    }
                     return true;
                 }
             });
@@ -75,8 +107,31 @@ public class BtreeIndex<T extends DataType> implements Index<T> {
         return pages;
     }
 
+    /**
+     * @return The id of the page a value refers to, -1 if there is no such
+     * page.
+     */
+    private int pageId(byte[] value) {
+        if (value.length == 1 + Integer.BYTES && value[0] == PAGE_ID_MARKER) {
+            return ByteBuffer.wrap(value, 1, Integer.BYTES).getInt();
+        }
+        String pageName = new Value(value).toString();
+        if (pageName.startsWith("#")) {
+            try {
+                return Integer.parseInt(pageName.substring(1));
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        return pageIds.applyAsInt(pageName);
+    }
+
     @Override
     public void flush() {
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
         try {
             this.index.flush();
         } catch (BTreeException e) {
@@ -13,13 +13,22 @@ import net.edudb.data_type.DataType;
 
 import java.util.Set;
 
+/**
+ * An index over a column of a table, mapping the column's values to the ids
+ * of the pages holding them, as given by the table's
+ * {@link net.edudb.page.PageManager}.
+ */
 public interface Index<T extends DataType> {
-    void insert(T key, String pageName);
+    void insert(T key, int pageId);
 
     void delete(T key);
 
-    Set<String> search(T key);
+    Set<Integer> search(T key);
 
+    /**
+     * Writes the changes made to the index to disk. Does nothing if the index
+     * was not changed since it was last flushed.
+     */
     void flush();
 
     void close();
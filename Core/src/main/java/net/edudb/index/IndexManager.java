@@ -20,8 +20,10 @@ import net.edudb.relation.RelationIterator;
 import net.edudb.relation.VolatileRelation;
 import net.edudb.structure.Record;
 import net.edudb.structure.table.Table;
+import net.edudb.structure.table.TableManager;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
@@ -50,6 +52,11 @@ public class IndexManager {
     }
 
 
+    /**
+     * Registers the indexes of a database. Index files are only opened when
+     * an index is first used, and indexes that are already registered are
+     * kept.
+     */
     public void loadDatabaseIndices(String workspaceName, String databaseName) throws DatabaseNotFoundException {
         indexes.putIfAbsent(workspaceName, new HashMap<>());
         indexes.get(workspaceName).putIfAbsent(databaseName, new HashMap<>());
@@ -57,12 +64,24 @@ public class IndexManager {
         for (String[] index : indices) {
             String tableName = index[0];
             String columnName = index[1];
+            if (getIndex(workspaceName, databaseName, tableName, columnName).isPresent()) {
+                continue;
+            }
             File indexFile = Config.indexPath(workspaceName, databaseName, tableName, columnName).toFile();
-            Index<DataType> indexObject = new BtreeIndex<>(indexFile);
+            Index<DataType> indexObject = new LazyIndex<>(indexFile,
+                    pageName -> pageId(workspaceName, databaseName, tableName, pageName));
             addIndexToMemory(workspaceName, databaseName, tableName, columnName, indexObject);
         }
     }
 
+    /**
+     * @return The id of a page of a table, -1 if the table has no such page.
+     */
+    private static int pageId(String workspaceName, String databaseName, String tableName, String pageName) {
+        Table table = TableManager.getInstance().readTable(workspaceName, databaseName, tableName);
+        return table == null ? -1 : table.getPageManager().getPageId(pageName);
+    }
+
     public void offloadDatabaseIndices(String workspaceName, String databaseName) {
         if (!indexes.containsKey(workspaceName) || !indexes.get(workspaceName).containsKey(databaseName)) {
             return;
@@ -83,6 +102,8 @@ public class IndexManager {
         for (Map.Entry<String, Map<String, Index<DataType>>> tableIndices : databaseIndices.entrySet()) {
             for (Map.Entry<String, Index<DataType>> columnIndices : tableIndices.getValue().entrySet()) {
                 columnIndices.getValue().flush();
+                fileManager.fileWritten(Config.indexPath(workspaceName, databaseName, tableIndices.getKey(),
+                        columnIndices.getKey()));
             }
         }
     }
@@ -104,14 +125,44 @@ public class IndexManager {
         Index<DataType> index = new BtreeIndex<>(indexFile);
 
         addIndexToMemory(workspace, databaseName, table.getName(), columnName, index);
+        populateIndex(index, table, columnName);
+    }
+
+    /**
+     * Rebuilds the indexes of a table after its records were moved to other
+     * pages, e.g. by a vacuum.
+     *
+     * @param table The table whose indexes are rebuilt.
+     */
+    public void rebuildTableIndices(String workspace, String databaseName, Table table) {
+        String tableName = table.getName();
+        if (!indexes.containsKey(workspace) || !indexes.get(workspace).containsKey(databaseName) ||
+                !indexes.get(workspace).get(databaseName).containsKey(tableName)) {
+            return;
+        }
+        Map<String, Index<DataType>> tableIndices = indexes.get(workspace).get(databaseName).get(tableName);
+        for (String columnName : new ArrayList<>(tableIndices.keySet())) {
+            tableIndices.get(columnName).close();
+            try {
+                fileManager.deleteIndex(workspace, databaseName, tableName, columnName);
+            } catch (IndexNotFoundException e) {
+                throw new RuntimeException(e);
+            }
+            File indexFile = fileManager.createIndex(workspace, databaseName, tableName, columnName);
+            Index<DataType> index = new BtreeIndex<>(indexFile);
+
+            addIndexToMemory(workspace, databaseName, tableName, columnName, index);
+            populateIndex(index, table, columnName);
+        }
+    }
 
+    private void populateIndex(Index<DataType> index, Table table, String columnName) {
         Relation relation = new VolatileRelation(table);
         try (RelationIterator relationIterator = relation.getIterator()) {
             while (relationIterator.hasNext()) {
-                String pageName = relationIterator.getCurrentPage().getName();
                 Record currentRecord = relationIterator.next();
                 DataType data = currentRecord.getValue(columnName);
-                index.insert(data, pageName);
+                index.insert(data, relationIterator.getCurrentPageIndex());
             }
         }
     }
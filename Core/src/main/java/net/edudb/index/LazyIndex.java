@@ -0,0 +1,88 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+
+package net.edudb.index;
+
+import net.edudb.data_type.DataType;
+
+import java.io.File;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+
+/**
+ * An index whose file is opened when the index is first used. Opening a
+ * database registers its indexes without opening any index file.
+ */
+public class LazyIndex<T extends DataType> implements Index<T> {
+    private final File indexFile;
+    private final ToIntFunction<String> pageIds;
+    private volatile Index<T> index;
+
+    public LazyIndex(File indexFile) {
+        this(indexFile, pageName -> -1);
+    }
+
+    /**
+     * @param pageIds Gives the id of a page by name, for the page names
+     *                stored by indexes written before page ids were.
+     */
+    public LazyIndex(File indexFile, ToIntFunction<String> pageIds) {
+        this.indexFile = indexFile;
+        this.pageIds = pageIds;
+    }
+
+    private Index<T> index() {
+        Index<T> opened = index;
+        if (opened == null) {
+            synchronized (this) {
+                opened = index;
+                if (opened == null) {
+                    opened = new BtreeIndex<>(indexFile, pageIds);
+                    index = opened;
+                }
+            }
+        }
+        return opened;
+    }
+
+    @Override
+    public void insert(T key, int pageId) {
+        index().insert(key, pageId);
+    }
+
+    @Override
+    public void delete(T key) {
+        index().delete(key);
+    }
+
+    @Override
+    public Set<Integer> search(T key) {
+        return index().search(key);
+    }
+
+    /**
+     * An index that was never opened has nothing to flush.
+     */
+    @Override
+    public void flush() {
+        Index<T> opened = index;
+        if (opened != null) {
+            opened.flush();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (index != null) {
+            index.close();
+            index = null;
+        }
+    }
+}
@@ -28,6 +28,11 @@ public class EquiJoinOperator implements Operator, BinaryQueryNode {
 	private QueryNode leftChild;
 	private QueryNode rightChild;
 
+	/**
+	 * The algorithm the join is executed with, chosen by the planner.
+	 */
+	private JoinStrategy joinStrategy = JoinStrategy.HASH;
+
 	@Override
 	public void setParameter(OperatorParameter parameter) {
 		this.parameter = parameter;
@@ -38,6 +43,14 @@ public class EquiJoinOperator implements Operator, BinaryQueryNode {
 		return parameter;
 	}
 
+	public JoinStrategy getJoinStrategy() {
+		return joinStrategy;
+	}
+
+	public void setJoinStrategy(JoinStrategy joinStrategy) {
+		this.joinStrategy = joinStrategy;
+	}
+
 	@Override
 	public void setLeftChild(EBNode child) {
 		this.leftChild = (QueryNode) child;
@@ -0,0 +1,41 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+
+package net.edudb.operator;
+
+/**
+ * The algorithms an equi join can be executed with.
+ */
+public enum JoinStrategy {
+    /**
+     * Scans the right relation once for every record of the left relation.
+     */
+    NESTED_LOOP,
+
+    /**
+     * Builds a hash table on the smaller relation and probes it with the
+     * records of the other one.
+     */
+    HASH,
+
+    /**
+     * Sorts both relations by their join columns and merges them in one pass.
+     * Suits relations that are already sorted or too large to be hashed in
+     * memory, and produces records sorted by the join column.
+     */
+    SORT_MERGE,
+
+    /**
+     * Probes the index on the join column of the right relation with every
+     * record of the left relation. Chosen whenever the right relation has such
+     * an index, unless another strategy is set explicitly.
+     */
+    INDEX_NESTED_LOOP
+}
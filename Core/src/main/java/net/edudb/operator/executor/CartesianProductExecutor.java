@@ -11,10 +11,8 @@ package net.edudb.operator.executor;
 
 import net.edudb.operator.CartesianProductOperator;
 import net.edudb.operator.Operator;
+import net.edudb.relation.JoinRelation;
 import net.edudb.relation.Relation;
-import net.edudb.relation.RelationIterator;
-import net.edudb.relation.VolatileRelation;
-import net.edudb.structure.Record;
 
 /**
  * Executes the relational algebra CartesianProduct operator.
@@ -35,23 +33,7 @@ public class CartesianProductExecutor extends PostOrderOperatorExecutor implemen
             Relation leftRelation = getChain().execute((Operator) cartesianOperator.getLeftChild());
             Relation rightRelation = getChain().execute((Operator) cartesianOperator.getRightChild());
 
-            Relation resultRelation = new VolatileRelation();
-
-            try (RelationIterator leftIterator = leftRelation.getIterator();
-                 RelationIterator rightIterator = rightRelation.getIterator()) {
-
-                while (leftIterator.hasNext()) {
-                    Record leftRecord = leftIterator.next();
-                    while (rightIterator.hasNext()) {
-                        Record rightRecord = rightIterator.next();
-                        Record resultRecord = leftRecord.join(rightRecord);
-                        resultRelation.addRecord(resultRecord);
-                    }
-                    rightIterator.reset();
-                }
-            }
-
-            return resultRelation;
+            return new JoinRelation(leftRelation, rightRelation);
         }
         return nextElement.execute(operator);
     }
@@ -19,6 +19,7 @@ import net.edudb.expression.BinaryExpressionTree;
 import net.edudb.expression.ExpressionTree;
 import net.edudb.operator.DeleteOperator;
 import net.edudb.operator.Operator;
+import net.edudb.page.PageManager;
 import net.edudb.relation.Relation;
 import net.edudb.relation.RelationIterator;
 import net.edudb.structure.Record;
@@ -37,13 +38,17 @@ public class DeleteExecutor extends PostOrderOperatorExecutor implements Operato
             ExpressionTree tree = (ExpressionTree) delete.getParameter();
             Relation relation = getChain().execute((Operator) delete.getChild());
 
+            PageManager pageManager = relation.getPageManager();
+            pageManager.acquireSharedLock();
             try (RelationIterator iterator = relation.getIterator()) {
                 while (iterator.hasNext()) {
                     Record record = iterator.next();
                     if (record.evaluate((BinaryExpressionTree) tree)) {
-                        record.delete();
+                        pageManager.deleteRecord(iterator.getCurrentPage(), iterator.getCurrentRecordIndex(), record);
                     }
                 }
+            } finally {
+                pageManager.releaseSharedLock();
             }
             return relation;
         }
@@ -15,12 +15,12 @@ package net.edudb.operator.executor;
 
 import net.edudb.expression.Expression;
 import net.edudb.operator.EquiJoinOperator;
+import net.edudb.operator.JoinStrategy;
 import net.edudb.operator.Operator;
+import net.edudb.relation.HashJoinRelation;
+import net.edudb.relation.JoinRelation;
 import net.edudb.relation.Relation;
-import net.edudb.relation.RelationIterator;
-import net.edudb.relation.VolatileRelation;
-import net.edudb.structure.Column;
-import net.edudb.structure.Record;
+import net.edudb.relation.SortMergeJoinRelation;
 
 public class EquiJoinExecutor extends PostOrderOperatorExecutor implements OperatorExecutionChain {
     private OperatorExecutionChain nextElement;
@@ -32,32 +32,23 @@ public class EquiJoinExecutor extends PostOrderOperatorExecutor implements Opera
 
     @Override
     public Relation execute(Operator operator) {
-        if (operator instanceof EquiJoinOperator equiOperator) {
+        if (operator instanceof EquiJoinOperator equiOperator
+                && equiOperator.getJoinStrategy() != JoinStrategy.INDEX_NESTED_LOOP) {
             Relation leftRelation = getChain().execute((Operator) equiOperator.getLeftChild());
             Relation rightRelation = getChain().execute((Operator) equiOperator.getRightChild());
 
             Expression expression = (Expression) equiOperator.getParameter();
-            Column rightColumn = expression.getRightColumn();
 
-            Relation resultRelation = new VolatileRelation();
-
-            try (RelationIterator leftIterator = leftRelation.getIterator();
-                 RelationIterator rightIterator = rightRelation.getIterator()) {
-
-                while (leftIterator.hasNext()) {
-                    Record leftRecord = leftIterator.next();
-                    while (rightIterator.hasNext()) {
-                        Record rightRecord = rightIterator.next();
-                        if (leftRecord.equates(rightRecord, expression)) {
-                            Record resultRecord = leftRecord.equiJoin(rightRecord, rightColumn);
-                            resultRelation.addRecord(resultRecord);
-                        }
-                    }
-                    rightIterator.reset();
-                }
+            JoinStrategy strategy = equiOperator.getJoinStrategy();
+            // inputs that are already sorted by their join columns are merged instead of hashed
+            if (strategy == JoinStrategy.SORT_MERGE || (strategy == JoinStrategy.HASH
+                    && SortMergeJoinRelation.inputsSorted(leftRelation, rightRelation, expression))) {
+                return new SortMergeJoinRelation(leftRelation, rightRelation, expression);
             }
-
-            return resultRelation;
+            if (strategy == JoinStrategy.HASH) {
+                return new HashJoinRelation(leftRelation, rightRelation, expression);
+            }
+            return new JoinRelation(leftRelation, rightRelation, expression);
         }
         return nextElement.execute(operator);
     }
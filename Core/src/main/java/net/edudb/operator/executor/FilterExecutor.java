@@ -18,10 +18,8 @@ import net.edudb.expression.ExpressionTree;
 import net.edudb.operator.FilterOperator;
 import net.edudb.operator.Operator;
 import net.edudb.operator.parameter.FilterOperatorParameter;
+import net.edudb.relation.FilterRelation;
 import net.edudb.relation.Relation;
-import net.edudb.relation.RelationIterator;
-import net.edudb.relation.VolatileRelation;
-import net.edudb.structure.Record;
 
 public class FilterExecutor extends PostOrderOperatorExecutor implements OperatorExecutionChain {
 
@@ -39,18 +37,7 @@ public class FilterExecutor extends PostOrderOperatorExecutor implements Operato
 
             Relation relation = getChain().execute((Operator) filter.getChild());
 
-            Relation resultRelation = new VolatileRelation();
-
-            try (RelationIterator ri = relation.getIterator()) {
-                while (ri.hasNext()) {
-                    Record r = ri.next();
-                    if (r.evaluate((BinaryExpressionTree) tree)) {
-                        resultRelation.addRecord(r);
-                    }
-                }
-            }
-
-            return resultRelation;
+            return new FilterRelation(relation, (BinaryExpressionTree) tree);
         }
         return nextElement.execute(operator);
     }
@@ -0,0 +1,71 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+
+package net.edudb.operator.executor;
+
+import net.edudb.data_type.DataType;
+import net.edudb.engine.Config;
+import net.edudb.engine.DatabaseEngine;
+import net.edudb.expression.Expression;
+import net.edudb.index.Index;
+import net.edudb.operator.EquiJoinOperator;
+import net.edudb.operator.JoinStrategy;
+import net.edudb.operator.Operator;
+import net.edudb.operator.parameter.RelationOperatorParameter;
+import net.edudb.relation.HashJoinRelation;
+import net.edudb.relation.IndexJoinRelation;
+import net.edudb.relation.Relation;
+import net.edudb.statistics.Schema;
+import net.edudb.structure.table.Table;
+import net.edudb.structure.table.TableManager;
+
+import java.util.Optional;
+
+/**
+ * Executes the relational algebra EquiJoin operator as an index nested-loop
+ * join, probing the index on the join column of the right relation instead of
+ * scanning it. Falls back to a hash join if the index was dropped after the
+ * join was planned.
+ */
+public class IndexEquiJoinExecutor extends PostOrderOperatorExecutor implements OperatorExecutionChain {
+    private OperatorExecutionChain nextElement;
+
+    @Override
+    public void setNextElementInChain(OperatorExecutionChain chainElement) {
+        this.nextElement = chainElement;
+    }
+
+    @Override
+    public Relation execute(Operator operator) {
+        if (operator instanceof EquiJoinOperator equiOperator
+                && equiOperator.getJoinStrategy() == JoinStrategy.INDEX_NESTED_LOOP) {
+            Relation leftRelation = getChain().execute((Operator) equiOperator.getLeftChild());
+
+            Expression expression = (Expression) equiOperator.getParameter();
+            Operator rightOperator = (Operator) equiOperator.getRightChild();
+            String tableName = ((RelationOperatorParameter) rightOperator.getParameter()).getTableName();
+            String columnName = Schema.getInstance()
+                    .getColumnByOrder(tableName, expression.getRightColumn().getOrder()).getName();
+
+            String workspaceName = Config.getCurrentWorkspace();
+            String databaseName = Config.getCurrentDatabaseName();
+            Optional<Index<DataType>> index = DatabaseEngine.getInstance().getIndexManager()
+                    .getIndex(workspaceName, databaseName, tableName, columnName);
+            if (index.isEmpty()) {
+                Relation rightRelation = getChain().execute(rightOperator);
+                return new HashJoinRelation(leftRelation, rightRelation, expression);
+            }
+            Table table = TableManager.getInstance().readTable(workspaceName, databaseName, tableName);
+
+            return new IndexJoinRelation(leftRelation, table, index.get(), expression);
+        }
+        return nextElement.execute(operator);
+    }
+}
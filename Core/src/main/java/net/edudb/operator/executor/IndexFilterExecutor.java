@@ -21,12 +21,13 @@ import net.edudb.index.Index;
 import net.edudb.operator.FilterOperator;
 import net.edudb.operator.Operator;
 import net.edudb.operator.parameter.FilterOperatorParameter;
+import net.edudb.page.PageManager;
 import net.edudb.relation.Relation;
 import net.edudb.relation.RelationIterator;
-import net.edudb.relation.VolatileRelation;
+import net.edudb.relation.TemporaryRelation;
 import net.edudb.structure.Record;
+import net.edudb.structure.table.TableManager;
 
-import java.util.ArrayList;
 import java.util.Set;
 
 public class IndexFilterExecutor extends PostOrderOperatorExecutor implements OperatorExecutionChain {
@@ -55,11 +56,12 @@ public class IndexFilterExecutor extends PostOrderOperatorExecutor implements Op
 
             Index<DataType> index = DatabaseEngine.getInstance().getIndexManager().getIndex(workspaceName, databaseName, tableName, columnName).get();
 
-            Set<String> pages = index.search(new VarCharType(value));
+            Set<Integer> pageIds = index.search(new VarCharType(value));
+            PageManager pageManager = TableManager.getInstance().readTable(workspaceName, databaseName, tableName).getPageManager();
+            Relation resultRelation = new TemporaryRelation();
 
-            Relation resultRelation = new VolatileRelation();
-
-            try (RelationIterator relationIterator = new RelationIterator(new ArrayList<>(pages))) {
+            try (RelationIterator relationIterator = new RelationIterator(pageManager,
+                    pageManager.openSnapshot(pageIds))) {
                 while (relationIterator.hasNext()) {
                     Record r = relationIterator.next();
                     if (r.evaluate((BinaryExpressionTree) expressionTree)) {
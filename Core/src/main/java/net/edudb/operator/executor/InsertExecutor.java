@@ -18,6 +18,7 @@ import net.edudb.index.Index;
 import net.edudb.operator.InsertOperator;
 import net.edudb.operator.Operator;
 import net.edudb.operator.parameter.InsertOperatorParameter;
+import net.edudb.page.PageManager;
 import net.edudb.relation.Relation;
 import net.edudb.relation.VolatileRelation;
 import net.edudb.statement.SQLInsertStatement;
@@ -81,18 +82,24 @@ public class InsertExecutor extends PostOrderOperatorExecutor implements Operato
             String workspaceName = Config.getCurrentWorkspace();
             String databaseName = Config.getCurrentDatabaseName();
             String tableName = table.getName();
-            String pageName = table.addRecord(record);
-
-            for (int i = 0; i < size; i++) {
-                String columnName = columns.get(i).getName();
-                Optional<Index<DataType>> indexOptional = DatabaseEngine.getInstance().getIndexManager()
-                        .getIndex(workspaceName, databaseName, tableName, columnName);
-
-                if (indexOptional.isPresent()) {
-                    Index<DataType> index = indexOptional.get();
-                    DataType key = data.get(columns.get(i));
-                    index.insert(key, pageName);
+            PageManager pageManager = table.getPageManager();
+            pageManager.acquireSharedLock();
+            try {
+                int pageId = table.addRecord(record);
+
+                for (int i = 0; i < size; i++) {
+                    String columnName = columns.get(i).getName();
+                    Optional<Index<DataType>> indexOptional = DatabaseEngine.getInstance().getIndexManager()
+                            .getIndex(workspaceName, databaseName, tableName, columnName);
+
+                    if (indexOptional.isPresent()) {
+                        Index<DataType> index = indexOptional.get();
+                        DataType key = data.get(columns.get(i));
+                        index.insert(key, pageId);
+                    }
                 }
+            } finally {
+                pageManager.releaseSharedLock();
             }
 
             return relation;
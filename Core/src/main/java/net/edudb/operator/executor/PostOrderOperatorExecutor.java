@@ -13,17 +13,33 @@ package net.edudb.operator.executor;
  * Executes a query tree in a post-order strategy. If a tree node is not a leaf,
  * its left child is executed before its right child. This approach is achieved
  * recursively.
+ * <p>
+ * The chain of executors is built once per executed tree and shared by the
+ * executors in it, which use it to execute the children of their operators.
  *
  * @author Ahmed Abdul Badie
  */
 public class PostOrderOperatorExecutor {
 
+    /**
+     * The first executor of the chain, null until the chain is built.
+     */
+    private OperatorExecutionChain chain;
+
     public OperatorExecutionChain getChain() {
+        if (chain == null) {
+            chain = buildChain();
+        }
+        return chain;
+    }
+
+    private static OperatorExecutionChain buildChain() {
 
         OperatorExecutionChain[] ExecutorsList = {
                 new ProjectExecutor(),
                 new CartesianProductExecutor(),
                 new EquiJoinExecutor(),
+                new IndexEquiJoinExecutor(),
                 new FilterExecutor(),
                 new IndexFilterExecutor(),
                 new RelationExecutor(),
@@ -36,6 +52,9 @@ public class PostOrderOperatorExecutor {
         for (int i = 0; i < ExecutorsList.length - 1; i++) {
             ExecutorsList[i].setNextElementInChain(ExecutorsList[i + 1]);
         }
+        for (OperatorExecutionChain executor : ExecutorsList) {
+            ((PostOrderOperatorExecutor) executor).chain = ExecutorsList[0];
+        }
 
         return ExecutorsList[0];
     }
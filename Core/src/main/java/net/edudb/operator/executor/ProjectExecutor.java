@@ -12,10 +12,8 @@ package net.edudb.operator.executor;
 import net.edudb.operator.Operator;
 import net.edudb.operator.ProjectOperator;
 import net.edudb.operator.parameter.ProjectOperatorParameter;
+import net.edudb.relation.ProjectRelation;
 import net.edudb.relation.Relation;
-import net.edudb.relation.RelationIterator;
-import net.edudb.relation.VolatileRelation;
-import net.edudb.structure.Record;
 
 /**
  * Executes the relational algebra Project operator.
@@ -36,16 +34,7 @@ public class ProjectExecutor extends PostOrderOperatorExecutor implements Operat
             ProjectOperatorParameter projectedColumns = (ProjectOperatorParameter) projectOperator.getParameter();
             Relation relation = getChain().execute((Operator) projectOperator.getChild());
 
-            Relation resultRelation = new VolatileRelation();
-
-            try (RelationIterator relationIterator = relation.getIterator()) {
-                while (relationIterator.hasNext()) {
-                    Record r = relationIterator.next();
-                    resultRelation.addRecord(r.project(projectedColumns.getProjectedColumns()));
-                }
-            }
-
-            return resultRelation;
+            return new ProjectRelation(relation, projectedColumns.getProjectedColumns());
         }
         return nextElement.execute(operator);
     }
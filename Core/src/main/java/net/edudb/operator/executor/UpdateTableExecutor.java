@@ -17,6 +17,7 @@ import net.edudb.expression.ExpressionTree;
 import net.edudb.operator.Operator;
 import net.edudb.operator.UpdateTableOperator;
 import net.edudb.operator.parameter.UpdateTableOperatorParameter;
+import net.edudb.page.PageManager;
 import net.edudb.relation.Relation;
 import net.edudb.relation.RelationIterator;
 import net.edudb.statistics.Schema;
@@ -68,13 +69,18 @@ public class UpdateTableExecutor extends PostOrderOperatorExecutor implements Op
 
             Relation relation = getChain().execute((Operator) update.getChild());
 
+            PageManager pageManager = relation.getPageManager();
+            pageManager.acquireSharedLock();
             try (RelationIterator iterator = relation.getIterator()) {
                 while (iterator.hasNext()) {
                     Record record = iterator.next();
                     if (record.evaluate((BinaryExpressionTree) tree)) {
-                        record.update(data);
+                        pageManager.updateRecord(iterator.getCurrentPage(), iterator.getCurrentRecordIndex(), record,
+                                data);
                     }
                 }
+            } finally {
+                pageManager.releaseSharedLock();
             }
             return relation;
         }
@@ -13,10 +13,13 @@ import net.edudb.engine.Config;
 import net.edudb.engine.Utility;
 import net.edudb.exception.LockIsNotAcquiredException;
 import net.edudb.structure.Record;
+import net.edudb.structure.TableRecord;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serial;
 import java.io.Serializable;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.LinkedHashMap;
 
 /**
  * A page that is saved to disk as binary data.
@@ -28,9 +31,9 @@ public class BinaryPage extends Page implements Serializable {
     private static final long serialVersionUID = 4813060042690551966L;
 
     private final String name;
-    private final ReentrantLock lock;
-    private final Record[] records;
-    private int nextLocation;
+    Record[] records;
+    int nextLocation;
+    volatile long lsn;
 
     /**
      * Used to monitor how many threads are currently using the page. Used by
@@ -40,25 +43,27 @@ public class BinaryPage extends Page implements Serializable {
 
     public BinaryPage() {
         this.name = Utility.generateUUID();
-        this.lock = new ReentrantLock();
         this.records = new Record[Config.PAGE_SIZE];
         this.nextLocation = 0;
     }
 
-
-    @Override
-    public void acquireLock() {
-        this.lock.lock();
+    /**
+     * Creates an empty page with a known name and capacity. Used when a page is
+     * rebuilt from an on-disk image that is not a serialized object.
+     *
+     * @param name     Name of the page.
+     * @param capacity Number of records the page can hold.
+     */
+    BinaryPage(String name, int capacity) {
+        this.name = name;
+        this.records = new Record[capacity];
+        this.nextLocation = 0;
     }
 
-    @Override
-    public void releaseLock() {
-        this.lock.unlock();
-    }
 
     @Override
     public Record getRecord(int index) {
-        if (!lock.isHeldByCurrentThread()) {
+        if (!isLockedByCurrentThread() && !isSharedLockedByCurrentThread()) {
             RuntimeException e = new LockIsNotAcquiredException("Lock is not acquired on page " + name);
             e.printStackTrace();
             throw e;
@@ -67,14 +72,67 @@ public class BinaryPage extends Page implements Serializable {
     }
 
     @Override
-    public synchronized void addRecord(Record record) {
-        if (!lock.isHeldByCurrentThread()) {
+    public int addRecord(Record record) {
+        if (!isLockedByCurrentThread()) {
+            RuntimeException e = new LockIsNotAcquiredException("Lock is not acquired on page " + name);
+            e.printStackTrace();
+            throw e;
+        }
+        int location = nextLocation < records.length ? nextLocation++ : deletedLocation();
+        if (location >= 0) {
+            records[location] = record;
+            attach(record);
+            markDirty();
+        }
+        return location;
+    }
+
+    @Override
+    public void setRecord(int index, Record record) {
+        if (!isLockedByCurrentThread()) {
             RuntimeException e = new LockIsNotAcquiredException("Lock is not acquired on page " + name);
             e.printStackTrace();
             throw e;
         }
-        if (nextLocation <= records.length) {
-            records[nextLocation++] = record;
+        records[index] = record;
+        attach(record);
+        for (int i = nextLocation; i < index; i++) {
+            records[i] = new TableRecord(new LinkedHashMap<>());
+            records[i].delete();
+            attach(records[i]);
+        }
+        nextLocation = Math.max(nextLocation, index + 1);
+        markDirty();
+    }
+
+    /**
+     * @return Location of the first deleted record, whose slot can be reused.
+     * -1 if no record is deleted.
+     */
+    private int deletedLocation() {
+        for (int i = 0; i < nextLocation; i++) {
+            if (records[i].isDeleted()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Links a record to this page so that changes to the record mark the page
+     * as dirty.
+     */
+    void attach(Record record) {
+        if (record instanceof TableRecord tableRecord) {
+            tableRecord.setPage(this);
+        }
+    }
+
+    @Serial
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        for (int i = 0; i < nextLocation; i++) {
+            attach(records[i]);
         }
     }
 
@@ -83,6 +141,19 @@ public class BinaryPage extends Page implements Serializable {
         return name;
     }
 
+    @Override
+    public long getLsn() {
+        return lsn;
+    }
+
+    @Override
+    public synchronized void setLsn(long lsn) {
+        if (lsn > this.lsn) {
+            this.lsn = lsn;
+            markLogged(lsn);
+        }
+    }
+
     @Override
     public int capacity() {
         return records.length;
@@ -90,7 +161,7 @@ public class BinaryPage extends Page implements Serializable {
 
     @Override
     public int size() {
-        if (!lock.isHeldByCurrentThread()) {
+        if (!isLockedByCurrentThread() && !isSharedLockedByCurrentThread()) {
             RuntimeException e = new LockIsNotAcquiredException("Lock is not acquired on page " + name);
             e.printStackTrace();
             throw e;
@@ -100,17 +171,17 @@ public class BinaryPage extends Page implements Serializable {
 
     @Override
     public boolean isFull() {
-        if (!lock.isHeldByCurrentThread()) {
+        if (!isLockedByCurrentThread() && !isSharedLockedByCurrentThread()) {
             RuntimeException e = new LockIsNotAcquiredException("Lock is not acquired on page " + name);
             e.printStackTrace();
             throw e;
         }
-        return size() >= records.length;
+        return size() >= records.length && deletedLocation() < 0;
     }
 
     @Override
     public boolean isEmpty() {
-        if (!lock.isHeldByCurrentThread()) {
+        if (!isLockedByCurrentThread() && !isSharedLockedByCurrentThread()) {
             RuntimeException e = new LockIsNotAcquiredException("Lock is not acquired on page " + name);
             e.printStackTrace();
             throw e;
@@ -118,6 +189,22 @@ public class BinaryPage extends Page implements Serializable {
         return size() == 0;
     }
 
+    @Override
+    public int liveCount() {
+        if (!isLockedByCurrentThread() && !isSharedLockedByCurrentThread()) {
+            RuntimeException e = new LockIsNotAcquiredException("Lock is not acquired on page " + name);
+            e.printStackTrace();
+            throw e;
+        }
+        int count = 0;
+        for (int i = 0; i < nextLocation; i++) {
+            if (!records[i].isDeleted()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
     @Override
     public String toString() {
         StringBuilder builder = new StringBuilder();
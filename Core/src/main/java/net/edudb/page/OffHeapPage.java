@@ -0,0 +1,195 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+package net.edudb.page;
+
+import net.edudb.structure.Record;
+
+import java.io.IOException;
+import java.io.Serial;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A page that keeps its slotted image in direct memory, outside the Java heap.
+ * <p>
+ * The page's records are decoded on the heap when they are first accessed and
+ * dropped again once the page is no longer pinned, re-encoding the image if
+ * the records were modified. A buffer pool of off-heap pages thus only keeps
+ * the records of the pages in use on the heap. Records must only be modified
+ * while their page is pinned; changes made through a record after its page
+ * was unpinned are lost.
+ */
+public class OffHeapPage extends BinaryPage {
+    @Serial
+    private static final long serialVersionUID = -2745081931262817520L;
+
+    private final int capacity;
+
+    /**
+     * The page image in direct memory. Null for a new page until its records
+     * are first dropped.
+     */
+    private transient ByteBuffer image;
+
+    /**
+     * Whether the records were modified since the image was encoded.
+     */
+    private transient boolean imageOutdated;
+
+    /**
+     * Creates an empty page whose records are on the heap.
+     *
+     * @param name     Name of the page.
+     * @param capacity Number of records the page can hold.
+     */
+    OffHeapPage(String name, int capacity) {
+        super(name, capacity);
+        this.capacity = capacity;
+        this.imageOutdated = true;
+    }
+
+    /**
+     * Creates a page from its slotted image, copying the image to direct
+     * memory. Records are not decoded until they are accessed.
+     *
+     * @param buffer The buffer holding the page image, starting at its current
+     *               position.
+     * @throws IOException If the buffer does not hold a slotted page image.
+     */
+    OffHeapPage(ByteBuffer buffer) throws IOException {
+        super(SlottedPageFormat.pageName(buffer), 0);
+        this.capacity = SlottedPageFormat.capacity(buffer);
+        this.lsn = SlottedPageFormat.lsn(buffer);
+        this.image = ByteBuffer.allocateDirect(buffer.remaining()).put(buffer.duplicate()).flip();
+        this.records = null;
+    }
+
+    /**
+     * Decodes the records from the image if they are not on the heap.
+     */
+    private synchronized void decode() {
+        if (records != null) {
+            return;
+        }
+        try {
+            SlottedPageFormat.decodeRecords(image.duplicate(), this);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        imageOutdated = false;
+    }
+
+    /**
+     * Drops the records from the heap, encoding them into the image first if
+     * they were modified. Pages that are in use keep their records.
+     */
+    private synchronized void drop() {
+        if (records == null || isPinned() || isLocked()) {
+            return;
+        }
+        encode();
+        records = null;
+        nextLocation = 0;
+    }
+
+    private void encode() {
+        if (image == null || imageOutdated) {
+            ByteBuffer encoded = SlottedPageFormat.encodeRecords(this);
+            image = ByteBuffer.allocateDirect(encoded.remaining()).put(encoded).flip();
+            imageOutdated = false;
+        }
+    }
+
+    /**
+     * @return A buffer, ready to be read, holding the current page image.
+     */
+    synchronized ByteBuffer image() {
+        if (records != null) {
+            encode();
+        }
+        return image.duplicate();
+    }
+
+    @Override
+    public void unpin() {
+        super.unpin();
+        if (!isPinned()) {
+            drop();
+        }
+    }
+
+    @Override
+    public void markDirty() {
+        super.markDirty();
+        imageOutdated = true;
+    }
+
+    @Override
+    public Record getRecord(int index) {
+        decode();
+        return super.getRecord(index);
+    }
+
+    @Override
+    public int addRecord(Record record) {
+        decode();
+        return super.addRecord(record);
+    }
+
+    @Override
+    public void setRecord(int index, Record record) {
+        decode();
+        super.setRecord(index, record);
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public int size() {
+        decode();
+        return super.size();
+    }
+
+    @Override
+    public boolean isFull() {
+        decode();
+        return super.isFull();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        decode();
+        return super.isEmpty();
+    }
+
+    @Override
+    public int liveCount() {
+        decode();
+        return super.liveCount();
+    }
+
+    @Override
+    public String toString() {
+        decode();
+        return super.toString();
+    }
+
+    /**
+     * Serialized pages hold their records.
+     */
+    @Serial
+    private Object writeReplace() {
+        decode();
+        return this;
+    }
+}
@@ -11,15 +11,83 @@ package net.edudb.page;
 
 import net.edudb.structure.Record;
 
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
 /**
  * A structure that is composed of multiple records.
  *
  * @author Ahmed Abdul Badie
  */
 public abstract class Page {
-    public abstract void acquireLock();
+    /**
+     * Whether the page was modified since it was last written to disk. New
+     * pages are dirty until they are first written.
+     */
+    private volatile boolean dirty = true;
 
-    public abstract void releaseLock();
+    /**
+     * LSN of the first logged change made to the page since it was last
+     * written to disk, 0 if none. Changes logged before it are on disk.
+     */
+    private volatile long dirtyLsn;
+
+    /**
+     * The number of users currently working on the page. A pinned page is
+     * never removed from the buffer pool.
+     */
+    private final AtomicInteger pinCount = new AtomicInteger();
+
+    /**
+     * Guards the page's records. Any number of threads can read the page
+     * while holding the shared lock; adding records requires the exclusive
+     * lock.
+     */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Acquires the exclusive lock, needed to modify the page.
+     */
+    public void acquireLock() {
+        lock.writeLock().lock();
+    }
+
+    public void releaseLock() {
+        lock.writeLock().unlock();
+    }
+
+    /**
+     * Acquires the shared lock, enough to read the page's records.
+     */
+    public void acquireSharedLock() {
+        lock.readLock().lock();
+    }
+
+    public void releaseSharedLock() {
+        lock.readLock().unlock();
+    }
+
+    /**
+     * @return Whether any thread currently holds the page's lock in either
+     * mode.
+     */
+    public boolean isLocked() {
+        return lock.isWriteLocked() || lock.getReadLockCount() > 0;
+    }
+
+    /**
+     * @return Whether the current thread holds the exclusive lock.
+     */
+    protected boolean isLockedByCurrentThread() {
+        return lock.isWriteLockedByCurrentThread();
+    }
+
+    /**
+     * @return Whether the current thread holds the shared lock.
+     */
+    protected boolean isSharedLockedByCurrentThread() {
+        return lock.getReadHoldCount() > 0;
+    }
 
 
     /**
@@ -32,8 +100,18 @@ public abstract class Page {
      * Adds a record to the page.
      *
      * @param record Record to be added to the page.
+     * @return The slot the record was placed in, -1 if the page is full.
+     */
+    public abstract int addRecord(Record record);
+
+    /**
+     * Places a record in a given slot, replacing the record that is there.
+     * Used to redo logged changes after a crash.
+     *
+     * @param index  Slot of the record.
+     * @param record The record.
      */
-    public abstract void addRecord(Record record);
+    public abstract void setRecord(int index, Record record);
 
 
     /**
@@ -62,4 +140,86 @@ public abstract class Page {
      */
     public abstract boolean isEmpty();
 
+    /**
+     * @return Number of records in the page that are not deleted.
+     */
+    public abstract int liveCount();
+
+    /**
+     * @return Log sequence number of the last logged change made to the page,
+     * 0 if no change was logged.
+     */
+    public abstract long getLsn();
+
+    /**
+     * Records that a logged change was made to the page. The page must not be
+     * written to disk before the log is flushed up to that change.
+     *
+     * @param lsn Log sequence number of the change.
+     */
+    public abstract void setLsn(long lsn);
+
+    /**
+     * Marks the page as modified, so that it is written on the next flush.
+     */
+    public void markDirty() {
+        dirty = true;
+    }
+
+    /**
+     * Marks the page as in sync with its copy on disk. Must be called once the
+     * page is written, while holding the shared lock taken for the write, so
+     * that no change is made in between and a failed write keeps the page
+     * dirty.
+     */
+    public void markClean() {
+        dirty = false;
+        dirtyLsn = 0;
+    }
+
+    /**
+     * @return LSN of the first logged change that is not on disk yet, 0 if the
+     * page has no such change.
+     */
+    public long getDirtyLsn() {
+        return dirtyLsn;
+    }
+
+    /**
+     * Records that a logged change was made to the page since it was last
+     * written to disk.
+     *
+     * @param lsn Log sequence number of the change.
+     */
+    protected void markLogged(long lsn) {
+        if (dirtyLsn == 0) {
+            dirtyLsn = lsn;
+        }
+    }
+
+    /**
+     * @return Page was modified since it was last written to disk.
+     */
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * Keeps the page in the buffer pool until it is unpinned.
+     */
+    public void pin() {
+        pinCount.incrementAndGet();
+    }
+
+    public void unpin() {
+        pinCount.decrementAndGet();
+    }
+
+    /**
+     * @return Page is used by at least one user.
+     */
+    public boolean isPinned() {
+        return pinCount.get() > 0;
+    }
+
 }
@@ -11,6 +11,8 @@ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLI
 package net.edudb.page;
 
 import net.edudb.block.BlockFileType;
+import net.edudb.engine.Config;
+import net.edudb.engine.Utility;
 
 import java.util.Objects;
 
@@ -30,9 +32,37 @@ public class PageFactory {
 	 * @return The created page.
 	 */
 	public Page makePage(BlockFileType blockType) {
-        if (Objects.requireNonNull(blockType) == BlockFileType.Binary) {
-            return new BinaryPage();
+        switch (Objects.requireNonNull(blockType)) {
+            case Binary:
+                return new BinaryPage();
+            case Slotted:
+            case Segment:
+            case Mapped:
+                return Config.offHeapPages() ? new OffHeapPage(Utility.generateUUID(), Config.PAGE_SIZE) : new BinaryPage();
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Creates an instance of a supported page type with a given name.
+     *
+     * @param blockType
+     *            The type of page to create.
+     * @param name
+     *            The name of the page.
+     * @return The created page.
+     */
+    public Page makePage(BlockFileType blockType, String name) {
+        switch (Objects.requireNonNull(blockType)) {
+            case Binary:
+                return new BinaryPage(name, Config.PAGE_SIZE);
+            case Slotted:
+            case Segment:
+            case Mapped:
+                return Config.offHeapPages() ? new OffHeapPage(name, Config.PAGE_SIZE) : new BinaryPage(name, Config.PAGE_SIZE);
+            default:
+                return null;
         }
-        return null;
     }
 }
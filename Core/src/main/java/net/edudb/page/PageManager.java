@@ -9,17 +9,42 @@
 
 package net.edudb.page;
 
+import net.edudb.block.SegmentFile;
 import net.edudb.buffer.BufferManager;
+import net.edudb.data_type.DataType;
 import net.edudb.engine.Config;
 import net.edudb.engine.FileManager;
+import net.edudb.engine.Utility;
+import net.edudb.exception.RecordTooLargeException;
+import net.edudb.structure.Column;
 import net.edudb.structure.Record;
+import net.edudb.structure.TableRecord;
+import net.edudb.wal.LogRecord;
+import net.edudb.wal.WriteAheadLog;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serial;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * A structure that manages pages.
+ * <p>
+ * Every page of a table has a page id, its position in the table's list of
+ * pages. Page ids are stable as pages are only appended, until the table is
+ * vacuumed, and are what indexes store to refer to pages.
  *
  * @author Ahmed Abdul Badie
  */
@@ -27,59 +52,929 @@ public class PageManager implements Pageable, Serializable {
 
     @Serial
     private static final long serialVersionUID = -6801103344946561955L;
-    private final ArrayList<String> pageNames;
+
+    /**
+     * The page names are written as an {@link ArrayList}, the type they had
+     * before the list was made copy-on-write.
+     */
+    @Serial
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("pageNames", ArrayList.class),
+            new ObjectStreamField("segmentName", String.class),
+            new ObjectStreamField("nextPageNumber", int.class),
+            new ObjectStreamField("freePages", BitSet.class),
+            new ObjectStreamField("deadPages", BitSet.class),
+            new ObjectStreamField("lsn", long.class),
+            new ObjectStreamField("generation", int.class),
+    };
+
+    /**
+     * An unmodifiable list that is replaced, never changed, when pages are
+     * added or removed, so that scans can iterate over it while other threads
+     * add pages. Not written when the pages are exactly the pages of the
+     * segment, in order, as their names can then be derived from the segment
+     * name.
+     */
+    private transient volatile List<String> pageNames;
+
+    /**
+     * Name of the segment holding the pages when pages are stored in segment
+     * files. Assigned when the first segment page is created.
+     */
+    private String segmentName;
+    private int nextPageNumber;
+
+    /**
+     * Free-space map of the table. The indexes of the pages that had records
+     * deleted from them and may have free slots for new records.
+     */
+    private BitSet freePages;
+
+    /**
+     * The indexes of the pages whose records are all deleted. Scans skip
+     * these pages without reading them.
+     */
+    private BitSet deadPages;
+
+    /**
+     * The index of the page a record was last deleted from. Deletes usually
+     * come from scans, so consecutive deletes hit the same page.
+     */
+    private transient int lastDeletedIndex;
+
+    /**
+     * The LSN the write-ahead log was at when the table was last written. The
+     * written list of pages includes every page added by earlier log records.
+     */
+    private long lsn;
+
+    /**
+     * Incremented every time the table is written in full. A delta file
+     * written for an earlier generation is stale and is ignored.
+     */
+    private int generation;
+
+    /**
+     * Number of pages in the table on disk, including the pages appended by
+     * deltas. The pages after it are written by the next delta.
+     */
+    private transient int writtenPageCount;
+
+    /**
+     * The indexes of the pages whose free-space map bits changed since the
+     * table was last written.
+     */
+    private transient BitSet changedPages;
+
+    /**
+     * Whether the table must be written in full, as it was never written or
+     * pages were removed since it was last written.
+     */
+    private transient boolean rewriteNeeded;
+
+    /**
+     * The LSN and the generation the table was last serialized or written as
+     * a delta with, which become the table's once the write is on disk.
+     */
+    private transient long writtenLsn;
+    private transient int writtenGeneration;
+
+    /**
+     * Name of the table the pages belong to. Changes to the pages are only
+     * written to the write-ahead log when it is set, so intermediate results
+     * are not logged.
+     */
+    private transient String tableName;
+
+    /**
+     * Whether the pages or the free-space map changed since the table was last
+     * written.
+     */
+    private transient volatile boolean modified;
+
+    /**
+     * The pages replaced by the last vacuum, retired once the table was
+     * written with its new pages.
+     */
+    private transient RetiredPages vacuumedPages;
+
+    /**
+     * Incremented every time a vacuum replaces the pages. Snapshots taken
+     * before a vacuum keep the pages it replaced from being deleted.
+     */
+    private transient int version;
+
+    /**
+     * The number of snapshots that are open for each version of the pages.
+     */
+    private transient HashMap<Integer, Integer> openSnapshots;
+
+    /**
+     * Pages replaced by vacuums, deleted once no snapshot of their version is
+     * open.
+     */
+    private transient ArrayList<RetiredPages> retiredPages;
+
+    /**
+     * Held in shared mode by statements that change the table's records, and
+     * in exclusive mode while the table is vacuumed, so that no record is
+     * changed in the old pages while the records are moved and the indexes
+     * are rebuilt.
+     */
+    private transient ReentrantReadWriteLock tableLock;
 
     public PageManager() {
-        this.pageNames = new ArrayList<>();
+        this.pageNames = List.of();
+        this.freePages = new BitSet();
+        this.deadPages = new BitSet();
+        this.changedPages = new BitSet();
+        this.rewriteNeeded = true;
+        this.tableLock = new ReentrantReadWriteLock();
+        this.openSnapshots = new HashMap<>();
+        this.retiredPages = new ArrayList<>();
+    }
+
+    /**
+     * The pages of a table as a scan sees them. The page names and the dead
+     * pages are taken together, so a scan neither reads a page twice nor
+     * skips a live page when the table is vacuumed while it is open.
+     *
+     * @param pageNames The names of the pages to scan.
+     * @param deadPages The indexes of the pages to skip.
+     * @param version   The version of the pages the snapshot was taken of.
+     */
+    public record Snapshot(List<String> pageNames, BitSet deadPages, int version) {
+    }
+
+    private record RetiredPages(int version, List<String> pageNames, String segmentName) {
+    }
+
+    @Serial
+    private synchronized void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("pageNames", isSegmentSequence() ? null : new ArrayList<>(pageNames));
+        fields.put("segmentName", segmentName);
+        fields.put("nextPageNumber", nextPageNumber);
+        fields.put("freePages", freePages);
+        fields.put("deadPages", deadPages);
+        writtenLsn = WriteAheadLog.getInstance().nextLsn();
+        writtenGeneration = generation + 1;
+        fields.put("lsn", writtenLsn);
+        fields.put("generation", writtenGeneration);
+        out.writeFields();
+        writtenPageCount = pageNames.size();
+        changedPages.clear();
+        rewriteNeeded = false;
+    }
+
+    @Serial
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        ArrayList<String> names = (ArrayList<String>) fields.get("pageNames", null);
+        segmentName = (String) fields.get("segmentName", null);
+        nextPageNumber = fields.get("nextPageNumber", 0);
+        freePages = (BitSet) fields.get("freePages", null);
+        deadPages = (BitSet) fields.get("deadPages", null);
+        lsn = fields.get("lsn", 0L);
+        generation = fields.get("generation", 0);
+
+        if (names == null) {
+            names = new ArrayList<>(nextPageNumber);
+            for (int pageNumber = 0; pageNumber < nextPageNumber; pageNumber++) {
+                names.add(SegmentFile.pageName(segmentName, pageNumber));
+            }
+        }
+        pageNames = Collections.unmodifiableList(names);
+        /**
+         * Tables written before the free-space map was added.
+         */
+        if (freePages == null) {
+            freePages = new BitSet();
+        }
+        if (deadPages == null) {
+            deadPages = new BitSet();
+        }
+        writtenPageCount = pageNames.size();
+        changedPages = new BitSet();
+        tableLock = new ReentrantReadWriteLock();
+        openSnapshots = new HashMap<>();
+        retiredPages = new ArrayList<>();
+    }
+
+    /**
+     * Acquires the exclusive lock of the table, needed to vacuum it.
+     */
+    public void acquireLock() {
+        tableLock.writeLock().lock();
+    }
+
+    public void releaseLock() {
+        tableLock.writeLock().unlock();
+    }
+
+    /**
+     * Acquires the shared lock of the table, needed to insert, update or
+     * delete its records.
+     */
+    public void acquireSharedLock() {
+        tableLock.readLock().lock();
     }
 
+    public void releaseSharedLock() {
+        tableLock.readLock().unlock();
+    }
+
+    /**
+     * Acquires the shared lock of the table unless the table is being
+     * vacuumed.
+     *
+     * @return Whether the lock was acquired.
+     */
+    public boolean tryAcquireSharedLock() {
+        return tableLock.readLock().tryLock();
+    }
+
+    /**
+     * @return The number of times the table was written in full.
+     */
+    public synchronized int getGeneration() {
+        return generation;
+    }
+
+    /**
+     * @return Whether the changes made since the table was last written can be
+     * appended to its delta file instead of writing the table in full.
+     */
+    public synchronized boolean canWriteDelta() {
+        return !rewriteNeeded;
+    }
+
+    /**
+     * Makes the next write of the table a full one, and marks the table
+     * modified so that the next checkpoint writes it. Used when a write failed
+     * or the delta file could not be read completely.
+     */
+    public synchronized void requireRewrite() {
+        rewriteNeeded = true;
+        modified = true;
+    }
+
+    /**
+     * Writes the changes made since the table was last written: the pages
+     * added since and the free-space map bits that changed. Its size does not
+     * depend on the number of pages of the table.
+     *
+     * @param out The output to write the delta to.
+     */
+    public synchronized void writeDelta(DataOutput out) throws IOException {
+        writtenLsn = WriteAheadLog.getInstance().nextLsn();
+        writtenGeneration = generation;
+        out.writeLong(writtenLsn);
+        out.writeBoolean(segmentName != null);
+        if (segmentName != null) {
+            out.writeUTF(segmentName);
+        }
+        out.writeInt(nextPageNumber);
+        out.writeInt(writtenPageCount);
+        out.writeInt(pageNames.size() - writtenPageCount);
+        for (int pageId = writtenPageCount; pageId < pageNames.size(); pageId++) {
+            out.writeUTF(pageNames.get(pageId));
+        }
+        out.writeInt(changedPages.cardinality());
+        for (int index = changedPages.nextSetBit(0); index >= 0; index = changedPages.nextSetBit(index + 1)) {
+            out.writeInt(index);
+            out.writeBoolean(freePages.get(index));
+            out.writeBoolean(deadPages.get(index));
+        }
+        writtenPageCount = pageNames.size();
+        changedPages.clear();
+    }
+
+    /**
+     * Records that the table, as last serialized or written as a delta, is on
+     * disk. Called by the table writers once the write succeeded; until then
+     * the table stays modified, so that a failed write is retried. A failed
+     * write requires the next write to be a full one.
+     */
+    public synchronized void tableWritten() {
+        lsn = writtenLsn;
+        generation = writtenGeneration;
+        modified = rewriteNeeded || writtenPageCount != pageNames.size() || !changedPages.isEmpty();
+    }
+
+    /**
+     * Applies a delta written by {@link #writeDelta(DataOutput)} to the pages
+     * read from the table file.
+     *
+     * @param in The input to read the delta from.
+     * @return Whether the delta applied, false if it does not follow the
+     * pages the table has.
+     */
+    public synchronized boolean applyDelta(DataInput in) throws IOException {
+        long deltaLsn = in.readLong();
+        String deltaSegmentName = in.readBoolean() ? in.readUTF() : null;
+        int deltaNextPageNumber = in.readInt();
+        if (in.readInt() != pageNames.size()) {
+            return false;
+        }
+        int pageCount = in.readInt();
+        ArrayList<String> names = new ArrayList<>(pageNames.size() + pageCount);
+        names.addAll(pageNames);
+        for (int i = 0; i < pageCount; i++) {
+            names.add(in.readUTF());
+        }
+        pageNames = Collections.unmodifiableList(names);
+        int changedCount = in.readInt();
+        for (int i = 0; i < changedCount; i++) {
+            int index = in.readInt();
+            freePages.set(index, in.readBoolean());
+            deadPages.set(index, in.readBoolean());
+        }
+        lsn = deltaLsn;
+        segmentName = deltaSegmentName;
+        nextPageNumber = deltaNextPageNumber;
+        writtenPageCount = pageNames.size();
+        return true;
+    }
+
+    /**
+     * @return Whether the pages are the pages of the segment, in the order of
+     * their page numbers.
+     */
+    private boolean isSegmentSequence() {
+        if (segmentName == null || pageNames.size() != nextPageNumber) {
+            return false;
+        }
+        for (int pageNumber = 0; pageNumber < nextPageNumber; pageNumber++) {
+            if (!pageNames.get(pageNumber).equals(SegmentFile.pageName(segmentName, pageNumber))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Links the page manager to its table, so that changes to the pages are
+     * written to the write-ahead log.
+     *
+     * @param tableName Name of the table.
+     */
+    public void setTableName(String tableName) {
+        this.tableName = tableName;
+    }
+
+    /**
+     * @return Whether the pages or the free-space map changed since the table
+     * was last written.
+     */
+    public boolean isModified() {
+        return modified;
+    }
+
+    /**
+     * @return The LSN the write-ahead log was at when the table was last
+     * written.
+     */
+    public synchronized long getLsn() {
+        return lsn;
+    }
+
+    /**
+     * @param pageId The id of a page of the table.
+     * @return The name of the page, null if the table has no such page.
+     */
+    public synchronized String getPageName(int pageId) {
+        return pageId >= 0 && pageId < pageNames.size() ? pageNames.get(pageId) : null;
+    }
+
+    /**
+     * @param pageName The name of a page of the table.
+     * @return The id of the page, -1 if the table has no such page.
+     */
+    public synchronized int getPageId(String pageName) {
+        return pageNames.indexOf(pageName);
+    }
+
+    /**
+     * Resolves page ids found in an index, leaving out the pages whose
+     * records are all deleted, as scans of the table do.
+     *
+     * @param pageIds The ids of pages stored in an index.
+     * @return The names of the pages that hold records, in the order of the
+     * table's pages.
+     */
+    public synchronized ArrayList<String> resolveLivePages(Collection<Integer> pageIds) {
+        BitSet livePages = new BitSet();
+        for (int pageId : pageIds) {
+            if (pageId >= 0 && pageId < pageNames.size() && !deadPages.get(pageId)) {
+                livePages.set(pageId);
+            }
+        }
+        ArrayList<String> pages = new ArrayList<>(livePages.cardinality());
+        for (int pageId = livePages.nextSetBit(0); pageId >= 0; pageId = livePages.nextSetBit(pageId + 1)) {
+            pages.add(pageNames.get(pageId));
+        }
+        return pages;
+    }
+
+    /**
+     * @return The names of the pages, in the order of their page ids. The list
+     * is unmodifiable and does not change when pages are added afterwards.
+     */
     @Override
-    public ArrayList<String> getPageNames() {
+    public List<String> getPageNames() {
         return pageNames;
     }
 
     @Override
-    public void addPageName(String pageName) {
-        pageNames.add(pageName);
+    public synchronized void addPageName(String pageName) {
+        appendPageName(pageName);
+        modified = true;
+    }
+
+    /**
+     * Replaces the list of pages with a copy that has the page at its end,
+     * leaving the list scans hold unchanged.
+     */
+    private synchronized void appendPageName(String pageName) {
+        ArrayList<String> names = new ArrayList<>(pageNames.size() + 1);
+        names.addAll(pageNames);
+        names.add(pageName);
+        pageNames = Collections.unmodifiableList(names);
     }
 
     @Override
     public void deletePages() {
         // todo: acquire a lock on the page
+        deletePages(pageNames, segmentName);
+        pageNames = List.of();
+        freePages.clear();
+        deadPages.clear();
+        modified = true;
+        rewriteNeeded = true;
+    }
+
+    private void deletePages(List<String> pageNames, String segmentName) {
+        String workspaceName = Config.getCurrentWorkspace();
+        String databaseName = Config.getCurrentDatabaseName();
+        BufferManager.getInstance().removePages(workspaceName, databaseName, pageNames);
         for (String pageName : pageNames) {
-            FileManager.getInstance().deletePage(Config.getCurrentWorkspace(), Config.getCurrentDatabaseName(), pageName);
+            if (!SegmentFile.isSegmentPage(pageName)) {
+                FileManager.getInstance().deletePage(workspaceName, databaseName, pageName);
+            }
+        }
+        if (segmentName != null) {
+            FileManager.getInstance().deleteSegment(workspaceName, databaseName, segmentName);
+        }
+    }
+
+    /**
+     * Rewrites the records that are not deleted densely into new pages. Must
+     * be called while holding the table's exclusive lock, so that no record
+     * is changed in the old pages. The new pages replace the old ones at
+     * once when they are complete; scans that are open keep reading the old
+     * pages. The old pages are kept until {@link #deleteVacuumedPages()} is
+     * called and the scans are closed, so that the table on disk refers to
+     * complete pages if the vacuum is interrupted.
+     * <p>
+     * The new pages are not logged; they must be written to disk before the
+     * table is.
+     *
+     * @return The number of pages freed.
+     */
+    public synchronized int vacuum() {
+        List<String> oldPageNames = pageNames;
+        String oldSegmentName = segmentName;
+        ArrayList<String> newPageNames = new ArrayList<>();
+
+        segmentName = null;
+        nextPageNumber = 0;
+
+        Page target = null;
+        try {
+            for (String pageName : oldPageNames) {
+                Page page = pinPage(pageName);
+                if (page == null) {
+                    continue;
+                }
+                page.acquireLock();
+                try {
+                    for (int i = 0; i < page.size(); i++) {
+                        Record record = page.getRecord(i);
+                        if (record.isDeleted()) {
+                            continue;
+                        }
+                        if (target == null || target.isFull() || !fitsInFrame(target, record)) {
+                            releasePage(target);
+                            Page newPage = makePage();
+                            BufferManager.getInstance().write(Config.getCurrentWorkspace(),
+                                    Config.getCurrentDatabaseName(), newPage);
+                            newPageNames.add(newPage.getName());
+                            target = pinPage(newPage.getName());
+                            target.acquireLock();
+                        }
+                        target.addRecord(new TableRecord(new LinkedHashMap<>(record.getData())));
+                    }
+                } finally {
+                    releasePage(page);
+                }
+            }
+        } finally {
+            releasePage(target);
+        }
+
+        pageNames = Collections.unmodifiableList(newPageNames);
+        freePages = new BitSet();
+        deadPages = new BitSet();
+        modified = true;
+        rewriteNeeded = true;
+        vacuumedPages = new RetiredPages(version++, oldPageNames, oldSegmentName);
+        return oldPageNames.size() - pageNames.size();
+    }
+
+    /**
+     * Writes the pages of the table to disk, including the ones that were
+     * removed from the buffer pool and are still being written.
+     *
+     * @return Whether all the pages are on disk.
+     */
+    public synchronized boolean flushPages() {
+        return BufferManager.getInstance().flushPages(Config.getCurrentWorkspace(), Config.getCurrentDatabaseName(),
+                pageNames);
+    }
+
+    /**
+     * Deletes the pages replaced by the last vacuum, or once the scans that
+     * were open before the vacuum are closed.
+     */
+    public synchronized void deleteVacuumedPages() {
+        if (vacuumedPages != null) {
+            retiredPages.add(vacuumedPages);
+            vacuumedPages = null;
+            deleteRetiredPages();
         }
-        pageNames.clear();
     }
 
-    public synchronized String addRecord(Record record) {
-        if (pageNames.isEmpty()) createPage();
+    /**
+     * Takes a snapshot of the pages to scan, which must be released once the
+     * scan is done.
+     *
+     * @return The pages of the table and the pages among them to skip.
+     */
+    public synchronized Snapshot openSnapshot() {
+        return openSnapshot(pageNames, (BitSet) deadPages.clone());
+    }
+
+    /**
+     * Takes a snapshot of pages found in an index, which must be released
+     * once the scan is done.
+     *
+     * @param pageIds The ids of pages stored in an index.
+     * @return The live pages among them, as resolved by
+     * {@link #resolveLivePages(Collection)}.
+     */
+    public synchronized Snapshot openSnapshot(Collection<Integer> pageIds) {
+        return openSnapshot(resolveLivePages(pageIds), new BitSet());
+    }
+
+    private Snapshot openSnapshot(List<String> pageNames, BitSet deadPages) {
+        openSnapshots.merge(version, 1, Integer::sum);
+        return new Snapshot(pageNames, deadPages, version);
+    }
+
+    /**
+     * Releases a snapshot, deleting the pages replaced by vacuums that no
+     * open snapshot refers to anymore.
+     *
+     * @param snapshot A snapshot taken by {@link #openSnapshot()}.
+     */
+    public synchronized void releaseSnapshot(Snapshot snapshot) {
+        openSnapshots.computeIfPresent(snapshot.version(), (version, count) -> count > 1 ? count - 1 : null);
+        deleteRetiredPages();
+    }
+
+    private void deleteRetiredPages() {
+        retiredPages.removeIf(pages -> {
+            if (openSnapshots.containsKey(pages.version())) {
+                return false;
+            }
+            deletePages(pages.pageNames(), pages.segmentName());
+            return true;
+        });
+    }
+
+    /**
+     * @return Whether enough of the pages have free slots left by deleted
+     * records for the table to be worth vacuuming.
+     */
+    public synchronized boolean needsVacuum() {
+        return !pageNames.isEmpty() && freePages.cardinality() >= Config.vacuumThreshold() * pageNames.size();
+    }
+
+    private void releasePage(Page page) {
+        if (page != null) {
+            page.releaseLock();
+            unpinPage(page);
+        }
+    }
+
+    /**
+     * @return The id of the page the record was added to.
+     * @throws RecordTooLargeException If the record does not fit in the frame
+     *                                 of an empty segment page.
+     */
+    public synchronized int addRecord(Record record) {
+        int pageId = addRecordToFreePage(record);
+        if (pageId >= 0) {
+            return pageId;
+        }
+
+        if (pageNames.isEmpty()) createPage(true);
 
         String lastPageName = pageNames.get(pageNames.size() - 1);
-        Page lastPage = readPage(lastPageName);
+        Page lastPage = pinPage(lastPageName);
         lastPage.acquireLock();
 
-        if (lastPage.isFull()) {
+        try {
+            if (lastPage.isFull() || !fitsInFrame(lastPage, record)) {
+                if (lastPage.isEmpty()) {
+                    throw recordTooLarge(lastPage);
+                }
+                lastPage.releaseLock();
+                unpinPage(lastPage);
+                lastPage = pinPage(createPage(true).getName());
+                lastPage.acquireLock();
+                if (!fitsInFrame(lastPage, record)) {
+                    throw recordTooLarge(lastPage);
+                }
+            }
+            logInsert(lastPage, lastPage.addRecord(record), record);
+        } finally {
             lastPage.releaseLock();
-            lastPage = createPage();
-            lastPage.acquireLock();
+            unpinPage(lastPage);
         }
+        return pageNames.size() - 1;
+    }
 
-        lastPage.addRecord(record);
-        lastPage.releaseLock();
-        return lastPage.getName();
+    /**
+     * Pages that are not stored in a segment have no size limit. Must be
+     * called while holding the page's lock.
+     *
+     * @param page   The page.
+     * @param record A record about to be added to the page, null to check the
+     *               page as it is.
+     * @return Whether the page's image fits in a segment frame.
+     */
+    private static boolean fitsInFrame(Page page, Record record) {
+        return !SegmentFile.isSegmentPage(page.getName())
+                || SlottedPageFormat.imageSize(page, record) <= SegmentFile.maxImageSize();
     }
 
-    private synchronized Page createPage() {
-        PageFactory pageFactory = new PageFactory();
-        Page page = pageFactory.makePage(Config.blockType());
-        pageNames.add(page.getName());
+    private static RecordTooLargeException recordTooLarge(Page page) {
+        return new RecordTooLargeException("Record does not fit in page " + page.getName()
+                + ", whose image is limited to " + SegmentFile.maxImageSize() + " bytes");
+    }
+
+    /**
+     * Adds a record to the first page in the free-space map that has a free
+     * slot. Pages found to be full are removed from the map.
+     *
+     * @return The id of the page the record was added to, -1 if no page in
+     * the map has a free slot.
+     */
+    private int addRecordToFreePage(Record record) {
+        for (int index = freePages.nextSetBit(0); index >= 0; index = freePages.nextSetBit(index + 1)) {
+            Page page = pinPage(pageNames.get(index));
+            if (page == null) {
+                freePages.clear(index);
+                changedPages.set(index);
+                continue;
+            }
+            page.acquireLock();
+            try {
+                if (!page.isFull() && fitsInFrame(page, record)) {
+                    logInsert(page, page.addRecord(record), record);
+                    deadPages.clear(index);
+                    changedPages.set(index);
+                    modified = true;
+                    return index;
+                }
+                freePages.clear(index);
+                changedPages.set(index);
+                modified = true;
+            } finally {
+                page.releaseLock();
+                unpinPage(page);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Logs a record placed in a slot of a page. Must be called while holding
+     * the page's lock.
+     */
+    private void logInsert(Page page, int slot, Record record) {
+        if (isLogged()) {
+            log(page, LogRecord.insert(Config.getCurrentWorkspace(), Config.getCurrentDatabaseName(), tableName,
+                    page.getName(), slot, record));
+        }
+    }
+
+    /**
+     * Updates a record in place under the exclusive lock of its page, so that
+     * readers of the page never see a half-applied update, and logs it. Must
+     * be called while holding the table's shared lock.
+     *
+     * @param page   The page holding the record, null if the record is not
+     *               stored in a page.
+     * @param slot   The slot of the record in the page.
+     * @param record The record.
+     * @param data   The new values of the updated columns.
+     * @throws RecordTooLargeException If the updated record no longer fits in
+     *                                 the frame of its segment page.
+     */
+    public void updateRecord(Page page, int slot, Record record, LinkedHashMap<Column, DataType> data) {
+        if (page == null) {
+            record.update(data);
+            return;
+        }
+        page.acquireLock();
+        try {
+            LinkedHashMap<Column, DataType> oldData = new LinkedHashMap<>(record.getData());
+            record.update(data);
+            if (!fitsInFrame(page, null)) {
+                record.update(oldData);
+                throw recordTooLarge(page);
+            }
+            if (isLogged()) {
+                log(page, LogRecord.update(Config.getCurrentWorkspace(), Config.getCurrentDatabaseName(), tableName,
+                        page.getName(), slot, record));
+            }
+        } finally {
+            page.releaseLock();
+        }
+    }
+
+    /**
+     * Deletes a record under the exclusive lock of its page and logs it, then
+     * updates the free-space map. The map is updated after the page's lock is
+     * released, since adding records locks pages while holding the manager.
+     * Must be called while holding the table's shared lock.
+     *
+     * @param page   The page the record is deleted from, null if the record is
+     *               not stored in a page.
+     * @param slot   The slot of the record in the page.
+     * @param record The record.
+     */
+    public void deleteRecord(Page page, int slot, Record record) {
+        if (page == null) {
+            record.delete();
+            return;
+        }
+        page.acquireLock();
+        try {
+            record.delete();
+            if (isLogged()) {
+                log(page, LogRecord.delete(Config.getCurrentWorkspace(), Config.getCurrentDatabaseName(), tableName,
+                        page.getName(), slot));
+            }
+        } finally {
+            page.releaseLock();
+        }
+        recordDeleted(page);
+    }
+
+    /**
+     * Marks the page a record was deleted from as having a free slot.
+     */
+    private synchronized void recordDeleted(Page page) {
+        int index = lastDeletedIndex;
+        if (index >= pageNames.size() || !pageNames.get(index).equals(page.getName())) {
+            index = pageNames.indexOf(page.getName());
+            if (index < 0) {
+                return;
+            }
+            lastDeletedIndex = index;
+        }
+        freePages.set(index);
+        changedPages.set(index);
+        modified = true;
+        page.acquireSharedLock();
+        try {
+            deadPages.set(index, page.liveCount() == 0);
+        } finally {
+            page.releaseSharedLock();
+        }
+    }
+
+    /**
+     * @return The indexes of the pages whose records are all deleted.
+     */
+    public synchronized BitSet getDeadPages() {
+        return (BitSet) deadPages.clone();
+    }
+
+    private boolean isLogged() {
+        return tableName != null && WriteAheadLog.getInstance().isOpen();
+    }
+
+    private void log(Page page, LogRecord logRecord) {
+        page.setLsn(WriteAheadLog.getInstance().append(logRecord));
+    }
+
+    /**
+     * Adds a page that was logged as new to the table, unless the table
+     * already has it. Used to redo logged changes after a crash.
+     *
+     * @param pageName Name of the page.
+     * @return Whether the page was added.
+     */
+    public synchronized boolean redoNewPage(String pageName) {
+        if (pageNames.contains(pageName)) {
+            return false;
+        }
+        appendPageName(pageName);
+        modified = true;
+        if (SegmentFile.isSegmentPage(pageName)) {
+            String pageSegmentName = SegmentFile.segmentName(pageName);
+            if (segmentName == null) {
+                segmentName = pageSegmentName;
+            }
+            if (segmentName.equals(pageSegmentName)) {
+                nextPageNumber = Math.max(nextPageNumber, SegmentFile.pageNumber(pageName) + 1);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Brings the free-space map and the dead pages up to date with a page
+     * whose logged changes were redone after a crash, as the table on disk
+     * may have been written before or after them.
+     *
+     * @param page A page of the table, not locked by the current thread.
+     */
+    public synchronized void redoFreeSpace(Page page) {
+        int index = pageNames.indexOf(page.getName());
+        if (index < 0) {
+            return;
+        }
+        boolean free;
+        boolean dead;
+        page.acquireSharedLock();
+        try {
+            int liveCount = page.liveCount();
+            free = liveCount < page.size();
+            dead = page.size() > 0 && liveCount == 0;
+        } finally {
+            page.releaseSharedLock();
+        }
+        if (freePages.get(index) != free || deadPages.get(index) != dead) {
+            freePages.set(index, free);
+            deadPages.set(index, dead);
+            changedPages.set(index);
+            modified = true;
+        }
+    }
+
+    /**
+     * @param logged Whether the new page is written to the write-ahead log.
+     */
+    private synchronized Page createPage(boolean logged) {
+        Page page = makePage();
+        appendPageName(page.getName());
+        modified = true;
+        if (logged && isLogged()) {
+            log(page, LogRecord.newPage(Config.getCurrentWorkspace(), Config.getCurrentDatabaseName(), tableName,
+                    page.getName()));
+        }
         BufferManager.getInstance().write(Config.getCurrentWorkspace(), Config.getCurrentDatabaseName(), page);
         return page;
     }
 
-    private synchronized Page readPage(String pageName) {
-        return BufferManager.getInstance().read(Config.getCurrentWorkspace(), Config.getCurrentDatabaseName(), pageName);
+    /**
+     * Makes a page that is not added to the table yet, numbered in the table's
+     * segment when pages are stored in segments.
+     */
+    private synchronized Page makePage() {
+        PageFactory pageFactory = new PageFactory();
+        if (Config.blockType().isSegmented()) {
+            if (segmentName == null) {
+                segmentName = Utility.generateUUID();
+            }
+            return pageFactory.makePage(Config.blockType(), SegmentFile.pageName(segmentName, nextPageNumber++));
+        }
+        return pageFactory.makePage(Config.blockType());
+    }
+
+    private synchronized Page pinPage(String pageName) {
+        return BufferManager.getInstance().pin(Config.getCurrentWorkspace(), Config.getCurrentDatabaseName(), pageName);
+    }
+
+    private synchronized void unpinPage(Page page) {
+        BufferManager.getInstance().unpin(Config.getCurrentWorkspace(), Config.getCurrentDatabaseName(), page);
     }
 
     public void print() {
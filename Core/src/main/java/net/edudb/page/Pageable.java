@@ -9,7 +9,7 @@
 
 package net.edudb.page;
 
-import java.util.ArrayList;
+import java.util.List;
 
 /**
  * A structure that is composed of multiple pages. E.g. database tables.
@@ -19,9 +19,9 @@ import java.util.ArrayList;
 public interface Pageable {
 
     /**
-     * @return ArrayList<String> of page names holding the data.
+     * @return List<String> of page names holding the data.
      */
-    ArrayList<String> getPageNames();
+    List<String> getPageNames();
 
     /**
      * Adds a new page name to the page names list.
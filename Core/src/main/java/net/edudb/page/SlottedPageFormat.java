@@ -0,0 +1,524 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+package net.edudb.page;
+
+import net.edudb.data_type.BooleanType;
+import net.edudb.data_type.DataType;
+import net.edudb.data_type.DecimalType;
+import net.edudb.data_type.IntegerType;
+import net.edudb.data_type.TimestampType;
+import net.edudb.data_type.VarCharType;
+import net.edudb.engine.Config;
+import net.edudb.structure.Column;
+import net.edudb.structure.Record;
+import net.edudb.structure.TableRecord;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Encodes and decodes {@link BinaryPage}s using a slotted page layout instead
+ * of Java serialization. A page image is laid out as follows:
+ *
+ * <pre>
+ * header         magic, version, capacity, slot count, page LSN, page name
+ * column table   every distinct column used by the page's records
+ * slot directory (offset, length) of every record in the record area
+ * record area    flags, value count and typed, length-prefixed values
+ * </pre>
+ * <p>
+ * Columns are written once per page and referenced by their position in the
+ * column table, so a record only stores its values. Images of the first
+ * version have no page LSN and are read with an LSN of 0.
+ */
+public class SlottedPageFormat {
+    private static final int MAGIC = 0x45444250; // "EDBP"
+    private static final short VERSION = 2;
+    private static final short VERSION_WITHOUT_LSN = 1;
+
+    private static final byte DELETED_FLAG = 1;
+
+    private static final byte NULL_TAG = 0;
+    private static final byte INTEGER_TAG = 1;
+    private static final byte DECIMAL_TAG = 2;
+    private static final byte BOOLEAN_TAG = 3;
+    private static final byte VARCHAR_TAG = 4;
+    private static final byte TIMESTAMP_TAG = 5;
+
+    private SlottedPageFormat() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * @param buffer A buffer positioned at the start of a page file.
+     * @return Whether the buffer holds a slotted page image.
+     */
+    public static boolean isSlotted(ByteBuffer buffer) {
+        return buffer.remaining() >= Integer.BYTES && buffer.getInt(buffer.position()) == MAGIC;
+    }
+
+    /**
+     * Encodes a page into its slotted binary image.
+     *
+     * @param page The page to encode.
+     * @return A buffer, ready to be read, holding the page image.
+     */
+    public static ByteBuffer encode(Page page) {
+        if (page instanceof OffHeapPage offHeapPage) {
+            return offHeapPage.image();
+        }
+        if (!(page instanceof BinaryPage binaryPage)) {
+            throw new IllegalArgumentException("Page " + page.getName() + " cannot be encoded in the slotted format");
+        }
+        return encodeRecords(binaryPage);
+    }
+
+    /**
+     * Encodes the records a page holds on the heap.
+     */
+    static ByteBuffer encodeRecords(BinaryPage binaryPage) {
+        int slotCount = binaryPage.nextLocation;
+        Record[] records = binaryPage.records;
+
+        List<Column> columns = new ArrayList<>();
+        Map<Column, Integer> columnIndexes = new IdentityHashMap<>();
+        byte[][] encodedRecords = new byte[slotCount][];
+        for (int i = 0; i < slotCount; i++) {
+            encodedRecords[i] = encodeRecord(records[i], columns, columnIndexes);
+        }
+
+        byte[] name = utf8(binaryPage.getName());
+        byte[][] columnTable = new byte[columns.size()][];
+        int columnTableSize = Short.BYTES;
+        for (int i = 0; i < columns.size(); i++) {
+            columnTable[i] = encodeColumn(columns.get(i));
+            columnTableSize += columnTable[i].length;
+        }
+
+        int headerSize = Integer.BYTES + Short.BYTES + Integer.BYTES + Integer.BYTES + Long.BYTES + Short.BYTES
+                + name.length;
+        int directorySize = slotCount * 2 * Integer.BYTES;
+        int recordAreaSize = 0;
+        for (byte[] encodedRecord : encodedRecords) {
+            recordAreaSize += encodedRecord.length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(headerSize + columnTableSize + directorySize + recordAreaSize);
+        buffer.putInt(MAGIC);
+        buffer.putShort(VERSION);
+        buffer.putInt(binaryPage.capacity());
+        buffer.putInt(slotCount);
+        buffer.putLong(binaryPage.getLsn());
+        buffer.putShort((short) name.length);
+        buffer.put(name);
+
+        buffer.putShort((short) columnTable.length);
+        for (byte[] column : columnTable) {
+            buffer.put(column);
+        }
+
+        int offset = buffer.position() + directorySize;
+        for (byte[] encodedRecord : encodedRecords) {
+            buffer.putInt(offset);
+            buffer.putInt(encodedRecord.length);
+            offset += encodedRecord.length;
+        }
+        for (byte[] encodedRecord : encodedRecords) {
+            buffer.put(encodedRecord);
+        }
+
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Computes the size of a page's image without encoding it. Must be called
+     * while holding the page's lock.
+     *
+     * @param page  The page.
+     * @param added A record about to be added to the page, null if none. It is
+     *              counted as taking a new slot, even if it would reuse the
+     *              slot of a deleted record.
+     * @return The size in bytes of the page image.
+     */
+    public static int imageSize(Page page, Record added) {
+        List<Column> columns = new ArrayList<>();
+        Map<Column, Integer> columnIndexes = new IdentityHashMap<>();
+        int slotCount = page.size();
+        int recordAreaSize = 0;
+        for (int i = 0; i < slotCount; i++) {
+            recordAreaSize += recordSize(page.getRecord(i), columns, columnIndexes);
+        }
+        if (added != null) {
+            recordAreaSize += recordSize(added, columns, columnIndexes);
+            slotCount++;
+        }
+
+        int columnTableSize = Short.BYTES;
+        for (Column column : columns) {
+            columnTableSize += Integer.BYTES + 3 * Short.BYTES + length(utf8(column.getName()))
+                    + length(utf8(column.getTableName())) + length(utf8(column.getTypeName()));
+        }
+
+        int headerSize = Integer.BYTES + Short.BYTES + Integer.BYTES + Integer.BYTES + Long.BYTES + Short.BYTES
+                + length(utf8(page.getName()));
+        return headerSize + columnTableSize + slotCount * 2 * Integer.BYTES + recordAreaSize;
+    }
+
+    /**
+     * Creates a page from an image read from disk. The page keeps the image in
+     * direct memory if {@link Config#offHeapPages()} is set, and is decoded
+     * otherwise.
+     *
+     * @param buffer The buffer holding the page image.
+     * @return The page.
+     * @throws IOException If the buffer does not hold a slotted page image.
+     */
+    public static Page load(ByteBuffer buffer) throws IOException {
+        if (Config.offHeapPages()) {
+            return new OffHeapPage(buffer);
+        }
+        return decode(buffer);
+    }
+
+    /**
+     * Decodes a page image starting at the buffer's current position. Offsets
+     * in the slot directory are relative to that position.
+     *
+     * @param buffer The buffer holding the page image.
+     * @return The decoded page.
+     * @throws IOException If the buffer does not hold a slotted page image.
+     */
+    public static Page decode(ByteBuffer buffer) throws IOException {
+        BinaryPage page = new BinaryPage(pageName(buffer), capacity(buffer));
+        decodeRecords(buffer, page);
+        return page;
+    }
+
+    /**
+     * Decodes the records of a page image into a page, replacing the records
+     * it holds.
+     */
+    static void decodeRecords(ByteBuffer buffer, BinaryPage page) throws IOException {
+        int start = buffer.position();
+        checkHeader(buffer);
+        buffer.position(start + Integer.BYTES + Short.BYTES);
+
+        int capacity = buffer.getInt();
+        int slotCount = buffer.getInt();
+        page.lsn = Math.max(page.lsn, lsn(buffer.duplicate().position(start)));
+        buffer.position(start + nameOffset(buffer.duplicate().position(start)));
+        readString(buffer);
+
+        Column[] columns = decodeColumns(buffer);
+
+        if (page.records == null || page.records.length != capacity) {
+            page.records = new Record[capacity];
+        }
+        int directory = buffer.position();
+        for (int i = 0; i < slotCount; i++) {
+            int offset = buffer.getInt(directory + i * 2 * Integer.BYTES);
+            page.records[i] = decodeRecord(buffer, start + offset, columns);
+            page.attach(page.records[i]);
+        }
+        page.nextLocation = slotCount;
+
+        buffer.position(directory + slotCount * 2 * Integer.BYTES);
+    }
+
+    /**
+     * Encodes a single record, preceded by a column table of the columns it
+     * uses, as the write-ahead log carries it.
+     *
+     * @param record The record.
+     * @return The record image.
+     */
+    public static byte[] encodeRecord(Record record) {
+        List<Column> columns = new ArrayList<>();
+        Map<Column, Integer> columnIndexes = new IdentityHashMap<>();
+        byte[] encodedRecord = encodeRecord(record, columns, columnIndexes);
+
+        byte[][] columnTable = new byte[columns.size()][];
+        int columnTableSize = Short.BYTES;
+        for (int i = 0; i < columns.size(); i++) {
+            columnTable[i] = encodeColumn(columns.get(i));
+            columnTableSize += columnTable[i].length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(columnTableSize + encodedRecord.length);
+        buffer.putShort((short) columnTable.length);
+        for (byte[] column : columnTable) {
+            buffer.put(column);
+        }
+        buffer.put(encodedRecord);
+        return buffer.array();
+    }
+
+    /**
+     * Decodes a record image written by {@link #encodeRecord(Record)}.
+     *
+     * @param buffer The buffer holding the record image, from its position.
+     * @return The decoded record.
+     * @throws IOException If the image holds a value of an unknown type.
+     */
+    public static Record decodeRecord(ByteBuffer buffer) throws IOException {
+        Column[] columns = decodeColumns(buffer);
+        return decodeRecord(buffer, buffer.position(), columns);
+    }
+
+    private static Column[] decodeColumns(ByteBuffer buffer) {
+        Column[] columns = new Column[buffer.getShort()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = new Column(buffer.getInt(), readString(buffer), readString(buffer), readString(buffer));
+        }
+        return columns;
+    }
+
+    /**
+     * @return The name of the page held by an image, without decoding it.
+     */
+    static String pageName(ByteBuffer buffer) throws IOException {
+        checkHeader(buffer);
+        ByteBuffer header = buffer.duplicate();
+        header.position(buffer.position() + nameOffset(buffer));
+        return readString(header);
+    }
+
+    /**
+     * @return The LSN of the page held by an image, without decoding it.
+     */
+    static long lsn(ByteBuffer buffer) throws IOException {
+        checkHeader(buffer);
+        if (version(buffer) == VERSION_WITHOUT_LSN) {
+            return 0;
+        }
+        return buffer.getLong(buffer.position() + Integer.BYTES + Short.BYTES + 2 * Integer.BYTES);
+    }
+
+    /**
+     * @return Offset of the page name from the start of the image.
+     */
+    private static int nameOffset(ByteBuffer buffer) {
+        int offset = Integer.BYTES + Short.BYTES + 2 * Integer.BYTES;
+        return version(buffer) == VERSION_WITHOUT_LSN ? offset : offset + Long.BYTES;
+    }
+
+    private static short version(ByteBuffer buffer) {
+        return buffer.getShort(buffer.position() + Integer.BYTES);
+    }
+
+    /**
+     * @return The capacity of the page held by an image, without decoding it.
+     */
+    static int capacity(ByteBuffer buffer) throws IOException {
+        checkHeader(buffer);
+        return buffer.getInt(buffer.position() + Integer.BYTES + Short.BYTES);
+    }
+
+    private static void checkHeader(ByteBuffer buffer) throws IOException {
+        if (!isSlotted(buffer)) {
+            throw new IOException("Not a slotted page image");
+        }
+        short version = version(buffer);
+        if (version != VERSION && version != VERSION_WITHOUT_LSN) {
+            throw new IOException("Unsupported slotted page version " + version);
+        }
+    }
+
+    private static byte[] encodeRecord(Record record, List<Column> columns, Map<Column, Integer> columnIndexes) {
+        LinkedHashMap<Column, DataType> data = record.getData();
+
+        int size = Byte.BYTES + Short.BYTES;
+        byte[][] values = new byte[data.size()][];
+        int[] indexes = new int[data.size()];
+        int i = 0;
+        for (Map.Entry<Column, DataType> entry : data.entrySet()) {
+            indexes[i] = columnIndex(entry.getKey(), columns, columnIndexes);
+            values[i] = encodeValue(entry.getValue());
+            size += Short.BYTES + values[i].length;
+            i++;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put(record.isDeleted() ? DELETED_FLAG : 0);
+        buffer.putShort((short) values.length);
+        for (int j = 0; j < values.length; j++) {
+            buffer.putShort((short) indexes[j]);
+            buffer.put(values[j]);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * @return The size of a record's encoding, adding the columns it uses to
+     * the page's column table.
+     */
+    private static int recordSize(Record record, List<Column> columns, Map<Column, Integer> columnIndexes) {
+        int size = Byte.BYTES + Short.BYTES;
+        for (Map.Entry<Column, DataType> entry : record.getData().entrySet()) {
+            columnIndex(entry.getKey(), columns, columnIndexes);
+            size += Short.BYTES + valueSize(entry.getValue());
+        }
+        return size;
+    }
+
+    private static Record decodeRecord(ByteBuffer buffer, int offset, Column[] columns) throws IOException {
+        byte flags = buffer.get(offset);
+        short valueCount = buffer.getShort(offset + Byte.BYTES);
+
+        ByteBuffer values = buffer.duplicate();
+        values.position(offset + Byte.BYTES + Short.BYTES);
+
+        LinkedHashMap<Column, DataType> data = new LinkedHashMap<>();
+        for (int i = 0; i < valueCount; i++) {
+            Column column = columns[values.getShort()];
+            data.put(column, decodeValue(values));
+        }
+
+        TableRecord record = new TableRecord(data);
+        if ((flags & DELETED_FLAG) != 0) {
+            record.delete();
+        }
+        return record;
+    }
+
+    /**
+     * Returns the position of a column inside the page's column table, adding
+     * it if this is the first record that uses it.
+     */
+    private static int columnIndex(Column column, List<Column> columns, Map<Column, Integer> columnIndexes) {
+        Integer index = columnIndexes.get(column);
+        if (index != null) {
+            return index;
+        }
+        for (int i = 0; i < columns.size(); i++) {
+            if (sameColumn(columns.get(i), column)) {
+                columnIndexes.put(column, i);
+                return i;
+            }
+        }
+        columns.add(column);
+        columnIndexes.put(column, columns.size() - 1);
+        return columns.size() - 1;
+    }
+
+    private static boolean sameColumn(Column a, Column b) {
+        return a.getOrder() == b.getOrder()
+                && Objects.equals(a.getName(), b.getName())
+                && Objects.equals(a.getTableName(), b.getTableName())
+                && Objects.equals(a.getTypeName(), b.getTypeName());
+    }
+
+    private static byte[] encodeColumn(Column column) {
+        byte[] name = utf8(column.getName());
+        byte[] tableName = utf8(column.getTableName());
+        byte[] typeName = utf8(column.getTypeName());
+
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + 3 * Short.BYTES
+                + length(name) + length(tableName) + length(typeName));
+        buffer.putInt(column.getOrder());
+        putString(buffer, name);
+        putString(buffer, tableName);
+        putString(buffer, typeName);
+        return buffer.array();
+    }
+
+    private static byte[] encodeValue(DataType value) {
+        if (value == null) {
+            return new byte[]{NULL_TAG};
+        }
+        if (value instanceof IntegerType integer) {
+            return ByteBuffer.allocate(Byte.BYTES + Integer.BYTES).put(INTEGER_TAG).putInt(integer.getInteger()).array();
+        }
+        if (value instanceof DecimalType decimal) {
+            return ByteBuffer.allocate(Byte.BYTES + Double.BYTES).put(DECIMAL_TAG).putDouble(decimal.getDecimal()).array();
+        }
+        if (value instanceof BooleanType bool) {
+            return new byte[]{BOOLEAN_TAG, (byte) (bool.getBoolean() ? 1 : 0)};
+        }
+        if (value instanceof TimestampType timestamp) {
+            return ByteBuffer.allocate(Byte.BYTES + Long.BYTES).put(TIMESTAMP_TAG)
+                    .putLong(timestamp.getTimestamp().getTime()).array();
+        }
+        if (value instanceof VarCharType varChar) {
+            byte[] string = varChar.getString().getBytes(StandardCharsets.UTF_8);
+            return ByteBuffer.allocate(Byte.BYTES + Integer.BYTES + string.length).put(VARCHAR_TAG)
+                    .putInt(string.length).put(string).array();
+        }
+        throw new IllegalArgumentException("Type " + value.getClass().getSimpleName() + " cannot be written to a page");
+    }
+
+    private static int valueSize(DataType value) {
+        if (value instanceof VarCharType varChar) {
+            return Byte.BYTES + Integer.BYTES + varChar.getString().getBytes(StandardCharsets.UTF_8).length;
+        }
+        return encodeValue(value).length;
+    }
+
+    private static DataType decodeValue(ByteBuffer buffer) throws IOException {
+        byte tag = buffer.get();
+        switch (tag) {
+            case NULL_TAG:
+                return null;
+            case INTEGER_TAG:
+                return new IntegerType(buffer.getInt());
+            case DECIMAL_TAG:
+                return new DecimalType(buffer.getDouble());
+            case BOOLEAN_TAG:
+                return new BooleanType(buffer.get() != 0);
+            case TIMESTAMP_TAG:
+                return new TimestampType(new Timestamp(buffer.getLong()));
+            case VARCHAR_TAG:
+                byte[] string = new byte[buffer.getInt()];
+                buffer.get(string);
+                return new VarCharType(new String(string, StandardCharsets.UTF_8));
+            default:
+                throw new IOException("Unknown value type " + tag);
+        }
+    }
+
+    private static byte[] utf8(String string) {
+        return string == null ? null : string.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int length(byte[] string) {
+        return string == null ? 0 : string.length;
+    }
+
+    /**
+     * Writes a length-prefixed string; a length of -1 stands for null.
+     */
+    private static void putString(ByteBuffer buffer, byte[] string) {
+        if (string == null) {
+            buffer.putShort((short) -1);
+            return;
+        }
+        buffer.putShort((short) string.length);
+        buffer.put(string);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        short length = buffer.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] string = new byte[length];
+        buffer.get(string);
+        return new String(string, StandardCharsets.UTF_8);
+    }
+}
@@ -16,11 +16,11 @@ import net.edudb.relation.Relation;
 
 /**
  * This strategy executes each relational operator and returns the result as a
- * volatile relation which is not intended to be saved to disk. However, there
- * is a drawback. After executing each operator, the relations are not removed
- * from memory or disk and therefore are persisted whenever a page is replaced
- * or the system exits. You can remove the relation after being used to make
- * sure that they are not persisted to disk.
+ * relation that is never saved with the database. Intermediate results are
+ * either streamed from their inputs or held in memory, spilling to the
+ * temporary area when they grow large. Each operator releases the results of
+ * its inputs once it consumed them, and the returned relation is released
+ * when the iterator over it is closed.
  *
  * @see PostOrderOperatorExecutor
  *
@@ -0,0 +1,73 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+
+package net.edudb.relation;
+
+import net.edudb.expression.BinaryExpressionTree;
+import net.edudb.structure.Column;
+import net.edudb.structure.RecordBatch;
+
+/**
+ * The output of the relational algebra Filter operator: the records of its
+ * input that satisfy an expression. The expression is evaluated over whole
+ * batches of input records, narrowing their selection vectors.
+ */
+public class FilterRelation extends PipelinedRelation {
+    private final Relation input;
+    private final BinaryExpressionTree expressionTree;
+
+    public FilterRelation(Relation input, BinaryExpressionTree expressionTree) {
+        this.input = input;
+        this.expressionTree = expressionTree;
+    }
+
+    @Override
+    public RelationIterator getIterator() {
+        RelationIterator inputIterator = input.getIterator();
+        return new PipelinedIterator() {
+            @Override
+            protected boolean fillBatch(RecordBatch batch) {
+                while (inputIterator.nextBatch(batch)) {
+                    if (expressionTree != null) {
+                        expressionTree.select(batch);
+                    }
+                    if (batch.selectedCount() > 0) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            @Override
+            protected void rewind() {
+                inputIterator.reset();
+            }
+
+            @Override
+            protected void closeInputs() {
+                inputIterator.close();
+            }
+        };
+    }
+
+    /**
+     * @return The sort column of the input, filtering keeps the order of its
+     * records.
+     */
+    @Override
+    public Column getSortColumn() {
+        return input.getSortColumn();
+    }
+
+    @Override
+    public void release() {
+        input.release();
+    }
+}
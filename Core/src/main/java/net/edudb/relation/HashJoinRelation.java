@@ -0,0 +1,144 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+
+package net.edudb.relation;
+
+import net.edudb.data_type.DataType;
+import net.edudb.expression.Expression;
+import net.edudb.page.PageManager;
+import net.edudb.structure.Column;
+import net.edudb.structure.Record;
+import net.edudb.structure.RecordBatch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The output of the relational algebra Equi Join operator, computed as a hash
+ * join.
+ * <p>
+ * When the join is opened, the records of the build relation are put in a hash
+ * table keyed by the value of their join column. The records of the other,
+ * probe relation are then streamed and joined with the records of the build
+ * relation that have the same value. The build relation is the right relation,
+ * unless both relations are tables and the left one has fewer pages. Records
+ * whose join column is null join no record.
+ */
+public class HashJoinRelation extends PipelinedRelation {
+    private final Relation left;
+    private final Relation right;
+
+    /**
+     * The expression equating a column of the left relation with a column of
+     * the right relation.
+     */
+    private final Expression expression;
+
+    public HashJoinRelation(Relation left, Relation right, Expression expression) {
+        this.left = left;
+        this.right = right;
+        this.expression = expression;
+    }
+
+    /**
+     * @return Whether the hash table is built on the left relation.
+     */
+    private boolean buildsOnLeft() {
+        PageManager leftPages = left.getPageManager();
+        PageManager rightPages = right.getPageManager();
+        return leftPages != null && rightPages != null
+                && leftPages.getPageNames().size() < rightPages.getPageNames().size();
+    }
+
+    @Override
+    public RelationIterator getIterator() {
+        boolean buildsOnLeft = buildsOnLeft();
+        Column buildColumn = buildsOnLeft ? expression.getLeftColumn() : expression.getRightColumn();
+        Column probeColumn = buildsOnLeft ? expression.getRightColumn() : expression.getLeftColumn();
+        Map<DataType, List<Record>> hashTable = build(buildsOnLeft ? left : right, buildColumn);
+        RelationIterator probeIterator = (buildsOnLeft ? right : left).getIterator();
+
+        return new PipelinedIterator() {
+            private final RecordBatch probeBatch = new RecordBatch();
+            private int probePosition;
+            private Record probeRecord;
+            private List<Record> matches = Collections.emptyList();
+            private int matchPosition;
+
+            @Override
+            protected boolean fillBatch(RecordBatch batch) {
+                batch.clear();
+                while (!batch.isFull()) {
+                    if (matchPosition < matches.size()) {
+                        Record match = matches.get(matchPosition++);
+                        batch.add(buildsOnLeft ? join(match, probeRecord) : join(probeRecord, match));
+                        continue;
+                    }
+                    if (probePosition >= probeBatch.selectedCount()) {
+                        if (!probeIterator.nextBatch(probeBatch)) {
+                            break;
+                        }
+                        probePosition = 0;
+                    }
+                    probeRecord = probeBatch.selected(probePosition++);
+                    DataType key = probeRecord.getData().get(probeColumn);
+                    matches = key == null ? Collections.emptyList() : hashTable.getOrDefault(key, Collections.emptyList());
+                    matchPosition = 0;
+                }
+                return batch.selectedCount() > 0;
+            }
+
+            @Override
+            protected void rewind() {
+                probeIterator.reset();
+                probeBatch.clear();
+                probePosition = 0;
+                matches = Collections.emptyList();
+                matchPosition = 0;
+            }
+
+            @Override
+            protected void closeInputs() {
+                probeIterator.close();
+                hashTable.clear();
+            }
+        };
+    }
+
+    private Record join(Record leftRecord, Record rightRecord) {
+        return leftRecord.equiJoin(rightRecord, expression.getRightColumn());
+    }
+
+    private static Map<DataType, List<Record>> build(Relation relation, Column column) {
+        Map<DataType, List<Record>> hashTable = new HashMap<>();
+        RecordBatch batch = new RecordBatch();
+        try (RelationIterator iterator = relation.getIterator()) {
+            while (iterator.nextBatch(batch)) {
+                for (int i = 0; i < batch.selectedCount(); i++) {
+                    Record record = batch.selected(i);
+                    DataType key = record.getData().get(column);
+                    if (key != null) {
+                        hashTable.computeIfAbsent(key, k -> new ArrayList<>(1)).add(record);
+                    }
+                }
+            }
+        }
+        return hashTable;
+    }
+
+    @Override
+    public void release() {
+        left.release();
+        right.release();
+    }
+}
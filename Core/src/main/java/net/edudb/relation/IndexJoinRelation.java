@@ -0,0 +1,155 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+
+package net.edudb.relation;
+
+import net.edudb.data_type.DataType;
+import net.edudb.expression.Expression;
+import net.edudb.index.Index;
+import net.edudb.page.PageManager;
+import net.edudb.structure.Column;
+import net.edudb.structure.Record;
+import net.edudb.structure.RecordBatch;
+import net.edudb.structure.table.Table;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The output of the relational algebra Equi Join operator, computed as an
+ * index nested-loop join.
+ * <p>
+ * The right relation is a table with an index on its join column. Instead of
+ * scanning the table, the index is probed with the value of every record of
+ * the left relation, and only the pages it refers to are read. Records of
+ * those pages are checked against the value, since a page can hold records
+ * with other values. Consecutive left records with the same value probe the
+ * index once. Records whose join column is null join no record. The output
+ * keeps the order of the left relation.
+ */
+public class IndexJoinRelation extends PipelinedRelation {
+    private final Relation left;
+    private final Table right;
+
+    /**
+     * The index on the join column of the right table.
+     */
+    private final Index<DataType> index;
+
+    /**
+     * The expression equating a column of the left relation with a column of
+     * the right table.
+     */
+    private final Expression expression;
+
+    public IndexJoinRelation(Relation left, Table right, Index<DataType> index, Expression expression) {
+        this.left = left;
+        this.right = right;
+        this.index = index;
+        this.expression = expression;
+    }
+
+    @Override
+    public RelationIterator getIterator() {
+        Column leftColumn = expression.getLeftColumn();
+        Column rightColumn = expression.getRightColumn();
+        RelationIterator leftIterator = left.getIterator();
+        return new PipelinedIterator() {
+            private final RecordBatch leftBatch = new RecordBatch();
+            private int leftPosition;
+            private Record leftRecord;
+
+            /**
+             * The value the index was last probed with, and the records of the
+             * right table it matched.
+             */
+            private DataType probedValue;
+            private List<Record> matches = Collections.emptyList();
+            private int matchPosition;
+
+            @Override
+            protected boolean fillBatch(RecordBatch batch) {
+                batch.clear();
+                while (!batch.isFull()) {
+                    if (matchPosition < matches.size()) {
+                        batch.add(leftRecord.equiJoin(matches.get(matchPosition++), rightColumn));
+                        continue;
+                    }
+                    if (leftPosition >= leftBatch.selectedCount()) {
+                        if (!leftIterator.nextBatch(leftBatch)) {
+                            break;
+                        }
+                        leftPosition = 0;
+                    }
+                    leftRecord = leftBatch.selected(leftPosition++);
+                    DataType value = leftRecord.getData().get(leftColumn);
+                    if (value == null) {
+                        matches = Collections.emptyList();
+                    } else if (probedValue == null || value.compareTo(probedValue) != 0) {
+                        matches = probe(value, rightColumn);
+                        probedValue = value;
+                    }
+                    matchPosition = 0;
+                }
+                return batch.selectedCount() > 0;
+            }
+
+            @Override
+            protected void rewind() {
+                leftIterator.reset();
+                leftBatch.clear();
+                leftPosition = 0;
+                probedValue = null;
+                matches = Collections.emptyList();
+                matchPosition = 0;
+            }
+
+            @Override
+            protected void closeInputs() {
+                leftIterator.close();
+                matches = Collections.emptyList();
+            }
+        };
+    }
+
+    /**
+     * @return The records of the right table whose join column equals a value.
+     */
+    private List<Record> probe(DataType value, Column rightColumn) {
+        PageManager pageManager = right.getPageManager();
+        List<Record> matches = new ArrayList<>();
+        try (RelationIterator iterator = new RelationIterator(pageManager,
+                pageManager.openSnapshot(index.search(value)))) {
+            while (iterator.hasNext()) {
+                Record record = iterator.next();
+                DataType recordValue = record.getData().get(rightColumn);
+                if (recordValue != null && recordValue.compareTo(value) == 0) {
+                    matches.add(record);
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * @return The sort column of the left relation, whose records keep their
+     * order and whose columns keep their position in the joined records.
+     */
+    @Override
+    public Column getSortColumn() {
+        return left.getSortColumn();
+    }
+
+    @Override
+    public void release() {
+        left.release();
+    }
+}
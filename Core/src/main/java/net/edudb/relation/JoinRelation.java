@@ -0,0 +1,133 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+
+package net.edudb.relation;
+
+import net.edudb.expression.Expression;
+import net.edudb.structure.Record;
+import net.edudb.structure.RecordBatch;
+
+/**
+ * The output of the relational algebra Cartesian Product and Equi Join
+ * operators, computed as a nested loop join. Every record of the left input is
+ * joined with the records of the right input that it equates.
+ * <p>
+ * The right input is scanned once for every record of the left input. If it
+ * is itself the output of an operator, it is materialized once when the join
+ * is opened instead of being computed again for every left record.
+ */
+public class JoinRelation extends PipelinedRelation {
+    private final Relation left;
+    private final Relation right;
+
+    /**
+     * The join condition, null for a cartesian product.
+     */
+    private final Expression expression;
+
+    /**
+     * Creates the cartesian product of two relations.
+     */
+    public JoinRelation(Relation left, Relation right) {
+        this(left, right, null);
+    }
+
+    /**
+     * Creates the equi join of two relations.
+     *
+     * @param expression The expression equating a column of the left relation
+     *                   with a column of the right relation.
+     */
+    public JoinRelation(Relation left, Relation right, Expression expression) {
+        this.left = left;
+        this.right = right;
+        this.expression = expression;
+    }
+
+    @Override
+    public RelationIterator getIterator() {
+        Relation inner = right instanceof PipelinedRelation ? materialize(right) : right;
+        RelationIterator leftIterator = left.getIterator();
+        RelationIterator rightIterator = inner.getIterator();
+        return new PipelinedIterator() {
+            private Record leftRecord;
+
+            @Override
+            protected boolean fillBatch(RecordBatch batch) {
+                batch.clear();
+                while (!batch.isFull()) {
+                    Record record = fetch();
+                    if (record == null) {
+                        break;
+                    }
+                    batch.add(record);
+                }
+                return batch.selectedCount() > 0;
+            }
+
+            /**
+             * @return The next joined record, null if there is none left.
+             */
+            private Record fetch() {
+                while (true) {
+                    if (leftRecord == null) {
+                        leftRecord = leftIterator.next();
+                        if (leftRecord == null) {
+                            return null;
+                        }
+                    }
+                    while (rightIterator.hasNext()) {
+                        Record rightRecord = rightIterator.next();
+                        if (expression == null) {
+                            return leftRecord.join(rightRecord);
+                        }
+                        if (leftRecord.equates(rightRecord, expression)) {
+                            return leftRecord.equiJoin(rightRecord, expression.getRightColumn());
+                        }
+                    }
+                    leftRecord = null;
+                    rightIterator.reset();
+                }
+            }
+
+            @Override
+            protected void rewind() {
+                leftRecord = null;
+                leftIterator.reset();
+                rightIterator.reset();
+            }
+
+            @Override
+            protected void closeInputs() {
+                leftIterator.close();
+                rightIterator.close();
+                if (inner != right) {
+                    inner.release();
+                }
+            }
+        };
+    }
+
+    private static Relation materialize(Relation relation) {
+        TemporaryRelation materialized = new TemporaryRelation();
+        try (RelationIterator iterator = relation.getIterator()) {
+            while (iterator.hasNext()) {
+                materialized.addRecord(iterator.next());
+            }
+        }
+        return materialized;
+    }
+
+    @Override
+    public void release() {
+        left.release();
+        right.release();
+    }
+}
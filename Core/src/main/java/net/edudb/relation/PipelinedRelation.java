@@ -0,0 +1,159 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+
+package net.edudb.relation;
+
+import net.edudb.page.PageManager;
+import net.edudb.structure.Record;
+import net.edudb.structure.RecordBatch;
+
+import java.util.Map;
+
+/**
+ * The output of a relational algebra operator that is computed while it is
+ * iterated over, pulling records from the operator's inputs one at a time
+ * instead of materializing them.
+ * <p>
+ * {@link #getIterator()} opens the operator, {@link RelationIterator#next()}
+ * produces its next record and {@link RelationIterator#close()} closes it and
+ * its inputs. A query over a large table thus returns its first records before
+ * the scan finishes, in constant memory.
+ */
+public abstract class PipelinedRelation implements Relation {
+
+    /**
+     * @return Null, intermediate results have no name.
+     */
+    @Override
+    public String getName() {
+        return null;
+    }
+
+    /**
+     * @return Null, intermediate results have no pages.
+     */
+    @Override
+    public PageManager getPageManager() {
+        return null;
+    }
+
+    /**
+     * Records cannot be added to the output of an operator.
+     */
+    @Override
+    public int addRecord(Record record) {
+        throw new UnsupportedOperationException("Records cannot be added to the output of an operator");
+    }
+
+    @Override
+    public void deletePages() {
+        release();
+    }
+
+    @Override
+    public void setColumnTypes(Map<String, String> columnTypes) {
+    }
+
+    @Override
+    public Map<String, String> getColumnTypes() {
+        return null;
+    }
+
+    @Override
+    public void print() {
+        Relation.print(this);
+    }
+
+    /**
+     * An iterator that produces the records of an operator on demand, a batch
+     * at a time. Records requested one at a time are served from the current
+     * batch.
+     */
+    protected abstract static class PipelinedIterator extends RelationIterator {
+        private final RecordBatch batch = new RecordBatch();
+
+        /**
+         * The index, in the batch's selection vector, of the next record to
+         * return.
+         */
+        private int position;
+
+        /**
+         * Replaces the records of a batch with the next records of the
+         * operator's output.
+         *
+         * @return Whether the batch holds any selected record; false once the
+         * output has no records left.
+         */
+        protected abstract boolean fillBatch(RecordBatch batch);
+
+        /**
+         * Restarts the operator's output from its first record.
+         */
+        protected abstract void rewind();
+
+        /**
+         * Closes the iterators over the operator's inputs.
+         */
+        protected abstract void closeInputs();
+
+        @Override
+        public boolean hasNext() {
+            while (position >= batch.selectedCount()) {
+                if (!fillBatch(batch)) {
+                    batch.clear();
+                    position = 0;
+                    return false;
+                }
+                position = 0;
+            }
+            return true;
+        }
+
+        @Override
+        public Record next() {
+            if (!hasNext()) {
+                return null;
+            }
+            return batch.selected(position++);
+        }
+
+        /**
+         * Hands over the records left in the current batch, if any, before
+         * producing new batches.
+         */
+        @Override
+        public boolean nextBatch(RecordBatch batch) {
+            if (position < this.batch.selectedCount()) {
+                batch.clear();
+                while (position < this.batch.selectedCount()) {
+                    batch.add(this.batch.selected(position++));
+                }
+                return true;
+            }
+            return fillBatch(batch);
+        }
+
+        @Override
+        public void reset() {
+            batch.clear();
+            position = 0;
+            rewind();
+        }
+
+        @Override
+        public void close() {
+            batch.clear();
+            position = 0;
+            closeInputs();
+            super.close();
+        }
+    }
+}
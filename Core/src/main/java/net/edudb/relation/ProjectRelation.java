@@ -0,0 +1,96 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+
+package net.edudb.relation;
+
+import net.edudb.data_type.DataType;
+import net.edudb.structure.Column;
+import net.edudb.structure.Record;
+import net.edudb.structure.RecordBatch;
+import net.edudb.structure.TableRecord;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The output of the relational algebra Project operator: the records of its
+ * input reduced to some of their columns. The projected columns are looked up
+ * once per batch of input records.
+ */
+public class ProjectRelation extends PipelinedRelation {
+    private final Relation input;
+    private final Integer[] projectedColumns;
+
+    public ProjectRelation(Relation input, Integer[] projectedColumns) {
+        this.input = input;
+        this.projectedColumns = projectedColumns;
+    }
+
+    @Override
+    public RelationIterator getIterator() {
+        RelationIterator inputIterator = input.getIterator();
+        return new PipelinedIterator() {
+            @Override
+            protected boolean fillBatch(RecordBatch batch) {
+                if (!inputIterator.nextBatch(batch)) {
+                    return false;
+                }
+                Column[] columns = projectedColumns(batch.selected(0));
+                for (int i = 0; i < batch.selectedCount(); i++) {
+                    LinkedHashMap<Column, DataType> data = batch.selected(i).getData();
+                    LinkedHashMap<Column, DataType> projectedData = new LinkedHashMap<>();
+                    for (Column column : columns) {
+                        DataType value = data.get(column);
+                        if (value != null || data.containsKey(column)) {
+                            projectedData.put(column, value);
+                        }
+                    }
+                    batch.setSelected(i, new TableRecord(projectedData));
+                }
+                return true;
+            }
+
+            @Override
+            protected void rewind() {
+                inputIterator.reset();
+            }
+
+            @Override
+            protected void closeInputs() {
+                inputIterator.close();
+            }
+        };
+    }
+
+    /**
+     * @return The columns of a record that are projected, in the record's
+     * order. Found once per batch, as the records of a batch have the same
+     * columns.
+     */
+    private Column[] projectedColumns(Record record) {
+        Set<Integer> orders = new HashSet<>(Arrays.asList(projectedColumns));
+        List<Column> columns = new ArrayList<>();
+        for (Column column : record.getData().keySet()) {
+            if (orders.contains(column.getOrder())) {
+                columns.add(column);
+            }
+        }
+        return columns.toArray(new Column[0]);
+    }
+
+    @Override
+    public void release() {
+        input.release();
+    }
+}
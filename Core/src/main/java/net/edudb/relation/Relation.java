@@ -9,6 +9,7 @@
 
 package net.edudb.relation;
 
+import net.edudb.structure.Column;
 import net.edudb.structure.Record;
 import net.edudb.structure.table.Table;
 
@@ -26,6 +27,21 @@ public interface Relation extends Table {
      */
     RelationIterator getIterator();
 
+    /**
+     * Frees the memory and the temporary files holding the records of an
+     * intermediate result. Relations over tables keep their pages.
+     */
+    default void release() {
+    }
+
+    /**
+     * @return The column the relation's records are sorted by, in ascending
+     * order, null if their order is not known.
+     */
+    default Column getSortColumn() {
+        return null;
+    }
+
     /**
      * Prints a given relation to the writer stream iff the relation is not
      * null. <br>
@@ -10,106 +10,244 @@
 package net.edudb.relation;
 
 import net.edudb.buffer.BufferManager;
+import net.edudb.buffer.BufferRing;
+import net.edudb.engine.Config;
 import net.edudb.engine.Utility;
 import net.edudb.page.Page;
+import net.edudb.page.PageManager;
 import net.edudb.structure.Record;
+import net.edudb.structure.RecordBatch;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Iterator;
 import java.util.List;
 
 /**
  * Iterates over a relation's records.
+ * <p>
+ * Only the page that is currently iterated over is pinned in the buffer pool,
+ * and it is locked in shared mode only while its records are being read, so
+ * other threads can scan or modify the relation's pages while the iterator
+ * is open.
  *
  * @author Ahmed Abdul Badie
  */
 public class RelationIterator implements Iterator<Record>, AutoCloseable {
     private String id;
-    private final ArrayList<String> pageNames;
+    private final List<String> pageNames;
+    private final String workspaceName;
+    private final String databaseName;
     private Page currentPage;
     private int currentPageIndex;
     private int currentIndex;
-    private boolean hasLock;
 
-    public RelationIterator(ArrayList<String> pageNames) {
+    /**
+     * The number of pages read ahead of the scan. Doubles every time the scan
+     * moves to the next page, up to {@link Config#readAheadPages()}.
+     */
+    private int readAheadWindow;
+
+    /**
+     * The index of the first page that was not read ahead yet.
+     */
+    private int readAheadIndex;
+
+    /**
+     * The buffer ring used by scans over relations larger than
+     * {@link Config#scanRingThreshold()}, null for smaller relations.
+     */
+    private final BufferRing ring;
+
+    /**
+     * The indexes of the pages whose records are all deleted, which are
+     * skipped without being read.
+     */
+    private final BitSet deadPages;
+
+    /**
+     * Run once when the iterator is closed, null if there is nothing to run.
+     */
+    private Runnable closeAction;
+
+    /**
+     * The page manager the snapshot of the pages was taken from, released
+     * when the iterator is closed. Null if the iterator was not given a
+     * snapshot.
+     */
+    private PageManager pageManager;
+    private PageManager.Snapshot snapshot;
+
+    /**
+     * Creates an iterator over a snapshot of a table's pages. The snapshot is
+     * released when the iterator is closed.
+     *
+     * @param pageManager The page manager the snapshot was taken from.
+     * @param snapshot    The snapshot of the pages to scan.
+     */
+    public RelationIterator(PageManager pageManager, PageManager.Snapshot snapshot) {
+        this(snapshot.pageNames(), snapshot.deadPages());
+        this.pageManager = pageManager;
+        this.snapshot = snapshot;
+    }
+
+    public RelationIterator(List<String> pageNames) {
+        this(pageNames, new BitSet());
+    }
+
+    public RelationIterator(List<String> pageNames, BitSet deadPages) {
         this.pageNames = pageNames;
+        this.deadPages = deadPages;
         this.id = Utility.generateUUID();
+        this.workspaceName = Config.getCurrentWorkspace();
+        this.databaseName = Config.getCurrentDatabaseName();
+        this.ring = pageNames.size() > Config.scanRingThreshold() ? new BufferRing(Config.scanRingPages()) : null;
 
-        if (this.pageNames.isEmpty()) return;
+        reset();
+    }
 
-        acquirePagesLock();
+    /**
+     * Creates an iterator over a relation whose records are not stored in
+     * pages. Subclasses provide the records.
+     */
+    protected RelationIterator() {
+        this.pageNames = List.of();
+        this.deadPages = new BitSet();
+        this.id = Utility.generateUUID();
+        this.workspaceName = null;
+        this.databaseName = null;
+        this.ring = null;
+    }
 
-        this.currentPageIndex = 0;
-        this.currentIndex = 0;
-        this.currentPage = BufferManager.getInstance().read(pageNames.get(currentPageIndex++));
+    /**
+     * Runs an action once the iterator is closed. Used to free the
+     * intermediate result a result set iterates over when the result set is
+     * closed.
+     *
+     * @param closeAction The action to run.
+     */
+    public void setCloseAction(Runnable closeAction) {
+        this.closeAction = closeAction;
     }
 
+    /**
+     * Unpins the current page. The iterator has no more records afterwards.
+     */
     @Override
     public void close() {
-        releasePagesLock();
+        unpinCurrentPage();
+        this.currentPageIndex = pageNames.size();
+        releaseRing();
+        if (snapshot != null) {
+            PageManager.Snapshot released = snapshot;
+            snapshot = null;
+            pageManager.releaseSnapshot(released);
+        }
+        if (closeAction != null) {
+            Runnable action = closeAction;
+            closeAction = null;
+            action.run();
+        }
     }
 
-    public void releasePagesLock() {
-        for (String pageName : pageNames) {
-            Page page = BufferManager.getInstance().read(pageName);
-            page.releaseLock();
+    private void releaseRing() {
+        if (ring != null) {
+            BufferManager.getInstance().release(ring);
         }
     }
 
+    public void reset() {
+        unpinCurrentPage();
+        this.currentPageIndex = 0;
+        this.readAheadWindow = 0;
+        this.readAheadIndex = 0;
+        if (ring != null) {
+            ring.open();
+        }
+        nextPage();
+    }
 
-    public void acquirePagesLock() {
-        for (String pageName : pageNames) {
-            Page page = BufferManager.getInstance().read(pageName);
-            page.acquireLock();
+    /**
+     * Called before moving to the next page. Requests the pages after it from
+     * the buffer manager in the background, growing the number of pages read
+     * ahead as the scan goes on.
+     */
+    private void readAhead() {
+        int maxWindow = ring == null ? Config.readAheadPages() : Math.min(Config.readAheadPages(), ring.size() / 2);
+        readAheadWindow = Math.min(Math.max(1, 2 * readAheadWindow), maxWindow);
+        int next = currentPageIndex + 1;
+        int from = Math.max(next, readAheadIndex);
+        int until = Math.min(pageNames.size(), next + readAheadWindow);
+        if (from < until) {
+            ArrayList<String> names = new ArrayList<>();
+            for (int index = from; index < until; index++) {
+                if (!deadPages.get(index)) {
+                    names.add(pageNames.get(index));
+                }
+            }
+            BufferManager.getInstance().prefetch(workspaceName, databaseName, names, ring);
+            readAheadIndex = until;
         }
     }
 
-    public void reset() {
-        if (this.pageNames.isEmpty()) return;
-        this.currentPageIndex = 0;
+    /**
+     * Moves to the next page of the relation that can be read, skipping pages
+     * that no longer exist and pages whose records are all deleted.
+     *
+     * @return Whether there was a next page.
+     */
+    private boolean nextPage() {
+        unpinCurrentPage();
         this.currentIndex = 0;
-        this.currentPage = BufferManager.getInstance().read(pageNames.get(currentPageIndex++));
+        while (currentPageIndex < pageNames.size()) {
+            if (deadPages.get(currentPageIndex)) {
+                currentPageIndex++;
+                continue;
+            }
+            String pageName = pageNames.get(currentPageIndex++);
+            this.currentPage = BufferManager.getInstance().pin(workspaceName, databaseName, pageName, ring);
+            if (currentPage != null) {
+                return true;
+            }
+        }
+        releaseRing();
+        return false;
     }
 
+    private void unpinCurrentPage() {
+        if (currentPage != null) {
+            BufferManager.getInstance().unpin(workspaceName, databaseName, currentPage);
+            this.currentPage = null;
+        }
+    }
 
     @Override
     public boolean hasNext() {
         /**
-         * Relation has no pages; empty relation.
-         */
-        if (currentPage == null) {
-            return false;
-        }
-        /**
-         * Current index is greater than the size of the current page; iterated
-         * through the whole page.
+         * Relation has no pages left; iterated through the whole relation.
          */
-        if (currentIndex > 0 && currentIndex >= currentPage.size()) {
-            /**
-             * Relation has more pages to iterate through.
-             */
-            if (currentPageIndex < pageNames.size()) {
-                this.currentPage = BufferManager.getInstance().read(pageNames.get(currentPageIndex++));
-                this.currentIndex = 0;
+        while (currentPage != null) {
+            currentPage.acquireSharedLock();
+            try {
+                /**
+                 * This loop is used to skip through the deleted records.
+                 */
+                while (currentIndex < currentPage.size() && currentPage.getRecord(currentIndex).isDeleted()) {
+                    currentIndex++;
+                }
+                if (currentIndex < currentPage.size()) {
+                    return true;
+                }
+            } finally {
+                currentPage.releaseSharedLock();
             }
-        }
-        /**
-         * This loop is used to skip through the deleted records.
-         */
-        for (int i = currentIndex; i < currentPage.size(); i++) {
             /**
-             * Records is not deleted; should be returned.
+             * Iterated through the whole page; move to the next one.
              */
-            if (!currentPage.getRecord(i).isDeleted()) {
-                break;
-            }
-            currentIndex++;
-        }
-        if (currentIndex < currentPage.size()) {
-            return true;
-        } else {
-            return false;
+            readAhead();
+            nextPage();
         }
+        return false;
     }
 
     @Override
@@ -117,7 +255,61 @@ public class RelationIterator implements Iterator<Record>, AutoCloseable {
         if (!hasNext()) {
             return null;
         }
-        return currentPage.getRecord(currentIndex++);
+        currentPage.acquireSharedLock();
+        try {
+            return currentPage.getRecord(currentIndex++);
+        } finally {
+            currentPage.releaseSharedLock();
+        }
+    }
+
+    /**
+     * Replaces the records of a batch with the next records of the relation.
+     * Each page is locked in shared mode once, while all of its records that
+     * fit in the batch are copied into it.
+     *
+     * @param batch The batch to fill.
+     * @return Whether the batch holds any selected record; false once the
+     * relation has no records left.
+     */
+    public boolean nextBatch(RecordBatch batch) {
+        batch.clear();
+        if (pageNames.isEmpty()) {
+            /**
+             * The records are provided by a subclass, or there are none.
+             */
+            while (!batch.isFull()) {
+                Record record = next();
+                if (record == null) {
+                    break;
+                }
+                batch.add(record);
+            }
+            return batch.selectedCount() > 0;
+        }
+        while (currentPage != null && !batch.isFull()) {
+            currentPage.acquireSharedLock();
+            try {
+                int size = currentPage.size();
+                while (currentIndex < size && !batch.isFull()) {
+                    Record record = currentPage.getRecord(currentIndex++);
+                    if (!record.isDeleted()) {
+                        batch.add(record);
+                    }
+                }
+                if (currentIndex < size) {
+                    break;
+                }
+            } finally {
+                currentPage.releaseSharedLock();
+            }
+            /**
+             * Iterated through the whole page; move to the next one.
+             */
+            readAhead();
+            nextPage();
+        }
+        return batch.selectedCount() > 0;
     }
 
     public List<Record> next(int n) {
@@ -140,4 +332,19 @@ public class RelationIterator implements Iterator<Record>, AutoCloseable {
     public Page getCurrentPage() {
         return currentPage;
     }
+
+    /**
+     * @return The slot of the last record returned in the current page.
+     */
+    public int getCurrentRecordIndex() {
+        return currentIndex - 1;
+    }
+
+    /**
+     * @return The position of the current page in the iterated pages, which is
+     * its page id when iterating over a table.
+     */
+    public int getCurrentPageIndex() {
+        return currentPageIndex - 1;
+    }
 }
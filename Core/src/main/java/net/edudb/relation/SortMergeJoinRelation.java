@@ -0,0 +1,180 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+
+package net.edudb.relation;
+
+import net.edudb.data_type.DataType;
+import net.edudb.expression.Expression;
+import net.edudb.structure.Column;
+import net.edudb.structure.Record;
+import net.edudb.structure.RecordBatch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The output of the relational algebra Equi Join operator, computed as a
+ * sort-merge join.
+ * <p>
+ * Both relations are sorted by their join column, unless they are already
+ * known to be, and merged in one pass: the records of the right relation that
+ * share a value are collected once and joined with every record of the left
+ * relation that has the same value. Records whose join column is null join no
+ * record. The output is sorted by the join column of the left relation.
+ */
+public class SortMergeJoinRelation extends PipelinedRelation {
+    private final Relation left;
+    private final Relation right;
+
+    /**
+     * The expression equating a column of the left relation with a column of
+     * the right relation.
+     */
+    private final Expression expression;
+
+    public SortMergeJoinRelation(Relation left, Relation right, Expression expression) {
+        this.left = sorted(left, expression.getLeftColumn());
+        this.right = sorted(right, expression.getRightColumn());
+        this.expression = expression;
+    }
+
+    /**
+     * @return Whether both relations are already sorted by their join columns,
+     * in which case they can be merged without being sorted.
+     */
+    public static boolean inputsSorted(Relation left, Relation right, Expression expression) {
+        return SortedRelation.isSortedBy(left, expression.getLeftColumn())
+                && SortedRelation.isSortedBy(right, expression.getRightColumn());
+    }
+
+    private static Relation sorted(Relation relation, Column column) {
+        return SortedRelation.isSortedBy(relation, column) ? relation : new SortedRelation(relation, column);
+    }
+
+    @Override
+    public RelationIterator getIterator() {
+        Column leftColumn = expression.getLeftColumn();
+        Column rightColumn = expression.getRightColumn();
+        RelationIterator leftIterator = left.getIterator();
+        RelationIterator rightIterator = right.getIterator();
+        return new PipelinedIterator() {
+            private Record leftRecord;
+
+            /**
+             * The first record of the right relation that was not added to a
+             * group yet.
+             */
+            private Record rightRecord = rightIterator.next();
+
+            /**
+             * The records of the right relation whose join column equals
+             * {@link #groupValue}.
+             */
+            private List<Record> group = Collections.emptyList();
+            private DataType groupValue;
+            private int groupPosition;
+
+            @Override
+            protected boolean fillBatch(RecordBatch batch) {
+                batch.clear();
+                while (!batch.isFull()) {
+                    Record record = fetch();
+                    if (record == null) {
+                        break;
+                    }
+                    batch.add(record);
+                }
+                return batch.selectedCount() > 0;
+            }
+
+            /**
+             * @return The next joined record, null if there is none left.
+             */
+            private Record fetch() {
+                while (true) {
+                    if (leftRecord != null && groupPosition < group.size()) {
+                        return leftRecord.equiJoin(group.get(groupPosition++), rightColumn);
+                    }
+                    leftRecord = leftIterator.next();
+                    if (leftRecord == null) {
+                        return null;
+                    }
+                    groupPosition = 0;
+                    DataType value = leftRecord.getData().get(leftColumn);
+                    if (value == null) {
+                        group = Collections.emptyList();
+                        groupValue = null;
+                    } else if (groupValue == null || value.compareTo(groupValue) != 0) {
+                        if (rightRecord == null) {
+                            group = Collections.emptyList();
+                            return null;
+                        }
+                        nextGroup(value);
+                    }
+                }
+            }
+
+            /**
+             * Skips the records of the right relation that are smaller than a
+             * value and collects those equal to it.
+             */
+            private void nextGroup(DataType value) {
+                while (rightRecord != null && compare(rightRecord, value) < 0) {
+                    rightRecord = rightIterator.next();
+                }
+                group = new ArrayList<>();
+                groupValue = value;
+                while (rightRecord != null && compare(rightRecord, value) == 0) {
+                    group.add(rightRecord);
+                    rightRecord = rightIterator.next();
+                }
+            }
+
+            private int compare(Record record, DataType value) {
+                DataType recordValue = record.getData().get(rightColumn);
+                return recordValue == null ? -1 : recordValue.compareTo(value);
+            }
+
+            @Override
+            protected void rewind() {
+                leftIterator.reset();
+                rightIterator.reset();
+                leftRecord = null;
+                rightRecord = rightIterator.next();
+                group = Collections.emptyList();
+                groupValue = null;
+                groupPosition = 0;
+            }
+
+            @Override
+            protected void closeInputs() {
+                leftIterator.close();
+                rightIterator.close();
+                group = Collections.emptyList();
+            }
+        };
+    }
+
+    /**
+     * @return The join column of the left relation, whose columns keep their
+     * position in the joined records.
+     */
+    @Override
+    public Column getSortColumn() {
+        return expression.getLeftColumn();
+    }
+
+    @Override
+    public void release() {
+        left.release();
+        right.release();
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+
+package net.edudb.relation;
+
+import net.edudb.data_type.DataType;
+import net.edudb.engine.Config;
+import net.edudb.structure.Column;
+import net.edudb.structure.Record;
+import net.edudb.structure.RecordBatch;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * The records of a relation sorted in ascending order of one of their columns,
+ * records whose column is null first.
+ * <p>
+ * When the relation is opened, its input is read into sorted runs of at most
+ * {@link Config#temporaryRelationRecords()} records. Runs are held as
+ * {@link TemporaryRelation}s, so that all but the last one are spilled to the
+ * temporary area, and are merged while the relation is iterated over. Records
+ * with equal values keep the order of the input.
+ */
+public class SortedRelation extends PipelinedRelation {
+    private final Relation input;
+    private final Column column;
+
+    public SortedRelation(Relation input, Column column) {
+        this.input = input;
+        this.column = column;
+    }
+
+    /**
+     * @return Whether the records of a relation are known to be sorted by a
+     * column.
+     */
+    public static boolean isSortedBy(Relation relation, Column column) {
+        Column sortColumn = relation.getSortColumn();
+        return sortColumn != null && sortColumn.equals(column);
+    }
+
+    /**
+     * Compares records by the value of a column, null values first.
+     */
+    static Comparator<Record> comparator(Column column) {
+        return (a, b) -> compare(a.getData().get(column), b.getData().get(column));
+    }
+
+    private static int compare(DataType a, DataType b) {
+        if (a == null || b == null) {
+            return a == null ? (b == null ? 0 : -1) : 1;
+        }
+        return a.compareTo(b);
+    }
+
+    @Override
+    public RelationIterator getIterator() {
+        List<TemporaryRelation> runs = sortRuns();
+        Comparator<Record> comparator = comparator(column);
+        return new PipelinedIterator() {
+            private final List<RelationIterator> runIterators = new ArrayList<>();
+
+            /**
+             * Holds the next record of every run that has records left,
+             * smallest first. Ties are broken by run, earlier runs first.
+             */
+            private final PriorityQueue<RunHead> heads = new PriorityQueue<>((a, b) -> {
+                int comparison = comparator.compare(a.record(), b.record());
+                return comparison != 0 ? comparison : Integer.compare(a.run(), b.run());
+            });
+
+            {
+                for (TemporaryRelation run : runs) {
+                    runIterators.add(run.getIterator());
+                }
+                rewind();
+            }
+
+            @Override
+            protected boolean fillBatch(RecordBatch batch) {
+                batch.clear();
+                while (!batch.isFull() && !heads.isEmpty()) {
+                    RunHead head = heads.poll();
+                    batch.add(head.record());
+                    Record next = runIterators.get(head.run()).next();
+                    if (next != null) {
+                        heads.add(new RunHead(next, head.run()));
+                    }
+                }
+                return batch.selectedCount() > 0;
+            }
+
+            @Override
+            protected void rewind() {
+                heads.clear();
+                for (int i = 0; i < runIterators.size(); i++) {
+                    RelationIterator runIterator = runIterators.get(i);
+                    runIterator.reset();
+                    Record first = runIterator.next();
+                    if (first != null) {
+                        heads.add(new RunHead(first, i));
+                    }
+                }
+            }
+
+            @Override
+            protected void closeInputs() {
+                heads.clear();
+                for (RelationIterator runIterator : runIterators) {
+                    runIterator.close();
+                }
+                for (TemporaryRelation run : runs) {
+                    run.release();
+                }
+            }
+        };
+    }
+
+    /**
+     * Reads the input into sorted runs.
+     */
+    private List<TemporaryRelation> sortRuns() {
+        List<TemporaryRelation> runs = new ArrayList<>();
+        List<Record> records = new ArrayList<>();
+        Comparator<Record> comparator = comparator(column);
+        RecordBatch batch = new RecordBatch();
+        try (RelationIterator iterator = input.getIterator()) {
+            while (iterator.nextBatch(batch)) {
+                for (int i = 0; i < batch.selectedCount(); i++) {
+                    records.add(batch.selected(i));
+                    if (records.size() >= Config.temporaryRelationRecords()) {
+                        runs.add(sortRun(records, comparator));
+                        records = new ArrayList<>();
+                    }
+                }
+            }
+        }
+        if (!records.isEmpty()) {
+            runs.add(sortRun(records, comparator));
+        }
+        return runs;
+    }
+
+    private static TemporaryRelation sortRun(List<Record> records, Comparator<Record> comparator) {
+        records.sort(comparator);
+        TemporaryRelation run = new TemporaryRelation();
+        for (Record record : records) {
+            run.addRecord(record);
+        }
+        return run;
+    }
+
+    @Override
+    public Column getSortColumn() {
+        return column;
+    }
+
+    @Override
+    public void release() {
+        input.release();
+    }
+
+    private record RunHead(Record record, int run) {
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+
+package net.edudb.relation;
+
+import net.edudb.engine.Config;
+import net.edudb.engine.Utility;
+import net.edudb.page.PageManager;
+import net.edudb.structure.Record;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The result of a relational algebra operator, held in memory instead of in
+ * pages of the buffer pool.
+ * <p>
+ * Once more than {@link Config#temporaryRelationRecords()} records are held in
+ * memory, they are spilled as a chunk to a file in the temporary area, which is
+ * read back chunk by chunk when the relation is iterated over. The memory and
+ * the file are freed by {@link #release()}; files left by a crash are deleted
+ * when the server starts.
+ */
+public class TemporaryRelation implements Relation {
+    private List<Record> records;
+
+    /**
+     * The file the records are spilled to, null until the first spill.
+     */
+    private Path spillPath;
+    private int spilledChunks;
+
+    public TemporaryRelation() {
+        this.records = new ArrayList<>();
+    }
+
+    @Override
+    public RelationIterator getIterator() {
+        return new TemporaryRelationIterator(spillPath, spilledChunks, records);
+    }
+
+    /**
+     * @return Null, intermediate results have no name.
+     */
+    @Override
+    public String getName() {
+        return null;
+    }
+
+    /**
+     * @return Null, intermediate results have no pages.
+     */
+    @Override
+    public PageManager getPageManager() {
+        return null;
+    }
+
+    /**
+     * @return -1, intermediate results have no pages.
+     */
+    @Override
+    public int addRecord(Record record) {
+        records.add(record);
+        if (records.size() >= Config.temporaryRelationRecords()) {
+            spill();
+        }
+        return -1;
+    }
+
+    /**
+     * Appends the records held in memory to the spill file as one chunk.
+     */
+    private void spill() {
+        try {
+            if (spillPath == null) {
+                Files.createDirectories(Config.temporaryPath());
+                spillPath = Config.temporaryPath().resolve(Utility.generateUUID() + ".tmp");
+            }
+            ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+            try (ObjectOutputStream out = new ObjectOutputStream(chunk)) {
+                out.writeObject(new ArrayList<>(records));
+            }
+            try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(spillPath,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND))) {
+                out.writeInt(chunk.size());
+                chunk.writeTo(out);
+            }
+            spilledChunks++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        records = new ArrayList<>();
+    }
+
+    @Override
+    public void release() {
+        records = new ArrayList<>();
+        if (spillPath != null) {
+            try {
+                Files.deleteIfExists(spillPath);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            spillPath = null;
+            spilledChunks = 0;
+        }
+    }
+
+    @Override
+    public void deletePages() {
+        release();
+    }
+
+    @Override
+    public void setColumnTypes(Map<String, String> columnTypes) {
+    }
+
+    @Override
+    public Map<String, String> getColumnTypes() {
+        return null;
+    }
+
+    @Override
+    public void print() {
+        Relation.print(this);
+    }
+
+    /**
+     * Iterates over the spilled chunks, then over the records held in memory.
+     */
+    private static class TemporaryRelationIterator extends RelationIterator {
+        private final Path spillPath;
+        private final int spilledChunks;
+        private final List<Record> memoryRecords;
+
+        /**
+         * Reads the spilled chunks, null once they were all read.
+         */
+        private DataInputStream spill;
+        private int chunksRead;
+        private List<Record> chunk;
+        private int index;
+
+        TemporaryRelationIterator(Path spillPath, int spilledChunks, List<Record> memoryRecords) {
+            this.spillPath = spillPath;
+            this.spilledChunks = spilledChunks;
+            this.memoryRecords = memoryRecords;
+            reset();
+        }
+
+        @Override
+        public void reset() {
+            closeSpill();
+            try {
+                spill = spillPath == null ? null
+                        : new DataInputStream(new BufferedInputStream(Files.newInputStream(spillPath)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            chunksRead = 0;
+            chunk = Collections.emptyList();
+            index = 0;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (index >= chunk.size()) {
+                if (!nextChunk()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Moves to the next spilled chunk, or to the records held in memory
+         * once all chunks were read.
+         *
+         * @return Whether there was a next chunk.
+         */
+        @SuppressWarnings("unchecked")
+        private boolean nextChunk() {
+            if (chunk == memoryRecords) {
+                return false;
+            }
+            index = 0;
+            if (spill == null) {
+                chunk = memoryRecords;
+                return true;
+            }
+            try {
+                if (chunksRead == spilledChunks) {
+                    closeSpill();
+                    chunk = memoryRecords;
+                    return true;
+                }
+                byte[] bytes = new byte[spill.readInt()];
+                spill.readFully(bytes);
+                try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                    chunk = (List<Record>) in.readObject();
+                }
+                chunksRead++;
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public Record next() {
+            if (!hasNext()) {
+                return null;
+            }
+            return chunk.get(index++);
+        }
+
+        @Override
+        public int getCurrentRecordIndex() {
+            return index - 1;
+        }
+
+        @Override
+        public void close() {
+            closeSpill();
+            chunk = memoryRecords;
+            index = memoryRecords.size();
+            super.close();
+        }
+
+        private void closeSpill() {
+            if (spill != null) {
+                try {
+                    spill.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+                spill = null;
+            }
+        }
+    }
+}
@@ -37,7 +37,7 @@ public class VolatileRelation implements Relation, Serializable {
 
     @Override
     public RelationIterator getIterator() {
-        return new RelationIterator(pageManager.getPageNames());
+        return new RelationIterator(pageManager, pageManager.openSnapshot());
     }
 
     @Override
@@ -54,7 +54,7 @@ public class VolatileRelation implements Relation, Serializable {
     }
 
     @Override
-    public String addRecord(Record record) {
+    public int addRecord(Record record) {
         return pageManager.addRecord(record);
     }
 
@@ -12,11 +12,16 @@ package net.edudb.relational_algebra;
 
 import java.util.regex.Matcher;
 
+import net.edudb.engine.Config;
+import net.edudb.engine.DatabaseEngine;
 import net.edudb.engine.Utility;
 import net.edudb.expression.Expression;
 import net.edudb.expression.OperatorType;
 import net.edudb.operator.EquiJoinOperator;
+import net.edudb.operator.JoinStrategy;
 import net.edudb.operator.RelationOperator;
+import net.edudb.operator.parameter.RelationOperatorParameter;
+import net.edudb.statistics.Schema;
 import net.edudb.structure.Column;
 
 /**
@@ -64,9 +69,33 @@ public class EquiJoinMatcher implements RAMatcherChain {
 
 			equiOperator.setParameter(expression);
 
+			String tableName = ((RelationOperatorParameter) relationOperator.getParameter()).getTableName();
+			JoinStrategy joinStrategy = Config.joinStrategy();
+			/**
+			 * The index on the right relation's join column is probed unless
+			 * another strategy is set explicitly.
+			 */
+			if (!Config.isJoinStrategySet() || joinStrategy == JoinStrategy.INDEX_NESTED_LOOP) {
+				joinStrategy = hasIndex(tableName, expression.getRightColumn().getOrder())
+						? JoinStrategy.INDEX_NESTED_LOOP
+						: JoinStrategy.HASH;
+			}
+			equiOperator.setJoinStrategy(joinStrategy);
+
 			return new RAMatcherResult(equiOperator, matcher.group(1));
 		}
 		return nextElement.match(string);
 	}
 
+	/**
+	 * @return Whether a table has an index on a column, which the join can
+	 *         probe instead of scanning the table.
+	 */
+	private boolean hasIndex(String tableName, int columnOrder) {
+		String columnName = Schema.getInstance().getColumnByOrder(tableName, columnOrder).getName();
+		return DatabaseEngine.getInstance().getIndexManager()
+				.getIndex(Config.getCurrentWorkspace(), Config.getCurrentDatabaseName(), tableName, columnName)
+				.isPresent();
+	}
+
 }
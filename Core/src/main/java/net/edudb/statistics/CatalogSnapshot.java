@@ -0,0 +1,127 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+
+package net.edudb.statistics;
+
+import net.edudb.engine.Config;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compact copy of the catalog, the names of the workspaces and of their
+ * databases, written when the server stops so that the next start does not
+ * have to list the directory of every workspace.
+ * <p>
+ * The snapshot is deleted as soon as it is read, so a snapshot on disk always
+ * matches the data directory; after a crash the catalog is listed from disk.
+ */
+public class CatalogSnapshot {
+    private static final int MAGIC = 0x45444243; // "EDBC"
+    private static final int VERSION = 1;
+
+    private CatalogSnapshot() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Reads the snapshot and deletes it, so that it is not read again after a
+     * crash.
+     *
+     * @return The database names of every workspace, keyed by workspace name.
+     * The databases of workspaces that were not loaded are null. Null if there
+     * is no valid snapshot.
+     */
+    public static Map<String, List<String>> read() {
+        Path path = Config.catalogSnapshotPath();
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try {
+            return read(path);
+        } finally {
+            delete();
+        }
+    }
+
+    private static Map<String, List<String>> read(Path path) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            int workspaceCount = in.readInt();
+            Map<String, List<String>> catalog = new LinkedHashMap<>(workspaceCount * 2);
+            for (int i = 0; i < workspaceCount; i++) {
+                String workspaceName = in.readUTF();
+                int databaseCount = in.readInt();
+                List<String> databaseNames = null;
+                if (databaseCount >= 0) {
+                    databaseNames = new ArrayList<>(databaseCount);
+                    for (int j = 0; j < databaseCount; j++) {
+                        databaseNames.add(in.readUTF());
+                    }
+                }
+                catalog.put(workspaceName, databaseNames);
+            }
+            return catalog;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes the snapshot, replacing the previous one atomically.
+     *
+     * @param catalog The database names of every workspace, null for the
+     *                workspaces that were not loaded.
+     */
+    public static void write(Map<String, List<String>> catalog) {
+        Path path = Config.catalogSnapshotPath();
+        Path temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryPath)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(catalog.size());
+                for (Map.Entry<String, List<String>> workspace : catalog.entrySet()) {
+                    out.writeUTF(workspace.getKey());
+                    List<String> databaseNames = workspace.getValue();
+                    out.writeInt(databaseNames == null ? -1 : databaseNames.size());
+                    if (databaseNames != null) {
+                        for (String databaseName : databaseNames) {
+                            out.writeUTF(databaseName);
+                        }
+                    }
+                }
+            }
+            Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public static void delete() {
+        try {
+            Files.deleteIfExists(Config.catalogSnapshotPath());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -16,12 +16,22 @@ import net.edudb.exception.*;
 import net.edudb.structure.Column;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class Schema {
     private static volatile Schema instance;
+
+    /**
+     * The schemas of the workspaces, null for workspaces that are not loaded
+     * yet.
+     */
     private Map<String, WorkspaceSchema> workspaces;
 
     public static Schema getInstance() {
@@ -35,8 +45,20 @@ public class Schema {
         return instance;
     }
 
+    /**
+     * Reads the catalog from the snapshot written when the server last
+     * stopped. Without a snapshot, the workspaces are listed from disk and
+     * their schemas are loaded in the background.
+     */
     private Schema() {
-        this.workspaces = new HashMap<>();
+        this.workspaces = Collections.synchronizedMap(new HashMap<>());
+
+        Map<String, List<String>> snapshot = CatalogSnapshot.read();
+        if (snapshot != null) {
+            snapshot.forEach((workspaceName, databaseNames) -> this.workspaces.put(workspaceName,
+                    databaseNames == null ? null : new WorkspaceSchema(workspaceName, databaseNames)));
+            return;
+        }
 
         String[] workspacesList = new String[0];
         try {
@@ -47,10 +69,58 @@ public class Schema {
         for (String workspace : workspacesList) {
             this.workspaces.put(workspace, null);
         }
+        preloadWorkspaces(this.workspaces);
+    }
+
+    /**
+     * Loads the schemas of the workspaces concurrently in the background.
+     * Workspaces that are used before they are preloaded are loaded on
+     * demand, and are not loaded again.
+     */
+    private static void preloadWorkspaces(Map<String, WorkspaceSchema> workspaces) {
+        List<String> workspaceNames;
+        synchronized (workspaces) {
+            workspaceNames = new ArrayList<>(workspaces.keySet());
+        }
+        if (workspaceNames.isEmpty()) {
+            return;
+        }
+        int threads = Math.min(workspaceNames.size(), Math.max(2, Runtime.getRuntime().availableProcessors()));
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "schema-preload");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (String workspaceName : workspaceNames) {
+            executor.execute(() -> {
+                if (workspaces.get(workspaceName) != null) {
+                    return;
+                }
+                try {
+                    workspaces.replace(workspaceName, null, WorkspaceSchema.load(workspaceName));
+                } catch (DirectoryNotFoundException e) {
+                    // the workspace was dropped in the meantime
+                }
+            });
+        }
+        executor.shutdown();
     }
 
     public void reset() {
-        this.workspaces = new HashMap<>();
+        this.workspaces = Collections.synchronizedMap(new HashMap<>());
+    }
+
+    /**
+     * Writes the names of the workspaces and of their databases to the catalog
+     * snapshot, to be read by the next start.
+     */
+    public void writeSnapshot() {
+        Map<String, List<String>> catalog = new LinkedHashMap<>();
+        synchronized (workspaces) {
+            workspaces.forEach((workspaceName, workspaceSchema) -> catalog.put(workspaceName,
+                    workspaceSchema == null ? null : Arrays.asList(workspaceSchema.listDatabases())));
+        }
+        CatalogSnapshot.write(catalog);
     }
 
     private void validateWorkspaceExists(String workspaceName) throws WorkspaceNotFoundException {
@@ -83,7 +153,9 @@ public class Schema {
     public WorkspaceSchema getWorkspace(String workspaceName) throws WorkspaceNotFoundException {
         validateWorkspaceExists(workspaceName);
 
-        if (!isWorkspaceLoaded(workspaceName)) loadWorkspace(workspaceName);
+        if (!isWorkspaceLoaded(workspaceName)) {
+            this.workspaces.replace(workspaceName, null, new WorkspaceSchema(workspaceName));
+        }
 
         return this.workspaces.get(workspaceName);
     }
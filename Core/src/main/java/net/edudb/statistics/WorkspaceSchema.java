@@ -15,6 +15,8 @@ import net.edudb.exception.DatabaseAlreadyExistException;
 import net.edudb.exception.DatabaseNotFoundException;
 import net.edudb.exception.DirectoryNotFoundException;
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
@@ -38,6 +40,30 @@ public class WorkspaceSchema {
         }
     }
 
+    /**
+     * Creates the schema of a workspace whose database names are known, without
+     * listing the workspace's directory.
+     *
+     * @param workspaceName Name of the workspace.
+     * @param databaseNames Names of the workspace's databases.
+     */
+    public WorkspaceSchema(String workspaceName, Collection<String> databaseNames) {
+        this.workspaceName = workspaceName;
+        this.databases = new HashMap<>();
+        for (String database : databaseNames) {
+            this.databases.put(database, null);
+        }
+    }
+
+    /**
+     * Lists the databases of a workspace.
+     *
+     * @throws DirectoryNotFoundException If the workspace's directory is missing.
+     */
+    static WorkspaceSchema load(String workspaceName) throws DirectoryNotFoundException {
+        return new WorkspaceSchema(workspaceName, Arrays.asList(FileManager.getInstance().listDatabases(workspaceName)));
+    }
+
     private void validateDatabaseExists(String databaseName) throws DatabaseNotFoundException {
         if (!containsDatabase(databaseName)) {
             throw new DatabaseNotFoundException(String.format("Database %s does not exist", databaseName));
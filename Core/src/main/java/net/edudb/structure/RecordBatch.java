@@ -0,0 +1,110 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+
+package net.edudb.structure;
+
+/**
+ * A batch of records exchanged between relational algebra operators, so that
+ * an operator processes many records per call instead of one.
+ * <p>
+ * The selection vector holds, in increasing order, the positions of the
+ * records of the batch that are still part of the result. Filtering a batch
+ * narrows its selection vector without moving the records.
+ */
+public class RecordBatch {
+    /**
+     * The number of records a batch can hold.
+     */
+    public static final int CAPACITY = 1024;
+
+    private final Record[] records = new Record[CAPACITY];
+    private int size;
+
+    private final int[] selection = new int[CAPACITY];
+    private int selectedCount;
+
+    /**
+     * Removes all the records from the batch.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            records[i] = null;
+        }
+        size = 0;
+        selectedCount = 0;
+    }
+
+    /**
+     * Adds a record to the batch and selects it.
+     *
+     * @param record The record to add.
+     */
+    public void add(Record record) {
+        records[size] = record;
+        selection[selectedCount++] = size++;
+    }
+
+    public boolean isFull() {
+        return size == CAPACITY;
+    }
+
+    /**
+     * @return The number of records in the batch, selected or not.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param position The position of a record in the batch.
+     * @return The record at that position.
+     */
+    public Record get(int position) {
+        return records[position];
+    }
+
+    /**
+     * @return The number of selected records.
+     */
+    public int selectedCount() {
+        return selectedCount;
+    }
+
+    /**
+     * @param i The index of a record in the selection vector.
+     * @return The i-th selected record.
+     */
+    public Record selected(int i) {
+        return records[selection[i]];
+    }
+
+    /**
+     * Replaces the i-th selected record.
+     *
+     * @param i      The index of a record in the selection vector.
+     * @param record The record to put in its place.
+     */
+    public void setSelected(int i, Record record) {
+        records[selection[i]] = record;
+    }
+
+    /**
+     * @return The selection vector, whose first {@link #selectedCount()}
+     * entries are the positions of the selected records. Filters write the
+     * positions they keep to it and then call {@link #setSelectedCount(int)}.
+     */
+    public int[] selection() {
+        return selection;
+    }
+
+    public void setSelectedCount(int selectedCount) {
+        this.selectedCount = selectedCount;
+    }
+}
@@ -13,6 +13,7 @@ import com.google.common.collect.Sets;
 import net.edudb.data_type.DataType;
 import net.edudb.expression.BinaryExpressionTree;
 import net.edudb.expression.Expression;
+import net.edudb.page.Page;
 
 import java.io.Serializable;
 import java.util.LinkedHashMap;
@@ -29,6 +30,13 @@ public class TableRecord implements Record, Serializable {
     private final LinkedHashMap<Column, DataType> data;
     private boolean deleted;
 
+    /**
+     * The page that stores the record, marked as dirty when the record changes.
+     * A record that is added to more than one page, e.g. a table record that is
+     * also part of an intermediate result, stays linked to the first page.
+     */
+    private transient Page page;
+
     public TableRecord() {
         this.data = new LinkedHashMap<>();
     }
@@ -40,6 +48,7 @@ public class TableRecord implements Record, Serializable {
     @Override
     public void addValue(Column key, DataType value) {
         data.put(key, value);
+        markPageDirty();
     }
 
     @Override
@@ -96,12 +105,15 @@ public class TableRecord implements Record, Serializable {
         return resultRecord;
     }
 
+    /**
+     * A null value equates no value, not even another null value.
+     */
     @Override
     public boolean equates(Record record, Expression expression) {
         DataType leftValue = this.getData().get(expression.getLeftColumn());
         DataType rightValue = record.getData().get(expression.getRightColumn());
 
-        return leftValue.compareTo(rightValue) == 0;
+        return leftValue != null && rightValue != null && leftValue.compareTo(rightValue) == 0;
     }
 
     @SuppressWarnings("unchecked")
@@ -133,11 +145,31 @@ public class TableRecord implements Record, Serializable {
         data.forEach((key, value) -> {
             this.data.put(key, value);
         });
+        markPageDirty();
     }
 
     @Override
     public void delete() {
         deleted = true;
+        markPageDirty();
+    }
+
+    /**
+     * Links the record to the page that stores it, unless it is already
+     * stored in another page.
+     *
+     * @param page The page that stores the record.
+     */
+    public void setPage(Page page) {
+        if (this.page == null) {
+            this.page = page;
+        }
+    }
+
+    private void markPageDirty() {
+        if (page != null) {
+            page.markDirty();
+        }
     }
 
     @Override
@@ -12,6 +12,9 @@ package net.edudb.structure.table;
 import net.edudb.page.PageManager;
 import net.edudb.structure.Record;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serial;
 import java.io.Serializable;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -35,9 +38,16 @@ public class BinaryTable implements Table, Serializable {
     public BinaryTable(String name) {
         this.name = name;
         this.pageManager = new PageManager();
+        this.pageManager.setTableName(name);
         this.columnTypes = new LinkedHashMap<>();
     }
 
+    @Serial
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        pageManager.setTableName(name);
+    }
+
     @Override
     public synchronized PageManager getPageManager() {
         return pageManager;
@@ -54,7 +64,7 @@ public class BinaryTable implements Table, Serializable {
     }
 
     @Override
-    public String addRecord(Record record) {
+    public int addRecord(Record record) {
         return pageManager.addRecord(record);
     }
 
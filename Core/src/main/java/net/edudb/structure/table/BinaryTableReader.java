@@ -18,7 +18,8 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 
 /**
- * A table information reader that reads binary table information files from disk.
+ * A table information reader that reads binary table information files from
+ * disk, applying the changes appended to their delta files.
  *
  * @author Ahmed Abdul Badie
  */
@@ -32,6 +33,7 @@ public class BinaryTableReader extends TableReader {
             ObjectInputStream in = new ObjectInputStream(fileIn);
             Table table = (Table) in.readObject();
             in.close();
+            TableDelta.apply(workspaceName, databaseName, table);
             return table;
         }
     }
@@ -10,12 +10,17 @@
 package net.edudb.structure.table;
 
 import net.edudb.engine.Config;
+import net.edudb.engine.FileManager;
+import net.edudb.page.PageManager;
 
 import java.io.IOException;
 import java.io.ObjectOutputStream;
-import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 
 /**
  * A table information writer that writes binary table information files to disk.
@@ -24,13 +29,40 @@ import java.nio.file.Path;
  */
 public class BinaryTableWriter extends TableWriter {
 
+    /**
+     * Appends the changes made to the table's pages to its delta file when
+     * possible, and writes the table in full otherwise, replacing the delta
+     * file. The table is only marked written once the write succeeded.
+     */
     @Override
     public void write(String workspaceName, String databaseName, Table table) throws IOException {
-        Path tablePath = Config.tablePath(workspaceName, databaseName, table.getName());
-        try (OutputStream fileOut = Files.newOutputStream(tablePath)) {
-            ObjectOutputStream out = new ObjectOutputStream(fileOut);
-            out.writeObject(table);
-            out.close();
+        PageManager pageManager = table.getPageManager();
+        try {
+            if (pageManager.canWriteDelta() && TableDelta.isWorthAppending(workspaceName, databaseName, table.getName())) {
+                if (pageManager.isModified()) {
+                    TableDelta.append(workspaceName, databaseName, table);
+                    pageManager.tableWritten();
+                }
+                return;
+            }
+
+            Path tablePath = Config.tablePath(workspaceName, databaseName, table.getName());
+            Path temporaryPath = tablePath.resolveSibling(tablePath.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ObjectOutputStream out = new ObjectOutputStream(Channels.newOutputStream(channel));
+                out.writeObject(table);
+                out.flush();
+                // the new table file must be complete on disk before it replaces the old one
+                channel.force(true);
+            }
+            Files.move(temporaryPath, tablePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            FileManager.getInstance().fileWritten(tablePath);
+            TableDelta.delete(workspaceName, databaseName, table.getName());
+            pageManager.tableWritten();
+        } catch (IOException e) {
+            pageManager.requireRewrite();
+            throw e;
         }
     }
 
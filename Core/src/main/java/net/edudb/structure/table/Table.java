@@ -35,8 +35,9 @@ public interface Table extends OperatorParameter {
      * Adds a record to the table/relation.
      *
      * @param record The record to add.
+     * @return The id of the page the record was added to.
      */
-    String addRecord(Record record);
+    int addRecord(Record record);
 
     /**
      * @param columnTypes Linked Hash Map that holds each column name and its type name.
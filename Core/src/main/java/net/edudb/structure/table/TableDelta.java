@@ -0,0 +1,157 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+
+package net.edudb.structure.table;
+
+import net.edudb.engine.Config;
+import net.edudb.engine.FileManager;
+import net.edudb.page.PageManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * The delta file of a table, to which the changes made to the table's pages
+ * are appended instead of rewriting the whole table file. Adding pages to a
+ * table thus costs a write proportional to the pages added, not to the pages
+ * of the table.
+ * <p>
+ * The file starts with the generation of the table file it applies to, and
+ * is followed by frames holding a length, a CRC32 checksum and a delta
+ * written by {@link PageManager#writeDelta(java.io.DataOutput)}. A delta file
+ * of another generation was left by a full write that did not finish cleaning
+ * up and is ignored. A torn frame at the end of the file ends the deltas.
+ */
+class TableDelta {
+    private static final int MAGIC = 0x45444244; // "EDBD"
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+
+    private TableDelta() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * @return Whether the table's delta file is smaller than its table file,
+     * so that appending to it is cheaper than writing the table in full.
+     */
+    static boolean isWorthAppending(String workspaceName, String databaseName, String tableName) throws IOException {
+        Path tablePath = Config.tablePath(workspaceName, databaseName, tableName);
+        Path deltaPath = Config.tableDeltaPath(workspaceName, databaseName, tableName);
+        if (!Files.exists(tablePath)) {
+            return false;
+        }
+        return !Files.exists(deltaPath) || Files.size(deltaPath) < Files.size(tablePath);
+    }
+
+    /**
+     * Appends the changes made to a table since it was last written to its
+     * delta file, starting a new delta file if the table was written in full
+     * since the last append.
+     */
+    static void append(String workspaceName, String databaseName, Table table) throws IOException {
+        PageManager pageManager = table.getPageManager();
+        Path deltaPath = Config.tableDeltaPath(workspaceName, databaseName, table.getName());
+
+        ByteArrayOutputStream delta = new ByteArrayOutputStream();
+        pageManager.writeDelta(new DataOutputStream(delta));
+        byte[] payload = delta.toByteArray();
+        CRC32 checksum = new CRC32();
+        checksum.update(payload);
+
+        boolean current = generation(deltaPath) == pageManager.getGeneration();
+        ByteBuffer frame = ByteBuffer.allocate((current ? 0 : HEADER_SIZE) + 2 * Integer.BYTES + payload.length);
+        if (!current) {
+            frame.putInt(MAGIC).putInt(pageManager.getGeneration());
+        }
+        frame.putInt(payload.length).putInt((int) checksum.getValue()).put(payload);
+
+        try (OutputStream out = current
+                ? Files.newOutputStream(deltaPath, StandardOpenOption.APPEND)
+                : Files.newOutputStream(deltaPath)) {
+            out.write(frame.array());
+        }
+        FileManager.getInstance().fileWritten(deltaPath);
+    }
+
+    /**
+     * Applies the deltas of a table that was just read from its table file.
+     * If the deltas cannot all be applied, the next write of the table is a
+     * full one.
+     */
+    static void apply(String workspaceName, String databaseName, Table table) throws IOException {
+        PageManager pageManager = table.getPageManager();
+        Path deltaPath = Config.tableDeltaPath(workspaceName, databaseName, table.getName());
+        if (generation(deltaPath) != pageManager.getGeneration()) {
+            return;
+        }
+
+        ByteBuffer deltas = ByteBuffer.wrap(Files.readAllBytes(deltaPath));
+        deltas.position(HEADER_SIZE);
+        while (deltas.hasRemaining()) {
+            byte[] payload = readFrame(deltas);
+            if (payload == null
+                    || !pageManager.applyDelta(new DataInputStream(new ByteArrayInputStream(payload)))) {
+                pageManager.requireRewrite();
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return The payload of the next frame, null if the frame is torn.
+     */
+    private static byte[] readFrame(ByteBuffer deltas) {
+        if (deltas.remaining() < 2 * Integer.BYTES) {
+            return null;
+        }
+        int length = deltas.getInt();
+        int checksum = deltas.getInt();
+        if (length < 0 || deltas.remaining() < length) {
+            return null;
+        }
+        byte[] payload = new byte[length];
+        deltas.get(payload);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue() == checksum ? payload : null;
+    }
+
+    /**
+     * @return The generation of the table file a delta file applies to, -1 if
+     * there is no valid delta file.
+     */
+    private static int generation(Path deltaPath) throws IOException {
+        if (!Files.exists(deltaPath)) {
+            return -1;
+        }
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(deltaPath))) {
+            if (in.readInt() != MAGIC) {
+                return -1;
+            }
+            return in.readInt();
+        } catch (EOFException e) {
+            return -1;
+        }
+    }
+
+    static void delete(String workspaceName, String databaseName, String tableName) throws IOException {
+        Files.deleteIfExists(Config.tableDeltaPath(workspaceName, databaseName, tableName));
+    }
+}
@@ -14,11 +14,14 @@ import net.edudb.engine.FileManager;
 import net.edudb.exception.DatabaseNotFoundException;
 import net.edudb.exception.TableAlreadyExistException;
 import net.edudb.exception.TableNotFoundException;
+import net.edudb.page.PageManager;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.file.FileAlreadyExistsException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -81,6 +84,20 @@ public class TableManager {
         return table;
     }
 
+    /**
+     * @return A copy of the tables in the table buffer pool, keyed by the names
+     * of their workspaces and databases.
+     */
+    public synchronized Map<String, Map<String, List<Table>>> bufferedTables() {
+        Map<String, Map<String, List<Table>>> tables = new HashMap<>();
+        tableBuffer.forEach((workspaceName, databaseMap) -> {
+            Map<String, List<Table>> databases = new HashMap<>();
+            databaseMap.forEach((databaseName, tableMap) -> databases.put(databaseName, new ArrayList<>(tableMap.values())));
+            tables.put(workspaceName, databases);
+        });
+        return tables;
+    }
+
     public Table createTable(String workspaceName, String databaseName, String tableSchema, Map<String, String> columnTypes) throws TableAlreadyExistException, DatabaseNotFoundException {
         String tableName = tableSchema.split(" ")[0];
 
@@ -154,6 +171,72 @@ public class TableManager {
                         writeAllTables(workspaceName, databaseName)));
     }
 
+    /**
+     * Writes the buffered tables whose pages changed since they were last
+     * written, keeping them in the table buffer. Tables that are being
+     * vacuumed are skipped, as their new pages may not be on disk yet; the
+     * vacuum writes them once they are.
+     *
+     * @return The LSN the oldest skipped table was last written at, from which
+     * the write-ahead log must be kept to redo its changes;
+     * {@link Long#MAX_VALUE} if no table was skipped.
+     */
+    public synchronized long flushModifiedTables() {
+        return flushTables(true);
+    }
+
+    /**
+     * Writes all the buffered tables to disk, keeping them in the table buffer
+     * as they may still be in use. Tables that are being vacuumed are skipped,
+     * as by {@link #flushModifiedTables()}.
+     *
+     * @return The LSN the oldest skipped table was last written at;
+     * {@link Long#MAX_VALUE} if no table was skipped.
+     */
+    public synchronized long flushAllTables() {
+        return flushTables(false);
+    }
+
+    /**
+     * The table's shared lock is only tried, as a vacuum holds the table's
+     * exclusive lock while it waits to write the table.
+     */
+    private long flushTables(boolean modifiedOnly) {
+        long oldestSkippedLsn = Long.MAX_VALUE;
+        for (Map.Entry<String, HashMap<String, HashMap<String, Table>>> workspace : tableBuffer.entrySet()) {
+            for (Map.Entry<String, HashMap<String, Table>> database : workspace.getValue().entrySet()) {
+                for (Table table : new ArrayList<>(database.getValue().values())) {
+                    if (table == null) {
+                        continue;
+                    }
+                    PageManager pageManager = table.getPageManager();
+                    if (!pageManager.tryAcquireSharedLock()) {
+                        oldestSkippedLsn = Math.min(oldestSkippedLsn, pageManager.getLsn());
+                        continue;
+                    }
+                    try {
+                        if (!modifiedOnly || pageManager.isModified()) {
+                            writeTable(workspace.getKey(), database.getKey(), table);
+                        }
+                    } finally {
+                        pageManager.releaseSharedLock();
+                    }
+                }
+            }
+        }
+        return oldestSkippedLsn;
+    }
+
+
+    /**
+     * Drops the tables of a database from the table buffer without writing
+     * them to disk, e.g. when the database is dropped.
+     */
+    public synchronized void removeDatabase(String workspaceName, String databaseName) {
+        if (tableBuffer.containsKey(workspaceName)) {
+            tableBuffer.get(workspaceName).remove(databaseName);
+        }
+    }
 
     /**
      * Deletes the table by deleting its pages from disk, removing the table
@@ -183,8 +266,11 @@ public class TableManager {
 
         try {
             fileManager.deleteFile(Config.tablePath(workspaceName, databaseName, tableName));
+            TableDelta.delete(workspaceName, databaseName, tableName);
         } catch (FileNotFoundException e) {
             throw new TableNotFoundException(String.format("table (%s) is not found", tableName), e);
+        } catch (IOException e) {
+            e.printStackTrace();
         }
         try {
             fileManager.removeLineFromFileWithPrefix(Config.schemaPath(workspaceName, databaseName), tableName + " ");
@@ -12,6 +12,7 @@ package net.edudb.transcation;
 import net.edudb.query.PostOrderTreeExecutor;
 import net.edudb.query.QueryTree;
 import net.edudb.relation.Relation;
+import net.edudb.wal.WriteAheadLog;
 
 /**
  * A transaction that is executed in-order.
@@ -25,8 +26,14 @@ public class SynchronizedTransaction extends Transaction {
         this.queryTreeExecutor = new PostOrderTreeExecutor();
     }
 
+    /**
+     * Executes the plan and makes the changes it logged durable before
+     * returning.
+     */
     public Relation run() {
-        return queryTreeExecutor.execute(plan);
+        Relation relation = queryTreeExecutor.execute(plan);
+        WriteAheadLog.getInstance().commit();
+        return relation;
     }
 
 }
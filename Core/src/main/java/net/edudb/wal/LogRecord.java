@@ -0,0 +1,218 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+
+package net.edudb.wal;
+
+import net.edudb.page.SlottedPageFormat;
+import net.edudb.structure.Record;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serial;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A change written to the write-ahead log. Page changes name the page and the
+ * slot they apply to and carry the image of the record after the change, so
+ * that they can be redone on the page without reading any other page.
+ */
+public class LogRecord implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 3604752817160392834L;
+
+    /**
+     * Starts the records written by {@link #write(DataOutput)}. Java
+     * serialization streams, which older logs hold, never start with it. The
+     * type of a record is written as its position in {@link LogRecordType}.
+     */
+    static final byte FORMAT_VERSION = 1;
+
+    private final LogRecordType type;
+    private final String workspaceName;
+    private final String databaseName;
+    private final String tableName;
+    private String pageName;
+    private int slot;
+    private Record record;
+    private String tableSchemaLine;
+    private LinkedHashMap<String, String> columnTypes;
+
+    private LogRecord(LogRecordType type, String workspaceName, String databaseName, String tableName) {
+        this.type = type;
+        this.workspaceName = workspaceName;
+        this.databaseName = databaseName;
+        this.tableName = tableName;
+    }
+
+    private static LogRecord pageChange(LogRecordType type, String workspaceName, String databaseName,
+                                        String tableName, String pageName, int slot, Record record) {
+        LogRecord logRecord = new LogRecord(type, workspaceName, databaseName, tableName);
+        logRecord.pageName = pageName;
+        logRecord.slot = slot;
+        logRecord.record = record;
+        return logRecord;
+    }
+
+    public static LogRecord newPage(String workspaceName, String databaseName, String tableName, String pageName) {
+        return pageChange(LogRecordType.NEW_PAGE, workspaceName, databaseName, tableName, pageName, -1, null);
+    }
+
+    public static LogRecord insert(String workspaceName, String databaseName, String tableName, String pageName,
+                                   int slot, Record record) {
+        return pageChange(LogRecordType.INSERT, workspaceName, databaseName, tableName, pageName, slot, record);
+    }
+
+    public static LogRecord update(String workspaceName, String databaseName, String tableName, String pageName,
+                                   int slot, Record record) {
+        return pageChange(LogRecordType.UPDATE, workspaceName, databaseName, tableName, pageName, slot, record);
+    }
+
+    public static LogRecord delete(String workspaceName, String databaseName, String tableName, String pageName,
+                                   int slot) {
+        return pageChange(LogRecordType.DELETE, workspaceName, databaseName, tableName, pageName, slot, null);
+    }
+
+    public static LogRecord createTable(String workspaceName, String databaseName, String tableSchemaLine,
+                                        LinkedHashMap<String, String> columnTypes) {
+        LogRecord logRecord = new LogRecord(LogRecordType.CREATE_TABLE, workspaceName, databaseName,
+                tableSchemaLine.split(" ")[0]);
+        logRecord.tableSchemaLine = tableSchemaLine;
+        logRecord.columnTypes = columnTypes;
+        return logRecord;
+    }
+
+    public static LogRecord dropTable(String workspaceName, String databaseName, String tableName) {
+        return new LogRecord(LogRecordType.DROP_TABLE, workspaceName, databaseName, tableName);
+    }
+
+    public LogRecordType getType() {
+        return type;
+    }
+
+    public String getWorkspaceName() {
+        return workspaceName;
+    }
+
+    public String getDatabaseName() {
+        return databaseName;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public String getPageName() {
+        return pageName;
+    }
+
+    public int getSlot() {
+        return slot;
+    }
+
+    /**
+     * @return The image of the record after an insert or an update.
+     */
+    public Record getRecord() {
+        return record;
+    }
+
+    public String getTableSchemaLine() {
+        return tableSchemaLine;
+    }
+
+    public LinkedHashMap<String, String> getColumnTypes() {
+        return columnTypes;
+    }
+
+    /**
+     * Writes the record in the log's binary format. Records are written with
+     * Java serialization by older logs.
+     */
+    void write(DataOutput out) throws IOException {
+        out.writeByte(FORMAT_VERSION);
+        out.writeByte(type.ordinal());
+        writeString(out, workspaceName);
+        writeString(out, databaseName);
+        writeString(out, tableName);
+        writeString(out, pageName);
+        out.writeInt(slot);
+        if (record == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] image = SlottedPageFormat.encodeRecord(record);
+            out.writeInt(image.length);
+            out.write(image);
+        }
+        writeString(out, tableSchemaLine);
+        if (columnTypes == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(columnTypes.size());
+            for (Map.Entry<String, String> columnType : columnTypes.entrySet()) {
+                out.writeUTF(columnType.getKey());
+                out.writeUTF(columnType.getValue());
+            }
+        }
+    }
+
+    /**
+     * Reads a record written by {@link #write(DataOutput)}.
+     */
+    static LogRecord read(DataInput in) throws IOException {
+        byte version = in.readByte();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported log record version " + version);
+        }
+        LogRecordType[] types = LogRecordType.values();
+        int type = in.readUnsignedByte();
+        if (type >= types.length) {
+            throw new IOException("Unknown log record type " + type);
+        }
+        LogRecord logRecord = new LogRecord(types[type], readString(in), readString(in), readString(in));
+        logRecord.pageName = readString(in);
+        logRecord.slot = in.readInt();
+        int imageLength = in.readInt();
+        if (imageLength >= 0) {
+            byte[] image = new byte[imageLength];
+            in.readFully(image);
+            logRecord.record = SlottedPageFormat.decodeRecord(ByteBuffer.wrap(image));
+        }
+        logRecord.tableSchemaLine = readString(in);
+        int columnCount = in.readInt();
+        if (columnCount >= 0) {
+            logRecord.columnTypes = new LinkedHashMap<>();
+            for (int i = 0; i < columnCount; i++) {
+                logRecord.columnTypes.put(in.readUTF(), in.readUTF());
+            }
+        }
+        return logRecord;
+    }
+
+    private static void writeString(DataOutput out, String string) throws IOException {
+        out.writeBoolean(string != null);
+        if (string != null) {
+            out.writeUTF(string);
+        }
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + workspaceName + "/" + databaseName + "/" + tableName
+                + (pageName == null ? "" : " " + pageName + "[" + slot + "]");
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+
+package net.edudb.wal;
+
+/**
+ * Kinds of changes written to the write-ahead log.
+ * <ul>
+ * <li>NEW_PAGE: a page was appended to a table.</li>
+ * <li>INSERT: a record was placed in a slot of a page.</li>
+ * <li>UPDATE: the record in a slot of a page was modified.</li>
+ * <li>DELETE: the record in a slot of a page was deleted.</li>
+ * <li>CREATE_TABLE: a table was created.</li>
+ * <li>DROP_TABLE: a table was dropped.</li>
+ * </ul>
+ */
+public enum LogRecordType {
+    NEW_PAGE, INSERT, UPDATE, DELETE, CREATE_TABLE, DROP_TABLE;
+
+    /**
+     * @return Whether records of this type change a page of a table.
+     */
+    public boolean isPageChange() {
+        return this == NEW_PAGE || this == INSERT || this == UPDATE || this == DELETE;
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+
+package net.edudb.wal;
+
+import net.edudb.buffer.BufferManager;
+import net.edudb.engine.Config;
+import net.edudb.engine.FileManager;
+import net.edudb.exception.DatabaseNotFoundException;
+import net.edudb.exception.RecoveryFailedException;
+import net.edudb.exception.TableAlreadyExistException;
+import net.edudb.exception.TableNotFoundException;
+import net.edudb.page.Page;
+import net.edudb.page.PageFactory;
+import net.edudb.structure.Record;
+import net.edudb.structure.table.Table;
+import net.edudb.structure.table.TableManager;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+
+/**
+ * Redoes the changes found in the write-ahead log after a crash, in the order
+ * they were logged.
+ * <p>
+ * A page change is redone only if the page on disk is older than the change,
+ * as shown by the page's LSN, and if the page still belongs to its table. A
+ * new page is added to its table only if the table was written before the page
+ * was logged. Dropping a table is redone if the table was not written again
+ * after it was dropped, and creating a table is redone if the table is
+ * missing.
+ * <p>
+ * The free-space map and the dead pages of a table are brought up to date
+ * with every page a record applies to, whether the change was redone or the
+ * page on disk already had it.
+ */
+public class Recovery {
+    private final FileManager fileManager = FileManager.getInstance();
+    private final BufferManager bufferManager = BufferManager.getInstance();
+    private final TableManager tableManager = TableManager.getInstance();
+
+    /**
+     * The page names of the tables changed so far, to check which pages belong
+     * to a table without scanning its list of pages for every change.
+     */
+    private final Map<Table, Set<String>> tablePages = new IdentityHashMap<>();
+
+    /**
+     * The tables changed by the redone records, keyed by the names of their
+     * workspaces and databases.
+     */
+    private final Map<String, Map<String, Set<String>>> changedTables = new HashMap<>();
+
+    /**
+     * Redoes the logged records. The redone changes are only made in the
+     * buffer pool and the table buffer, to be written by a checkpoint.
+     *
+     * @param records The logged records keyed by their LSNs.
+     * @return The tables changed or dropped by the redone records, keyed by the
+     * names of their workspaces and databases. Their indexes are out of date.
+     * @throws RecoveryFailedException If a record cannot be redone. The
+     *                                 records after it are not redone either.
+     */
+    public Map<String, Map<String, Set<String>>> redo(SortedMap<Long, LogRecord> records) {
+        records.forEach((lsn, record) -> {
+            Config.setCurrentWorkspace(record.getWorkspaceName());
+            Config.setCurrentDatabaseName(record.getDatabaseName());
+            try {
+                if (redo(lsn, record)) {
+                    changedTables.computeIfAbsent(record.getWorkspaceName(), workspaceName -> new HashMap<>())
+                            .computeIfAbsent(record.getDatabaseName(), databaseName -> new HashSet<>())
+                            .add(record.getTableName());
+                }
+            } catch (RecoveryFailedException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                throw new RecoveryFailedException("Could not redo " + record, e);
+            } finally {
+                Config.cleanThreadLocal();
+            }
+        });
+        return changedTables;
+    }
+
+    /**
+     * @return Whether the record changed anything.
+     */
+    private boolean redo(long lsn, LogRecord record) {
+        switch (record.getType()) {
+            case CREATE_TABLE:
+                return redoCreateTable(record);
+            case DROP_TABLE:
+                return redoDropTable(lsn, record);
+            default:
+                return redoPageChange(lsn, record);
+        }
+    }
+
+    private boolean redoCreateTable(LogRecord record) {
+        String workspaceName = record.getWorkspaceName();
+        String databaseName = record.getDatabaseName();
+        if (!fileManager.isFileExists(Config.databasePath(workspaceName, databaseName))
+                || fileManager.isFileExists(Config.tablePath(workspaceName, databaseName, record.getTableName()))) {
+            return false;
+        }
+        try {
+            tableManager.createTable(workspaceName, databaseName, record.getTableSchemaLine(), record.getColumnTypes());
+        } catch (TableAlreadyExistException | DatabaseNotFoundException e) {
+            return false;
+        }
+        return true;
+    }
+
+    private boolean redoDropTable(long lsn, LogRecord record) {
+        Table table = readTable(record);
+        if (table == null || table.getPageManager().getLsn() > lsn) {
+            return false;
+        }
+        try {
+            tableManager.deleteTable(record.getWorkspaceName(), record.getDatabaseName(), record.getTableName());
+        } catch (TableNotFoundException | DatabaseNotFoundException e) {
+            return false;
+        }
+        tablePages.remove(table);
+        return true;
+    }
+
+    private boolean redoPageChange(long lsn, LogRecord record) {
+        Table table = readTable(record);
+        if (table == null) {
+            return false;
+        }
+        Set<String> pageNames = tablePages.computeIfAbsent(table,
+                key -> new HashSet<>(key.getPageManager().getPageNames()));
+
+        String pageName = record.getPageName();
+        if (record.getType() == LogRecordType.NEW_PAGE) {
+            if (table.getPageManager().getLsn() > lsn || !table.getPageManager().redoNewPage(pageName)) {
+                return false;
+            }
+            pageNames.add(pageName);
+        } else if (!pageNames.contains(pageName)) {
+            return false;
+        }
+
+        Page page = pinOrCreatePage(record);
+        boolean redone;
+        try {
+            page.acquireLock();
+            try {
+                redone = page.getLsn() < lsn;
+                if (redone) {
+                    redo(page, record);
+                    page.setLsn(lsn);
+                    page.markDirty();
+                }
+            } finally {
+                page.releaseLock();
+            }
+            table.getPageManager().redoFreeSpace(page);
+        } finally {
+            bufferManager.unpin(record.getWorkspaceName(), record.getDatabaseName(), page);
+        }
+        return redone || record.getType() == LogRecordType.NEW_PAGE;
+    }
+
+    private void redo(Page page, LogRecord record) {
+        int slot = record.getSlot();
+        switch (record.getType()) {
+            case INSERT:
+            case UPDATE:
+                if (slot < 0 || slot >= page.capacity()) {
+                    throw new RecoveryFailedException("Slot " + slot + " of " + record + " is out of the bounds of page "
+                            + page.getName());
+                }
+                page.setRecord(slot, record.getRecord());
+                break;
+            case DELETE:
+                if (slot >= 0 && slot < page.size()) {
+                    Record deleted = page.getRecord(slot);
+                    deleted.delete();
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Pins a page, creating it empty if it never reached the disk.
+     */
+    private Page pinOrCreatePage(LogRecord record) {
+        String workspaceName = record.getWorkspaceName();
+        String databaseName = record.getDatabaseName();
+        Page page = bufferManager.pin(workspaceName, databaseName, record.getPageName());
+        if (page == null) {
+            page = new PageFactory().makePage(Config.blockType(), record.getPageName());
+            bufferManager.write(workspaceName, databaseName, page);
+            page = bufferManager.pin(workspaceName, databaseName, record.getPageName());
+        }
+        return page;
+    }
+
+    /**
+     * @return The table the record applies to, null if it does not exist.
+     */
+    private Table readTable(LogRecord record) {
+        String workspaceName = record.getWorkspaceName();
+        String databaseName = record.getDatabaseName();
+        if (!fileManager.isFileExists(Config.tablePath(workspaceName, databaseName, record.getTableName()))) {
+            return null;
+        }
+        return tableManager.readTable(workspaceName, databaseName, record.getTableName());
+    }
+}
@@ -0,0 +1,385 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+
+package net.edudb.wal;
+
+import net.edudb.engine.Config;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * WriteAheadLog is a singleton that logs changes to tables before the changed
+ * pages may reach the disk.
+ * <p>
+ * Log records are appended to an in-memory buffer and written sequentially to
+ * the current log segment when a session commits. Sessions that commit while
+ * another session is writing the log wait for it and are then usually covered
+ * by the next write, so a single fsync makes the records of many concurrent
+ * sessions durable.
+ * <p>
+ * Every record is framed by its length and a CRC32 checksum; reading a segment
+ * stops at the first torn or corrupt frame. The LSN of a record is the number
+ * of its segment in the high bits followed by its offset in the segment, so
+ * LSNs increase across segments. Segments are numbered from 1, leaving LSN 0
+ * to pages without logged changes.
+ */
+public class WriteAheadLog {
+    private static final WriteAheadLog instance = new WriteAheadLog();
+
+    private static final int SEGMENT_SHIFT = 40;
+    private static final int FRAME_HEADER_SIZE = 2 * Integer.BYTES;
+
+    /**
+     * The LSN of the last record appended by each thread, which the thread
+     * waits for when it commits.
+     */
+    private final ThreadLocal<Long> lastLsn = ThreadLocal.withInitial(() -> 0L);
+
+    /**
+     * Serializes writes to the log file. Held while the log is written and
+     * forced to disk, during which other sessions keep appending records.
+     */
+    private final Object flushLock = new Object();
+
+    /**
+     * Records appended but not yet written to the log file.
+     */
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+
+    private volatile FileChannel channel;
+    private int segment;
+    private long writtenOffset;
+
+    /**
+     * Every record with a smaller LSN is on disk.
+     */
+    private volatile long durableLsn;
+
+    private WriteAheadLog() {
+    }
+
+    public static WriteAheadLog getInstance() {
+        return instance;
+    }
+
+    /**
+     * Reads the records left in the log by the previous run. Must be called
+     * before the log is opened.
+     *
+     * @return The records keyed by their LSNs, to be redone.
+     */
+    public SortedMap<Long, LogRecord> read() {
+        SortedMap<Long, LogRecord> records = new TreeMap<>();
+        try {
+            for (int segment : segments()) {
+                readSegment(segment, records);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return records;
+    }
+
+    /**
+     * Opens the log, starting a new segment after the segments left by the
+     * previous run.
+     */
+    public void open() {
+        synchronized (flushLock) {
+            synchronized (this) {
+                if (channel != null) {
+                    return;
+                }
+                try {
+                    Files.createDirectories(Config.walPath());
+                    List<Integer> segments = segments();
+                    startSegment(segments.isEmpty() ? 1 : segments.get(segments.size() - 1) + 1);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Whether the log is open and changes are being logged.
+     */
+    public boolean isOpen() {
+        return channel != null;
+    }
+
+    /**
+     * @return The LSN the next appended record gets, 0 if the log is not open.
+     */
+    public synchronized long nextLsn() {
+        return channel == null ? 0 : lsn(segment, writtenOffset + pending.size());
+    }
+
+    /**
+     * @return The number of bytes appended to the current segment.
+     */
+    public synchronized long segmentLength() {
+        return writtenOffset + pending.size();
+    }
+
+    /**
+     * @param lsn An LSN.
+     * @return The number of the segment holding the record with the LSN.
+     */
+    public static int segment(long lsn) {
+        return (int) (lsn >>> SEGMENT_SHIFT);
+    }
+
+    /**
+     * Appends a record to the log. The record is not durable until the thread
+     * commits or the log is flushed past it.
+     *
+     * @param record The record to append.
+     * @return The LSN of the record, 0 if the log is not open.
+     */
+    public long append(LogRecord record) {
+        if (channel == null) {
+            return 0;
+        }
+        byte[] frame = frame(record);
+        long lsn;
+        synchronized (this) {
+            if (channel == null) {
+                return 0;
+            }
+            lsn = lsn(segment, writtenOffset + pending.size());
+            pending.writeBytes(frame);
+        }
+        lastLsn.set(lsn);
+        return lsn;
+    }
+
+    /**
+     * Makes the records appended by the current thread durable.
+     */
+    public void commit() {
+        long lsn = lastLsn.get();
+        if (lsn != 0) {
+            flush(lsn);
+            lastLsn.set(0L);
+        }
+    }
+
+    /**
+     * Makes every record up to the given LSN durable, writing all the records
+     * appended so far with a single fsync.
+     *
+     * @param lsn LSN of the record that must be durable.
+     */
+    public void flush(long lsn) {
+        if (lsn == 0 || durableLsn > lsn) {
+            return;
+        }
+        synchronized (flushLock) {
+            if (durableLsn > lsn) {
+                return;
+            }
+            writePending();
+        }
+    }
+
+    /**
+     * Must be called while holding the flush lock.
+     */
+    private void writePending() {
+        byte[] batch;
+        FileChannel target;
+        long end;
+        synchronized (this) {
+            if (channel == null) {
+                return;
+            }
+            batch = pending.toByteArray();
+            pending.reset();
+            target = channel;
+            writtenOffset += batch.length;
+            end = lsn(segment, writtenOffset);
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(batch);
+            while (buffer.hasRemaining()) {
+                target.write(buffer);
+            }
+            target.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        durableLsn = end;
+    }
+
+    /**
+     * Writes the pending records and continues the log in a new segment. Used
+     * by checkpoints: once every page changed before the rotation is written,
+     * the older segments are no longer needed.
+     *
+     * @return The number of the new segment, -1 if the log is not open.
+     */
+    public int rotate() {
+        synchronized (flushLock) {
+            writePending();
+            synchronized (this) {
+                if (channel == null) {
+                    return -1;
+                }
+                try {
+                    channel.close();
+                    startSegment(segment + 1);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return segment;
+            }
+        }
+    }
+
+    /**
+     * Deletes the segments that come before a segment.
+     *
+     * @param segment The oldest segment to keep.
+     */
+    public void truncate(int segment) {
+        try {
+            for (int existingSegment : segments()) {
+                if (existingSegment < segment) {
+                    Files.deleteIfExists(Config.walSegmentPath(existingSegment));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes the pending records and closes the log.
+     */
+    public void close() {
+        synchronized (flushLock) {
+            writePending();
+            synchronized (this) {
+                if (channel == null) {
+                    return;
+                }
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                channel = null;
+            }
+        }
+    }
+
+    private void startSegment(int segment) throws IOException {
+        this.channel = FileChannel.open(Config.walSegmentPath(segment),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        this.segment = segment;
+        this.writtenOffset = 0;
+        this.pending.reset();
+        this.durableLsn = lsn(segment, 0);
+    }
+
+    /**
+     * @return The numbers of the segments in the log directory, in order.
+     */
+    private List<Integer> segments() throws IOException {
+        List<Integer> segments = new ArrayList<>();
+        if (!Files.isDirectory(Config.walPath())) {
+            return segments;
+        }
+        try (Stream<Path> files = Files.list(Config.walPath())) {
+            files.map(file -> file.getFileName().toString())
+                    .filter(fileName -> fileName.matches("\\d+\\.log"))
+                    .map(fileName -> Integer.parseInt(fileName.substring(0, fileName.length() - ".log".length())))
+                    .sorted()
+                    .forEach(segments::add);
+        }
+        return segments;
+    }
+
+    private void readSegment(int segment, SortedMap<Long, LogRecord> records) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(Config.walSegmentPath(segment)));
+        while (buffer.remaining() >= FRAME_HEADER_SIZE) {
+            int offset = buffer.position();
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining()) {
+                return;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(payload);
+            if (checksum(payload) != checksum) {
+                return;
+            }
+            records.put(lsn(segment, offset), decode(payload, segment));
+        }
+    }
+
+    /**
+     * Decodes the payload of a frame, which older logs wrote with Java
+     * serialization.
+     */
+    private static LogRecord decode(byte[] payload, int segment) throws IOException {
+        if (payload[0] == LogRecord.FORMAT_VERSION) {
+            return LogRecord.read(new DataInputStream(new ByteArrayInputStream(payload)));
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(payload))) {
+            return (LogRecord) in.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Corrupt log record in segment " + segment, e);
+        }
+    }
+
+    private static byte[] frame(LogRecord record) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            record.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        byte[] payload = bytes.toByteArray();
+        return ByteBuffer.allocate(FRAME_HEADER_SIZE + payload.length)
+                .putInt(payload.length)
+                .putInt(checksum(payload))
+                .put(payload)
+                .array();
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private static long lsn(int segment, long offset) {
+        return ((long) segment << SEGMENT_SHIFT) | offset;
+    }
+}
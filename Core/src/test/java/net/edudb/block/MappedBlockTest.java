@@ -0,0 +1,148 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+package net.edudb.block;
+
+import net.edudb.buffer.BufferManager;
+import net.edudb.data_type.DataType;
+import net.edudb.data_type.IntegerType;
+import net.edudb.data_type.VarCharType;
+import net.edudb.engine.Config;
+import net.edudb.engine.FileManager;
+import net.edudb.exception.DatabaseAlreadyExistException;
+import net.edudb.page.Page;
+import net.edudb.page.PageFactory;
+import net.edudb.structure.Column;
+import net.edudb.structure.TableRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MappedBlockTest {
+    @TempDir
+    Path directory;
+
+    private static final String WORKSPACE_NAME = "workspace";
+    private static final String DATABASE_NAME = "database";
+    private static final Column ID = new Column(1, "id", "users", "integer");
+    private static final Column NAME = new Column(2, "name", "users", "varchar");
+
+    @BeforeEach
+    void setUp() throws DatabaseAlreadyExistException {
+        Config.setAbsolutePath(directory);
+        FileManager.getInstance().createDatabase(WORKSPACE_NAME, DATABASE_NAME);
+        System.setProperty("BLOCK_TYPE", BlockFileType.Mapped.name());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        System.clearProperty("BLOCK_TYPE");
+        System.clearProperty("PAGES_PER_SEGMENT_FILE");
+        BufferManager.getInstance().removeDatabase(WORKSPACE_NAME, DATABASE_NAME);
+        SegmentFile.close(directory);
+        Config.setAbsolutePath(null);
+    }
+
+    private static Page page(int pageNumber, String... names) {
+        Page page = new PageFactory().makePage(BlockFileType.Mapped, SegmentFile.pageName("segment", pageNumber));
+        page.acquireLock();
+        for (int i = 0; i < names.length; i++) {
+            LinkedHashMap<Column, DataType> data = new LinkedHashMap<>();
+            data.put(ID, new IntegerType(i));
+            data.put(NAME, new VarCharType(names[i]));
+            page.addRecord(new TableRecord(data));
+        }
+        page.releaseLock();
+        return page;
+    }
+
+    private static Page read(int pageNumber) throws IOException, ClassNotFoundException {
+        return new MappedBlockReader().read(WORKSPACE_NAME, DATABASE_NAME, SegmentFile.pageName("segment", pageNumber));
+    }
+
+    private static String[] names(Page page) {
+        page.acquireSharedLock();
+        try {
+            String[] names = new String[page.size()];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = page.getRecord(i).getData().get(NAME).toString();
+            }
+            return names;
+        } finally {
+            page.releaseSharedLock();
+        }
+    }
+
+    @Test
+    @DisplayName("should read back the pages written through frame mappings")
+    void testRoundTrip() throws IOException, ClassNotFoundException {
+        new MappedBlockWriter().write(WORKSPACE_NAME, DATABASE_NAME, page(0, "ahmed"));
+        new MappedBlockWriter().write(WORKSPACE_NAME, DATABASE_NAME, page(2, "fady", "mohamed"));
+        new MappedBlockWriter().write(WORKSPACE_NAME, DATABASE_NAME, page(0, "ahmed", "fady"));
+
+        assertThat(names(read(0))).containsExactly("ahmed", "fady");
+        assertThat(names(read(2))).containsExactly("fady", "mohamed");
+        assertThatThrownBy(() -> read(1)).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    @DisplayName("should only grow a segment file up to the frames written")
+    void testFrameMapping() throws IOException {
+        new MappedBlockWriter().write(WORKSPACE_NAME, DATABASE_NAME, page(1, "ahmed"));
+
+        Path path = SegmentFile.path(WORKSPACE_NAME, DATABASE_NAME, SegmentFile.pageName("segment", 1));
+        assertThat(Files.size(path)).isEqualTo(2L * Config.segmentFrameSize());
+        assertThat(SegmentFile.force(path)).isTrue();
+    }
+
+    @Test
+    @DisplayName("should keep reading and writing frames after a frame is appended to their region")
+    void testRegionMapping() throws IOException, ClassNotFoundException {
+        new MappedBlockWriter().write(WORKSPACE_NAME, DATABASE_NAME, page(0, "ahmed"));
+        assertThat(names(read(0))).containsExactly("ahmed");
+
+        new MappedBlockWriter().write(WORKSPACE_NAME, DATABASE_NAME, page(2, "fady"));
+        new MappedBlockWriter().write(WORKSPACE_NAME, DATABASE_NAME, page(0, "ahmed", "mohamed"));
+
+        assertThat(names(read(0))).containsExactly("ahmed", "mohamed");
+        assertThat(names(read(2))).containsExactly("fady");
+        Path path = SegmentFile.path(WORKSPACE_NAME, DATABASE_NAME, SegmentFile.pageName("segment", 2));
+        assertThat(Files.size(path)).isEqualTo(3L * Config.segmentFrameSize());
+    }
+
+    @Test
+    @DisplayName("should read the last frame of a file written by a segment block writer")
+    void testPartialFrame() throws IOException, ClassNotFoundException {
+        new SegmentBlockWriter().write(WORKSPACE_NAME, DATABASE_NAME, page(0, "ahmed"));
+
+        assertThat(names(read(0))).containsExactly("ahmed");
+    }
+
+    @Test
+    @DisplayName("should address frames past the first 2GB of a segment file")
+    void testLargeOffset() throws IOException, ClassNotFoundException {
+        System.setProperty("PAGES_PER_SEGMENT_FILE", "65536");
+        int pageNumber = 40000;
+
+        new MappedBlockWriter().write(WORKSPACE_NAME, DATABASE_NAME, page(pageNumber, "ahmed"));
+
+        assertThat(SegmentFile.offset(SegmentFile.pageName("segment", pageNumber))).isGreaterThan(Integer.MAX_VALUE);
+        assertThat(names(read(pageNumber))).containsExactly("ahmed");
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+package net.edudb.block;
+
+import net.edudb.buffer.BufferManager;
+import net.edudb.data_type.DataType;
+import net.edudb.data_type.IntegerType;
+import net.edudb.data_type.VarCharType;
+import net.edudb.engine.Config;
+import net.edudb.engine.FileManager;
+import net.edudb.exception.DatabaseAlreadyExistException;
+import net.edudb.exception.RecordTooLargeException;
+import net.edudb.page.Page;
+import net.edudb.page.PageFactory;
+import net.edudb.page.PageManager;
+import net.edudb.structure.Column;
+import net.edudb.structure.Record;
+import net.edudb.structure.TableRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SegmentBlockTest {
+    @TempDir
+    Path directory;
+
+    private static final String WORKSPACE_NAME = "workspace";
+    private static final String DATABASE_NAME = "database";
+    private static final Column ID = new Column(1, "id", "users", "integer");
+    private static final Column NAME = new Column(2, "name", "users", "varchar");
+
+    @BeforeEach
+    void setUp() throws DatabaseAlreadyExistException {
+        Config.setAbsolutePath(directory);
+        FileManager.getInstance().createDatabase(WORKSPACE_NAME, DATABASE_NAME);
+        Config.setCurrentWorkspace(WORKSPACE_NAME);
+        Config.setCurrentDatabaseName(DATABASE_NAME);
+        System.setProperty("BLOCK_TYPE", BlockFileType.Segment.name());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        System.clearProperty("BLOCK_TYPE");
+        BufferManager.getInstance().removeDatabase(WORKSPACE_NAME, DATABASE_NAME);
+        SegmentFile.close(directory);
+        Config.cleanThreadLocal();
+        Config.setAbsolutePath(null);
+    }
+
+    private static TableRecord record(int id, String name) {
+        LinkedHashMap<Column, DataType> data = new LinkedHashMap<>();
+        data.put(ID, new IntegerType(id));
+        data.put(NAME, new VarCharType(name));
+        return new TableRecord(data);
+    }
+
+    private static Page page(int pageNumber, String... names) {
+        Page page = new PageFactory().makePage(BlockFileType.Segment, SegmentFile.pageName("segment", pageNumber));
+        page.acquireLock();
+        for (int i = 0; i < names.length; i++) {
+            page.addRecord(record(i, names[i]));
+        }
+        page.releaseLock();
+        return page;
+    }
+
+    private static String[] names(Page page) {
+        page.acquireSharedLock();
+        try {
+            String[] names = new String[page.size()];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = page.getRecord(i).getData().get(NAME).toString();
+            }
+            return names;
+        } finally {
+            page.releaseSharedLock();
+        }
+    }
+
+    @Test
+    @DisplayName("should read back the pages written to the frames of a segment")
+    void testRoundTrip() throws IOException, ClassNotFoundException {
+        int lastPageNumber = Config.pagesPerSegmentFile() + 1;
+        new SegmentBlockWriter().write(WORKSPACE_NAME, DATABASE_NAME, page(0, "ahmed", "fady"));
+        new SegmentBlockWriter().write(WORKSPACE_NAME, DATABASE_NAME, page(lastPageNumber, "mohamed"));
+        new SegmentBlockWriter().write(WORKSPACE_NAME, DATABASE_NAME, page(0, "ahmed", "fady", "mohamed"));
+
+        Page first = new SegmentBlockReader().read(WORKSPACE_NAME, DATABASE_NAME, SegmentFile.pageName("segment", 0));
+        Page last = new SegmentBlockReader().read(WORKSPACE_NAME, DATABASE_NAME,
+                SegmentFile.pageName("segment", lastPageNumber));
+
+        assertThat(names(first)).containsExactly("ahmed", "fady", "mohamed");
+        assertThat(names(last)).containsExactly("mohamed");
+    }
+
+    @Test
+    @DisplayName("should refuse to write a page that does not fit in a frame")
+    void testOversizePage() {
+        Page page = page(0, "a".repeat(SegmentFile.maxImageSize()));
+
+        assertThatThrownBy(() -> new SegmentBlockWriter().write(WORKSPACE_NAME, DATABASE_NAME, page))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    @DisplayName("should reject records that do not fit in an empty page")
+    void testOversizeRecord() {
+        PageManager pageManager = new PageManager();
+        pageManager.addRecord(record(1, "ahmed"));
+
+        Record oversize = record(2, "a".repeat(SegmentFile.maxImageSize()));
+
+        assertThatThrownBy(() -> pageManager.addRecord(oversize)).isInstanceOf(RecordTooLargeException.class);
+        assertThat(pageManager.flushPages()).isTrue();
+    }
+
+    @Test
+    @DisplayName("should start a new page once a record no longer fits in the last one")
+    void testRecordOnNewPage() {
+        String name = "a".repeat(SegmentFile.maxImageSize() / 3);
+        PageManager pageManager = new PageManager();
+
+        assertThat(pageManager.addRecord(record(1, name))).isEqualTo(0);
+        assertThat(pageManager.addRecord(record(2, name))).isEqualTo(0);
+        assertThat(pageManager.addRecord(record(3, name))).isEqualTo(1);
+        assertThat(pageManager.flushPages()).isTrue();
+    }
+
+    @Test
+    @DisplayName("should keep a record as it was when an update does not fit in the page")
+    void testOversizeUpdate() {
+        PageManager pageManager = new PageManager();
+        pageManager.addRecord(record(1, "ahmed"));
+        Page page = BufferManager.getInstance().pin(WORKSPACE_NAME, DATABASE_NAME, pageManager.getPageName(0));
+        page.acquireSharedLock();
+        Record record = page.getRecord(0);
+        page.releaseSharedLock();
+
+        LinkedHashMap<Column, DataType> data = new LinkedHashMap<>();
+        data.put(NAME, new VarCharType("a".repeat(SegmentFile.maxImageSize())));
+        try {
+            assertThatThrownBy(() -> pageManager.updateRecord(page, 0, record, data))
+                    .isInstanceOf(RecordTooLargeException.class);
+        } finally {
+            BufferManager.getInstance().unpin(WORKSPACE_NAME, DATABASE_NAME, page);
+        }
+
+        assertThat(record.getData().get(NAME).toString()).isEqualTo("ahmed");
+    }
+}
@@ -0,0 +1,318 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+package net.edudb.buffer;
+
+import net.edudb.data_type.DataType;
+import net.edudb.data_type.IntegerType;
+import net.edudb.engine.Config;
+import net.edudb.engine.FileManager;
+import net.edudb.exception.DatabaseAlreadyExistException;
+import net.edudb.page.BinaryPage;
+import net.edudb.page.Page;
+import net.edudb.structure.Column;
+import net.edudb.structure.Record;
+import net.edudb.structure.TableRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Uses a pool of its own with a single stripe, so that the pages it holds
+ * and the order they are removed in are known.
+ */
+class BufferManagerTest {
+    @TempDir
+    Path directory;
+
+    private static final String WORKSPACE_NAME = "workspace";
+    private static final String DATABASE_NAME = "database";
+    private static final int CAPACITY = 4;
+    private static final Column ID = new Column(1, "id", "table", "integer");
+
+    private BufferManager bufferManager;
+
+    @BeforeEach
+    void setUp() throws DatabaseAlreadyExistException {
+        Config.setAbsolutePath(directory);
+        FileManager.getInstance().createDatabase(WORKSPACE_NAME, DATABASE_NAME);
+        bufferManager = new BufferManager(CAPACITY, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        Config.setAbsolutePath(null);
+    }
+
+    /**
+     * Adds new pages to the pool, each holding a record with its number.
+     */
+    private List<Page> addPages(int count) {
+        List<Page> pages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Page page = new BinaryPage();
+            page.acquireLock();
+            LinkedHashMap<Column, DataType> data = new LinkedHashMap<>();
+            data.put(ID, new IntegerType(i));
+            page.addRecord(new TableRecord(data));
+            page.releaseLock();
+            bufferManager.write(WORKSPACE_NAME, DATABASE_NAME, page);
+            pages.add(page);
+        }
+        return pages;
+    }
+
+    private static boolean isOnDisk(Page page) {
+        return Files.exists(Config.pagePath(WORKSPACE_NAME, DATABASE_NAME, page.getName()));
+    }
+
+    private static DataType id(Page page) {
+        page.acquireSharedLock();
+        try {
+            return page.getRecord(0).getData().get(ID);
+        } finally {
+            page.releaseSharedLock();
+        }
+    }
+
+    @Test
+    @DisplayName("should hold at most its capacity of pages, writing the ones it removes")
+    void testCapacity() {
+        List<Page> pages = addPages(3 * CAPACITY);
+
+        assertThat(bufferManager.dirtyCount()).isEqualTo(CAPACITY);
+        assertThat(pages.subList(0, 2 * CAPACITY)).allMatch(BufferManagerTest::isOnDisk);
+        assertThat(pages.subList(2 * CAPACITY, 3 * CAPACITY)).noneMatch(BufferManagerTest::isOnDisk);
+    }
+
+    @Test
+    @DisplayName("should remove the least recently used page first")
+    void testEvictionOrder() {
+        List<Page> pages = addPages(CAPACITY);
+        bufferManager.read(WORKSPACE_NAME, DATABASE_NAME, pages.get(0).getName());
+
+        addPages(1);
+
+        assertThat(isOnDisk(pages.get(0))).isFalse();
+        assertThat(isOnDisk(pages.get(1))).isTrue();
+    }
+
+    @Test
+    @DisplayName("should not remove pinned pages")
+    void testPinnedPages() {
+        List<Page> pages = addPages(CAPACITY);
+        Page pinned = bufferManager.pin(WORKSPACE_NAME, DATABASE_NAME, pages.get(0).getName());
+
+        addPages(2 * CAPACITY);
+
+        assertThat(isOnDisk(pinned)).isFalse();
+        assertThat(bufferManager.pin(WORKSPACE_NAME, DATABASE_NAME, pinned.getName())).isSameAs(pinned);
+        pinned.unpin();
+        pinned.unpin();
+    }
+
+    @Test
+    @DisplayName("should read back the changes of a page removed from the pool")
+    void testWriteBack() {
+        Page page = addPages(1).get(0);
+        page.acquireLock();
+        page.getRecord(0).update(new LinkedHashMap<>(Map.of(ID, new IntegerType(42))));
+        page.releaseLock();
+
+        addPages(CAPACITY);
+        Page read = bufferManager.pin(WORKSPACE_NAME, DATABASE_NAME, page.getName());
+
+        assertThat(read).isNotSameAs(page);
+        assertThat(read.isDirty()).isFalse();
+        assertThat(id(read)).hasToString("42");
+        read.unpin();
+    }
+
+    @Test
+    @DisplayName("should write pinned pages without removing them when writing a database")
+    void testWriteAllKeepsPinnedPages() {
+        List<Page> pages = addPages(2);
+        Page pinned = bufferManager.pin(WORKSPACE_NAME, DATABASE_NAME, pages.get(0).getName());
+
+        bufferManager.writeAll(WORKSPACE_NAME, DATABASE_NAME);
+
+        assertThat(pages).allMatch(BufferManagerTest::isOnDisk);
+        assertThat(bufferManager.read(WORKSPACE_NAME, DATABASE_NAME, pinned.getName())).isSameAs(pinned);
+        assertThat(bufferManager.read(WORKSPACE_NAME, DATABASE_NAME, pages.get(1).getName()))
+                .isNotSameAs(pages.get(1));
+
+        pinned.acquireLock();
+        pinned.getRecord(0).update(new LinkedHashMap<>(Map.of(ID, new IntegerType(42))));
+        pinned.releaseLock();
+        pinned.unpin();
+        assertThat(bufferManager.dirtyCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should read pages for a scan ring without removing buffered pages")
+    void testRing() {
+        List<Page> scanned = addPages(2 * CAPACITY);
+        bufferManager.writeAll(WORKSPACE_NAME, DATABASE_NAME);
+        List<Page> buffered = addPages(CAPACITY);
+
+        BufferRing ring = new BufferRing(2);
+        for (Page page : scanned) {
+            Page pinned = bufferManager.pin(WORKSPACE_NAME, DATABASE_NAME, page.getName(), ring);
+            assertThat(id(pinned)).isEqualTo(id(page));
+            pinned.unpin();
+        }
+        bufferManager.release(ring);
+
+        assertThat(buffered).noneMatch(BufferManagerTest::isOnDisk);
+        assertThat(bufferManager.dirtyCount()).isEqualTo(CAPACITY);
+    }
+
+    @Test
+    @DisplayName("should buffer pages read for a released ring like any other page")
+    void testReleasedRing() {
+        Page page = addPages(1).get(0);
+        bufferManager.writeAll(WORKSPACE_NAME, DATABASE_NAME);
+        List<Page> buffered = addPages(CAPACITY);
+
+        BufferRing ring = new BufferRing(2);
+        bufferManager.release(ring);
+        Page pinned = bufferManager.pin(WORKSPACE_NAME, DATABASE_NAME, page.getName(), ring);
+        pinned.unpin();
+
+        assertThat(isOnDisk(buffered.get(0))).isTrue();
+        assertThat(buffered.subList(1, CAPACITY)).noneMatch(BufferManagerTest::isOnDisk);
+        assertThat(bufferManager.read(WORKSPACE_NAME, DATABASE_NAME, page.getName())).isSameAs(pinned);
+    }
+
+    @Test
+    @DisplayName("should keep a single copy of every page under concurrent pins and removals")
+    void testConcurrentPins() throws InterruptedException {
+        bufferManager = new BufferManager(CAPACITY, 2);
+        List<Page> pages = addPages(4 * CAPACITY);
+        bufferManager.writeAll(WORKSPACE_NAME, DATABASE_NAME);
+        int threads = 8;
+        int increments = 500;
+
+        List<Thread> sessions = new ArrayList<>();
+        for (int thread = 0; thread < threads; thread++) {
+            sessions.add(new Thread(() -> {
+                Random random = new Random();
+                for (int i = 0; i < increments; i++) {
+                    Page page = bufferManager.pin(WORKSPACE_NAME, DATABASE_NAME,
+                            pages.get(random.nextInt(pages.size())).getName());
+                    page.acquireLock();
+                    Record record = page.getRecord(0);
+                    int id = ((IntegerType) record.getData().get(ID)).getInteger();
+                    record.update(new LinkedHashMap<>(Map.of(ID, new IntegerType(id + 1))));
+                    page.releaseLock();
+                    page.unpin();
+                }
+            }));
+        }
+        sessions.forEach(Thread::start);
+        for (Thread session : sessions) {
+            session.join();
+        }
+        bufferManager.writeAll(WORKSPACE_NAME, DATABASE_NAME);
+
+        int sum = 0;
+        for (Page page : pages) {
+            sum += ((IntegerType) id(bufferManager.read(WORKSPACE_NAME, DATABASE_NAME, page.getName()))).getInteger();
+        }
+        int initialSum = pages.size() * (pages.size() - 1) / 2;
+        assertThat(sum).isEqualTo(initialSum + threads * increments);
+    }
+
+    @Test
+    @DisplayName("should wait for the write of a removed page instead of reading its old copy")
+    void testMissDuringWrite() throws Exception {
+        bufferManager = new BufferManager(1, 1);
+        GatedPage page = new GatedPage();
+        page.acquireLock();
+        page.addRecord(new TableRecord(new LinkedHashMap<>(Map.of(ID, new IntegerType(0)))));
+        page.releaseLock();
+        bufferManager.write(WORKSPACE_NAME, DATABASE_NAME, page);
+        bufferManager.flushPages(WORKSPACE_NAME, DATABASE_NAME, List.of(page.getName()));
+        page.acquireLock();
+        page.getRecord(0).update(new LinkedHashMap<>(Map.of(ID, new IntegerType(1))));
+        page.releaseLock();
+
+        page.close();
+        Thread evicting = new Thread(() -> addPages(1));
+        evicting.start();
+        page.entered.await();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Page> miss = executor.submit(() -> bufferManager.pin(WORKSPACE_NAME, DATABASE_NAME, page.getName()));
+            Thread.sleep(200);
+            assertThat(miss.isDone()).isFalse();
+
+            page.open();
+            evicting.join();
+            Page read = miss.get(10, TimeUnit.SECONDS);
+            assertThat(read).isNotSameAs(page);
+            assertThat(id(read)).hasToString("1");
+            read.unpin();
+        } finally {
+            page.open();
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * A page whose shared lock can be held closed for other threads, which
+     * stops a write of the page once it has started.
+     */
+    private static class GatedPage extends BinaryPage {
+        private final transient Thread owner = Thread.currentThread();
+        private final transient CountDownLatch entered = new CountDownLatch(1);
+        private transient volatile CountDownLatch gate;
+
+        void close() {
+            gate = new CountDownLatch(1);
+        }
+
+        void open() {
+            if (gate != null) {
+                gate.countDown();
+            }
+        }
+
+        @Override
+        public void acquireSharedLock() {
+            CountDownLatch closed = gate;
+            if (closed != null && Thread.currentThread() != owner) {
+                entered.countDown();
+                try {
+                    closed.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            super.acquireSharedLock();
+        }
+    }
+}
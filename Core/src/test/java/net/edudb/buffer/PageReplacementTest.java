@@ -0,0 +1,132 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+package net.edudb.buffer;
+
+import net.edudb.page.BinaryPage;
+import net.edudb.page.Page;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PageReplacementTest {
+    private static final int CAPACITY = 8;
+
+    private LinkedHashMap<PageKey, Page> pageBuffer;
+    private PageReplacement replacement;
+
+    private void setup(PageReplacementType type) {
+        pageBuffer = new LinkedHashMap<>();
+        replacement = new PageReplacementFactory().makePageReplacement(type, pageBuffer, CAPACITY);
+    }
+
+    private static PageKey key(int page) {
+        return new PageKey("workspace", "database", "page" + page);
+    }
+
+    /**
+     * Reads a page the way the buffer manager does, removing a page first if
+     * the pool is full.
+     */
+    private Page access(int page) {
+        Page buffered = replacement.read(key(page));
+        if (buffered != null) {
+            return buffered;
+        }
+        if (replacement.size() >= CAPACITY) {
+            replacement.remove();
+        }
+        Page read = new BinaryPage();
+        replacement.put(key(page), read);
+        return read;
+    }
+
+    @ParameterizedTest
+    @EnumSource(PageReplacementType.class)
+    @DisplayName("should keep the pool within its capacity")
+    void testCapacity(PageReplacementType type) {
+        setup(type);
+
+        for (int i = 0; i < 100; i++) {
+            access(i % 13);
+            access(i % 5);
+        }
+
+        assertThat(pageBuffer).hasSizeLessThanOrEqualTo(CAPACITY);
+        assertThat(replacement.size()).isEqualTo(pageBuffer.size());
+    }
+
+    @ParameterizedTest
+    @EnumSource(PageReplacementType.class)
+    @DisplayName("should not remove locked pages")
+    void testLockedPages(PageReplacementType type) {
+        setup(type);
+        for (int i = 0; i < CAPACITY; i++) {
+            access(i).acquireLock();
+        }
+
+        assertThat(replacement.remove()).isNull();
+
+        pageBuffer.get(key(3)).releaseLock();
+        Map.Entry<PageKey, Page> victim = replacement.remove();
+
+        assertThat(victim).isNotNull();
+        assertThat(victim.getKey()).isEqualTo(key(3));
+        assertThat(pageBuffer).doesNotContainKey(key(3));
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = PageReplacementType.class, names = {"TwoQueue", "ARC"})
+    @DisplayName("should keep frequently used pages during a scan")
+    void testScanResistance(PageReplacementType type) {
+        setup(type);
+        int coldPage = 100;
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < CAPACITY / 2; i++) {
+                access(i);
+            }
+            for (int i = 0; i < CAPACITY / 2; i++) {
+                access(coldPage++);
+            }
+        }
+        for (int i = 0; i < CAPACITY / 2; i++) {
+            access(i);
+        }
+
+        for (int i = 1000; i < 1100; i++) {
+            access(i);
+        }
+
+        for (int i = 0; i < CAPACITY / 2; i++) {
+            assertThat(pageBuffer).containsKey(key(i));
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = PageReplacementType.class, names = {"Clock"})
+    @DisplayName("should give recently read pages a second chance")
+    void testSecondChance(PageReplacementType type) {
+        setup(type);
+        for (int i = 0; i < CAPACITY; i++) {
+            access(i);
+        }
+        access(CAPACITY);
+        access(1);
+
+        access(CAPACITY + 1);
+
+        assertThat(pageBuffer).containsKey(key(1));
+        assertThat(pageBuffer).doesNotContainKey(key(2));
+    }
+}
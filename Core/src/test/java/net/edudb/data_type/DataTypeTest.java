@@ -0,0 +1,58 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+
+package net.edudb.data_type;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DataTypeTest {
+
+    static Stream<Arguments> values() {
+        return Stream.of(
+                Arguments.of(new IntegerType(42), new IntegerType(42), new IntegerType(7)),
+                Arguments.of(new DecimalType(4.2), new DecimalType(4.2), new DecimalType(0.7)),
+                Arguments.of(new BooleanType(true), new BooleanType(true), new BooleanType(false)),
+                Arguments.of(new VarCharType("edudb"), new VarCharType("edudb"), new VarCharType("db")),
+                Arguments.of(new TimestampType(new Timestamp(1_000_000L)), new TimestampType(new Timestamp(1_000_000L)),
+                        new TimestampType(new Timestamp(2_000_000L))));
+    }
+
+    @ParameterizedTest
+    @MethodSource("values")
+    @DisplayName("should have equal hash codes for values that compare as equal")
+    void testHashCodeMatchesCompareTo(DataType value, DataType sameValue, DataType otherValue) {
+        assertThat(value.compareTo(sameValue)).isZero();
+        assertThat(value).isEqualTo(sameValue);
+        assertThat(value.hashCode()).isEqualTo(sameValue.hashCode());
+        assertThat(value.compareTo(otherValue)).isNotZero();
+    }
+
+    @ParameterizedTest
+    @MethodSource("values")
+    @DisplayName("should be usable as hash table keys")
+    void testHashTableKey(DataType value, DataType sameValue, DataType otherValue) {
+        Map<DataType, String> hashTable = new HashMap<>();
+        hashTable.put(value, "value");
+        hashTable.put(otherValue, "other");
+
+        assertThat(hashTable.get(sameValue)).isEqualTo("value");
+        assertThat(hashTable).hasSize(2);
+    }
+}
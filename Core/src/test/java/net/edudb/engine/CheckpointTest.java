@@ -0,0 +1,201 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+package net.edudb.engine;
+
+import net.edudb.buffer.BufferManager;
+import net.edudb.data_type.DataType;
+import net.edudb.data_type.IntegerType;
+import net.edudb.data_type.VarCharType;
+import net.edudb.exception.DatabaseAlreadyExistException;
+import net.edudb.exception.DatabaseNotFoundException;
+import net.edudb.exception.TableAlreadyExistException;
+import net.edudb.index.IndexManager;
+import net.edudb.page.PageManager;
+import net.edudb.relation.RelationIterator;
+import net.edudb.relation.VolatileRelation;
+import net.edudb.structure.Column;
+import net.edudb.structure.TableRecord;
+import net.edudb.structure.table.Table;
+import net.edudb.structure.table.TableManager;
+import net.edudb.wal.LogRecord;
+import net.edudb.wal.Recovery;
+import net.edudb.wal.WriteAheadLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.SortedMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Changes are made through the managers the engine uses, checkpointed, then
+ * the server is crashed by dropping the buffered pages and tables without
+ * writing them.
+ */
+class CheckpointTest {
+    @TempDir
+    Path directory;
+
+    private static final String WORKSPACE_NAME = "workspace";
+    private static final String DATABASE_NAME = "database";
+    private static final String TABLE_NAME = "table";
+    private static final String TABLE_SCHEMA = TABLE_NAME + " id integer name varchar";
+
+    private final WriteAheadLog log = WriteAheadLog.getInstance();
+    private final BufferManager bufferManager = BufferManager.getInstance();
+    private final TableManager tableManager = TableManager.getInstance();
+    private Checkpoint checkpoint;
+    private int inserted;
+
+    @BeforeEach
+    void setUp() throws DatabaseAlreadyExistException {
+        System.setProperty("WAL_SEGMENT_SIZE", "1");
+        System.setProperty("CHECKPOINT_PAGES", "1");
+        Config.setAbsolutePath(directory);
+        FileManager.getInstance().createDatabase(WORKSPACE_NAME, DATABASE_NAME);
+        log.open();
+        useDatabase();
+        checkpoint = new Checkpoint(bufferManager, tableManager, new IndexManager());
+    }
+
+    @AfterEach
+    void tearDown() {
+        crash();
+        System.clearProperty("WAL_SEGMENT_SIZE");
+        System.clearProperty("CHECKPOINT_PAGES");
+        Config.cleanThreadLocal();
+        Config.setAbsolutePath(null);
+    }
+
+    private static void useDatabase() {
+        Config.setCurrentWorkspace(WORKSPACE_NAME);
+        Config.setCurrentDatabaseName(DATABASE_NAME);
+    }
+
+    private Table createTable() throws TableAlreadyExistException, DatabaseNotFoundException {
+        LinkedHashMap<String, String> columnTypes = new LinkedHashMap<>();
+        columnTypes.put("id", "integer");
+        columnTypes.put("name", "varchar");
+        Table table = tableManager.createTable(WORKSPACE_NAME, DATABASE_NAME, TABLE_SCHEMA, columnTypes);
+        log.append(LogRecord.createTable(WORKSPACE_NAME, DATABASE_NAME, TABLE_SCHEMA, columnTypes));
+        log.commit();
+        return table;
+    }
+
+    private void insert(Table table, int count) {
+        for (int i = 0; i < count; i++) {
+            LinkedHashMap<Column, DataType> data = new LinkedHashMap<>();
+            data.put(new Column(1, "id", TABLE_NAME, "integer"), new IntegerType(inserted));
+            data.put(new Column(2, "name", TABLE_NAME, "varchar"), new VarCharType("name" + inserted));
+            table.addRecord(new TableRecord(data));
+            log.commit();
+            inserted++;
+        }
+    }
+
+    private void crash() {
+        log.close();
+        bufferManager.removeDatabase(WORKSPACE_NAME, DATABASE_NAME);
+        tableManager.removeDatabase(WORKSPACE_NAME, DATABASE_NAME);
+    }
+
+    private int recoveredCount() {
+        new Recovery().redo(log.read());
+        useDatabase();
+        int count = 0;
+        Table table = tableManager.readTable(WORKSPACE_NAME, DATABASE_NAME, TABLE_NAME);
+        try (RelationIterator iterator = new VolatileRelation(table).getIterator()) {
+            while (iterator.hasNext()) {
+                iterator.next();
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Test
+    @DisplayName("should never delete the log records of changes that are not on disk")
+    void testStep() throws TableAlreadyExistException, DatabaseNotFoundException {
+        Table table = createTable();
+        insert(table, 4 * Config.PAGE_SIZE);
+
+        for (int step = 0; step < 8; step++) {
+            long checkpointLsn = checkpoint.step();
+
+            assertThat(checkpointLsn).isLessThanOrEqualTo(bufferManager.oldestDirtyLsn());
+            insert(table, Config.PAGE_SIZE / 2);
+        }
+        long oldestDirtyLsn = bufferManager.oldestDirtyLsn();
+
+        crash();
+        SortedMap<Long, LogRecord> records = log.read();
+
+        assertThat(WriteAheadLog.segment(records.firstKey())).isGreaterThan(1);
+        assertThat(WriteAheadLog.segment(records.firstKey()))
+                .isLessThanOrEqualTo(WriteAheadLog.segment(oldestDirtyLsn));
+        assertThat(recoveredCount()).isEqualTo(inserted);
+    }
+
+    @Test
+    @DisplayName("should not write a table that is being vacuumed nor delete the log of its changes")
+    void testStepDuringVacuum() throws Exception {
+        Table table = createTable();
+        insert(table, 4 * Config.PAGE_SIZE);
+        checkpoint.run();
+        PageManager pageManager = table.getPageManager();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        pageManager.acquireLock();
+        try {
+            pageManager.vacuum();
+            executor.submit(() -> {
+                useDatabase();
+                try {
+                    return checkpoint.step();
+                } finally {
+                    Config.cleanThreadLocal();
+                }
+            }).get(10, TimeUnit.SECONDS);
+        } finally {
+            pageManager.releaseLock();
+            executor.shutdownNow();
+        }
+
+        crash();
+
+        assertThat(recoveredCount()).isEqualTo(inserted);
+    }
+
+    @Test
+    @DisplayName("should leave only the changes made after a full checkpoint in the log")
+    void testRun() throws TableAlreadyExistException, DatabaseNotFoundException {
+        Table table = createTable();
+        insert(table, Config.PAGE_SIZE + 1);
+
+        checkpoint.run();
+
+        assertThat(bufferManager.oldestDirtyLsn()).isEqualTo(Long.MAX_VALUE);
+        insert(table, 1);
+
+        crash();
+        SortedMap<Long, LogRecord> records = log.read();
+
+        assertThat(records).hasSize(1);
+        assertThat(recoveredCount()).isEqualTo(inserted);
+    }
+}
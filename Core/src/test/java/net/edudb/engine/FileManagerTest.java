@@ -317,4 +317,20 @@ class FileManagerTest {
         assertThat(indices).hasDimensions(2, 2)
                 .isDeepEqualTo(new String[][]{{TABLES[0], COLUMNS[0]}, {TABLES[0], COLUMNS[1]}});
     }
+
+    @Test
+    @DisplayName("should force written files, skipping the ones deleted since")
+    void testForceWrittenFiles() throws IOException {
+        Path written = fs.getPath("test/written");
+        Path deleted = fs.getPath("test/deleted");
+        Files.write(written, List.of("line"));
+        Files.write(deleted, List.of("line"));
+        fileManager.fileWritten(written);
+        fileManager.fileWritten(deleted);
+        Files.delete(deleted);
+
+        fileManager.forceWrittenFiles();
+
+        assertThat(Files.readAllLines(written)).containsExactly("line");
+    }
 }
@@ -0,0 +1,186 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+
+package net.edudb.expression;
+
+import net.edudb.data_type.DataType;
+import net.edudb.data_type.GenericType;
+import net.edudb.data_type.IntegerType;
+import net.edudb.structure.Column;
+import net.edudb.structure.Record;
+import net.edudb.structure.RecordBatch;
+import net.edudb.structure.TableRecord;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Named;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BinaryExpressionTreeTest {
+    private static final int A = 1;
+    private static final int B = 2;
+    private static final int C = 3;
+
+    private static BinaryExpressionNode compare(int column, OperatorType operator, int value) {
+        return new Expression(new Column(column), new GenericType(String.valueOf(value)), operator);
+    }
+
+    private static BinaryExpressionNode compareColumns(int leftColumn, OperatorType operator, int rightColumn) {
+        return new Expression(new Column(leftColumn), new Column(rightColumn), operator);
+    }
+
+    private static BinaryExpressionNode and(BinaryExpressionNode left, BinaryExpressionNode right) {
+        return connect(new ANDLogicalOperator(), left, right);
+    }
+
+    private static BinaryExpressionNode or(BinaryExpressionNode left, BinaryExpressionNode right) {
+        return connect(new ORLogicalOperator(), left, right);
+    }
+
+    private static BinaryExpressionNode connect(LogicalOperator operator, BinaryExpressionNode left,
+                                                BinaryExpressionNode right) {
+        operator.setLeftChild(left);
+        operator.setRightChild(right);
+        left.setParent(operator);
+        right.setParent(operator);
+        return operator;
+    }
+
+    private static Arguments tree(String name, BinaryExpressionNode root) {
+        return Arguments.of(Named.of(name, new BinaryExpressionTree(root)));
+    }
+
+    private static BinaryExpressionNode selectsNone() {
+        return or(compare(A, OperatorType.GreaterThan, 100), compare(B, OperatorType.LessThan, 0));
+    }
+
+    private static BinaryExpressionNode selectsAll() {
+        return and(compare(A, OperatorType.GreaterThanOrEqual, 0),
+                or(compare(C, OperatorType.LessThan, 5), compare(B, OperatorType.Equal, 1)));
+    }
+
+    static Stream<Arguments> trees() {
+        return Stream.of(
+                tree("a = 3", compare(A, OperatorType.Equal, 3)),
+                tree("a < 5 and b >= 2",
+                        and(compare(A, OperatorType.LessThan, 5), compare(B, OperatorType.GreaterThanOrEqual, 2))),
+                tree("a = 1 or b = 2",
+                        or(compare(A, OperatorType.Equal, 1), compare(B, OperatorType.Equal, 2))),
+                tree("(a < 5 and b > 1) or (c = 0 and a != b)",
+                        or(and(compare(A, OperatorType.LessThan, 5), compare(B, OperatorType.GreaterThan, 1)),
+                                and(compare(C, OperatorType.Equal, 0), compareColumns(A, OperatorType.NotEqual, B)))),
+                tree("(a = 1 or b = 2) and (c != 0 or a > b)",
+                        and(or(compare(A, OperatorType.Equal, 1), compare(B, OperatorType.Equal, 2)),
+                                or(compare(C, OperatorType.NotEqual, 0), compareColumns(A, OperatorType.GreaterThan, B)))),
+                tree("((a > 2 or b < 1) and c <= 3) or (a = b or (b > 7 and c = 4))",
+                        or(and(or(compare(A, OperatorType.GreaterThan, 2), compare(B, OperatorType.LessThan, 1)),
+                                        compare(C, OperatorType.LessThanOrEqual, 3)),
+                                or(compareColumns(A, OperatorType.Equal, B),
+                                        and(compare(B, OperatorType.GreaterThan, 7), compare(C, OperatorType.Equal, 4))))),
+                tree("a > 100 and b = 1 (selects none)",
+                        and(compare(A, OperatorType.GreaterThan, 100), compare(B, OperatorType.Equal, 1))),
+                tree("a > 100 or b < 0 (selects none)", selectsNone()),
+                tree("a >= 0 or b = 1 (selects all)",
+                        or(compare(A, OperatorType.GreaterThanOrEqual, 0), compare(B, OperatorType.Equal, 1))),
+                tree("a >= 0 and (c < 5 or b = 1) (selects all)", selectsAll()));
+    }
+
+    /**
+     * @return A full batch of records whose columns a and b hold values from 0
+     * to 9 and whose column c holds values from 0 to 4.
+     */
+    private static RecordBatch batch() {
+        Random random = new Random(42);
+        RecordBatch batch = new RecordBatch();
+        while (!batch.isFull()) {
+            LinkedHashMap<Column, DataType> data = new LinkedHashMap<>();
+            data.put(new Column(A, "a", "table", "integer"), new IntegerType(random.nextInt(10)));
+            data.put(new Column(B, "b", "table", "integer"), new IntegerType(random.nextInt(10)));
+            data.put(new Column(C, "c", "table", "integer"), new IntegerType(random.nextInt(5)));
+            batch.add(new TableRecord(data));
+        }
+        return batch;
+    }
+
+    private static List<Record> selected(RecordBatch batch) {
+        List<Record> records = new ArrayList<>();
+        for (int i = 0; i < batch.selectedCount(); i++) {
+            records.add(batch.selected(i));
+        }
+        return records;
+    }
+
+    private static List<Record> evaluated(BinaryExpressionTree tree, List<Record> records) {
+        return records.stream().filter(record -> tree.evaluate(record.getData())).toList();
+    }
+
+    @ParameterizedTest
+    @MethodSource("trees")
+    @DisplayName("should select the same records of a batch as evaluating them one at a time")
+    void testSelect(BinaryExpressionTree tree) {
+        RecordBatch batch = batch();
+        List<Record> expected = evaluated(tree, selected(batch));
+
+        tree.select(batch);
+
+        assertThat(selected(batch)).containsExactlyElementsOf(expected);
+    }
+
+    @ParameterizedTest
+    @MethodSource("trees")
+    @DisplayName("should only select among the records already selected")
+    void testSelectSelected(BinaryExpressionTree tree) {
+        RecordBatch batch = batch();
+        int[] selection = batch.selection();
+        int kept = 0;
+        for (int i = 0; i < batch.selectedCount(); i += 3) {
+            selection[kept++] = selection[i];
+        }
+        batch.setSelectedCount(kept);
+        List<Record> expected = evaluated(tree, selected(batch));
+
+        tree.select(batch);
+
+        assertThat(selected(batch)).containsExactlyElementsOf(expected);
+    }
+
+    @ParameterizedTest
+    @MethodSource("trees")
+    @DisplayName("should select nothing from a batch with no selected records")
+    void testSelectEmpty(BinaryExpressionTree tree) {
+        RecordBatch batch = batch();
+        batch.setSelectedCount(0);
+
+        tree.select(batch);
+
+        assertThat(batch.selectedCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("should select no record when none satisfies the tree and every record when all do")
+    void testSelectNoneAndAll() {
+        RecordBatch none = batch();
+        new BinaryExpressionTree(selectsNone()).select(none);
+        RecordBatch all = batch();
+        new BinaryExpressionTree(selectsAll()).select(all);
+
+        assertThat(none.selectedCount()).isZero();
+        assertThat(all.selectedCount()).isEqualTo(RecordBatch.CAPACITY);
+    }
+}
@@ -32,80 +32,80 @@ class BtreeIndexTest {
     }
 
     @Test
-    @DisplayName("should inserts a key and a page name into the index")
+    @DisplayName("should inserts a key and a page id into the index")
     void insert() {
         Index<VarCharType> btreeIndex = new BtreeIndex<>(indexFile);
         VarCharType key = new VarCharType("key");
-        String pageName = "pageName1";
+        int pageId = 1;
 
-        btreeIndex.insert(key, pageName);
-        Set<String> pages = btreeIndex.search(key);
+        btreeIndex.insert(key, pageId);
+        Set<Integer> pages = btreeIndex.search(key);
 
-        assertThat(pages).hasSize(1).containsExactly(pageName);
+        assertThat(pages).hasSize(1).containsExactly(pageId);
     }
 
     @Test
-    @DisplayName("should delete all occurrences of key and a page name from the index")
+    @DisplayName("should delete all occurrences of key and a page id from the index")
     void delete1() {
         Index<VarCharType> btreeIndex = new BtreeIndex<>(indexFile);
         VarCharType key = new VarCharType("key");
-        String pageName = "pageName";
+        int pageId = 1;
 
-        btreeIndex.insert(key, pageName);
-        btreeIndex.insert(key, pageName);
+        btreeIndex.insert(key, pageId);
+        btreeIndex.insert(key, pageId);
         btreeIndex.delete(key);
-        Set<String> pages = btreeIndex.search(key);
+        Set<Integer> pages = btreeIndex.search(key);
 
         assertThat(pages).isEmpty();
     }
 
     @Test
-    @DisplayName("should delete specific key and a page name from the index")
+    @DisplayName("should delete specific key and a page id from the index")
     void delete2() {
         Index<VarCharType> btreeIndex = new BtreeIndex<>(indexFile);
         VarCharType key1 = new VarCharType("key1");
-        String pageName1 = "pageName1";
+        int pageId1 = 1;
         VarCharType key2 = new VarCharType("key2");
-        String pageName2 = "pageName2";
+        int pageId2 = 2;
 
-        btreeIndex.insert(key1, pageName1);
-        btreeIndex.insert(key2, pageName2);
+        btreeIndex.insert(key1, pageId1);
+        btreeIndex.insert(key2, pageId2);
         btreeIndex.delete(key2);
-        Set<String> pages1 = btreeIndex.search(key1);
-        Set<String> pages2 = btreeIndex.search(key2);
+        Set<Integer> pages1 = btreeIndex.search(key1);
+        Set<Integer> pages2 = btreeIndex.search(key2);
 
-        assertThat(pages1).hasSize(1).containsExactly(pageName1);
+        assertThat(pages1).hasSize(1).containsExactly(pageId1);
         assertThat(pages2).isEmpty();
     }
 
     @Test
-    @DisplayName("should search for all occurrences of key and return the page names")
+    @DisplayName("should search for all occurrences of key and return the page ids")
     void search1() {
         Index<VarCharType> btreeIndex = new BtreeIndex<>(indexFile);
         VarCharType key = new VarCharType("key");
-        String pageName1 = "pageName1";
-        String pageName2 = "pageName2";
+        int pageId1 = 1;
+        int pageId2 = 2;
 
-        btreeIndex.insert(key, pageName1);
-        btreeIndex.insert(key, pageName2);
-        Set<String> pages = btreeIndex.search(key);
+        btreeIndex.insert(key, pageId1);
+        btreeIndex.insert(key, pageId2);
+        Set<Integer> pages = btreeIndex.search(key);
 
-        assertThat(pages).hasSize(2).containsExactly(pageName1, pageName2);
+        assertThat(pages).hasSize(2).containsExactly(pageId1, pageId2);
     }
 
     @Test
-    @DisplayName("should search for specific of key and return the page names")
+    @DisplayName("should search for specific of key and return the page ids")
     void search2() {
         Index<VarCharType> btreeIndex = new BtreeIndex<>(indexFile);
         VarCharType key1 = new VarCharType("key1");
-        String pageName1 = "pageName1";
+        int pageId1 = 1;
         VarCharType key2 = new VarCharType("key2");
-        String pageName2 = "pageName2";
+        int pageId2 = 2;
 
-        btreeIndex.insert(key1, pageName1);
-        btreeIndex.insert(key2, pageName2);
-        Set<String> pages = btreeIndex.search(key1);
+        btreeIndex.insert(key1, pageId1);
+        btreeIndex.insert(key2, pageId2);
+        Set<Integer> pages = btreeIndex.search(key1);
 
-        assertThat(pages).hasSize(1).containsExactly(pageName1);
+        assertThat(pages).hasSize(1).containsExactly(pageId1);
     }
 }
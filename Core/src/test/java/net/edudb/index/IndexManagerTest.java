@@ -9,6 +9,7 @@
 
 package net.edudb.index;
 
+import net.edudb.data_type.DataType;
 import net.edudb.engine.Config;
 import net.edudb.exception.DatabaseNotFoundException;
 import net.edudb.exception.IndexAlreadyExistException;
@@ -79,4 +80,18 @@ class IndexManagerTest {
         indexManager.loadDatabaseIndices(WORKSPACE_NAME, DATABASE_NAME);
         assertThat(indexManager.getIndex(WORKSPACE_NAME, DATABASE_NAME, TABLE_NAME, COLUMN_NAME)).isNotNull();
     }
+
+    @Test
+    void loadDatabaseIndicesAgain() throws IOException, DatabaseNotFoundException {
+        Files.createDirectories(Config.indexesPath(WORKSPACE_NAME, DATABASE_NAME));
+        File file = Config.indexPath(WORKSPACE_NAME, DATABASE_NAME, TABLE_NAME, COLUMN_NAME).toFile();
+        new BtreeIndex<>(file);
+        indexManager.loadDatabaseIndices(WORKSPACE_NAME, DATABASE_NAME);
+        Index<DataType> index = indexManager.getIndex(WORKSPACE_NAME, DATABASE_NAME, TABLE_NAME, COLUMN_NAME).orElseThrow();
+
+        indexManager.loadDatabaseIndices(WORKSPACE_NAME, DATABASE_NAME);
+
+        assertThat(index).isInstanceOf(LazyIndex.class);
+        assertThat(indexManager.getIndex(WORKSPACE_NAME, DATABASE_NAME, TABLE_NAME, COLUMN_NAME)).containsSame(index);
+    }
 }
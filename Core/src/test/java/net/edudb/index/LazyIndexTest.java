@@ -0,0 +1,57 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+
+package net.edudb.index;
+
+import net.edudb.data_type.VarCharType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LazyIndexTest {
+    @TempDir
+    File tempDir;
+
+    @Test
+    @DisplayName("should not open the index file until the index is used")
+    void testOpenOnFirstUse() {
+        File indexFile = new File(tempDir, "LazyIndexFileTest.idx");
+        Index<VarCharType> index = new LazyIndex<>(indexFile);
+
+        index.flush();
+        assertThat(indexFile).doesNotExist();
+
+        index.insert(new VarCharType("key"), 7);
+        assertThat(indexFile).exists();
+        assertThat(index.search(new VarCharType("key"))).containsExactly(7);
+        index.close();
+    }
+
+    @Test
+    @DisplayName("should find the entries of an existing index file once opened")
+    void testOpenExisting() {
+        File indexFile = new File(tempDir, "LazyIndexFileTest.idx");
+        Index<VarCharType> btreeIndex = new BtreeIndex<>(indexFile);
+        btreeIndex.insert(new VarCharType("key"), 7);
+        btreeIndex.flush();
+        btreeIndex.close();
+
+        Index<VarCharType> index = new LazyIndex<>(indexFile);
+
+        assertThat(index.search(new VarCharType("key"))).containsExactly(7);
+        index.close();
+        assertThat(index.search(new VarCharType("key"))).containsExactly(7);
+        index.close();
+    }
+}
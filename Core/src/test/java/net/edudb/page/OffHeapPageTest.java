@@ -0,0 +1,90 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+package net.edudb.page;
+
+import net.edudb.data_type.DataType;
+import net.edudb.data_type.IntegerType;
+import net.edudb.structure.Column;
+import net.edudb.structure.Record;
+import net.edudb.structure.TableRecord;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OffHeapPageTest {
+    private static final Column ID = new Column(1, "id", "numbers", "int");
+
+    private static TableRecord record(int id) {
+        LinkedHashMap<Column, DataType> data = new LinkedHashMap<>();
+        data.put(ID, new IntegerType(id));
+        return new TableRecord(data);
+    }
+
+    private static OffHeapPage pageWithRecords(int count) {
+        OffHeapPage page = new OffHeapPage("numbers", 10);
+        page.pin();
+        page.acquireLock();
+        for (int i = 0; i < count; i++) {
+            page.addRecord(record(i));
+        }
+        page.releaseLock();
+        page.unpin();
+        return page;
+    }
+
+    @Test
+    @DisplayName("should keep its records after they are dropped from the heap")
+    void testRecordsAreKeptOffHeap() {
+        OffHeapPage page = pageWithRecords(3);
+
+        assertThat(page.image().isDirect()).isTrue();
+
+        page.acquireSharedLock();
+        assertThat(page.size()).isEqualTo(3);
+        assertThat(page.getRecord(2).toString()).isEqualTo(record(2).toString());
+        page.releaseSharedLock();
+    }
+
+    @Test
+    @DisplayName("should encode changes made while the page was pinned")
+    void testChangesAreEncoded() {
+        OffHeapPage page = pageWithRecords(3);
+
+        page.pin();
+        page.acquireSharedLock();
+        page.getRecord(1).delete();
+        page.releaseSharedLock();
+        page.unpin();
+
+        page.acquireSharedLock();
+        assertThat(page.getRecord(1).isDeleted()).isTrue();
+        assertThat(page.liveCount()).isEqualTo(2);
+        page.releaseSharedLock();
+    }
+
+    @Test
+    @DisplayName("should be loaded from an image without decoding it")
+    void testLoadFromImage() throws IOException {
+        OffHeapPage page = pageWithRecords(5);
+
+        OffHeapPage loaded = new OffHeapPage(SlottedPageFormat.encode(page));
+
+        assertThat(loaded.getName()).isEqualTo("numbers");
+        assertThat(loaded.capacity()).isEqualTo(10);
+        loaded.acquireSharedLock();
+        Record record = loaded.getRecord(4);
+        loaded.releaseSharedLock();
+        assertThat(record.toString()).isEqualTo(record(4).toString());
+    }
+}
@@ -0,0 +1,343 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+package net.edudb.page;
+
+import btree4j.BTreeException;
+import btree4j.BTreeIndex;
+import btree4j.Value;
+import net.edudb.buffer.BufferManager;
+import net.edudb.data_type.DataType;
+import net.edudb.data_type.IntegerType;
+import net.edudb.engine.Config;
+import net.edudb.engine.FileManager;
+import net.edudb.exception.DatabaseAlreadyExistException;
+import net.edudb.index.BtreeIndex;
+import net.edudb.index.Index;
+import net.edudb.relation.RelationIterator;
+import net.edudb.structure.Column;
+import net.edudb.structure.Record;
+import net.edudb.structure.TableRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Covers how a table's pages are reused: slots freed by deleted records, the
+ * free-space map of the pages that have such slots, and the pages whose
+ * records are all deleted, which scans skip.
+ */
+class PageManagerTest {
+    @TempDir
+    Path directory;
+
+    private static final String WORKSPACE_NAME = "workspace";
+    private static final String DATABASE_NAME = "database";
+    private static final Column ID = new Column(1, "id", "table", "integer");
+
+    private PageManager pageManager;
+
+    @BeforeEach
+    void setUp() throws DatabaseAlreadyExistException {
+        Config.setAbsolutePath(directory);
+        FileManager.getInstance().createDatabase(WORKSPACE_NAME, DATABASE_NAME);
+        Config.setCurrentWorkspace(WORKSPACE_NAME);
+        Config.setCurrentDatabaseName(DATABASE_NAME);
+        pageManager = new PageManager();
+    }
+
+    @AfterEach
+    void tearDown() {
+        BufferManager.getInstance().removeDatabase(WORKSPACE_NAME, DATABASE_NAME);
+        Config.cleanThreadLocal();
+        Config.setAbsolutePath(null);
+    }
+
+    private static TableRecord record(int id) {
+        LinkedHashMap<Column, DataType> data = new LinkedHashMap<>();
+        data.put(ID, new IntegerType(id));
+        return new TableRecord(data);
+    }
+
+    /**
+     * Adds records numbered from zero, filling the given number of pages.
+     */
+    private void fillPages(int pageCount) {
+        for (int i = 0; i < pageCount * Config.PAGE_SIZE; i++) {
+            pageManager.addRecord(record(i));
+        }
+    }
+
+    private void delete(int pageId, int slot) {
+        Page page = BufferManager.getInstance().pin(WORKSPACE_NAME, DATABASE_NAME, pageManager.getPageName(pageId));
+        page.acquireSharedLock();
+        Record record = page.getRecord(slot);
+        page.releaseSharedLock();
+        pageManager.deleteRecord(page, slot, record);
+        BufferManager.getInstance().unpin(WORKSPACE_NAME, DATABASE_NAME, page);
+    }
+
+    private void deletePage(int pageId) {
+        for (int slot = 0; slot < Config.PAGE_SIZE; slot++) {
+            delete(pageId, slot);
+        }
+    }
+
+    private String id(int pageId, int slot) {
+        Page page = BufferManager.getInstance().read(WORKSPACE_NAME, DATABASE_NAME, pageManager.getPageName(pageId));
+        page.acquireSharedLock();
+        try {
+            return page.getRecord(slot).getData().get(ID).toString();
+        } finally {
+            page.releaseSharedLock();
+        }
+    }
+
+    /**
+     * @return The ids of the records of the table, in the order of a scan.
+     */
+    private List<String> ids() {
+        List<String> ids = new ArrayList<>();
+        try (RelationIterator iterator = new RelationIterator(pageManager.getPageNames(), pageManager.getDeadPages())) {
+            while (iterator.hasNext()) {
+                ids.add(iterator.next().getData().get(ID).toString());
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * @return The ids of the pages a scan of the table reads records from.
+     */
+    private List<Integer> scannedPages() {
+        List<Integer> pageIds = new ArrayList<>();
+        try (RelationIterator iterator = new RelationIterator(pageManager.getPageNames(), pageManager.getDeadPages())) {
+            while (iterator.hasNext()) {
+                iterator.next();
+                if (pageIds.isEmpty() || pageIds.get(pageIds.size() - 1) != iterator.getCurrentPageIndex()) {
+                    pageIds.add(iterator.getCurrentPageIndex());
+                }
+            }
+        }
+        return pageIds;
+    }
+
+    @Test
+    @DisplayName("should add records to the slot of a deleted record")
+    void testSlotReuse() {
+        fillPages(2);
+        delete(0, 7);
+
+        assertThat(pageManager.addRecord(record(-1))).isEqualTo(0);
+        assertThat(id(0, 7)).isEqualTo("-1");
+        assertThat(pageManager.getPageNames()).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("should fill the pages with free slots in order before adding a page")
+    void testFreePages() {
+        fillPages(3);
+        delete(2, 1);
+        delete(0, 3);
+        delete(0, 5);
+
+        assertThat(pageManager.addRecord(record(-1))).isEqualTo(0);
+        assertThat(pageManager.addRecord(record(-2))).isEqualTo(0);
+        assertThat(pageManager.addRecord(record(-3))).isEqualTo(2);
+        assertThat(pageManager.addRecord(record(-4))).isEqualTo(3);
+        assertThat(pageManager.addRecord(record(-5))).isEqualTo(3);
+        assertThat(id(0, 3)).isEqualTo("-1");
+        assertThat(id(0, 5)).isEqualTo("-2");
+        assertThat(id(2, 1)).isEqualTo("-3");
+    }
+
+    @Test
+    @DisplayName("should mark a page dead only once all of its records are deleted")
+    void testDeadPages() {
+        fillPages(3);
+        for (int slot = 0; slot < Config.PAGE_SIZE - 1; slot++) {
+            delete(1, slot);
+        }
+
+        assertThat(pageManager.getDeadPages().isEmpty()).isTrue();
+        assertThat(scannedPages()).containsExactly(0, 1, 2);
+
+        delete(1, Config.PAGE_SIZE - 1);
+
+        assertThat(pageManager.getDeadPages().get(1)).isTrue();
+        assertThat(scannedPages()).containsExactly(0, 2);
+        assertThat(pageManager.needsVacuum()).isFalse();
+    }
+
+    @Test
+    @DisplayName("should scan a dead page again once a record is added to it")
+    void testRevivedPage() {
+        fillPages(2);
+        deletePage(0);
+        deletePage(1);
+
+        assertThat(scannedPages()).isEmpty();
+        assertThat(pageManager.needsVacuum()).isTrue();
+
+        assertThat(pageManager.addRecord(record(-1))).isEqualTo(0);
+
+        assertThat(pageManager.getDeadPages().get(0)).isFalse();
+        assertThat(pageManager.getDeadPages().get(1)).isTrue();
+        assertThat(scannedPages()).containsExactly(0);
+    }
+
+    @Test
+    @DisplayName("should vacuum only once a delete in progress is done")
+    void testDeleteDuringVacuum() throws Exception {
+        fillPages(3);
+        CountDownLatch vacuumStarted = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            pageManager.acquireSharedLock();
+            Future<Integer> vacuum;
+            try {
+                deletePage(0);
+                vacuum = executor.submit(() -> {
+                    Config.setCurrentWorkspace(WORKSPACE_NAME);
+                    Config.setCurrentDatabaseName(DATABASE_NAME);
+                    pageManager.acquireLock();
+                    try {
+                        vacuumStarted.countDown();
+                        int freedPages = pageManager.vacuum();
+                        assertThat(pageManager.flushPages()).isTrue();
+                        pageManager.deleteVacuumedPages();
+                        return freedPages;
+                    } finally {
+                        pageManager.releaseLock();
+                        Config.cleanThreadLocal();
+                    }
+                });
+
+                assertThat(vacuumStarted.await(200, TimeUnit.MILLISECONDS)).isFalse();
+                deletePage(2);
+            } finally {
+                pageManager.releaseSharedLock();
+            }
+
+            assertThat(vacuum.get(10, TimeUnit.SECONDS)).isEqualTo(2);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<String> ids = ids();
+        assertThat(pageManager.getPageNames()).hasSize(1);
+        assertThat(ids).hasSize(Config.PAGE_SIZE);
+        assertThat(ids.get(0)).isEqualTo(Integer.toString(Config.PAGE_SIZE));
+    }
+
+    @Test
+    @DisplayName("should keep scanning the old pages of a table vacuumed during the scan")
+    void testVacuumDuringScan() {
+        fillPages(3);
+        deletePage(1);
+        List<String> oldPageNames = pageManager.getPageNames();
+        List<String> expected = ids();
+
+        List<String> ids = new ArrayList<>();
+        try (RelationIterator iterator = new RelationIterator(pageManager, pageManager.openSnapshot())) {
+            ids.add(iterator.next().getData().get(ID).toString());
+
+            assertThat(pageManager.vacuum()).isEqualTo(1);
+            assertThat(pageManager.flushPages()).isTrue();
+            pageManager.deleteVacuumedPages();
+
+            assertThat(pageManager.getPageNames()).hasSize(2).doesNotContainAnyElementsOf(oldPageNames);
+            assertThat(ids()).isEqualTo(expected);
+            assertThat(BufferManager.getInstance().read(WORKSPACE_NAME, DATABASE_NAME, oldPageNames.get(2)))
+                    .isNotNull();
+
+            while (iterator.hasNext()) {
+                ids.add(iterator.next().getData().get(ID).toString());
+            }
+        }
+
+        assertThat(ids).isEqualTo(expected);
+        assertThat(BufferManager.getInstance().read(WORKSPACE_NAME, DATABASE_NAME, oldPageNames.get(2))).isNull();
+    }
+
+    @Test
+    @DisplayName("should read the page names and textual page ids stored by older indexes as page ids")
+    void testLegacyIndexValues() throws BTreeException {
+        fillPages(3);
+        File indexFile = directory.resolve("index").toFile();
+        BTreeIndex legacyIndex = new BTreeIndex(indexFile);
+        legacyIndex.init(false);
+        legacyIndex.addValue(new Value("0"), new Value(pageManager.getPageName(2)));
+        legacyIndex.addValue(new Value("0"), new Value("#1"));
+        legacyIndex.addValue(new Value("0"), new Value("missing"));
+        legacyIndex.flush();
+        legacyIndex.close();
+
+        Index<DataType> index = new BtreeIndex<>(indexFile, pageManager::getPageId);
+        try {
+            assertThat(index.search(new IntegerType(0))).containsExactlyInAnyOrder(1, 2);
+            assertThat(pageManager.getPageId(pageManager.getPageName(2))).isEqualTo(2);
+            assertThat(pageManager.getPageId("missing")).isEqualTo(-1);
+        } finally {
+            index.close();
+        }
+    }
+
+    @Test
+    @DisplayName("should resolve page ids to the live pages in the order of the table")
+    void testResolveLivePages() {
+        fillPages(4);
+        deletePage(1);
+
+        List<String> pages = pageManager.resolveLivePages(List.of(3, 1, 2, 0, 4, -1));
+
+        assertThat(pages).containsExactly(pageManager.getPageName(0), pageManager.getPageName(2),
+                pageManager.getPageName(3));
+    }
+
+    @Test
+    @DisplayName("should find the pages of inserted records through an index")
+    void testIndexLookup() {
+        Index<DataType> index = new BtreeIndex<>(directory.resolve("index").toFile());
+        try {
+            for (int i = 0; i < 2 * Config.PAGE_SIZE + 1; i++) {
+                index.insert(new IntegerType(i % Config.PAGE_SIZE), pageManager.addRecord(record(i)));
+            }
+            delete(0, 7);
+            index.insert(new IntegerType(-1), pageManager.addRecord(record(-1)));
+
+            Set<Integer> pageIds = index.search(new IntegerType(0));
+            assertThat(pageIds).containsExactlyInAnyOrder(0, 1, 2);
+            assertThat(pageManager.resolveLivePages(index.search(new IntegerType(-1))))
+                    .containsExactly(pageManager.getPageName(0));
+
+            deletePage(1);
+            assertThat(pageManager.resolveLivePages(pageIds))
+                    .containsExactly(pageManager.getPageName(0), pageManager.getPageName(2));
+        } finally {
+            index.close();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+package net.edudb.page;
+
+import net.edudb.data_type.BooleanType;
+import net.edudb.data_type.DataType;
+import net.edudb.data_type.DecimalType;
+import net.edudb.data_type.IntegerType;
+import net.edudb.data_type.TimestampType;
+import net.edudb.data_type.VarCharType;
+import net.edudb.structure.Column;
+import net.edudb.structure.TableRecord;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+import java.util.LinkedHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SlottedPageFormatTest {
+    private static final Column ID = new Column(1, "id", "users", "int");
+    private static final Column NAME = new Column(2, "name", "users", "varchar");
+    private static final Column SCORE = new Column(3, "score", "users", "decimal");
+    private static final Column ACTIVE = new Column(4, "active", "users", "boolean");
+    private static final Column JOINED = new Column(5, "joined", "users", "timestamp");
+
+    private static TableRecord record(int id, String name) {
+        LinkedHashMap<Column, DataType> data = new LinkedHashMap<>();
+        data.put(ID, new IntegerType(id));
+        data.put(NAME, new VarCharType(name));
+        data.put(SCORE, new DecimalType(id * 1.5));
+        data.put(ACTIVE, new BooleanType(id % 2 == 0));
+        data.put(JOINED, new TimestampType(new Timestamp(1_000_000L * id)));
+        return new TableRecord(data);
+    }
+
+    @Test
+    @DisplayName("should decode the same records that were encoded")
+    void testRoundTrip() throws IOException {
+        BinaryPage page = new BinaryPage();
+        page.acquireLock();
+        page.addRecord(record(1, "ahmed"));
+        page.addRecord(record(2, "فادي"));
+        TableRecord deleted = record(3, "mohamed");
+        deleted.delete();
+        page.addRecord(deleted);
+        page.releaseLock();
+
+        Page decoded = SlottedPageFormat.decode(SlottedPageFormat.encode(page));
+
+        decoded.acquireLock();
+        assertThat(decoded.getName()).isEqualTo(page.getName());
+        assertThat(decoded.capacity()).isEqualTo(page.capacity());
+        assertThat(decoded.size()).isEqualTo(3);
+        assertThat(decoded.getRecord(0).toString()).isEqualTo(record(1, "ahmed").toString());
+        assertThat(decoded.getRecord(1).toString()).isEqualTo(record(2, "فادي").toString());
+        assertThat(decoded.getRecord(2).isDeleted()).isTrue();
+        assertThat(decoded.getRecord(0).getData().keySet())
+                .extracting(Column::getName)
+                .containsExactly("id", "name", "score", "active", "joined");
+        decoded.releaseLock();
+    }
+
+    @Test
+    @DisplayName("should compute the size of a page image without encoding it")
+    void testImageSize() {
+        BinaryPage page = new BinaryPage();
+        page.acquireLock();
+        page.addRecord(record(1, "ahmed"));
+        TableRecord deleted = record(2, "فادي");
+        deleted.delete();
+        page.addRecord(deleted);
+        int size = SlottedPageFormat.imageSize(page, null);
+        int sizeWithRecord = SlottedPageFormat.imageSize(page, record(3, "mohamed"));
+        page.addRecord(record(3, "mohamed"));
+        page.releaseLock();
+
+        assertThat(sizeWithRecord).isEqualTo(SlottedPageFormat.encode(page).remaining());
+        assertThat(size).isLessThan(sizeWithRecord);
+    }
+
+    @Test
+    @DisplayName("should decode an empty page")
+    void testEmptyPage() throws IOException {
+        BinaryPage page = new BinaryPage();
+
+        Page decoded = SlottedPageFormat.decode(SlottedPageFormat.encode(page));
+
+        decoded.acquireLock();
+        assertThat(decoded.isEmpty()).isTrue();
+        decoded.releaseLock();
+    }
+
+    @Test
+    @DisplayName("should reject buffers that are not slotted pages")
+    void testInvalidImage() {
+        ByteBuffer buffer = ByteBuffer.wrap(new byte[]{(byte) 0xAC, (byte) 0xED, 0, 5, 1, 2});
+
+        assertThat(SlottedPageFormat.isSlotted(buffer)).isFalse();
+        assertThatThrownBy(() -> SlottedPageFormat.decode(buffer)).isInstanceOf(IOException.class);
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+
+package net.edudb.relation;
+
+import com.google.common.jimfs.Configuration;
+import com.google.common.jimfs.Jimfs;
+import net.edudb.buffer.BufferManager;
+import net.edudb.data_type.DataType;
+import net.edudb.data_type.IntegerType;
+import net.edudb.engine.Config;
+import net.edudb.engine.FileManager;
+import net.edudb.exception.DatabaseAlreadyExistException;
+import net.edudb.expression.Expression;
+import net.edudb.expression.OperatorType;
+import net.edudb.structure.Column;
+import net.edudb.structure.Record;
+import net.edudb.structure.RecordBatch;
+import net.edudb.structure.TableRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HashJoinRelationTest {
+    private static FileSystem fs;
+    private static final String WORKSPACE_NAME = "workspace";
+    private static final String DATABASE_NAME = "database";
+    private static final Column KEY = new Column(2);
+    private static final Expression EXPRESSION = new Expression(KEY, KEY, OperatorType.Equal);
+
+    /**
+     * The ids of the left and right records in a joined record, whose right
+     * join column is removed.
+     */
+    private static final Column LEFT_ID = new Column(1);
+    private static final Column RIGHT_ID = new Column(3);
+
+    @BeforeEach
+    void setUp() throws DatabaseAlreadyExistException {
+        fs = Jimfs.newFileSystem(Configuration.unix());
+        Config.setAbsolutePath(fs.getPath("test"));
+        FileManager.getInstance().createDatabase(WORKSPACE_NAME, DATABASE_NAME);
+        Config.setCurrentWorkspace(WORKSPACE_NAME);
+        Config.setCurrentDatabaseName(DATABASE_NAME);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        BufferManager.getInstance().removeDatabase(WORKSPACE_NAME, DATABASE_NAME);
+        Config.cleanThreadLocal();
+        Config.setAbsolutePath(null);
+        fs.close();
+    }
+
+    private static TableRecord record(String tableName, int id, Integer key) {
+        LinkedHashMap<Column, DataType> data = new LinkedHashMap<>();
+        data.put(new Column(1, "id", tableName, "integer"), new IntegerType(id));
+        data.put(new Column(2, "key", tableName, "integer"), key == null ? null : new IntegerType(key));
+        return new TableRecord(data);
+    }
+
+    /**
+     * @param keys The key of every record, null for a null key.
+     */
+    private static Relation relation(String tableName, Integer... keys) {
+        TemporaryRelation relation = new TemporaryRelation();
+        for (int i = 0; i < keys.length; i++) {
+            relation.addRecord(record(tableName, i, keys[i]));
+        }
+        return relation;
+    }
+
+    /**
+     * @return A relation whose records are stored in pages, like a table's.
+     */
+    private static Relation pagedRelation(String tableName, Integer... keys) {
+        VolatileRelation relation = new VolatileRelation();
+        for (int i = 0; i < keys.length; i++) {
+            relation.addRecord(record(tableName, i, keys[i]));
+        }
+        return relation;
+    }
+
+    private static Integer[] keys(int count, int modulo) {
+        Integer[] keys = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = i % 11 == 0 ? null : (i * 7) % modulo;
+        }
+        return keys;
+    }
+
+    private static List<Record> records(Relation relation) {
+        List<Record> records = new ArrayList<>();
+        try (RelationIterator iterator = relation.getIterator()) {
+            while (iterator.hasNext()) {
+                records.add(iterator.next());
+            }
+        }
+        return records;
+    }
+
+    private static List<String> sorted(List<Record> records) {
+        return records.stream().map(Record::toString).sorted().toList();
+    }
+
+    private static List<Integer> ids(List<Record> records, Column column) {
+        return records.stream().map(record -> ((IntegerType) record.getData().get(column)).getInteger()).toList();
+    }
+
+    @Test
+    @DisplayName("should join the same records as a nested-loop join")
+    void testJoin() {
+        Relation left = relation("left", keys(120, 17));
+        Relation right = relation("right", keys(50, 23));
+
+        List<Record> joined = records(new HashJoinRelation(left, right, EXPRESSION));
+        List<Record> nestedLoopJoined = records(new JoinRelation(left, right, EXPRESSION));
+
+        assertThat(joined).isNotEmpty();
+        assertThat(sorted(joined)).containsExactlyElementsOf(sorted(nestedLoopJoined));
+    }
+
+    @Test
+    @DisplayName("should join every pair of records with the same key and no record with a null key")
+    void testDuplicateAndNullKeys() {
+        Relation left = relation("left", 1, 1, 2, null, 3);
+        Relation right = relation("right", null, 1, 3, 1, 4);
+
+        List<Record> joined = records(new HashJoinRelation(left, right, EXPRESSION));
+
+        assertThat(joined).hasSize(5);
+        assertThat(sorted(joined)).containsExactlyElementsOf(sorted(records(new JoinRelation(left, right, EXPRESSION))));
+    }
+
+    @Test
+    @DisplayName("should build on the left table when it has fewer pages, probing with the right one")
+    void testBuildSide() {
+        Relation small = pagedRelation("small", keys(150, 7));
+        Relation large = pagedRelation("large", keys(450, 7));
+        assertThat(small.getPageManager().getPageNames().size())
+                .isLessThan(large.getPageManager().getPageNames().size());
+
+        List<Record> buildsOnLeft = records(new HashJoinRelation(small, large, EXPRESSION));
+        List<Record> buildsOnRight = records(new HashJoinRelation(large, small, EXPRESSION));
+
+        // the output follows the order of the probe relation
+        assertThat(ids(buildsOnLeft, RIGHT_ID)).isSorted();
+        assertThat(ids(buildsOnRight, LEFT_ID)).isSorted();
+        assertThat(sorted(buildsOnLeft)).containsExactlyElementsOf(
+                sorted(records(new JoinRelation(small, large, EXPRESSION))));
+        assertThat(sorted(buildsOnRight)).containsExactlyElementsOf(
+                sorted(records(new JoinRelation(large, small, EXPRESSION))));
+    }
+
+    @Test
+    @DisplayName("should spread the matches of a record over several batches")
+    void testMatchesAcrossBatches() {
+        Integer[] rightKeys = new Integer[1500];
+        Arrays.fill(rightKeys, 1);
+        Relation left = relation("left", 1, 2, 1);
+        Relation right = relation("right", rightKeys);
+
+        List<Integer> batchSizes = new ArrayList<>();
+        RecordBatch batch = new RecordBatch();
+        try (RelationIterator iterator = new HashJoinRelation(left, right, EXPRESSION).getIterator()) {
+            while (iterator.nextBatch(batch)) {
+                batchSizes.add(batch.selectedCount());
+            }
+        }
+
+        assertThat(batchSizes).containsExactly(RecordBatch.CAPACITY, RecordBatch.CAPACITY,
+                3000 - 2 * RecordBatch.CAPACITY);
+        assertThat(records(new HashJoinRelation(left, right, EXPRESSION))).hasSize(3000);
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+
+package net.edudb.relation;
+
+import com.google.common.jimfs.Configuration;
+import com.google.common.jimfs.Jimfs;
+import net.edudb.buffer.BufferManager;
+import net.edudb.data_type.DataType;
+import net.edudb.data_type.IntegerType;
+import net.edudb.engine.Config;
+import net.edudb.engine.FileManager;
+import net.edudb.exception.DatabaseAlreadyExistException;
+import net.edudb.expression.Expression;
+import net.edudb.expression.OperatorType;
+import net.edudb.index.Index;
+import net.edudb.structure.Column;
+import net.edudb.structure.Record;
+import net.edudb.structure.TableRecord;
+import net.edudb.structure.table.BinaryTable;
+import net.edudb.structure.table.Table;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IndexJoinRelationTest {
+    private static FileSystem fs;
+    private static final String WORKSPACE_NAME = "workspace";
+    private static final String DATABASE_NAME = "database";
+    private static final Column KEY = new Column(2);
+    private static final Expression EXPRESSION = new Expression(KEY, KEY, OperatorType.Equal);
+
+    @BeforeEach
+    void setUp() throws DatabaseAlreadyExistException {
+        fs = Jimfs.newFileSystem(Configuration.unix());
+        Config.setAbsolutePath(fs.getPath("test"));
+        FileManager.getInstance().createDatabase(WORKSPACE_NAME, DATABASE_NAME);
+        Config.setCurrentWorkspace(WORKSPACE_NAME);
+        Config.setCurrentDatabaseName(DATABASE_NAME);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        BufferManager.getInstance().removeDatabase(WORKSPACE_NAME, DATABASE_NAME);
+        Config.cleanThreadLocal();
+        Config.setAbsolutePath(null);
+        fs.close();
+    }
+
+    /**
+     * An index kept in memory, counting how many times it is probed.
+     */
+    private static class MapIndex implements Index<DataType> {
+        private final Map<String, Set<Integer>> pages = new HashMap<>();
+        private int searches;
+
+        @Override
+        public void insert(DataType key, int pageId) {
+            pages.computeIfAbsent(key.toString(), value -> new HashSet<>()).add(pageId);
+        }
+
+        @Override
+        public void delete(DataType key) {
+            pages.remove(key.toString());
+        }
+
+        @Override
+        public Set<Integer> search(DataType key) {
+            searches++;
+            return pages.getOrDefault(key.toString(), Set.of());
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static LinkedHashMap<Column, DataType> data(String tableName, int id, Integer key) {
+        LinkedHashMap<Column, DataType> data = new LinkedHashMap<>();
+        data.put(new Column(1, "id", tableName, "integer"), new IntegerType(id));
+        data.put(new Column(2, "key", tableName, "integer"), key == null ? null : new IntegerType(key));
+        return data;
+    }
+
+    private static Relation relation(String tableName, Integer... keys) {
+        TemporaryRelation relation = new TemporaryRelation();
+        for (int i = 0; i < keys.length; i++) {
+            relation.addRecord(new TableRecord(data(tableName, i, keys[i])));
+        }
+        return relation;
+    }
+
+    /**
+     * Builds a table spanning several pages and indexes its join column.
+     */
+    private static Table table(MapIndex index, Integer... keys) {
+        Table table = new BinaryTable("right");
+        for (int i = 0; i < keys.length; i++) {
+            table.addRecord(new TableRecord(data("right", i, keys[i])));
+        }
+        try (RelationIterator iterator = new VolatileRelation(table).getIterator()) {
+            while (iterator.hasNext()) {
+                DataType key = iterator.next().getData().get(KEY);
+                if (key != null) {
+                    index.insert(key, iterator.getCurrentPageIndex());
+                }
+            }
+        }
+        return table;
+    }
+
+    private static Integer[] keys(int count, int modulo) {
+        Integer[] keys = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = i % 11 == 0 ? null : (i * 7) % modulo;
+        }
+        return keys;
+    }
+
+    private static List<String> records(Relation relation) {
+        List<String> records = new ArrayList<>();
+        try (RelationIterator iterator = relation.getIterator()) {
+            while (iterator.hasNext()) {
+                records.add(iterator.next().toString());
+            }
+        }
+        return records;
+    }
+
+    @Test
+    @DisplayName("should join the same records as a hash join")
+    void testJoin() {
+        MapIndex index = new MapIndex();
+        Table right = table(index, keys(250, 23));
+        Relation left = relation("left", keys(60, 29));
+
+        List<String> joined = records(new IndexJoinRelation(left, right, index, EXPRESSION));
+        List<String> hashJoined = records(new HashJoinRelation(left, new VolatileRelation(right), EXPRESSION));
+
+        assertThat(right.getPageManager().getPageNames()).hasSizeGreaterThan(1);
+        assertThat(joined).isNotEmpty().containsExactlyInAnyOrderElementsOf(hashJoined);
+    }
+
+    @Test
+    @DisplayName("should probe the index once for consecutive records with the same value")
+    void testProbeOnce() {
+        MapIndex index = new MapIndex();
+        Table right = table(index, 1, 2, 2, 3);
+
+        List<String> joined = records(new IndexJoinRelation(relation("left", 2, 2, null, 4, 4), right, index,
+                EXPRESSION));
+
+        assertThat(joined).hasSize(4);
+        assertThat(index.searches).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("should join the same records again after a reset")
+    void testReset() {
+        MapIndex index = new MapIndex();
+        Table right = table(index, keys(250, 23));
+        Relation joinRelation = new IndexJoinRelation(relation("left", keys(60, 29)), right, index, EXPRESSION);
+        List<String> joined = records(joinRelation);
+
+        try (RelationIterator iterator = joinRelation.getIterator()) {
+            for (int i = 0; i < joined.size() / 2; i++) {
+                iterator.next();
+            }
+            iterator.reset();
+            List<String> rejoined = new ArrayList<>();
+            while (iterator.hasNext()) {
+                rejoined.add(iterator.next().toString());
+            }
+            assertThat(rejoined).containsExactlyElementsOf(joined);
+        }
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+
+package net.edudb.relation;
+
+import com.google.common.jimfs.Configuration;
+import com.google.common.jimfs.Jimfs;
+import net.edudb.data_type.DataType;
+import net.edudb.data_type.GenericType;
+import net.edudb.data_type.IntegerType;
+import net.edudb.engine.Config;
+import net.edudb.expression.BinaryExpressionTree;
+import net.edudb.expression.Expression;
+import net.edudb.expression.OperatorType;
+import net.edudb.structure.Column;
+import net.edudb.structure.Record;
+import net.edudb.structure.RecordBatch;
+import net.edudb.structure.TableRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PipelinedRelationTest {
+    private static FileSystem fs;
+    private static final Column ID = new Column(1);
+    private static final Column KEY = new Column(2);
+
+    @BeforeEach
+    void setUp() {
+        fs = Jimfs.newFileSystem(Configuration.unix());
+        Config.setAbsolutePath(fs.getPath("test"));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        System.clearProperty("TEMPORARY_RELATION_RECORDS");
+        Config.setAbsolutePath(null);
+        fs.close();
+    }
+
+    /**
+     * An operator output that produces records from a list, counting what is
+     * asked of it.
+     */
+    private static class Source extends PipelinedRelation {
+        private final List<Record> records;
+        private int opened;
+        private int produced;
+        private int rewound;
+        private int closed;
+        private int released;
+
+        Source(List<Record> records) {
+            this.records = records;
+        }
+
+        @Override
+        public RelationIterator getIterator() {
+            opened++;
+            return new PipelinedIterator() {
+                private int next;
+
+                @Override
+                protected boolean fillBatch(RecordBatch batch) {
+                    batch.clear();
+                    while (!batch.isFull() && next < records.size()) {
+                        batch.add(records.get(next++));
+                        produced++;
+                    }
+                    return batch.selectedCount() > 0;
+                }
+
+                @Override
+                protected void rewind() {
+                    rewound++;
+                    next = 0;
+                }
+
+                @Override
+                protected void closeInputs() {
+                    closed++;
+                }
+            };
+        }
+
+        @Override
+        public void release() {
+            released++;
+        }
+    }
+
+    /**
+     * @return Records whose ids go from 0 to count - 1 and whose keys are
+     * their ids modulo 10.
+     */
+    private static List<Record> records(String tableName, int count) {
+        List<Record> records = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            LinkedHashMap<Column, DataType> data = new LinkedHashMap<>();
+            data.put(new Column(1, "id", tableName, "integer"), new IntegerType(i));
+            data.put(new Column(2, "key", tableName, "integer"), new IntegerType(i % 10));
+            records.add(new TableRecord(data));
+        }
+        return records;
+    }
+
+    private static Relation temporary(List<Record> records) {
+        TemporaryRelation relation = new TemporaryRelation();
+        records.forEach(relation::addRecord);
+        return relation;
+    }
+
+    private static BinaryExpressionTree keyEquals(int key) {
+        return new BinaryExpressionTree(new Expression(KEY, new GenericType(String.valueOf(key)), OperatorType.Equal));
+    }
+
+    private static List<String> strings(RelationIterator iterator) {
+        List<String> records = new ArrayList<>();
+        while (iterator.hasNext()) {
+            records.add(iterator.next().toString());
+        }
+        return records;
+    }
+
+    private static List<String> strings(Relation relation) {
+        try (RelationIterator iterator = relation.getIterator()) {
+            return strings(iterator);
+        }
+    }
+
+    private static List<Path> spillFiles() throws IOException {
+        if (!Files.exists(Config.temporaryPath())) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(Config.temporaryPath())) {
+            return files.toList();
+        }
+    }
+
+    @Test
+    @DisplayName("should filter records a batch at a time while being iterated over")
+    void testFilterStreams() {
+        Source source = new Source(records("table", 10 * RecordBatch.CAPACITY));
+        FilterRelation filter = new FilterRelation(source, keyEquals(3));
+
+        try (RelationIterator iterator = filter.getIterator()) {
+            assertThat(source.produced).isZero();
+            Record first = iterator.next();
+            assertThat(first.getData().get(ID)).isEqualTo(new IntegerType(3));
+            assertThat(source.produced).isEqualTo(RecordBatch.CAPACITY);
+
+            List<String> rest = strings(iterator);
+            assertThat(rest).hasSize(RecordBatch.CAPACITY - 1);
+        }
+        assertThat(source.produced).isEqualTo(10 * RecordBatch.CAPACITY);
+    }
+
+    @Test
+    @DisplayName("should project records a batch at a time while being iterated over")
+    void testProjectStreams() {
+        Source source = new Source(records("table", 3 * RecordBatch.CAPACITY));
+        ProjectRelation project = new ProjectRelation(source, new Integer[]{1});
+
+        try (RelationIterator iterator = project.getIterator()) {
+            Record first = iterator.next();
+            assertThat(first.getData()).containsOnlyKeys(ID);
+            assertThat(source.produced).isEqualTo(RecordBatch.CAPACITY);
+            assertThat(strings(iterator)).hasSize(3 * RecordBatch.CAPACITY - 1);
+        }
+    }
+
+    @Test
+    @DisplayName("should restart from the first record when reset, rewinding the input")
+    void testReset() {
+        Source source = new Source(records("table", 3 * RecordBatch.CAPACITY));
+        ProjectRelation project = new ProjectRelation(new FilterRelation(source, keyEquals(7)), new Integer[]{1});
+        List<String> expected = strings(new ProjectRelation(
+                new FilterRelation(temporary(source.records), keyEquals(7)), new Integer[]{1}));
+
+        try (RelationIterator iterator = project.getIterator()) {
+            for (int i = 0; i < 5; i++) {
+                iterator.next();
+            }
+            iterator.reset();
+            assertThat(source.rewound).isEqualTo(1);
+            assertThat(strings(iterator)).isEqualTo(expected);
+
+            iterator.reset();
+            assertThat(strings(iterator)).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    @DisplayName("should close and release the inputs")
+    void testCloseAndRelease() {
+        Source left = new Source(records("left", 20));
+        Source right = new Source(records("right", 20));
+        Relation join = new JoinRelation(new FilterRelation(left, keyEquals(1)),
+                new ProjectRelation(right, new Integer[]{1, 2}), new Expression(KEY, KEY, OperatorType.Equal));
+
+        RelationIterator iterator = join.getIterator();
+        iterator.next();
+        assertThat(left.closed).isZero();
+        iterator.close();
+        assertThat(left.closed).isEqualTo(1);
+        assertThat(right.closed).isEqualTo(1);
+
+        join.release();
+        assertThat(left.released).isEqualTo(1);
+        assertThat(right.released).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should materialize a pipelined right side once and release it when closed")
+    void testJoinMaterializesRight() throws IOException {
+        System.setProperty("TEMPORARY_RELATION_RECORDS", "10");
+        List<Record> leftRecords = records("left", 30);
+        List<Record> rightRecords = records("right", 25);
+        Source right = new Source(rightRecords);
+        Expression expression = new Expression(KEY, KEY, OperatorType.Equal);
+        Relation materializedRight = temporary(rightRecords);
+        List<String> expected = strings(new JoinRelation(
+                new Source(leftRecords), materializedRight, new Expression(KEY, KEY, OperatorType.Equal)));
+        materializedRight.release();
+
+        try (RelationIterator iterator = new JoinRelation(new Source(leftRecords), right, expression).getIterator()) {
+            assertThat(right.opened).isEqualTo(1);
+            assertThat(right.closed).isEqualTo(1);
+            assertThat(spillFiles()).hasSize(1);
+
+            assertThat(strings(iterator)).isEqualTo(expected);
+            assertThat(right.opened).isEqualTo(1);
+        }
+        assertThat(spillFiles()).isEmpty();
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+package net.edudb.relation;
+
+import net.edudb.buffer.BufferManager;
+import net.edudb.data_type.DataType;
+import net.edudb.data_type.IntegerType;
+import net.edudb.engine.Config;
+import net.edudb.engine.FileManager;
+import net.edudb.exception.DatabaseAlreadyExistException;
+import net.edudb.page.BinaryPage;
+import net.edudb.page.Page;
+import net.edudb.structure.Column;
+import net.edudb.structure.Record;
+import net.edudb.structure.RecordBatch;
+import net.edudb.structure.TableRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Scans relations larger than {@link Config#scanRingThreshold()}, which read
+ * their pages through a buffer ring.
+ */
+class RelationIteratorTest {
+    @TempDir
+    Path directory;
+
+    private static final String WORKSPACE_NAME = "workspace";
+    private static final String DATABASE_NAME = "database";
+    private static final int RING_PAGES = 4;
+    private static final int RELATION_PAGES = 3 * RING_PAGES;
+    private static final Column ID = new Column(1, "id", "table", "integer");
+
+    @BeforeEach
+    void setUp() throws DatabaseAlreadyExistException {
+        System.setProperty("SCAN_RING_THRESHOLD", Integer.toString(RING_PAGES));
+        System.setProperty("SCAN_RING_PAGES", Integer.toString(RING_PAGES));
+        Config.setAbsolutePath(directory);
+        Config.setCurrentWorkspace(WORKSPACE_NAME);
+        Config.setCurrentDatabaseName(DATABASE_NAME);
+        FileManager.getInstance().createDatabase(WORKSPACE_NAME, DATABASE_NAME);
+    }
+
+    @AfterEach
+    void tearDown() {
+        BufferManager.getInstance().removeDatabase(WORKSPACE_NAME, DATABASE_NAME);
+        System.clearProperty("SCAN_RING_THRESHOLD");
+        System.clearProperty("SCAN_RING_PAGES");
+        Config.cleanThreadLocal();
+        Config.setAbsolutePath(null);
+    }
+
+    /**
+     * Writes pages that each hold a record with their number, and removes
+     * them from the buffer pool so that a scan has to read them from disk.
+     */
+    private static ArrayList<String> writePages(int count) {
+        ArrayList<String> pageNames = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Page page = new BinaryPage();
+            page.acquireLock();
+            LinkedHashMap<Column, DataType> data = new LinkedHashMap<>();
+            data.put(ID, new IntegerType(i));
+            page.addRecord(new TableRecord(data));
+            page.releaseLock();
+            BufferManager.getInstance().write(WORKSPACE_NAME, DATABASE_NAME, page);
+            pageNames.add(page.getName());
+        }
+        BufferManager.getInstance().writeAll(WORKSPACE_NAME, DATABASE_NAME);
+        return pageNames;
+    }
+
+    private static Page read(String pageName) {
+        return BufferManager.getInstance().read(WORKSPACE_NAME, DATABASE_NAME, pageName);
+    }
+
+    @Test
+    @DisplayName("should read every record of a relation larger than the ring")
+    void testScan() {
+        ArrayList<String> pageNames = writePages(RELATION_PAGES);
+
+        List<String> ids = new ArrayList<>();
+        try (RelationIterator iterator = new RelationIterator(pageNames)) {
+            while (iterator.hasNext()) {
+                Record record = iterator.next();
+                ids.add(record.getData().get(ID).toString());
+            }
+        }
+
+        assertThat(ids).hasSize(RELATION_PAGES);
+        for (int i = 0; i < RELATION_PAGES; i++) {
+            assertThat(ids.get(i)).isEqualTo(Integer.toString(i));
+        }
+    }
+
+    @Test
+    @DisplayName("should remove the pages it read from the pool without removing buffered pages")
+    void testScanReleasesPages() {
+        ArrayList<String> pageNames = writePages(RELATION_PAGES + 1);
+        String hotName = pageNames.remove(RELATION_PAGES);
+        Page hot = read(hotName);
+
+        List<Page> scanned = new ArrayList<>();
+        try (RelationIterator iterator = new RelationIterator(pageNames)) {
+            while (iterator.hasNext()) {
+                iterator.next();
+                scanned.add(iterator.getCurrentPage());
+            }
+        }
+
+        assertThat(read(hotName)).isSameAs(hot);
+        for (Page page : scanned) {
+            assertThat(read(page.getName())).isNotSameAs(page);
+        }
+    }
+
+    @Test
+    @DisplayName("should fill batches with the live records of every page")
+    void testNextBatch() {
+        ArrayList<String> pageNames = new ArrayList<>();
+        List<String> live = new ArrayList<>();
+        int id = 0;
+        while (id < 2 * RecordBatch.CAPACITY + RecordBatch.CAPACITY / 2) {
+            Page page = new BinaryPage();
+            page.acquireLock();
+            for (int i = 0; i < Math.min(page.capacity(), RecordBatch.CAPACITY / 3); i++, id++) {
+                LinkedHashMap<Column, DataType> data = new LinkedHashMap<>();
+                data.put(ID, new IntegerType(id));
+                TableRecord record = new TableRecord(data);
+                if (id % 3 == 0) {
+                    record.delete();
+                } else {
+                    live.add(Integer.toString(id));
+                }
+                page.addRecord(record);
+            }
+            page.releaseLock();
+            BufferManager.getInstance().write(WORKSPACE_NAME, DATABASE_NAME, page);
+            pageNames.add(page.getName());
+        }
+
+        List<String> ids = new ArrayList<>();
+        RecordBatch batch = new RecordBatch();
+        try (RelationIterator iterator = new RelationIterator(pageNames)) {
+            while (iterator.nextBatch(batch)) {
+                for (int i = 0; i < batch.selectedCount(); i++) {
+                    ids.add(batch.selected(i).getData().get(ID).toString());
+                }
+            }
+        }
+
+        assertThat(ids).isEqualTo(live);
+    }
+
+    @Test
+    @DisplayName("should remove the pages it read from the pool when closed before the end")
+    void testCloseReleasesPages() {
+        ArrayList<String> pageNames = writePages(RELATION_PAGES);
+
+        List<Page> scanned = new ArrayList<>();
+        RelationIterator iterator = new RelationIterator(pageNames);
+        for (int i = 0; i < RING_PAGES + 2 && iterator.hasNext(); i++) {
+            iterator.next();
+            scanned.add(iterator.getCurrentPage());
+        }
+        iterator.close();
+
+        assertThat(scanned).hasSize(RING_PAGES + 2);
+        for (Page page : scanned) {
+            assertThat(read(page.getName())).isNotSameAs(page);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+
+package net.edudb.relation;
+
+import com.google.common.jimfs.Configuration;
+import com.google.common.jimfs.Jimfs;
+import net.edudb.data_type.DataType;
+import net.edudb.data_type.IntegerType;
+import net.edudb.engine.Config;
+import net.edudb.expression.Expression;
+import net.edudb.expression.OperatorType;
+import net.edudb.structure.Column;
+import net.edudb.structure.Record;
+import net.edudb.structure.TableRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SortMergeJoinRelationTest {
+    private static FileSystem fs;
+    private static final Column KEY = new Column(2);
+
+    @BeforeEach
+    void setUp() {
+        fs = Jimfs.newFileSystem(Configuration.unix());
+        Config.setAbsolutePath(fs.getPath("test"));
+        System.setProperty("TEMPORARY_RELATION_RECORDS", "16");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        System.clearProperty("TEMPORARY_RELATION_RECORDS");
+        Config.setAbsolutePath(null);
+        fs.close();
+    }
+
+    /**
+     * @param keys The key of every record, null for a null key.
+     */
+    private static Relation relation(String tableName, Integer... keys) {
+        TemporaryRelation relation = new TemporaryRelation();
+        for (int i = 0; i < keys.length; i++) {
+            LinkedHashMap<Column, DataType> data = new LinkedHashMap<>();
+            data.put(new Column(1, "id", tableName, "integer"), new IntegerType(i));
+            data.put(new Column(2, "key", tableName, "integer"), keys[i] == null ? null : new IntegerType(keys[i]));
+            relation.addRecord(new TableRecord(data));
+        }
+        return relation;
+    }
+
+    private static Integer[] keys(int count, int modulo) {
+        Integer[] keys = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = i % 11 == 0 ? null : (i * 7) % modulo;
+        }
+        return keys;
+    }
+
+    private static List<Record> records(Relation relation) {
+        List<Record> records = new ArrayList<>();
+        try (RelationIterator iterator = relation.getIterator()) {
+            while (iterator.hasNext()) {
+                records.add(iterator.next());
+            }
+        }
+        return records;
+    }
+
+    private static List<Integer> keysOf(List<Record> records) {
+        List<Integer> keys = new ArrayList<>();
+        for (Record record : records) {
+            DataType key = record.getData().get(KEY);
+            keys.add(key == null ? null : ((IntegerType) key).getInteger());
+        }
+        return keys;
+    }
+
+    @Test
+    @DisplayName("should sort records spilled in several runs, null keys first")
+    void testSortedRelation() {
+        List<Record> records = records(new SortedRelation(relation("numbers", keys(100, 13)), KEY));
+
+        List<Integer> keys = keysOf(records);
+        assertThat(keys).hasSize(100);
+        assertThat(keys.subList(0, 10)).containsOnlyNulls();
+        assertThat(keys.subList(10, 100)).doesNotContainNull().isSorted();
+    }
+
+    @Test
+    @DisplayName("should join the same records as a hash join, sorted by the join column")
+    void testJoin() {
+        Relation left = relation("left", keys(120, 17));
+        Relation right = relation("right", keys(50, 23));
+        Expression expression = new Expression(KEY, KEY, OperatorType.Equal);
+
+        List<Record> joined = records(new SortMergeJoinRelation(left, right, expression));
+        List<Record> hashJoined = records(new HashJoinRelation(left, right, expression));
+
+        assertThat(joined).isNotEmpty();
+        assertThat(keysOf(joined)).doesNotContainNull().isSorted();
+        assertThat(joined.stream().map(Record::toString).sorted())
+                .containsExactlyElementsOf(hashJoined.stream().map(Record::toString).sorted().toList());
+    }
+
+    @Test
+    @DisplayName("should merge inputs that are already sorted by their join columns")
+    void testSortedInputs() {
+        Relation left = new SortedRelation(relation("left", 3, 1, 2, 2), KEY);
+        Relation right = new SortedRelation(relation("right", 2, 3, 2), KEY);
+        Expression expression = new Expression(KEY, KEY, OperatorType.Equal);
+
+        assertThat(SortMergeJoinRelation.inputsSorted(left, right, expression)).isTrue();
+        assertThat(SortMergeJoinRelation.inputsSorted(relation("left", 1), right, expression)).isFalse();
+        assertThat(keysOf(records(new SortMergeJoinRelation(left, right, expression)))).containsExactly(2, 2, 2, 2, 3);
+    }
+}
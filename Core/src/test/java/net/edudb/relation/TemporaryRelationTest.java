@@ -0,0 +1,161 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+
+package net.edudb.relation;
+
+import com.google.common.jimfs.Configuration;
+import com.google.common.jimfs.Jimfs;
+import net.edudb.data_type.DataType;
+import net.edudb.data_type.IntegerType;
+import net.edudb.engine.Config;
+import net.edudb.structure.Column;
+import net.edudb.structure.Record;
+import net.edudb.structure.TableRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TemporaryRelationTest {
+    private static FileSystem fs;
+    private static final int RECORDS = 10;
+    private static final Column ID = new Column(1);
+
+    @BeforeEach
+    void setUp() {
+        fs = Jimfs.newFileSystem(Configuration.unix());
+        Config.setAbsolutePath(fs.getPath("test"));
+        System.setProperty("TEMPORARY_RELATION_RECORDS", String.valueOf(RECORDS));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        System.clearProperty("TEMPORARY_RELATION_RECORDS");
+        Config.setAbsolutePath(null);
+        fs.close();
+    }
+
+    private static TemporaryRelation relation(int count) {
+        TemporaryRelation relation = new TemporaryRelation();
+        for (int i = 0; i < count; i++) {
+            LinkedHashMap<Column, DataType> data = new LinkedHashMap<>();
+            data.put(new Column(1, "id", "table", "integer"), new IntegerType(i));
+            relation.addRecord(new TableRecord(data));
+        }
+        return relation;
+    }
+
+    private static int id(Record record) {
+        return ((IntegerType) record.getData().get(ID)).getInteger();
+    }
+
+    private static List<Integer> ids(RelationIterator iterator) {
+        List<Integer> ids = new ArrayList<>();
+        while (iterator.hasNext()) {
+            ids.add(id(iterator.next()));
+        }
+        return ids;
+    }
+
+    private static List<Integer> range(int count) {
+        return IntStream.range(0, count).boxed().toList();
+    }
+
+    private static List<Path> spillFiles() throws IOException {
+        if (!Files.exists(Config.temporaryPath())) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(Config.temporaryPath())) {
+            return files.toList();
+        }
+    }
+
+    @Test
+    @DisplayName("should keep the records in memory while they are fewer than the limit")
+    void testInMemory() throws IOException {
+        TemporaryRelation relation = relation(RECORDS - 1);
+
+        assertThat(spillFiles()).isEmpty();
+        try (RelationIterator iterator = relation.getIterator()) {
+            assertThat(ids(iterator)).isEqualTo(range(RECORDS - 1));
+        }
+    }
+
+    @Test
+    @DisplayName("should spill the records to a single file once they reach the limit")
+    void testSpill() throws IOException {
+        TemporaryRelation relation = relation(RECORDS);
+        assertThat(spillFiles()).hasSize(1);
+        long chunkSize = Files.size(spillFiles().get(0));
+        relation.release();
+
+        relation(3 * RECORDS + 5);
+
+        // three chunks appended to one file, the last five records in memory
+        assertThat(spillFiles()).hasSize(1);
+        assertThat(Files.size(spillFiles().get(0))).isGreaterThan(2 * chunkSize);
+    }
+
+    @Test
+    @DisplayName("should read the spilled chunks back in order, followed by the records in memory")
+    void testReadBack() {
+        TemporaryRelation relation = relation(3 * RECORDS + 5);
+
+        try (RelationIterator first = relation.getIterator();
+             RelationIterator second = relation.getIterator()) {
+            assertThat(ids(first)).isEqualTo(range(3 * RECORDS + 5));
+            assertThat(first.next()).isNull();
+            assertThat(ids(second)).isEqualTo(range(3 * RECORDS + 5));
+        }
+    }
+
+    @Test
+    @DisplayName("should iterate from the first chunk again when reset in the middle of a chunk")
+    void testReset() {
+        TemporaryRelation relation = relation(3 * RECORDS + 5);
+
+        try (RelationIterator iterator = relation.getIterator()) {
+            for (int i = 0; i < RECORDS + 3; i++) {
+                assertThat(id(iterator.next())).isEqualTo(i);
+            }
+            iterator.reset();
+            assertThat(ids(iterator)).isEqualTo(range(3 * RECORDS + 5));
+
+            iterator.reset();
+            assertThat(ids(iterator)).isEqualTo(range(3 * RECORDS + 5));
+        }
+    }
+
+    @Test
+    @DisplayName("should delete the spill file and drop the records when released")
+    void testRelease() throws IOException {
+        TemporaryRelation relation = relation(2 * RECORDS + 5);
+        assertThat(spillFiles()).hasSize(1);
+
+        relation.release();
+
+        assertThat(spillFiles()).isEmpty();
+        try (RelationIterator iterator = relation.getIterator()) {
+            assertThat(iterator.hasNext()).isFalse();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+
+package net.edudb.statistics;
+
+import com.google.common.jimfs.Configuration;
+import com.google.common.jimfs.Jimfs;
+import net.edudb.engine.Config;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogSnapshotTest {
+    private static FileSystem fs;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        fs = Jimfs.newFileSystem(Configuration.unix());
+        Config.setAbsolutePath(fs.getPath("test"));
+        Files.createDirectories(Config.absolutePath());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Config.setAbsolutePath(null);
+        fs.close();
+    }
+
+    private static Map<String, List<String>> catalog() {
+        Map<String, List<String>> catalog = new LinkedHashMap<>();
+        catalog.put("workspace1", List.of("database1", "database2"));
+        catalog.put("workspace2", List.of());
+        catalog.put("workspace3", null);
+        return catalog;
+    }
+
+    @Test
+    @DisplayName("should read back the workspaces and databases it was written with")
+    void testRoundTrip() {
+        CatalogSnapshot.write(catalog());
+
+        Map<String, List<String>> snapshot = CatalogSnapshot.read();
+
+        assertThat(snapshot).isEqualTo(catalog());
+        assertThat(snapshot.keySet()).containsExactly("workspace1", "workspace2", "workspace3");
+    }
+
+    @Test
+    @DisplayName("should delete the snapshot once it is read")
+    void testDeleteOnRead() {
+        CatalogSnapshot.write(catalog());
+
+        assertThat(CatalogSnapshot.read()).isNotNull();
+
+        assertThat(Config.catalogSnapshotPath()).doesNotExist();
+        assertThat(CatalogSnapshot.read()).isNull();
+    }
+
+    @Test
+    @DisplayName("should ignore and delete a snapshot that is torn or not a snapshot")
+    void testInvalidSnapshot() throws IOException {
+        CatalogSnapshot.write(catalog());
+        byte[] snapshot = Files.readAllBytes(Config.catalogSnapshotPath());
+        Files.write(Config.catalogSnapshotPath(), Arrays.copyOf(snapshot, snapshot.length - 4));
+
+        assertThat(CatalogSnapshot.read()).isNull();
+        assertThat(Config.catalogSnapshotPath()).doesNotExist();
+
+        Files.write(Config.catalogSnapshotPath(), "workspace1 database1".getBytes());
+
+        assertThat(CatalogSnapshot.read()).isNull();
+        assertThat(Config.catalogSnapshotPath()).doesNotExist();
+    }
+}
@@ -22,6 +22,7 @@ import org.junit.jupiter.api.Test;
 import java.io.IOException;
 import java.nio.file.FileSystem;
 import java.nio.file.Files;
+import java.util.Arrays;
 
 public class WorkspaceSchemaTest {
     private static FileSystem fs; // in-memory file system for testing
@@ -56,4 +57,16 @@ public class WorkspaceSchemaTest {
             Assertions.assertEquals(database, workspaceSchema.getDatabase(database).getDatabaseName());
         }
     }
+
+    @Test
+    public void testGetLoadedDatabase() throws DatabaseNotFoundException {
+        WorkspaceSchema workspaceSchema = new WorkspaceSchema(WORKSPACE_NAME, Arrays.asList(DATABASES_NAMES));
+        Assertions.assertNull(workspaceSchema.getDatabases().get(DATABASES_NAMES[0]));
+
+        DatabaseSchema databaseSchema = workspaceSchema.getDatabase(DATABASES_NAMES[0]);
+
+        Assertions.assertNotNull(databaseSchema);
+        Assertions.assertSame(databaseSchema, workspaceSchema.getDatabase(DATABASES_NAMES[0]));
+        Assertions.assertNull(workspaceSchema.getDatabases().get(DATABASES_NAMES[1]));
+    }
 }
@@ -0,0 +1,211 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+
+package net.edudb.structure.table;
+
+import com.google.common.jimfs.Configuration;
+import com.google.common.jimfs.Jimfs;
+import net.edudb.buffer.BufferManager;
+import net.edudb.data_type.DataType;
+import net.edudb.data_type.IntegerType;
+import net.edudb.engine.Config;
+import net.edudb.engine.FileManager;
+import net.edudb.exception.DatabaseAlreadyExistException;
+import net.edudb.page.PageManager;
+import net.edudb.structure.Column;
+import net.edudb.structure.TableRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TableDeltaTest {
+    private static FileSystem fs;
+    private static final String WORKSPACE_NAME = "workspace";
+    private static final String DATABASE_NAME = "database";
+    private static final String TABLE_NAME = "table";
+
+    private final TableWriter writer = new BinaryTableWriter();
+    private final TableReader reader = new BinaryTableReader();
+
+    @BeforeEach
+    void setUp() throws DatabaseAlreadyExistException {
+        fs = Jimfs.newFileSystem(Configuration.unix());
+        Config.setAbsolutePath(fs.getPath("test"));
+        FileManager.getInstance().createDatabase(WORKSPACE_NAME, DATABASE_NAME);
+        Config.setCurrentWorkspace(WORKSPACE_NAME);
+        Config.setCurrentDatabaseName(DATABASE_NAME);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        BufferManager.getInstance().removeDatabase(WORKSPACE_NAME, DATABASE_NAME);
+        Config.cleanThreadLocal();
+        Config.setAbsolutePath(null);
+        fs.close();
+    }
+
+    private static void addRecords(Table table, int count) {
+        for (int i = 0; i < count; i++) {
+            LinkedHashMap<Column, DataType> data = new LinkedHashMap<>();
+            data.put(new Column(1, "id", TABLE_NAME, "integer"), new IntegerType(i));
+            table.addRecord(new TableRecord(data));
+        }
+    }
+
+    private void write(Table table) throws IOException {
+        writer.write(WORKSPACE_NAME, DATABASE_NAME, table);
+    }
+
+    private Table read() throws IOException, ClassNotFoundException {
+        return reader.read(WORKSPACE_NAME, DATABASE_NAME, TABLE_NAME);
+    }
+
+    private static Path tablePath() {
+        return Config.tablePath(WORKSPACE_NAME, DATABASE_NAME, TABLE_NAME);
+    }
+
+    private static Path deltaPath() {
+        return Config.tableDeltaPath(WORKSPACE_NAME, DATABASE_NAME, TABLE_NAME);
+    }
+
+    @Test
+    @DisplayName("should append the pages added after a full write and read them back")
+    void testAppend() throws IOException, ClassNotFoundException {
+        Table table = new BinaryTable(TABLE_NAME);
+        addRecords(table, Config.PAGE_SIZE);
+        write(table);
+        byte[] tableFile = Files.readAllBytes(tablePath());
+        assertThat(deltaPath()).doesNotExist();
+
+        addRecords(table, 2 * Config.PAGE_SIZE);
+        write(table);
+        long deltaSize = Files.size(deltaPath());
+        addRecords(table, Config.PAGE_SIZE);
+        write(table);
+
+        assertThat(Files.readAllBytes(tablePath())).isEqualTo(tableFile);
+        assertThat(Files.size(deltaPath())).isGreaterThan(deltaSize);
+
+        PageManager pageManager = read().getPageManager();
+        assertThat(pageManager.getPageNames()).hasSize(4)
+                .containsExactlyElementsOf(table.getPageManager().getPageNames());
+        assertThat(pageManager.getGeneration()).isEqualTo(table.getPageManager().getGeneration());
+        assertThat(pageManager.canWriteDelta()).isTrue();
+    }
+
+    @Test
+    @DisplayName("should keep a table modified until a write of it succeeds")
+    void testFailedWrite() throws IOException, ClassNotFoundException {
+        Table table = new BinaryTable(TABLE_NAME);
+        addRecords(table, Config.PAGE_SIZE);
+        PageManager pageManager = table.getPageManager();
+        // the table is serialized, but cannot replace a directory that is in its way
+        Path blocker = Files.createDirectories(tablePath()).resolve("file");
+        Files.createFile(blocker);
+
+        assertThatThrownBy(() -> write(table)).isInstanceOf(IOException.class);
+        assertThat(pageManager.isModified()).isTrue();
+        assertThat(pageManager.getGeneration()).isZero();
+
+        Files.delete(blocker);
+        Files.delete(tablePath());
+        write(table);
+
+        assertThat(pageManager.isModified()).isFalse();
+        assertThat(pageManager.getGeneration()).isEqualTo(1);
+        assertThat(read().getPageManager().getGeneration()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should ignore a delta file left from an earlier generation")
+    void testStaleGeneration() throws IOException, ClassNotFoundException {
+        Table table = new BinaryTable(TABLE_NAME);
+        addRecords(table, Config.PAGE_SIZE);
+        write(table);
+        addRecords(table, Config.PAGE_SIZE);
+        write(table);
+        byte[] staleDelta = Files.readAllBytes(deltaPath());
+
+        table.getPageManager().requireRewrite();
+        write(table);
+        assertThat(deltaPath()).doesNotExist();
+        // a full write that did not get to delete the delta file
+        Files.write(deltaPath(), staleDelta);
+
+        PageManager pageManager = read().getPageManager();
+        assertThat(pageManager.getGeneration()).isEqualTo(2);
+        assertThat(pageManager.getPageNames()).containsExactlyElementsOf(table.getPageManager().getPageNames());
+        assertThat(pageManager.canWriteDelta()).isTrue();
+    }
+
+    @Test
+    @DisplayName("should apply the whole frames of a torn delta file and require a full write")
+    void testTornFrame() throws IOException, ClassNotFoundException {
+        Table table = new BinaryTable(TABLE_NAME);
+        addRecords(table, Config.PAGE_SIZE);
+        write(table);
+        addRecords(table, Config.PAGE_SIZE);
+        write(table);
+        int pageCount = table.getPageManager().getPageNames().size();
+        addRecords(table, Config.PAGE_SIZE);
+        write(table);
+
+        byte[] delta = Files.readAllBytes(deltaPath());
+        Files.write(deltaPath(), Arrays.copyOf(delta, delta.length - 3));
+
+        PageManager pageManager = read().getPageManager();
+        assertThat(pageManager.getPageNames())
+                .containsExactlyElementsOf(table.getPageManager().getPageNames().subList(0, pageCount));
+        assertThat(pageManager.canWriteDelta()).isFalse();
+    }
+
+    @Test
+    @DisplayName("should write the table in full once its delta file outgrows it")
+    void testOutgrownDelta() throws IOException, ClassNotFoundException {
+        Table table = new BinaryTable(TABLE_NAME);
+        addRecords(table, Config.PAGE_SIZE);
+        write(table);
+
+        int appends = 0;
+        long deltaSize = 0;
+        long tableSize = 0;
+        while (table.getPageManager().getGeneration() == 1) {
+            assertThat(appends).isLessThan(100);
+            addRecords(table, Config.PAGE_SIZE);
+            deltaSize = Files.exists(deltaPath()) ? Files.size(deltaPath()) : 0;
+            tableSize = Files.size(tablePath());
+            write(table);
+            appends++;
+        }
+
+        assertThat(appends).isGreaterThan(1);
+        assertThat(deltaSize).isGreaterThanOrEqualTo(tableSize);
+        assertThat(deltaPath()).doesNotExist();
+        assertThat(read().getPageManager().getPageNames())
+                .containsExactlyElementsOf(table.getPageManager().getPageNames());
+
+        addRecords(table, Config.PAGE_SIZE);
+        write(table);
+        assertThat(deltaPath()).exists();
+        assertThat(read().getPageManager().getPageNames())
+                .containsExactlyElementsOf(table.getPageManager().getPageNames());
+    }
+}
@@ -0,0 +1,349 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+
+package net.edudb.wal;
+
+import net.edudb.buffer.BufferManager;
+import net.edudb.data_type.DataType;
+import net.edudb.data_type.IntegerType;
+import net.edudb.data_type.VarCharType;
+import net.edudb.engine.Config;
+import net.edudb.engine.FileManager;
+import net.edudb.exception.DatabaseAlreadyExistException;
+import net.edudb.exception.DatabaseNotFoundException;
+import net.edudb.exception.IndexAlreadyExistException;
+import net.edudb.exception.RecoveryFailedException;
+import net.edudb.exception.TableAlreadyExistException;
+import net.edudb.exception.TableNotFoundException;
+import net.edudb.index.IndexManager;
+import net.edudb.page.PageManager;
+import net.edudb.relation.RelationIterator;
+import net.edudb.relation.VolatileRelation;
+import net.edudb.structure.Column;
+import net.edudb.structure.Record;
+import net.edudb.structure.TableRecord;
+import net.edudb.structure.table.Table;
+import net.edudb.structure.table.TableManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Changes are made through the managers the engine uses, then the server is
+ * crashed by dropping the buffered pages and tables without writing them.
+ */
+class RecoveryTest {
+    @TempDir
+    Path directory;
+
+    private static final String WORKSPACE_NAME = "workspace";
+    private static final String DATABASE_NAME = "database";
+    private static final String TABLE_NAME = "table";
+    private static final String TABLE_SCHEMA = TABLE_NAME + " id integer name varchar";
+
+    private final WriteAheadLog log = WriteAheadLog.getInstance();
+    private final BufferManager bufferManager = BufferManager.getInstance();
+    private final TableManager tableManager = TableManager.getInstance();
+
+    @BeforeEach
+    void setUp() throws DatabaseAlreadyExistException {
+        Config.setAbsolutePath(directory);
+        FileManager.getInstance().createDatabase(WORKSPACE_NAME, DATABASE_NAME);
+        log.open();
+        useDatabase();
+    }
+
+    @AfterEach
+    void tearDown() {
+        log.close();
+        crash();
+        Config.cleanThreadLocal();
+        Config.setAbsolutePath(null);
+    }
+
+    private static void useDatabase() {
+        Config.setCurrentWorkspace(WORKSPACE_NAME);
+        Config.setCurrentDatabaseName(DATABASE_NAME);
+    }
+
+    /**
+     * Creates a table the way the engine does, logging it once it is written.
+     */
+    private Table createTable() throws TableAlreadyExistException, DatabaseNotFoundException {
+        Table table = tableManager.createTable(WORKSPACE_NAME, DATABASE_NAME, TABLE_SCHEMA, columnTypes());
+        log.append(LogRecord.createTable(WORKSPACE_NAME, DATABASE_NAME, TABLE_SCHEMA, columnTypes()));
+        log.commit();
+        return table;
+    }
+
+    private void dropTable() throws TableNotFoundException, DatabaseNotFoundException {
+        tableManager.deleteTable(WORKSPACE_NAME, DATABASE_NAME, TABLE_NAME);
+        log.append(LogRecord.dropTable(WORKSPACE_NAME, DATABASE_NAME, TABLE_NAME));
+        log.commit();
+    }
+
+    private static LinkedHashMap<String, String> columnTypes() {
+        LinkedHashMap<String, String> columnTypes = new LinkedHashMap<>();
+        columnTypes.put("id", "integer");
+        columnTypes.put("name", "varchar");
+        return columnTypes;
+    }
+
+    private void insert(Table table, String... names) {
+        for (String name : names) {
+            LinkedHashMap<Column, DataType> data = new LinkedHashMap<>();
+            data.put(new Column(1, "id", TABLE_NAME, "integer"), new IntegerType(name.length()));
+            data.put(new Column(2, "name", TABLE_NAME, "varchar"), new VarCharType(name));
+            table.addRecord(new TableRecord(data));
+            log.commit();
+        }
+    }
+
+    private void deleteAll(Table table) {
+        PageManager pageManager = table.getPageManager();
+        pageManager.acquireSharedLock();
+        try (RelationIterator iterator = new VolatileRelation(table).getIterator()) {
+            while (iterator.hasNext()) {
+                Record record = iterator.next();
+                pageManager.deleteRecord(iterator.getCurrentPage(), iterator.getCurrentRecordIndex(), record);
+            }
+        } finally {
+            pageManager.releaseSharedLock();
+        }
+        log.commit();
+    }
+
+    private void write(Table table) {
+        bufferManager.flushDirty();
+        tableManager.writeTable(WORKSPACE_NAME, DATABASE_NAME, table);
+    }
+
+    /**
+     * Loses everything that is only in memory: the buffered pages, the
+     * buffered tables and the log records that were not committed.
+     */
+    private void crash() {
+        log.close();
+        bufferManager.removeDatabase(WORKSPACE_NAME, DATABASE_NAME);
+        tableManager.removeDatabase(WORKSPACE_NAME, DATABASE_NAME);
+    }
+
+    private Map<String, Map<String, Set<String>>> recover() {
+        Map<String, Map<String, Set<String>>> changedTables = new Recovery().redo(log.read());
+        useDatabase();
+        return changedTables;
+    }
+
+    private List<String> names() {
+        List<String> names = new ArrayList<>();
+        Table table = tableManager.readTable(WORKSPACE_NAME, DATABASE_NAME, TABLE_NAME);
+        try (RelationIterator iterator = new VolatileRelation(table).getIterator()) {
+            while (iterator.hasNext()) {
+                names.add(iterator.next().getValue("name").toString());
+            }
+        }
+        return names;
+    }
+
+    @Test
+    @DisplayName("should redo the committed inserts whose pages never reached the disk")
+    void testRedoInserts() throws TableAlreadyExistException, DatabaseNotFoundException {
+        Table table = createTable();
+        insert(table, "a", "bb", "ccc");
+
+        crash();
+        Map<String, Map<String, Set<String>>> changedTables = recover();
+
+        assertThat(changedTables.get(WORKSPACE_NAME).get(DATABASE_NAME)).containsExactly(TABLE_NAME);
+        assertThat(names()).containsExactly("a", "bb", "ccc");
+    }
+
+    @Test
+    @DisplayName("should skip the changes the pages on disk already have")
+    void testSkipWrittenChanges() throws TableAlreadyExistException, DatabaseNotFoundException {
+        Table table = createTable();
+        insert(table, "a", "bb");
+        bufferManager.flushDirty();
+        tableManager.writeTable(WORKSPACE_NAME, DATABASE_NAME, table);
+
+        crash();
+        Map<String, Map<String, Set<String>>> changedTables = recover();
+
+        assertThat(changedTables).isEmpty();
+        assertThat(names()).containsExactly("a", "bb");
+    }
+
+    @Test
+    @DisplayName("should only redo the changes made after the pages were written")
+    void testRedoChangesAfterWrite() throws TableAlreadyExistException, DatabaseNotFoundException {
+        Table table = createTable();
+        insert(table, "a");
+        bufferManager.flushDirty();
+        tableManager.writeTable(WORKSPACE_NAME, DATABASE_NAME, table);
+        insert(table, "bb");
+
+        crash();
+        recover();
+
+        assertThat(names()).containsExactly("a", "bb");
+    }
+
+    @Test
+    @DisplayName("should not add a logged new page to a table written after it")
+    void testNewPageBeforeTableWrite() throws TableAlreadyExistException, DatabaseNotFoundException {
+        Table table = createTable();
+        insert(table, "a", "bb");
+        PageManager pageManager = table.getPageManager();
+        pageManager.vacuum();
+        assertThat(pageManager.flushPages()).isTrue();
+        tableManager.writeTable(WORKSPACE_NAME, DATABASE_NAME, table);
+        pageManager.deleteVacuumedPages();
+
+        crash();
+        recover();
+
+        assertThat(names()).containsExactly("a", "bb");
+    }
+
+    @Test
+    @DisplayName("should scan a page written dead once an insert into it is redone")
+    void testInsertAfterDeleteAll() throws TableAlreadyExistException, DatabaseNotFoundException {
+        Table table = createTable();
+        insert(table, "a", "bb");
+        deleteAll(table);
+        write(table);
+        assertThat(table.getPageManager().getDeadPages().get(0)).isTrue();
+        insert(table, "ccc");
+
+        crash();
+        recover();
+
+        Table recovered = tableManager.readTable(WORKSPACE_NAME, DATABASE_NAME, TABLE_NAME);
+        assertThat(recovered.getPageManager().getDeadPages().get(0)).isFalse();
+        assertThat(names()).containsExactly("ccc");
+    }
+
+    @Test
+    @DisplayName("should mark the slots and pages freed by redone deletes")
+    void testRedoDeleteAll() throws TableAlreadyExistException, DatabaseNotFoundException {
+        Table table = createTable();
+        insert(table, "a", "bb");
+        write(table);
+        deleteAll(table);
+
+        crash();
+        recover();
+
+        Table recovered = tableManager.readTable(WORKSPACE_NAME, DATABASE_NAME, TABLE_NAME);
+        PageManager pageManager = recovered.getPageManager();
+        assertThat(pageManager.getDeadPages().get(0)).isTrue();
+        assertThat(pageManager.needsVacuum()).isTrue();
+        assertThat(names()).isEmpty();
+
+        insert(recovered, "ccc");
+
+        assertThat(pageManager.getPageNames()).hasSize(1);
+        assertThat(names()).containsExactly("ccc");
+    }
+
+    @Test
+    @DisplayName("should create a logged table whose file is missing")
+    void testRedoCreateTable() throws IOException {
+        log.append(LogRecord.createTable(WORKSPACE_NAME, DATABASE_NAME, TABLE_SCHEMA, columnTypes()));
+        log.commit();
+
+        crash();
+        recover();
+
+        assertThat(Config.tablePath(WORKSPACE_NAME, DATABASE_NAME, TABLE_NAME)).exists();
+        assertThat(Files.readAllLines(Config.schemaPath(WORKSPACE_NAME, DATABASE_NAME))).contains(TABLE_SCHEMA);
+    }
+
+    @Test
+    @DisplayName("should drop a logged table that is still on disk")
+    void testRedoDropTable() throws TableAlreadyExistException, DatabaseNotFoundException {
+        Table table = createTable();
+        insert(table, "a");
+        log.append(LogRecord.dropTable(WORKSPACE_NAME, DATABASE_NAME, TABLE_NAME));
+        log.commit();
+
+        crash();
+        Map<String, Map<String, Set<String>>> changedTables = recover();
+
+        assertThat(changedTables.get(WORKSPACE_NAME).get(DATABASE_NAME)).containsExactly(TABLE_NAME);
+        assertThat(Config.tablePath(WORKSPACE_NAME, DATABASE_NAME, TABLE_NAME)).doesNotExist();
+    }
+
+    @Test
+    @DisplayName("should not redo a drop or its table's changes on a table created again")
+    void testDropAndCreateAgain() throws TableAlreadyExistException, DatabaseNotFoundException,
+            TableNotFoundException {
+        insert(createTable(), "old");
+        dropTable();
+        insert(createTable(), "new");
+
+        crash();
+        recover();
+
+        assertThat(names()).containsExactly("new");
+    }
+
+    @Test
+    @DisplayName("should rebuild the indexes from the recovered records")
+    void testRebuildIndex() throws TableAlreadyExistException, DatabaseNotFoundException,
+            IndexAlreadyExistException {
+        Table table = createTable();
+        IndexManager indexManager = new IndexManager();
+        indexManager.createIndex(WORKSPACE_NAME, DATABASE_NAME, table, "name");
+        indexManager.flushAllIndices();
+        indexManager.offloadDatabaseIndices(WORKSPACE_NAME, DATABASE_NAME);
+        insert(table, "a", "bb");
+
+        crash();
+        recover();
+        Table recovered = tableManager.readTable(WORKSPACE_NAME, DATABASE_NAME, TABLE_NAME);
+        IndexManager restarted = new IndexManager();
+        restarted.loadDatabaseIndices(WORKSPACE_NAME, DATABASE_NAME);
+        restarted.rebuildTableIndices(WORKSPACE_NAME, DATABASE_NAME, recovered);
+
+        assertThat(restarted.getIndex(WORKSPACE_NAME, DATABASE_NAME, TABLE_NAME, "name")).hasValueSatisfying(
+                index -> assertThat(index.search(new VarCharType("bb"))).containsExactly(0));
+        restarted.offloadDatabaseIndices(WORKSPACE_NAME, DATABASE_NAME);
+    }
+
+    @Test
+    @DisplayName("should fail on an insert into a slot out of the page's bounds")
+    void testSlotOutOfBounds() throws TableAlreadyExistException, DatabaseNotFoundException {
+        Table table = createTable();
+        insert(table, "a");
+        String pageName = table.getPageManager().getPageNames().get(0);
+        log.append(LogRecord.insert(WORKSPACE_NAME, DATABASE_NAME, TABLE_NAME, pageName, Integer.MAX_VALUE,
+                new TableRecord(new LinkedHashMap<>())));
+        log.commit();
+
+        crash();
+
+        assertThatThrownBy(this::recover).isInstanceOf(RecoveryFailedException.class);
+    }
+}
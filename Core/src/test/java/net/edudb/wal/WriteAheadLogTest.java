@@ -0,0 +1,175 @@
+/*
+ *
+ * EduDB is made available under the OSI-approved MIT license.
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * /
+ */
+
+package net.edudb.wal;
+
+import net.edudb.data_type.DataType;
+import net.edudb.data_type.IntegerType;
+import net.edudb.data_type.VarCharType;
+import net.edudb.engine.Config;
+import net.edudb.structure.Column;
+import net.edudb.structure.TableRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.zip.CRC32;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WriteAheadLogTest {
+    @TempDir
+    Path directory;
+
+    private final WriteAheadLog log = WriteAheadLog.getInstance();
+
+    @BeforeEach
+    void setUp() {
+        Config.setAbsolutePath(directory);
+        log.open();
+    }
+
+    @AfterEach
+    void tearDown() {
+        log.close();
+        Config.setAbsolutePath(null);
+    }
+
+    @Test
+    @DisplayName("should read back the committed records in order")
+    void testReadCommittedRecords() {
+        long first = log.append(LogRecord.delete("w", "d", "t", "p", 0));
+        long second = log.append(LogRecord.delete("w", "d", "t", "p", 1));
+        log.commit();
+        log.close();
+
+        SortedMap<Long, LogRecord> records = log.read();
+
+        assertThat(records.keySet()).containsExactly(first, second);
+        assertThat(records.get(second).getType()).isEqualTo(LogRecordType.DELETE);
+        assertThat(records.get(second).getSlot()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should read back the record images and table definitions of records")
+    void testRecordContents() {
+        LinkedHashMap<Column, DataType> data = new LinkedHashMap<>();
+        data.put(new Column(1, "id", "t", "integer"), new IntegerType(7));
+        data.put(new Column(2, "name", "t", "varchar"), new VarCharType("ahmed"));
+        data.put(new Column(3, "note", "t", "varchar"), null);
+        LinkedHashMap<String, String> columnTypes = new LinkedHashMap<>();
+        columnTypes.put("id", "integer");
+        columnTypes.put("name", "varchar");
+        long insert = log.append(LogRecord.insert("w", "d", "t", "p", 3, new TableRecord(data)));
+        long createTable = log.append(LogRecord.createTable("w", "d", "t id integer name varchar", columnTypes));
+        log.commit();
+        log.close();
+
+        SortedMap<Long, LogRecord> records = log.read();
+
+        LogRecord inserted = records.get(insert);
+        assertThat(inserted.getType()).isEqualTo(LogRecordType.INSERT);
+        assertThat(inserted.getPageName()).isEqualTo("p");
+        assertThat(inserted.getSlot()).isEqualTo(3);
+        assertThat(inserted.getRecord().getData()).isEqualTo(data);
+        assertThat(inserted.getColumnTypes()).isNull();
+        LogRecord created = records.get(createTable);
+        assertThat(created.getTableName()).isEqualTo("t");
+        assertThat(created.getPageName()).isNull();
+        assertThat(created.getTableSchemaLine()).isEqualTo("t id integer name varchar");
+        assertThat(created.getColumnTypes()).containsExactlyEntriesOf(columnTypes);
+    }
+
+    @Test
+    @DisplayName("should read the records older logs wrote with Java serialization")
+    void testSerializedRecord() throws IOException {
+        log.append(LogRecord.delete("w", "d", "t", "p", 0));
+        log.commit();
+        log.close();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(LogRecord.delete("w", "d", "t", "p", 1));
+        }
+        byte[] payload = bytes.toByteArray();
+        CRC32 checksum = new CRC32();
+        checksum.update(payload);
+        Files.write(Config.walSegmentPath(1), ByteBuffer.allocate(2 * Integer.BYTES + payload.length)
+                .putInt(payload.length).putInt((int) checksum.getValue()).put(payload).array(),
+                StandardOpenOption.APPEND);
+
+        SortedMap<Long, LogRecord> records = log.read();
+
+        assertThat(records).hasSize(2);
+        assertThat(records.get(records.lastKey()).getSlot()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should make the records of concurrent sessions durable")
+    void testGroupCommit() throws InterruptedException {
+        List<Thread> sessions = new ArrayList<>();
+        for (int session = 0; session < 8; session++) {
+            String pageName = "p" + session;
+            sessions.add(new Thread(() -> {
+                for (int slot = 0; slot < 50; slot++) {
+                    log.append(LogRecord.delete("w", "d", "t", pageName, slot));
+                    log.commit();
+                }
+            }));
+        }
+        sessions.forEach(Thread::start);
+        for (Thread session : sessions) {
+            session.join();
+        }
+        log.close();
+
+        assertThat(log.read()).hasSize(8 * 50);
+    }
+
+    @Test
+    @DisplayName("should stop reading at a torn record")
+    void testTornRecord() throws IOException {
+        log.append(LogRecord.delete("w", "d", "t", "p", 0));
+        log.commit();
+        log.close();
+
+        Path segment = Config.walSegmentPath(1);
+        Files.write(segment, new byte[]{0, 0, 1, 0, 42}, StandardOpenOption.APPEND);
+
+        assertThat(log.read()).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("should delete the segments before a checkpoint")
+    void testTruncate() {
+        log.append(LogRecord.delete("w", "d", "t", "p", 0));
+        log.commit();
+        int segment = log.rotate();
+        long kept = log.append(LogRecord.delete("w", "d", "t", "p", 1));
+        log.commit();
+
+        log.truncate(segment);
+        log.close();
+
+        assertThat(log.read().keySet()).containsExactly(kept);
+    }
+}
@@ -45,6 +45,7 @@ public class ServerHandler implements RequestHandler {
                 new DropTableExecutor(),
                 new CreateIndexExecutor(),
                 new DropIndexExecutor(),
+                new VacuumExecutor(),
                 new NextRecordsExecutor(),
                 new CloseResultSetExecutor(),
                 new CopyExecutor(),
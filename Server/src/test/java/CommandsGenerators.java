@@ -138,4 +138,10 @@ public class CommandsGenerators {
         System.out.println(query);
         return query;
     }
+
+    static String vacuum(String tableName) {
+        String query = String.format("VACUUM %s", tableName);
+        System.out.println(query);
+        return query;
+    }
 }
@@ -11,6 +11,7 @@ import com.google.common.jimfs.Configuration;
 import com.google.common.jimfs.Jimfs;
 import net.edudb.Request;
 import net.edudb.Response;
+import net.edudb.ResponseStatus;
 import net.edudb.Server;
 import net.edudb.ServerHandler;
 import net.edudb.data_type.DataType;
@@ -548,4 +549,41 @@ class MainCommandsTest {
         assertThat(records).hasSize(1);
         validateRecord(records.get(0), TABLE_DATA[0]);
     }
+
+    @Test
+    @DisplayName("should select with index correctly after vacuum")
+    void testSelectUsingIndexAfterVacuum() {
+        Config.setAbsolutePath(tempDir.toPath()); // you can not use fs with indices tests
+        // Create database
+        sendCommand(CommandsGenerators.createDatabase(DATABASE_NAME), null);
+        // Create table
+        sendCommand(CommandsGenerators.createTable(TABLE_NAME, TABLE_SCHEMA));
+        // Insert
+        sendCommand(CommandsGenerators.insertIntoTable(TABLE_NAME, TABLE_DATA[0]));
+        sendCommand(CommandsGenerators.insertIntoTable(TABLE_NAME, TABLE_DATA[2]));
+        // Create index
+        sendCommand(CommandsGenerators.createIndex(TABLE_NAME, TABLE_SCHEMA[0][0]));
+        // Delete
+        sendCommand(CommandsGenerators.deleteFromTable(TABLE_NAME, new String[][]{
+                {TABLE_SCHEMA[0][0], TABLE_DATA[0][0]}
+        }));
+        // Vacuum
+        Response vacuumResponse = sendCommand(CommandsGenerators.vacuum(TABLE_NAME));
+        assertThat(vacuumResponse.getStatus()).isEqualTo(ResponseStatus.OK);
+
+        // Select
+        Response selectResponse = sendCommand(CommandsGenerators.selectFromTable(TABLE_NAME, new String[][]{
+                {TABLE_SCHEMA[0][0], TABLE_DATA[2][0]}
+        }));
+
+        assertThat(selectResponse.getResultSetId()).isNotNull();
+        String resultSetId = selectResponse.getResultSetId();
+
+        Config.setCurrentWorkspace(WORKSPACE_NAME);
+        Config.setCurrentDatabaseName(DATABASE_NAME);
+        List<Record> records = DatabaseEngine.getInstance().getNextRecord(WORKSPACE_NAME, DATABASE_NAME, resultSetId, 100);
+
+        assertThat(records).hasSize(1);
+        validateRecord(records.get(0), TABLE_DATA[2]);
+    }
 }